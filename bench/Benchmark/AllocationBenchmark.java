@@ -0,0 +1,113 @@
+package Benchmark;
+
+import Model.DisasterReport;
+import Model.Resource;
+import Persistance.DatabaseManagers;
+import Persistance.IDatabaseManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of allocation throughput under contention. Eight threads allocate
+ * one unit at a time from a pool of resources; the fewer resources there are, the
+ * more the threads compete for the same stock. The pool size is chosen with
+ * -p resources and the backend with -p backend=memory|embedded, as for
+ * {@link SeededDatabase}.
+ *
+ * At the end of the run the stock taken is checked against the number of
+ * successful allocations, and the run fails if they differ, so any
+ * over-allocation shows up as an error rather than a faster result.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddrs.db.embeddedPath=mem")
+@Threads(8)
+public class AllocationBenchmark {
+    private static final int INITIAL_STOCK = 100_000_000;
+
+    /**
+     * A database holding one disaster and the pool of resources the threads share.
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({ "memory", "embedded" })
+        public String backend;
+
+        @Param({ "1", "8", "64" })
+        public int resources;
+
+        IDatabaseManager db;
+        int disasterId;
+        int[] resourceIds;
+        final LongAdder allocated = new LongAdder();
+
+        /**
+         * Opens the database and adds the disaster and resources.
+         */
+        @Setup(Level.Trial)
+        public void open() {
+            db = DatabaseManagers.create(backend);
+            DisasterReport disaster = new DisasterReport(0, "Benchmark", "Benchmark", 1, "Allocation benchmark",
+                "Active", LocalDateTime.now());
+            db.addDisasterReports(List.of(disaster));
+            disasterId = disaster.getReportID();
+            List<Resource> pool = new ArrayList<>();
+            for (int i = 0; i < resources; i++) {
+                pool.add(new Resource(0, "Benchmark", INITIAL_STOCK, "Available"));
+            }
+            db.addResources(pool);
+            resourceIds = pool.stream().mapToInt(Resource::getResourceID).toArray();
+        }
+
+        /**
+         * Checks the stock taken against the successful allocations and closes the database.
+         */
+        @TearDown(Level.Trial)
+        public void close() {
+            try {
+                long remaining = 0;
+                for (int resourceId : resourceIds) {
+                    remaining += db.getResourceById(resourceId).getQuantity();
+                }
+                long taken = (long) INITIAL_STOCK * resources - remaining;
+                if (taken != allocated.sum()) {
+                    throw new IllegalStateException("Stock is inconsistent: " + taken + " taken for "
+                        + allocated.sum() + " allocations");
+                }
+            } finally {
+                db.closeConnection();
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean allocate(Pool pool) {
+        boolean allocated = pool.db.allocateResourceToDisaster(SeededDatabase.pick(pool.resourceIds), pool.disasterId, 1);
+        if (allocated) {
+            pool.allocated.increment();
+        }
+        return allocated;
+    }
+}
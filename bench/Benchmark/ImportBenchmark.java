@@ -0,0 +1,168 @@
+package Benchmark;
+
+import Persistance.BulkImporter;
+import Persistance.DatabaseManagers;
+import Persistance.IDatabaseManager;
+import Persistance.ImportResult;
+import Util.RecordReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of bulk imports. A CSV file of disaster reports and a JSON Lines
+ * file of resources are generated once, and each invocation imports a whole file
+ * through {@link BulkImporter}, so the score is the time per file of -p rows rows.
+ * Every thousandth row is invalid, so the error path is measured too, and an
+ * import that does not account for every row fails the run.
+ *
+ * The backend is chosen with -p backend=memory|embedded, as for
+ * {@link SeededDatabase}. The database keeps the rows of earlier imports, so it
+ * grows over the run. The import itself is tuned with the drs.import.* properties
+ * described in {@link BulkImporter}, passed with -jvmArgsAppend.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Ddrs.db.embeddedPath=mem")
+public class ImportBenchmark {
+    private static final int INVALID_EVERY = 1000;
+    private static final String[] DISASTER_TYPES = { "Flood", "Fire", "Earthquake", "Storm", "Landslide" };
+
+    /**
+     * The database to import into and the generated files.
+     */
+    @State(Scope.Benchmark)
+    public static class ImportFiles {
+        @Param({ "memory", "embedded" })
+        public String backend;
+
+        @Param({ "10000", "100000" })
+        public int rows;
+
+        IDatabaseManager db;
+        Path directory;
+        Path reports;
+        Path resources;
+
+        /**
+         * Opens the database and writes the files.
+         *
+         * @throws IOException if the files cannot be written
+         */
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            db = DatabaseManagers.create(backend);
+            directory = Files.createTempDirectory("drs-import-bench");
+            reports = writeReports(directory.resolve("reports.csv"), rows);
+            resources = writeResources(directory.resolve("resources.jsonl"), rows);
+        }
+
+        /**
+         * Closes the database and deletes the files.
+         *
+         * @throws IOException if the files cannot be deleted
+         */
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            db.closeConnection();
+            Files.deleteIfExists(reports);
+            Files.deleteIfExists(resources);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public ImportResult importReports(ImportFiles files) throws IOException {
+        try (RecordReader records = BulkImporter.open(files.reports)) {
+            return check(files.rows, BulkImporter.importDisasterReports(files.db, records, null));
+        }
+    }
+
+    @Benchmark
+    public ImportResult importResources(ImportFiles files) throws IOException {
+        try (RecordReader records = BulkImporter.open(files.resources)) {
+            return check(files.rows, BulkImporter.importResources(files.db, records, null));
+        }
+    }
+
+    /**
+     * Checks that every row of an import was either imported or reported as failed.
+     *
+     * @param rows   the number of rows in the file
+     * @param result the outcome of the import
+     * @return the outcome
+     * @throws IllegalStateException if a row is unaccounted for
+     */
+    private static ImportResult check(int rows, ImportResult result) {
+        long expectedFailures = rows / INVALID_EVERY;
+        if (!result.isComplete() || result.getRowsRead() != rows
+                || result.getRowsImported() + result.getRowsFailed() != rows || result.getRowsFailed() != expectedFailures) {
+            throw new IllegalStateException("Import is inconsistent: " + result.getSummary(3));
+        }
+        return result;
+    }
+
+    /**
+     * Writes a CSV file of disaster reports.
+     *
+     * @param file the file to write
+     * @param rows the number of reports
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private static Path writeReports(Path file, int rows) throws IOException {
+        LocalDateTime start = LocalDateTime.now().minusYears(1).withNano(0);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("disasterType,location,severity,description,timeStamp,latitude,longitude\n");
+            for (int i = 1; i <= rows; i++) {
+                int severity = i % INVALID_EVERY == 0 ? 11 : 1 + i % 10;
+                out.write(DISASTER_TYPES[i % DISASTER_TYPES.length] + ",\"Sector " + i % 500 + ", North\"," + severity
+                    + ",\"Report " + i + " from the field, \"\"bulk\"\" import\"," + start.plusSeconds(i) + ","
+                    + (-45 + i % 90) + "." + i % 1000 + "," + (-170 + i % 340) + "." + i % 997 + "\n");
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Writes a JSON Lines file of resources.
+     *
+     * @param file the file to write
+     * @param rows the number of resources
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private static Path writeResources(Path file, int rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 1; i <= rows; i++) {
+                int quantity = i % INVALID_EVERY == 0 ? -1 : i % 5000;
+                out.write("{\"type\": \"Supply " + i % 200 + "\", \"quantity\": " + quantity
+                    + ", \"status\": \"Available\", \"latitude\": " + (-45 + i % 90) + ".5, \"longitude\": "
+                    + (-170 + i % 340) + ".25}\n");
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,230 @@
+package Benchmark;
+
+import Model.Agency;
+import Model.AgencyAssignment;
+import Model.DisasterReport;
+import Model.Resource;
+import Model.ResourceAllocation;
+import Model.User;
+import Persistance.ChangeSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of the read methods of IDatabaseManager: point lookups by ID,
+ * keyset pages, full list scans, the joins behind the agency assignment and
+ * allocation queries, full-text, proximity and history searches, the streaming
+ * queries, which consume every row, and change capture. Each call picks its key
+ * at random from the seeded rows of {@link SeededDatabase}, so repeated calls do
+ * not hit the same row.
+ *
+ * Every method is measured for throughput and, in sample mode, for latency
+ * percentiles; run with -prof gc for the allocation rate per call. The list scans
+ * return every seeded row, so use a small rows parameter for them.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddrs.db.embeddedPath=mem")
+public class ReadBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Benchmark
+    public User getUserById(SeededDatabase seeded) {
+        return seeded.db.getUserById(SeededDatabase.pick(seeded.userIds));
+    }
+
+    @Benchmark
+    public User getUserByUsername(SeededDatabase seeded) {
+        return seeded.db.getUserByUsername("bench-user-" + ThreadLocalRandom.current().nextInt(seeded.rows));
+    }
+
+    @Benchmark
+    public List<User> getAllUsers(SeededDatabase seeded) {
+        return seeded.db.getAllUsers();
+    }
+
+    @Benchmark
+    public List<User> getUsersBefore(SeededDatabase seeded) {
+        return seeded.db.getUsersBefore(SeededDatabase.pick(seeded.userIds), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<String> getAllRoles(SeededDatabase seeded) {
+        return seeded.db.getAllRoles();
+    }
+
+    @Benchmark
+    public Resource getResourceById(SeededDatabase seeded) {
+        return seeded.db.getResourceById(SeededDatabase.pick(seeded.resourceIds));
+    }
+
+    @Benchmark
+    public List<Resource> getAllResources(SeededDatabase seeded) {
+        return seeded.db.getAllResources();
+    }
+
+    @Benchmark
+    public List<Resource> getResourcesByType(SeededDatabase seeded) {
+        String[] types = SeededDatabase.RESOURCE_TYPES;
+        return seeded.db.getResourcesByType(types[ThreadLocalRandom.current().nextInt(types.length)]);
+    }
+
+    @Benchmark
+    public DisasterReport getDisasterReportById(SeededDatabase seeded) {
+        return seeded.db.getDisasterReportById(SeededDatabase.pick(seeded.reportIds));
+    }
+
+    @Benchmark
+    public int getDisasterIdByType(SeededDatabase seeded) {
+        String[] types = SeededDatabase.DISASTER_TYPES;
+        return seeded.db.getDisasterIdByType(types[ThreadLocalRandom.current().nextInt(types.length)]);
+    }
+
+    @Benchmark
+    public List<DisasterReport> getAllDisasterReports(SeededDatabase seeded) {
+        return seeded.db.getAllDisasterReports();
+    }
+
+    @Benchmark
+    public List<DisasterReport> getActiveDisasterReports(SeededDatabase seeded) {
+        return seeded.db.getActiveDisasterReports();
+    }
+
+    @Benchmark
+    public List<DisasterReport> getDisasterReportsBefore(SeededDatabase seeded) {
+        return seeded.db.getDisasterReportsBefore(SeededDatabase.pick(seeded.reportIds), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<DisasterReport> getDisasterReportsAfter(SeededDatabase seeded) {
+        return seeded.db.getDisasterReportsAfter(SeededDatabase.pick(seeded.reportIds), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<DisasterReport> searchDisasterReports(SeededDatabase seeded) {
+        String[] words = SeededDatabase.SEARCH_WORDS;
+        return seeded.db.searchDisasterReports(words[ThreadLocalRandom.current().nextInt(words.length)], PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Resource> getResourcesAllocatedToDisaster(SeededDatabase seeded) {
+        return seeded.db.getResourcesAllocatedToDisaster(SeededDatabase.pick(seeded.reportIds));
+    }
+
+    @Benchmark
+    public Map<String, Integer> getAllocationTotals(SeededDatabase seeded) {
+        return seeded.db.getAllocationTotals(SeededDatabase.pick(seeded.reportIds));
+    }
+
+    @Benchmark
+    public int getAllocatedQuantity(SeededDatabase seeded) {
+        String[] types = SeededDatabase.RESOURCE_TYPES;
+        return seeded.db.getAllocatedQuantity(SeededDatabase.pick(seeded.reportIds),
+            types[ThreadLocalRandom.current().nextInt(types.length)]);
+    }
+
+    @Benchmark
+    public List<Agency> getAllAgencies(SeededDatabase seeded) {
+        return seeded.db.getAllAgencies();
+    }
+
+    @Benchmark
+    public List<AgencyAssignment> getAllAgencyAssignments(SeededDatabase seeded) {
+        return seeded.db.getAllAgencyAssignments();
+    }
+
+    @Benchmark
+    public AgencyAssignment getAgencyAssignmentById(SeededDatabase seeded) {
+        return seeded.db.getAgencyAssignmentById(SeededDatabase.pick(seeded.assignmentIds));
+    }
+
+    @Benchmark
+    public List<AgencyAssignment> getAgenciesAssignedToDisaster(SeededDatabase seeded) {
+        return seeded.db.getAgenciesAssignedToDisaster(SeededDatabase.pick(seeded.reportIds));
+    }
+
+    @Benchmark
+    public void streamAllDisasterReports(SeededDatabase seeded, Blackhole blackhole) {
+        try (Stream<DisasterReport> reports = seeded.db.streamAllDisasterReports()) {
+            reports.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void streamAllResources(SeededDatabase seeded, Blackhole blackhole) {
+        try (Stream<Resource> resources = seeded.db.streamAllResources()) {
+            resources.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void streamAllAgencyAssignments(SeededDatabase seeded, Blackhole blackhole) {
+        try (Stream<AgencyAssignment> assignments = seeded.db.streamAllAgencyAssignments()) {
+            assignments.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void streamAllResourceAllocations(SeededDatabase seeded, Blackhole blackhole) {
+        try (Stream<ResourceAllocation> allocations = seeded.db.streamAllResourceAllocations()) {
+            allocations.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public List<DisasterReport> getDisasterReportsNear(SeededDatabase seeded) {
+        double[] point = SeededDatabase.pickPoint();
+        return seeded.db.getDisasterReportsNear(point[0], point[1], 10);
+    }
+
+    @Benchmark
+    public List<DisasterReport> getDisasterReportsWithin(SeededDatabase seeded) {
+        double[] point = SeededDatabase.pickPoint();
+        return seeded.db.getDisasterReportsWithin(point[0], point[1], 25);
+    }
+
+    @Benchmark
+    public List<Resource> getResourcesNear(SeededDatabase seeded) {
+        double[] point = SeededDatabase.pickPoint();
+        return seeded.db.getResourcesNear(point[0], point[1], 10);
+    }
+
+    @Benchmark
+    public List<Resource> getResourcesWithin(SeededDatabase seeded) {
+        double[] point = SeededDatabase.pickPoint();
+        return seeded.db.getResourcesWithin(point[0], point[1], 25);
+    }
+
+    @Benchmark
+    public List<DisasterReport> getDisasterReportHistory(SeededDatabase seeded) {
+        LocalDateTime from = LocalDateTime.now().minusDays(1 + ThreadLocalRandom.current().nextInt(364));
+        return seeded.db.getDisasterReportHistory(from, from.plusDays(1));
+    }
+
+    @Benchmark
+    public long getChangeVersion(SeededDatabase seeded) {
+        return seeded.db.getChangeVersion();
+    }
+
+    @Benchmark
+    public ChangeSet changesSince(SeededDatabase seeded) {
+        return seeded.db.changesSince(seeded.seededVersion - PAGE_SIZE);
+    }
+}
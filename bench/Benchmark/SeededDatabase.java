@@ -0,0 +1,211 @@
+package Benchmark;
+
+import Model.Agency;
+import Model.AgencyAssignment;
+import Model.DisasterReport;
+import Model.Resource;
+import Model.ResourceAllocation;
+import Model.User;
+import Persistance.DatabaseManagers;
+import Persistance.DisasterDatabaseConn;
+import Persistance.IDatabaseManager;
+import Persistance.InMemoryDatabaseManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A database stand-in seeded with the same number of users, resources and disaster
+ * reports, each report with one allocation and one agency assignment, shared by the
+ * threads of a benchmark. The reports are filed over the past year, and every
+ * report and resource has coordinates, so the history and proximity queries have
+ * data to find.
+ *
+ * The backend is chosen with -p backend=memory|embedded: memory is
+ * {@link InMemoryDatabaseManager}, and embedded is H2 held in memory, which runs
+ * the same SQL as MySQL through {@link DisasterDatabaseConn}. The size is chosen
+ * with -p rows. JMH runs each combination in a fresh JVM, so every run starts from
+ * an empty database.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    static final String[] DISASTER_TYPES = { "Flood", "Fire", "Earthquake", "Storm", "Landslide" };
+    static final String[] RESOURCE_TYPES = { "Water", "Food", "Medical Kits", "Blankets", "Tents", "Generators" };
+    static final String[] ROLES = { "Coordinator", "Responder", "Analyst" };
+    static final String[] SEARCH_WORDS = { "bridge", "hospital", "school", "river", "highway" };
+
+    @Param({ "memory", "embedded" })
+    public String backend;
+
+    @Param({ "1000", "100000" })
+    public int rows;
+
+    IDatabaseManager db;
+    int[] userIds;
+    int[] resourceIds;
+    int[] reportIds;
+    int[] assignmentIds;
+    int[] agencyIds;
+    long seededVersion;
+
+    /**
+     * Opens the database and seeds it.
+     */
+    @Setup(Level.Trial)
+    public void open() {
+        db = DatabaseManagers.create(backend);
+        agencyIds = db.getAllAgencies().stream().mapToInt(Agency::getId).toArray();
+        userIds = seedUsers();
+        resourceIds = seedResources();
+        reportIds = seedReports();
+        seedAllocations();
+        assignmentIds = seedAssignments();
+        seededVersion = db.getChangeVersion();
+    }
+
+    /**
+     * Closes the database.
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+        db.closeConnection();
+    }
+
+    /**
+     * Picks one of the IDs at random.
+     *
+     * @param ids the IDs to pick from
+     * @return one of them
+     */
+    static int pick(int[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    /**
+     * Picks a random point in the area the seeded rows are spread over.
+     *
+     * @return the latitude and longitude
+     */
+    static double[] pickPoint() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new double[] { -40 + random.nextDouble(20), 140 + random.nextDouble(20) };
+    }
+
+    /**
+     * Builds a user as the seed data does.
+     *
+     * @param username the user's username
+     * @param i        the row number, used to vary the values
+     * @return the user
+     */
+    static User user(String username, int i) {
+        return new User(0, "Bench User " + i, username, i % 2, LocalDate.of(1970, 1, 1).plusDays(i % 15_000),
+            "0400000000", "1 Bench Street", ROLES[i % ROLES.length], username + "@example.com", "password");
+    }
+
+    /**
+     * Builds a disaster report as the seed data does.
+     *
+     * @param i     the row number, used to vary the values
+     * @param filed when the report was filed
+     * @return the report
+     */
+    static DisasterReport report(int i, LocalDateTime filed) {
+        DisasterReport report = new DisasterReport(0, DISASTER_TYPES[i % DISASTER_TYPES.length], "Sector " + i % 500,
+            1 + i % 10, "Damage near the " + SEARCH_WORDS[i % SEARCH_WORDS.length] + " reported by team " + i,
+            "Active", filed);
+        report.setCoordinates(-40 + (i % 20_000 * 7919 % 20_000) / 1000.0, 140 + (i % 20_000 * 104_729 % 20_000) / 1000.0);
+        return report;
+    }
+
+    /**
+     * Builds a resource as the seed data does.
+     *
+     * @param i the row number, used to vary the values
+     * @return the resource
+     */
+    static Resource resource(int i) {
+        Resource resource = new Resource(0, RESOURCE_TYPES[i % RESOURCE_TYPES.length], 1_000_000, "Available");
+        resource.setCoordinates(-40 + (i % 20_000 * 6007 % 20_000) / 1000.0, 140 + (i % 20_000 * 7727 % 20_000) / 1000.0);
+        return resource;
+    }
+
+    /**
+     * Adds the seed users.
+     *
+     * @return their IDs
+     */
+    private int[] seedUsers() {
+        List<User> users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            users.add(user("bench-user-" + i, i));
+        }
+        db.addUsers(users);
+        return users.stream().mapToInt(User::getUserID).toArray();
+    }
+
+    /**
+     * Adds the seed resources.
+     *
+     * @return their IDs
+     */
+    private int[] seedResources() {
+        List<Resource> resources = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            resources.add(resource(i));
+        }
+        db.addResources(resources);
+        return resources.stream().mapToInt(Resource::getResourceID).toArray();
+    }
+
+    /**
+     * Adds the seed reports, filed evenly over the past year.
+     *
+     * @return their IDs
+     */
+    private int[] seedReports() {
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        List<DisasterReport> reports = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            reports.add(report(i, start.plusSeconds(i * 31_536_000L / rows)));
+        }
+        db.addDisasterReports(reports);
+        return reports.stream().mapToInt(DisasterReport::getReportID).toArray();
+    }
+
+    /**
+     * Allocates one unit of a resource to each seed report.
+     */
+    private void seedAllocations() {
+        List<ResourceAllocation> allocations = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            allocations.add(new ResourceAllocation(0, resourceIds[i], reportIds[i], 1));
+        }
+        db.allocateResources(allocations);
+    }
+
+    /**
+     * Assigns an agency to each seed report.
+     *
+     * @return the assignment IDs
+     */
+    private int[] seedAssignments() {
+        List<AgencyAssignment> assignments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            assignments.add(new AgencyAssignment(0, agencyIds[i % agencyIds.length], null, reportIds[i], null, null, null));
+        }
+        db.assignAgencies(assignments);
+        return assignments.stream().mapToInt(AgencyAssignment::getAssignmentID).toArray();
+    }
+}
@@ -0,0 +1,189 @@
+package Benchmark;
+
+import Model.AgencyAssignment;
+import Model.DisasterReport;
+import Model.Resource;
+import Model.ResourceAllocation;
+import Model.User;
+import Persistance.BatchResult;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the write methods of IDatabaseManager: single inserts,
+ * updates and deletes, allocations, agency assignments, the batched writes and
+ * archiving, against the seeded rows of {@link SeededDatabase}.
+ *
+ * Each update reads the row it changes first, as the screens do. A delete can
+ * only run once per row, so each delete benchmark first adds the row it deletes,
+ * as a batch of one so that its ID is known. Reports are always filed as Active,
+ * so the archive benchmark measures the search for reports due to be archived.
+ * The database grows as the insert benchmarks run, so compare results taken
+ * with the same run length.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddrs.db.embeddedPath=mem")
+public class WriteBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final AtomicInteger NEXT_ROW = new AtomicInteger();
+
+    @Benchmark
+    public boolean addUser(SeededDatabase seeded) {
+        return seeded.db.addUser(newUser());
+    }
+
+    @Benchmark
+    public boolean updateUser(SeededDatabase seeded) {
+        User user = seeded.db.getUserById(SeededDatabase.pick(seeded.userIds));
+        user.setRole(SeededDatabase.ROLES[NEXT_ROW.incrementAndGet() % SeededDatabase.ROLES.length]);
+        return seeded.db.updateUser(user);
+    }
+
+    @Benchmark
+    public boolean addAndDeleteUser(SeededDatabase seeded) {
+        User user = newUser();
+        seeded.db.addUsers(List.of(user));
+        return seeded.db.deleteUser(user.getUserID());
+    }
+
+    @Benchmark
+    public boolean addResource(SeededDatabase seeded) {
+        return seeded.db.addResource(SeededDatabase.resource(NEXT_ROW.incrementAndGet()));
+    }
+
+    @Benchmark
+    public boolean updateResource(SeededDatabase seeded) {
+        Resource resource = seeded.db.getResourceById(SeededDatabase.pick(seeded.resourceIds));
+        resource.setStatus(resource.getStatus().equals("Available") ? "In Use" : "Available");
+        return seeded.db.updateResource(resource);
+    }
+
+    @Benchmark
+    public boolean updateResourceStatus(SeededDatabase seeded) {
+        return seeded.db.updateResourceStatus(SeededDatabase.pick(seeded.resourceIds),
+            NEXT_ROW.incrementAndGet() % 2 == 0 ? "Available" : "In Use");
+    }
+
+    @Benchmark
+    public boolean addAndDeleteResource(SeededDatabase seeded) {
+        Resource resource = SeededDatabase.resource(NEXT_ROW.incrementAndGet());
+        seeded.db.addResources(List.of(resource));
+        return seeded.db.deleteResource(resource.getResourceID());
+    }
+
+    @Benchmark
+    public boolean addDisasterReport(SeededDatabase seeded) {
+        return seeded.db.addDisasterReport(SeededDatabase.report(NEXT_ROW.incrementAndGet(), LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public boolean updateDisasterReport(SeededDatabase seeded) {
+        DisasterReport report = seeded.db.getDisasterReportById(SeededDatabase.pick(seeded.reportIds));
+        report.setSeverity(1 + NEXT_ROW.incrementAndGet() % 10);
+        return seeded.db.updateDisasterReport(report);
+    }
+
+    @Benchmark
+    public boolean addAndDeleteDisasterReport(SeededDatabase seeded) {
+        DisasterReport report = SeededDatabase.report(NEXT_ROW.incrementAndGet(), LocalDateTime.now());
+        seeded.db.addDisasterReports(List.of(report));
+        return seeded.db.deleteDisasterReport(report.getReportID());
+    }
+
+    @Benchmark
+    public boolean allocateResourceToDisaster(SeededDatabase seeded) {
+        return seeded.db.allocateResourceToDisaster(SeededDatabase.pick(seeded.resourceIds),
+            SeededDatabase.pick(seeded.reportIds), 1);
+    }
+
+    @Benchmark
+    public int reserveResource(SeededDatabase seeded) {
+        return seeded.db.reserveResource(SeededDatabase.pick(seeded.resourceIds), SeededDatabase.pick(seeded.reportIds),
+            1, true);
+    }
+
+    @Benchmark
+    public boolean assignAgencyToDisaster(SeededDatabase seeded) {
+        return seeded.db.assignAgencyToDisaster(SeededDatabase.pick(seeded.agencyIds),
+            SeededDatabase.pick(seeded.reportIds));
+    }
+
+    @Benchmark
+    public BatchResult addUsers(SeededDatabase seeded) {
+        List<User> users = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            users.add(newUser());
+        }
+        return seeded.db.addUsers(users);
+    }
+
+    @Benchmark
+    public BatchResult addResources(SeededDatabase seeded) {
+        List<Resource> resources = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            resources.add(SeededDatabase.resource(NEXT_ROW.incrementAndGet()));
+        }
+        return seeded.db.addResources(resources);
+    }
+
+    @Benchmark
+    public BatchResult addDisasterReports(SeededDatabase seeded) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DisasterReport> reports = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            reports.add(SeededDatabase.report(NEXT_ROW.incrementAndGet(), now));
+        }
+        return seeded.db.addDisasterReports(reports);
+    }
+
+    @Benchmark
+    public BatchResult allocateResources(SeededDatabase seeded) {
+        List<ResourceAllocation> allocations = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            allocations.add(new ResourceAllocation(0, SeededDatabase.pick(seeded.resourceIds),
+                SeededDatabase.pick(seeded.reportIds), 1));
+        }
+        return seeded.db.allocateResources(allocations);
+    }
+
+    @Benchmark
+    public BatchResult assignAgencies(SeededDatabase seeded) {
+        List<AgencyAssignment> assignments = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            assignments.add(new AgencyAssignment(0, SeededDatabase.pick(seeded.agencyIds), null,
+                SeededDatabase.pick(seeded.reportIds), null, null, null));
+        }
+        return seeded.db.assignAgencies(assignments);
+    }
+
+    @Benchmark
+    public int archiveDisasterReports(SeededDatabase seeded) {
+        return seeded.db.archiveDisasterReports(LocalDateTime.now().minusDays(30), BATCH_SIZE);
+    }
+
+    /**
+     * Builds a user with a username no other benchmark call uses.
+     *
+     * @return the user
+     */
+    private static User newUser() {
+        int row = NEXT_ROW.incrementAndGet();
+        return SeededDatabase.user("bench-new-user-" + row, row);
+    }
+}
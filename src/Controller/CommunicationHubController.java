@@ -8,11 +8,8 @@ import java.time.LocalDateTime;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableColumn;
@@ -76,7 +73,16 @@ public class CommunicationHubController implements Initializable {
     @FXML
     private TableView<Message> sentMessagesTable;
 
+    private final ViewRegistry views;
     
+    /**
+     * Constructs a new CommunicationHubController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public CommunicationHubController(ViewRegistry views) {
+        this.views = views;
+    }
     
     /**
      * Initializes the controller class.
@@ -126,16 +132,11 @@ public class CommunicationHubController implements Initializable {
     @FXML
     private void goBackAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/ResponseMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the response menu; the screen being left cancels its database calls
+            views.show(stage, Screen.RESPONSE_MENU);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
@@ -1,6 +1,7 @@
 package Controller;
 
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,18 +13,33 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import Model.*;
-import Persistance.DisasterDatabaseConn;
+import Persistance.AsyncDatabaseManager;
+import Persistance.Change;
+import Persistance.ChangeTracker;
+import Persistance.BulkImporter;
+import Persistance.IDatabaseManager;
+import Persistance.ImportResult;
+import Util.GeoHash;
+import Util.RecordReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.List;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.fxml.FXMLLoader;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * FXML Controller class for the Disaster Reporting view.
@@ -33,17 +49,23 @@ import javafx.stage.Stage;
  * @author Sagar Bhujel
  * student id 12256739
  */
-public class DisasterReportingController implements Initializable {
+public class DisasterReportingController implements Initializable, ViewController {
 
     @FXML
     private ComboBox<String> disasterTypeComboBox;
     @FXML
     private TextField locationField;
     @FXML
+    private TextField latitudeField;
+    @FXML
+    private TextField longitudeField;
+    @FXML
     private Slider severitySlider;
     @FXML
     private TextArea descriptionArea;
     @FXML
+    private Label importStatusLabel;
+    @FXML
     private TableView<DisasterReport> disasterTable;
     @FXML
     private TableColumn<DisasterReport, Integer> reportIdColumn;
@@ -57,28 +79,94 @@ public class DisasterReportingController implements Initializable {
     private TableColumn<DisasterReport, String> statusColumn;
     @FXML
     private TableColumn<DisasterReport, LocalDateTime> timestampColumn;
+    @FXML
+    private TextField searchField;
 
     /**
      * Initializes the controller class.
      */
     
-    private DisasterDatabaseConn dbConn;
+    private AsyncDatabaseManager.Scope dbTasks;
+    private final ViewRegistry views;
+    // Whether the reports have been loaded, after which showing the screen only refreshes them
+    private boolean reportsLoaded;
+    
+    // The disaster table is filled a page at a time as the user scrolls, keeping
+    // at most MAX_LOADED_REPORTS rows in memory
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_LOADED_REPORTS = 500;
+    private final ObservableList<DisasterReport> loadedReports = FXCollections.observableArrayList();
+    private boolean pageLoading;
+    private boolean olderPagesRemaining;
+    private boolean newerPagesDropped;
+    private int loadGeneration;
+    private final ChangeTracker<DisasterReport> reportChanges =
+        new ChangeTracker<>(Change.DISASTER_REPORTS, IDatabaseManager::getDisasterReportById, DisasterReport::getReportID);
+
+    // Search runs once typing pauses, and only the latest search's results are shown
+    private static final int SEARCH_LIMIT = 100;
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(250));
+    private int searchGeneration;
+    private boolean searching;
+
+    // An active report of the same type this close to a new one is probably the same incident
+    private static final double DUPLICATE_RADIUS_KM = 1.0;
+    // Row errors listed in the summary after an import; the rest are only counted
+    private static final int IMPORT_ERRORS_SHOWN = 10;
+    
+    /**
+     * Constructs a new DisasterReportingController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public DisasterReportingController(ViewRegistry views) {
+        this.views = views;
+    }
     
     /**
      * Initializes the controller class.
-     * Sets up the disaster type combo box, table columns, and loads existing disaster reports.
+     * Sets up the disaster type combo box and table columns; the disaster reports are
+     * loaded when the screen is shown.
      *
      * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
      * @param rb The resources used to localize the root object, or null if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        dbConn = new DisasterDatabaseConn();
         setupDisasterTypeComboBox();
         setupTableColumns();
-        loadDisasterReports();
+        setupPagingScrollListener();
+        setupSearchField();
+        disasterTable.setItems(loadedReports);
     }  
     
+    /**
+     * Opens a database task scope for this screen and loads the disaster reports the
+     * first time it is shown. Later visits only bring the reports shown up to date.
+     */
+    @Override
+    public void onShow() {
+        dbTasks = DisasterResponseSystem.getAsyncDb().openScope();
+        if (searching) {
+            searchReports(searchField.getText());
+        } else if (reportsLoaded) {
+            refreshDisasterReports();
+        } else {
+            loadDisasterReports();
+        }
+    }
+    
+    /**
+     * Cancels any search waiting to run and any database calls still running for
+     * this screen, including an import.
+     */
+    @Override
+    public void onHide() {
+        searchDelay.stop();
+        dbTasks.close();
+        importStatusLabel.setText("");
+    }
+    
     /**
      * Sets up the disaster type combo box with predefined disaster types.
      */
@@ -108,26 +196,148 @@ public class DisasterReportingController implements Initializable {
      */
     @FXML
     private void submitReport(ActionEvent event) {
-        String disasterType = disasterTypeComboBox.getValue();
-        String location = locationField.getText();
-        int severity = (int) severitySlider.getValue();
-        String description = descriptionArea.getText();
+        UiActionEvent action = UiActionEvent.start(this, "submitReport");
+        try {
+            String disasterType = disasterTypeComboBox.getValue();
+            String location = locationField.getText();
+            int severity = (int) severitySlider.getValue();
+            String description = descriptionArea.getText();
+
+            if (disasterType == null || location.isEmpty() || description.isEmpty()) {
+                showAlert("Error", "Please fill all fields", Alert.AlertType.ERROR);
+                return;
+            }
+            DisasterReport report = new DisasterReport(0, disasterType, location, severity, description, "Active", LocalDateTime.now());
+            String latitude = latitudeField.getText().trim();
+            String longitude = longitudeField.getText().trim();
+            if (!latitude.isEmpty() || !longitude.isEmpty()) {
+                try {
+                    report.setCoordinates(Double.valueOf(latitude), Double.valueOf(longitude));
+                } catch (NumberFormatException e) {
+                    showAlert("Error", "Please enter both latitude and longitude as numbers, or neither", Alert.AlertType.ERROR);
+                    return;
+                }
+                if (!GeoHash.isValid(report.getLatitude(), report.getLongitude())) {
+                    showAlert("Error", "Latitude must be between -90 and 90 and longitude between -180 and 180", Alert.AlertType.ERROR);
+                    return;
+                }
+            }
+            if (!report.hasCoordinates()) {
+                addReport(report);
+                return;
+            }
+            dbTasks.load(db -> findPossibleDuplicates(db, report), duplicates -> {
+                if (duplicates.isEmpty() || confirmDespiteDuplicate(report, duplicates.get(0))) {
+                    addReport(report);
+                }
+            }, error -> addReport(report));
+        } finally {
+            action.finish();
+        }
+    }
+
+    /**
+     * Finds the active reports of the same type close enough to a new report to be
+     * the same incident.
+     *
+     * @param db     the database to search
+     * @param report the new report, which has coordinates
+     * @return the possible duplicates, nearest first
+     */
+    private static List<DisasterReport> findPossibleDuplicates(IDatabaseManager db, DisasterReport report) {
+        List<DisasterReport> nearby = db.getDisasterReportsWithin(report.getLatitude(), report.getLongitude(), DUPLICATE_RADIUS_KM);
+        nearby.removeIf(other -> !"Active".equals(other.getStatus()) || !report.getDisasterType().equals(other.getDisasterType()));
+        return nearby;
+    }
 
-        if (disasterType == null || location.isEmpty() || description.isEmpty()) {
-            showAlert("Error", "Please fill all fields", Alert.AlertType.ERROR);
+    /**
+     * Asks the user whether to submit a report that may duplicate an existing one.
+     *
+     * @param report    the new report
+     * @param duplicate the nearest possible duplicate
+     * @return true if the user chose to submit the report anyway
+     */
+    private boolean confirmDespiteDuplicate(DisasterReport report, DisasterReport duplicate) {
+        double distanceKm = GeoHash.distanceKm(report.getLatitude(), report.getLongitude(),
+            duplicate.getLatitude(), duplicate.getLongitude());
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Possible Duplicate");
+        alert.setHeaderText(null);
+        alert.setContentText(String.format("Active %s report %d at %s is %.2f km away. Submit this report anyway?",
+            duplicate.getDisasterType(), duplicate.getReportID(), duplicate.getLocation(), distanceKm));
+        return alert.showAndWait().filter(ButtonType.OK::equals).isPresent();
+    }
+
+    /**
+     * Adds a validated report to the database and refreshes the reports shown.
+     *
+     * @param report the report to add
+     */
+    private void addReport(DisasterReport report) {
+        dbTasks.load(db -> db.addDisasterReport(report), added -> {
+            if (added) {
+                showAlert("Success", "Disaster report submitted successfully", Alert.AlertType.INFORMATION);
+                clearInputFields();
+                if (searching) {
+                    searchReports(searchField.getText());
+                } else {
+                    refreshDisasterReports();
+                }
+            } else {
+                showAlert("Error", "Failed to submit disaster report", Alert.AlertType.ERROR);
+            }
+        }, error -> showAlert("Error", "Failed to submit disaster report: " + error.getMessage(), Alert.AlertType.ERROR));
+    }
+    
+    /**
+     * Imports disaster reports from a CSV or JSON file chosen by the user. The import
+     * runs in the background with its progress shown beside the button, and is
+     * cancelled if the user leaves the screen.
+     *
+     * @param event The action event triggered by clicking the import button.
+     */
+    @FXML
+    private void importReports(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Disaster Reports");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV and JSON files", BulkImporter.FILE_PATTERNS));
+        File file = chooser.showOpenDialog(disasterTypeComboBox.getScene().getWindow());
+        if (file == null) {
             return;
         }
-        DisasterReport report = new DisasterReport(0, disasterType, location, severity, description, "Active", LocalDateTime.now());
-        
-        if (dbConn.addDisasterReport(report)) {
-            showAlert("Success", "Disaster report submitted successfully", Alert.AlertType.INFORMATION);
-            clearInputFields();
-            loadDisasterReports();
-        } else {
-            showAlert("Error", "Failed to submit disaster report", Alert.AlertType.ERROR);
+        importStatusLabel.setText("Importing " + file.getName() + "...");
+        dbTasks.loadInterruptibly(db -> importReportsFrom(db, file.toPath()), result -> {
+            importStatusLabel.setText("");
+            showAlert("Import Finished", result.getSummary(IMPORT_ERRORS_SHOWN),
+                result.getRowsFailed() == 0 && result.isComplete() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+            if (searching) {
+                searchReports(searchField.getText());
+            } else {
+                loadDisasterReports();
+            }
+        }, error -> {
+            importStatusLabel.setText("");
+            showAlert("Error", "Failed to import disaster reports: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+
+    /**
+     * Imports disaster reports from a file, showing progress as each batch is stored.
+     *
+     * @param db   the database to add the reports to
+     * @param file the file to read
+     * @return the outcome of the import
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    private ImportResult importReportsFrom(IDatabaseManager db, Path file) {
+        try (RecordReader records = BulkImporter.open(file)) {
+            return BulkImporter.importDisasterReports(db, records, (read, imported, failed) -> Platform.runLater(() ->
+                importStatusLabel.setText(String.format("%,d rows read, %,d imported, %,d failed", read, imported, failed))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
-    
+
     /**
      * Refreshes the list of disaster reports in the table view.
      *
@@ -135,7 +345,16 @@ public class DisasterReportingController implements Initializable {
      */
     @FXML
     private void refreshDisasterList(ActionEvent event) {
-        loadDisasterReports();
+        UiActionEvent action = UiActionEvent.start(this, "refreshDisasterList");
+        try {
+            if (searching) {
+                searchReports(searchField.getText());
+            } else {
+                loadDisasterReports();
+            }
+        } finally {
+            action.finish();
+        }
     }
     
     /**
@@ -154,11 +373,168 @@ public class DisasterReportingController implements Initializable {
     }
     
     /**
-     * Loads all disaster reports from the database and populates the table view.
+     * Sets up a listener on the table's vertical scroll bar that loads the next
+     * older page when the user nears the bottom, and pages back towards the newest
+     * reports when the user nears the top after rows have been dropped.
+     */
+    private void setupPagingScrollListener() {
+        disasterTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : disasterTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                    bar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        double range = bar.getMax() - bar.getMin();
+                        if (newValue.doubleValue() >= bar.getMax() - range * 0.05) {
+                            loadOlderPage();
+                        } else if (newValue.doubleValue() <= bar.getMin() + range * 0.05) {
+                            loadNewerPage();
+                        }
+                    });
+                }
+            }
+        });
+    }
+    
+    /**
+     * Sets up the search field to search report descriptions and locations as the
+     * user types. Each change restarts a short delay, so a search only runs once
+     * typing pauses rather than on every key.
+     */
+    private void setupSearchField() {
+        searchDelay.setOnFinished(event -> searchReports(searchField.getText()));
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDelay.playFromStart());
+    }
+
+    /**
+     * Shows the reports matching a search in the disaster table, or goes back to the
+     * paged list of all reports when the search is cleared. Paging is off while
+     * search results are shown. A search still running when the next one starts has
+     * its results discarded.
+     *
+     * @param query the words to search for
+     */
+    private void searchReports(String query) {
+        int generation = ++searchGeneration;
+        if (query == null || query.isBlank()) {
+            if (searching) {
+                searching = false;
+                loadDisasterReports();
+            }
+            return;
+        }
+        searching = true;
+        // Drop any page load or refresh still running for the paged list
+        loadGeneration++;
+        pageLoading = false;
+        olderPagesRemaining = false;
+        newerPagesDropped = false;
+        dbTasks.load(db -> db.searchDisasterReports(query, SEARCH_LIMIT), results -> {
+            if (generation == searchGeneration) {
+                loadedReports.setAll(results);
+            }
+        }, error -> showAlert("Error", "Failed to search disaster reports: " + error.getMessage(), Alert.AlertType.ERROR));
+    }
+
+    /**
+     * Reloads the disaster table from the newest report, discarding any pages
+     * already loaded.
      */
     private void loadDisasterReports() {
-        List<DisasterReport> reports = dbConn.getAllDisasterReports();
-        disasterTable.setItems(FXCollections.observableArrayList(reports));
+        reportsLoaded = true;
+        loadGeneration++;
+        loadedReports.clear();
+        pageLoading = false;
+        olderPagesRemaining = true;
+        newerPagesDropped = false;
+        loadOlderPage();
+    }
+    
+    /**
+     * Loads the page of reports older than the last loaded row and appends it to
+     * the table, dropping rows from the top if the window grows too large.
+     */
+    private void loadOlderPage() {
+        if (pageLoading || !olderPagesRemaining) {
+            return;
+        }
+        pageLoading = true;
+        int generation = loadGeneration;
+        boolean firstPage = loadedReports.isEmpty();
+        int beforeId = firstPage
+            ? Integer.MAX_VALUE : loadedReports.get(loadedReports.size() - 1).getReportID();
+        dbTasks.load(db -> {
+            if (firstPage) {
+                reportChanges.reset(db);
+            }
+            return db.getDisasterReportsBefore(beforeId, PAGE_SIZE);
+        }, page -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            pageLoading = false;
+            olderPagesRemaining = page.size() == PAGE_SIZE;
+            loadedReports.addAll(page);
+            int excess = loadedReports.size() - MAX_LOADED_REPORTS;
+            if (excess > 0) {
+                loadedReports.remove(0, excess);
+                newerPagesDropped = true;
+                // Keep the rows the user was looking at in view
+                disasterTable.scrollTo(Math.max(0, loadedReports.size() - page.size() - 1));
+            }
+        }, error -> {
+            pageLoading = false;
+            showAlert("Error", "Failed to load disaster reports: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+    
+    /**
+     * Loads the page of reports newer than the first loaded row and prepends it to
+     * the table, dropping rows from the bottom if the window grows too large.
+     */
+    private void loadNewerPage() {
+        if (pageLoading || !newerPagesDropped || loadedReports.isEmpty()) {
+            return;
+        }
+        pageLoading = true;
+        int generation = loadGeneration;
+        int afterId = loadedReports.get(0).getReportID();
+        dbTasks.load(db -> db.getDisasterReportsAfter(afterId, PAGE_SIZE), page -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            pageLoading = false;
+            newerPagesDropped = page.size() == PAGE_SIZE;
+            loadedReports.addAll(0, page);
+            int excess = loadedReports.size() - MAX_LOADED_REPORTS;
+            if (excess > 0) {
+                loadedReports.remove(loadedReports.size() - excess, loadedReports.size());
+                olderPagesRemaining = true;
+            }
+            disasterTable.scrollTo(page.size());
+        }, error -> {
+            pageLoading = false;
+            showAlert("Error", "Failed to load disaster reports: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+    
+    /**
+     * Brings the loaded reports up to date by reloading only the reports that changed
+     * since the table was loaded or last refreshed. New reports are added at the top
+     * unless newer pages have been dropped, in which case they are loaded when the
+     * user scrolls back up.
+     */
+    private void refreshDisasterReports() {
+        int generation = loadGeneration;
+        dbTasks.load(reportChanges::poll, changes -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            changes.applyTo(loadedReports, newerPagesDropped ? ChangeTracker.Placement.NONE : ChangeTracker.Placement.FIRST);
+            int excess = loadedReports.size() - MAX_LOADED_REPORTS;
+            if (excess > 0) {
+                loadedReports.remove(loadedReports.size() - excess, loadedReports.size());
+                olderPagesRemaining = true;
+            }
+        }, error -> showAlert("Error", "Failed to refresh disaster reports: " + error.getMessage(), Alert.AlertType.ERROR));
     }
     
     /**
@@ -167,6 +543,8 @@ public class DisasterReportingController implements Initializable {
     private void clearInputFields() {
         disasterTypeComboBox.getSelectionModel().clearSelection();
         locationField.clear();
+        latitudeField.clear();
+        longitudeField.clear();
         severitySlider.setValue(1);
         descriptionArea.clear();
     }
@@ -194,16 +572,11 @@ public class DisasterReportingController implements Initializable {
     @FXML
     private void MainMenuButton(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/MainMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the main menu; the screen being left cancels its database calls
+            views.show(stage, Screen.MAIN_MENU);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
@@ -218,16 +591,11 @@ public class DisasterReportingController implements Initializable {
     @FXML
     private void MainMenuButton2(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/MainMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the main menu; the screen being left cancels its database calls
+            views.show(stage, Screen.MAIN_MENU);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
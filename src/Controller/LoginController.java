@@ -1,17 +1,14 @@
 package Controller;
 
 import Model.User;
-import Persistance.DisasterDatabaseConn;
+import Model.DisasterResponseSystem;
+import Persistance.AsyncDatabaseManager;
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
@@ -26,40 +23,71 @@ import javafx.stage.Stage;
  * @author Sagar Bhujel
  * Student ID 12256739
  */
-public class LoginController implements Initializable {
+public class LoginController implements Initializable, ViewController {
 
     @FXML
     private PasswordField loginPasswd;
     @FXML
     private TextField userName;
     
-    private DisasterDatabaseConn dbConn;
+    private AsyncDatabaseManager.Scope dbTasks;
     @FXML
     private ComboBox<String> roleComboBox;
+    private final ViewRegistry views;
+    
+    /**
+     * Constructs a new LoginController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public LoginController(ViewRegistry views) {
+        this.views = views;
+    }
     
     /**
      * Initializes the controller class.
-     * Sets up the database connection and populates the role combo box.
+     * Sets up the role combo box; the roles are loaded when the screen is shown.
      *
      * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
      * @param rb The resources used to localize the root object, or null if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        dbConn = new DisasterDatabaseConn();
-        setupRoleComboBox();
+        roleComboBox.setPromptText("Select Role");
         if (loginPasswd == null) {
             System.err.println("loginPasswd is null. Check your FXML file.");
         }
     }  
     
     /**
-     * Sets up the role combo box with available roles from the database.
+     * Opens a database task scope for this screen and loads the roles.
+     */
+    @Override
+    public void onShow() {
+        dbTasks = DisasterResponseSystem.getAsyncDb().openScope();
+        setupRoleComboBox();
+    }
+    
+    /**
+     * Cancels any database calls still running for this screen and clears the
+     * entered credentials, so the screen is empty when it is next shown.
+     */
+    @Override
+    public void onHide() {
+        dbTasks.close();
+        userName.clear();
+        loginPasswd.clear();
+        roleComboBox.getSelectionModel().clearSelection();
+    }
+    
+    /**
+     * Fills the role combo box with available roles from the database.
+     * The roles are loaded in the background and replace the list when they arrive.
      */
     private void setupRoleComboBox() {
-        List<String> roles = dbConn.getAllRoles();
-        roleComboBox.getItems().addAll(roles);
-        roleComboBox.setPromptText("Select Role");
+        dbTasks.load(db -> db.getAllRoles(),
+            roles -> roleComboBox.getItems().setAll(roles),
+            error -> showAlert("Error", "Failed to load roles: " + error.getMessage()));
     }
    
     /**
@@ -70,24 +98,38 @@ public class LoginController implements Initializable {
      */
     @FXML
     private void loginAction(ActionEvent event) {
-        String username = userName.getText();
-        String password = loginPasswd.getText();
-        String role = roleComboBox.getValue();
+        UiActionEvent action = UiActionEvent.start(this, "loginAction");
+        try {
+            String username = userName.getText();
+            String password = loginPasswd.getText();
+            String role = roleComboBox.getValue();
 
-        if (username.isEmpty() || password.isEmpty() || role == null) {
-            showAlert("Error", "Please fill in all fields and select a role.");
-            return;
-        }
+            if (username.isEmpty() || password.isEmpty() || role == null) {
+                showAlert("Error", "Please fill in all fields and select a role.");
+                return;
+            }
 
-        User user = dbConn.getUserByUsername(username);
+            dbTasks.load(db -> db.getUserByUsername(username),
+                user -> completeLogin(user, password, role),
+                error -> showAlert("Error", "Login failed: " + error.getMessage()));
+        } finally {
+            action.finish();
+        }
+    }
+    
+    /**
+     * Checks the credentials against the user loaded from the database and
+     * navigates to the response menu if they match.
+     *
+     * @param user The user matching the entered username, or null if none was found.
+     * @param password The entered password.
+     * @param role The selected role.
+     */
+    private void completeLogin(User user, String password, String role) {
         if (user != null && user.getPassword().equals(password) && user.getRole().equalsIgnoreCase(role)) {
             try {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/responseMenu.fxml"));
-                Parent root = loader.load();
-
                 Stage stage = (Stage) userName.getScene().getWindow();
-                stage.setScene(new Scene(root));
-                stage.show();
+                views.show(stage, Screen.RESPONSE_MENU);
             } catch (IOException e) {
                 e.printStackTrace();
                 showAlert("Error", "Failed to load response menu.");
@@ -106,16 +148,11 @@ public class LoginController implements Initializable {
     @FXML
     private void cancelAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/MainMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) userName.getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the main menu; the screen being left cancels its database calls
+            views.show(stage, Screen.MAIN_MENU);
         } catch (IOException e) {
             e.printStackTrace();
             // Handle the exception (e.g., show an error dialog)
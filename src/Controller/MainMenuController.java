@@ -5,11 +5,9 @@ import java.net.URL;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.TabPane;
@@ -23,7 +21,16 @@ import javafx.stage.Stage;
  * student id 12256739
  */
 public class MainMenuController implements Initializable {
+    private final ViewRegistry views;
 
+    /**
+     * Constructs a new MainMenuController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public MainMenuController(ViewRegistry views) {
+        this.views = views;
+    }
 
     /**
      * Initializes the controller class.
@@ -44,7 +51,7 @@ public class MainMenuController implements Initializable {
      */
     @FXML
     private void mainReport(ActionEvent event) {
-        loadView("DisasterReportingView.fxml", "Report Disaster", event, 0);
+        loadView(Screen.DISASTER_REPORTING, "Report Disaster", event, 0);
     }
 
     /**
@@ -54,7 +61,7 @@ public class MainMenuController implements Initializable {
      */
     @FXML
     private void viewDisaster(ActionEvent event) {
-        loadView("DisasterReportingView.fxml", "View Disaster", event, 1);
+        loadView(Screen.DISASTER_REPORTING, "View Disaster", event, 1);
     }
 
     /**
@@ -64,7 +71,7 @@ public class MainMenuController implements Initializable {
      */
     @FXML
     private void login(ActionEvent event) {
-        loadView("Login.fxml", "Login", event, -1);
+        loadView(Screen.LOGIN, "Login", event, -1);
     }
     
     /**
@@ -74,25 +81,23 @@ public class MainMenuController implements Initializable {
      */
     @FXML
     private void RegistrationButton(ActionEvent event) {
-        loadView("Registration.fxml", "Registration", event, -1);
+        loadView(Screen.REGISTRATION, "Registration", event, -1);
     }
     
     /**
-     * Loads a specified view and sets it as the current scene.
-     * If the loaded view is a TabPane and a valid tab index is provided, it selects the specified tab.
+     * Shows a specified screen in the current window.
+     * If the screen's view is a TabPane and a valid tab index is provided, it selects the specified tab.
      *
-     * @param fxmlFile The name of the FXML file to load.
+     * @param screen The screen to show.
      * @param title The title to set for the stage.
      * @param event The action event that triggered this method call.
      * @param tabIndex The index of the tab to select (-1 if not applicable).
      */
-    private void loadView(String fxmlFile, String title, ActionEvent event, int tabIndex) {
+    private void loadView(Screen screen, String title, ActionEvent event, int tabIndex) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/" + fxmlFile));
-            Parent root = loader.load();
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
             stage.setTitle(title);
-            stage.setScene(new Scene(root));
+            Parent root = views.show(stage, screen);
             
             if (tabIndex >= 0 && root instanceof TabPane) {
                 TabPane tabPane = (TabPane) root;
@@ -100,7 +105,6 @@ public class MainMenuController implements Initializable {
                     tabPane.getSelectionModel().select(tabIndex);
                 }
             }
-            stage.show();
         } catch (IOException e) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
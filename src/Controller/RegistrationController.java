@@ -12,14 +12,11 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
 import java.time.LocalDate;
 import Model.User;
-import Persistance.DisasterDatabaseConn;
+import Model.DisasterResponseSystem;
+import Persistance.AsyncDatabaseManager;
 import java.io.IOException;
 import java.time.format.DateTimeParseException;
-import java.util.List;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.ListCell;
@@ -33,7 +30,7 @@ import javafx.util.StringConverter;
  * @author Sagar Bhujel
  * student ID 12256739
  */
-public class RegistrationController implements Initializable {
+public class RegistrationController implements Initializable, ViewController {
 
     @FXML
     private PasswordField passText;
@@ -63,21 +60,24 @@ public class RegistrationController implements Initializable {
     /**
      * Initializes the controller class.
      */
-    private final DisasterDatabaseConn dbConn;
+    private AsyncDatabaseManager.Scope dbTasks;
     @FXML
     private ComboBox<Agency> roleComboBox;
+    private final ViewRegistry views;
     
     /**
      * Constructor for RegistrationController.
-     * Initializes the database connection.
+     *
+     * @param views the registry of screens to navigate to
      */
-    public RegistrationController() {
-        dbConn = new DisasterDatabaseConn();
+    public RegistrationController(ViewRegistry views) {
+        this.views = views;
     }
     
     /**
      * Initializes the controller class.
-     * Sets up the gender toggle group and populates the role combo box.
+     * Sets up the gender toggle group and the role combo box; the roles are loaded
+     * when the screen is shown.
      *
      * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
      * @param rb The resources used to localize the root object, or null if the root object was not localized.
@@ -91,17 +91,42 @@ public class RegistrationController implements Initializable {
             female.setToggleGroup(genderID);
             others.setToggleGroup(genderID);
         }
-        populateRoleComboBox();
+        setupRoleComboBox();
     }    
     
+    /**
+     * Opens the database task scope used by this screen and loads the roles.
+     */
+    @Override
+    public void onShow() {
+        dbTasks = DisasterResponseSystem.getAsyncDb().openScope();
+        populateRoleComboBox();
+    }
+    
+    /**
+     * Cancels any database calls still running for this screen and clears the
+     * form, so it is empty when the screen is next shown.
+     */
+    @Override
+    public void onHide() {
+        dbTasks.close();
+        clearFields();
+    }
+    
     /**
      * Populates the role combo box with agencies from the database.
-     * Sets up custom cell factory and string converter for the combo box.
+     * The agencies are loaded in the background and replace the list when they arrive.
      */
     private void populateRoleComboBox() {
-        List<Agency> agencies = dbConn.getAllAgencies();
-        roleComboBox.getItems().addAll(agencies);
-        
+        dbTasks.load(db -> db.getAllAgencies(),
+            agencies -> roleComboBox.getItems().setAll(agencies),
+            error -> showAlert("Error", "Failed to load roles: " + error.getMessage(), Alert.AlertType.ERROR));
+    }
+    
+    /**
+     * Sets up a custom cell factory and string converter for the role combo box.
+     */
+    private void setupRoleComboBox() {
         // Set a custom cell factory to display agency names
         roleComboBox.setCellFactory(param -> new ListCell<Agency>() {
             @Override
@@ -137,14 +162,21 @@ public class RegistrationController implements Initializable {
      */
     @FXML
     private void register(ActionEvent event) {
-        if (validateInput()) {
-            User newUser = createUser();
-            if (dbConn.addUser(newUser)) {
-                showAlert("Registration Successful", "User has been registered successfully.", Alert.AlertType.INFORMATION);
-                clearFields();
-            } else {
-                showAlert("Registration Failed", "Failed to register user. Please try again.", Alert.AlertType.ERROR);
+        UiActionEvent action = UiActionEvent.start(this, "register");
+        try {
+            if (validateInput()) {
+                User newUser = createUser();
+                dbTasks.load(db -> db.addUser(newUser), added -> {
+                    if (added) {
+                        showAlert("Registration Successful", "User has been registered successfully.", Alert.AlertType.INFORMATION);
+                        clearFields();
+                    } else {
+                        showAlert("Registration Failed", "Failed to register user. Please try again.", Alert.AlertType.ERROR);
+                    }
+                }, error -> showAlert("Registration Failed", error.getMessage(), Alert.AlertType.ERROR));
             }
+        } finally {
+            action.finish();
         }
     }
     
@@ -156,16 +188,11 @@ public class RegistrationController implements Initializable {
     @FXML
     private void goBack(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/MainMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the main menu; the screen being left cancels its database calls
+            views.show(stage, Screen.MAIN_MENU);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
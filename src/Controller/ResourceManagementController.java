@@ -1,29 +1,40 @@
 package Controller;
 
 import Model.*;
-import Persistance.DisasterDatabaseConn;
+import Persistance.AsyncDatabaseManager;
+import Persistance.BulkExporter;
+import Persistance.BulkImporter;
+import Persistance.Change;
+import Persistance.ChangeTracker;
+import Persistance.ExportResult;
+import Persistance.IDatabaseManager;
+import Persistance.ImportResult;
+import Util.RecordReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.ResourceBundle;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 /**
@@ -33,7 +44,7 @@ import javafx.stage.Stage;
  * @author Sagar Bhujel
  * student id 12256739
  */
-public class ResourceManagementController implements Initializable {
+public class ResourceManagementController implements Initializable, ViewController {
 
     @FXML
     private HBox quantityField;
@@ -55,25 +66,67 @@ public class ResourceManagementController implements Initializable {
     private TextField quantityTextField;
     @FXML
     private ComboBox<String> disasterComboBox;
+    @FXML
+    private Label importStatusLabel;
 
-    private DisasterDatabaseConn dbConn;
+    private AsyncDatabaseManager.Scope dbTasks;
+    private final ViewRegistry views;
+    // Whether the resources have been loaded, after which showing the screen only refreshes them
+    private boolean resourcesLoaded;
+    // Row errors listed in the summary after an import; the rest are only counted
+    private static final int IMPORT_ERRORS_SHOWN = 10;
+    private final ChangeTracker<Resource> resourceChanges =
+        new ChangeTracker<>(Change.RESOURCES, IDatabaseManager::getResourceById, Resource::getResourceID);
+    
+    /**
+     * Constructs a new ResourceManagementController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public ResourceManagementController(ViewRegistry views) {
+        this.views = views;
+    }
     
     /**
      * Initializes the controller class.
-     * Sets up the resource type combo box, table columns, loads resources, and sets up the disaster combo box.
+     * Sets up the resource type combo box and table columns; resources and active
+     * disasters are loaded when the screen is shown.
      *
      * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
      * @param rb The resources used to localize the root object, or null if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        dbConn = new DisasterDatabaseConn();
         setupResourceTypeComboBox();
         setupTableColumns();
-        loadResources();
-        setupDisasterComboBox();
     } 
     
+    /**
+     * Opens a database task scope for this screen, loads the resources the first time
+     * it is shown and only brings them up to date on later visits, and reloads the
+     * active disasters, which may have changed on other screens.
+     */
+    @Override
+    public void onShow() {
+        dbTasks = DisasterResponseSystem.getAsyncDb().openScope();
+        if (resourcesLoaded) {
+            refreshResources();
+        } else {
+            loadResources();
+        }
+        setupDisasterComboBox();
+    }
+    
+    /**
+     * Cancels any database calls still running for this screen, including an
+     * import or export.
+     */
+    @Override
+    public void onHide() {
+        dbTasks.close();
+        importStatusLabel.setText("");
+    }
+    
     /**
      * Sets up the resource type combo box with predefined resource types.
      */
@@ -98,29 +151,37 @@ public class ResourceManagementController implements Initializable {
     }
     
     /**
-     * Loads all resources from the database and populates the resource table.
+     * Loads all resources from the database in the background and populates
+     * the resource table when they arrive.
      */
     private void loadResources() {
-        try {
-            List<Resource> resources = dbConn.getAllResources();
-            resourceTable.setItems(FXCollections.observableArrayList(resources));
-        } catch (UnsupportedOperationException e) {
-            showAlert("Error", "Failed to load resources: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        resourcesLoaded = true;
+        dbTasks.load(db -> {
+            resourceChanges.reset(db);
+            return db.getAllResources();
+        }, resources -> resourceTable.setItems(FXCollections.observableArrayList(resources)),
+            error -> showAlert("Error", "Failed to load resources: " + error.getMessage(), Alert.AlertType.ERROR));
+    }
+
+    /**
+     * Brings the resource table up to date by reloading only the resources that
+     * changed since it was loaded or last refreshed.
+     */
+    private void refreshResources() {
+        dbTasks.load(resourceChanges::poll,
+            changes -> changes.applyTo(resourceTable.getItems(), ChangeTracker.Placement.LAST),
+            error -> showAlert("Error", "Failed to refresh resources: " + error.getMessage(), Alert.AlertType.ERROR));
     }
     
     /**
      * Sets up the disaster combo box with active disaster reports from the database.
      */
     private void setupDisasterComboBox() {
-        try {
-            List<DisasterReport> activeDisasters = dbConn.getActiveDisasterReports();
-            disasterComboBox.setItems(FXCollections.observableArrayList(
+        dbTasks.load(db -> db.getActiveDisasterReports(),
+            activeDisasters -> disasterComboBox.setItems(FXCollections.observableArrayList(
                 activeDisasters.stream().map(DisasterReport::getDisasterType).toList()
-            ));
-        } catch (UnsupportedOperationException e) {
-            showAlert("Error", "Failed to load active disasters: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+            )),
+            error -> showAlert("Error", "Failed to load active disasters: " + error.getMessage(), Alert.AlertType.ERROR));
     }
 
     /**
@@ -130,6 +191,7 @@ public class ResourceManagementController implements Initializable {
      */
     @FXML
     private void addResource(ActionEvent event) {
+        UiActionEvent action = UiActionEvent.start(this, "addResource");
         try {
             String type = resourceTypeComboBox.getValue();
             int quantity = Integer.parseInt(quantityTextField.getText());
@@ -141,47 +203,162 @@ public class ResourceManagementController implements Initializable {
             }
 
             Resource newResource = new Resource(0, type, quantity, status);
-            if (dbConn.addResource(newResource)) {
-                showAlert("Success", "Resource added successfully", Alert.AlertType.INFORMATION);
-                loadResources();
-                clearInputFields();
-            } else {
-                showAlert("Error", "Failed to add resource", Alert.AlertType.ERROR);
-            }
+            dbTasks.load(db -> db.addResource(newResource), added -> {
+                if (added) {
+                    showAlert("Success", "Resource added successfully", Alert.AlertType.INFORMATION);
+                    refreshResources();
+                    clearInputFields();
+                } else {
+                    showAlert("Error", "Failed to add resource", Alert.AlertType.ERROR);
+                }
+            }, error -> showAlert("Error", "Failed to add resource: " + error.getMessage(), Alert.AlertType.ERROR));
         } catch (NumberFormatException e) {
             showAlert("Error", "Invalid quantity. Please enter a number.", Alert.AlertType.ERROR);
-        } catch (UnsupportedOperationException e) {
-            showAlert("Error", "Adding resource is not supported: " + e.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            action.finish();
         }
     }
 
     /**
-     * Handles the allocation of resources to a disaster when the allocate button is clicked.
+     * Imports resources from a CSV or JSON file chosen by the user. The import runs
+     * in the background with its progress shown beside the button, and is cancelled
+     * if the user leaves the screen.
      *
-     * @param event The action event triggered by clicking the allocate button.
+     * @param event The action event triggered by clicking the import button.
      */
     @FXML
-    private void allocateResources(ActionEvent event) {
-        Resource selectedResource = resourceTable.getSelectionModel().getSelectedItem();
-        String selectedDisaster = disasterComboBox.getValue();
-        if (selectedResource == null || selectedDisaster == null) {
-            showAlert("Error", "Please select a resource and a disaster", Alert.AlertType.ERROR);
+    private void importResources(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Resources");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV and JSON files", BulkImporter.FILE_PATTERNS));
+        File file = chooser.showOpenDialog(resourceTable.getScene().getWindow());
+        if (file == null) {
             return;
         }
+        importStatusLabel.setText("Importing " + file.getName() + "...");
+        dbTasks.loadInterruptibly(db -> importResourcesFrom(db, file.toPath()), result -> {
+            importStatusLabel.setText("");
+            showAlert("Import Finished", result.getSummary(IMPORT_ERRORS_SHOWN),
+                result.getRowsFailed() == 0 && result.isComplete() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+            loadResources();
+        }, error -> {
+            importStatusLabel.setText("");
+            showAlert("Error", "Failed to import resources: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+
+    /**
+     * Imports resources from a file, showing progress as each batch is stored.
+     *
+     * @param db   the database to add the resources to
+     * @param file the file to read
+     * @return the outcome of the import
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    private ImportResult importResourcesFrom(IDatabaseManager db, Path file) {
+        try (RecordReader records = BulkImporter.open(file)) {
+            return BulkImporter.importResources(db, records, (read, imported, failed) -> Platform.runLater(() ->
+                importStatusLabel.setText(String.format("%,d rows read, %,d imported, %,d failed", read, imported, failed))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
+    /**
+     * Exports every resource allocation to a CSV or JSON Lines file chosen by the
+     * user. The export runs in the background with its progress shown beside the
+     * button, and is cancelled if the user leaves the screen.
+     *
+     * @param event The action event triggered by clicking the export button.
+     */
+    @FXML
+    private void exportAllocations(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Allocations");
+        chooser.setInitialFileName("allocations.csv");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV and JSON Lines files", BulkExporter.FILE_PATTERNS));
+        File file = chooser.showSaveDialog(resourceTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        importStatusLabel.setText("Exporting " + file.getName() + "...");
+        dbTasks.loadInterruptibly(db -> exportAllocationsTo(db, file.toPath()), result -> {
+            importStatusLabel.setText("");
+            showAlert("Export Finished", result.getSummary(), Alert.AlertType.INFORMATION);
+        }, error -> {
+            importStatusLabel.setText("");
+            showAlert("Error", "Failed to export allocations: " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+
+    /**
+     * Exports every resource allocation to a file, showing progress as rows are written.
+     *
+     * @param db   the database to read the allocations from
+     * @param file the file to write
+     * @return the outcome of the export
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    private ExportResult exportAllocationsTo(IDatabaseManager db, Path file) {
         try {
-            // Assuming you have a method to get disaster ID from its type
-            int disasterId = dbConn.getDisasterIdByType(selectedDisaster);
-            boolean success = dbConn.allocateResourceToDisaster(selectedResource.getResourceID(), disasterId, selectedResource.getQuantity());
-            if (success) {
-                showAlert("Success", "Resource allocated successfully", Alert.AlertType.INFORMATION);
-                loadResources();
-                updateAllocationDetails(selectedResource, selectedDisaster);
-            } else {
-                showAlert("Error", "Failed to allocate resource", Alert.AlertType.ERROR);
+            return BulkExporter.exportResourceAllocations(db, file, rows -> Platform.runLater(() ->
+                importStatusLabel.setText(String.format("%,d rows written", rows))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Handles the allocation of resources to a disaster when the allocate button is clicked.
+     * The quantity entered is taken from the selected resource's stock, or all of the
+     * remaining stock if no quantity is entered. When less is left than was requested,
+     * whatever remains is allocated.
+     *
+     * @param event The action event triggered by clicking the allocate button.
+     */
+    @FXML
+    private void allocateResources(ActionEvent event) {
+        UiActionEvent action = UiActionEvent.start(this, "allocateResources");
+        try {
+            Resource selectedResource = resourceTable.getSelectionModel().getSelectedItem();
+            String selectedDisaster = disasterComboBox.getValue();
+            if (selectedResource == null || selectedDisaster == null) {
+                showAlert("Error", "Please select a resource and a disaster", Alert.AlertType.ERROR);
+                return;
+            }
+            int requested;
+            try {
+                String quantityText = quantityTextField.getText();
+                requested = quantityText == null || quantityText.isBlank()
+                    ? selectedResource.getQuantity() : Integer.parseInt(quantityText.trim());
+            } catch (NumberFormatException e) {
+                showAlert("Error", "Invalid quantity. Please enter a number.", Alert.AlertType.ERROR);
+                return;
+            }
+            if (requested <= 0) {
+                showAlert("Error", "There is no stock left to allocate", Alert.AlertType.ERROR);
+                return;
             }
-        } catch (UnsupportedOperationException e) {
-            showAlert("Error", "Resource allocation is not supported: " + e.getMessage(), Alert.AlertType.ERROR);
+
+            // Both lookups run in one background call so the allocation only waits on one round of I/O
+            dbTasks.load(db -> {
+                int disasterId = db.getDisasterIdByType(selectedDisaster);
+                return disasterId < 0 ? 0 : db.reserveResource(selectedResource.getResourceID(), disasterId, requested, true);
+            }, allocated -> {
+                if (allocated > 0) {
+                    String message = allocated < requested
+                        ? "Only " + allocated + " of the " + requested + " requested were left and have been allocated"
+                        : "Resource allocated successfully";
+                    showAlert("Success", message, Alert.AlertType.INFORMATION);
+                    refreshResources();
+                    updateAllocationDetails(allocated, selectedResource, selectedDisaster);
+                } else {
+                    showAlert("Error", "Failed to allocate resource", Alert.AlertType.ERROR);
+                    refreshResources();
+                }
+            }, error -> showAlert("Error", "Resource allocation failed: " + error.getMessage(), Alert.AlertType.ERROR));
+        } finally {
+            action.finish();
         }
     }
     
@@ -192,25 +369,29 @@ public class ResourceManagementController implements Initializable {
      */
     @FXML
     private void updateResourceStatus(ActionEvent event) {
-        Resource selectedResource = resourceTable.getSelectionModel().getSelectedItem();
-        if (selectedResource == null) {
-            showAlert("Error", "Please select a resource to update", Alert.AlertType.ERROR);
-            return;
-        }
-
+        UiActionEvent action = UiActionEvent.start(this, "updateResourceStatus");
         try {
+            Resource selectedResource = resourceTable.getSelectionModel().getSelectedItem();
+            if (selectedResource == null) {
+                showAlert("Error", "Please select a resource to update", Alert.AlertType.ERROR);
+                return;
+            }
+
             String newStatus = promptForNewStatus();
             if (newStatus != null) {
-                selectedResource.setStatus(newStatus);
-                if (dbConn.updateResource(selectedResource)) {
-                    showAlert("Success", "Resource status updated successfully", Alert.AlertType.INFORMATION);
-                    loadResources();
-                } else {
-                    showAlert("Error", "Failed to update resource status", Alert.AlertType.ERROR);
-                }
+                // Only the status is written, so stock allocated since the table was loaded is kept
+                int resourceId = selectedResource.getResourceID();
+                dbTasks.load(db -> db.updateResourceStatus(resourceId, newStatus), updated -> {
+                    if (updated) {
+                        showAlert("Success", "Resource status updated successfully", Alert.AlertType.INFORMATION);
+                        refreshResources();
+                    } else {
+                        showAlert("Error", "Failed to update resource status", Alert.AlertType.ERROR);
+                    }
+                }, error -> showAlert("Error", "Failed to update resource status: " + error.getMessage(), Alert.AlertType.ERROR));
             }
-        } catch (UnsupportedOperationException e) {
-            showAlert("Error", "Updating resource status is not supported: " + e.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            action.finish();
         }
     }
     
@@ -221,22 +402,28 @@ public class ResourceManagementController implements Initializable {
      */
     @FXML
     private void generateResourceReport(ActionEvent event) {
-        // Implement report generation logic here
-        String report = "Resource Report\n\n";
-        for (Resource resource : resourceTable.getItems()) {
-            report += resource.toString() + "\n";
+        UiActionEvent action = UiActionEvent.start(this, "generateResourceReport");
+        try {
+            // Implement report generation logic here
+            String report = "Resource Report\n\n";
+            for (Resource resource : resourceTable.getItems()) {
+                report += resource.toString() + "\n";
+            }
+            allocationDetailsArea.setText(report.toString());
+        } finally {
+            action.finish();
         }
-        allocationDetailsArea.setText(report.toString());
     }
     
     /**
      * Updates the allocation details area with information about a resource allocation.
      *
+     * @param quantity The quantity that was allocated.
      * @param resource The resource that was allocated.
      * @param disaster The disaster to which the resource was allocated.
      */
-    private void updateAllocationDetails(Resource resource, String disaster) {
-         String details = "Allocated " + resource.getQuantity() + " " + resource.getType() + " to " + disaster;
+    private void updateAllocationDetails(int quantity, Resource resource, String disaster) {
+         String details = "Allocated " + quantity + " " + resource.getType() + " to " + disaster;
         allocationDetailsArea.setText(details);
     }
 
@@ -285,16 +472,11 @@ public class ResourceManagementController implements Initializable {
     @FXML
     private void goBackAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/ResponseMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the response menu; the screen being left cancels its database calls
+            views.show(stage, Screen.RESPONSE_MENU);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
@@ -4,30 +4,39 @@ import Model.Agency;
 import Model.AgencyAssignment;
 import Model.DisasterReport;
 import Model.Resource;
-import Persistance.DisasterDatabaseConn;
+import Model.DisasterResponseSystem;
+import Persistance.AsyncDatabaseManager;
+import Persistance.BulkExporter;
+import Persistance.Change;
+import Persistance.ChangeTracker;
+import Persistance.ExportResult;
+import Persistance.IDatabaseManager;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.ResourceBundle;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
 
@@ -39,7 +48,7 @@ import javafx.util.StringConverter;
  * @author Sagar Bhujel
  * student id 12256739
  */
-public class ResponseCoordinationController implements Initializable {
+public class ResponseCoordinationController implements Initializable, ViewController {
 
     @FXML
     private TableColumn<DisasterReport, Integer> disasterIdColumn;
@@ -73,32 +82,72 @@ public class ResponseCoordinationController implements Initializable {
     private TableColumn<AgencyAssignment, Integer> assignmentIdColumn;
     @FXML
     private TableColumn<AgencyAssignment, LocalDateTime> assignmentDateColumn;
+    @FXML
+    private Label exportStatusLabel;
     
     private ObservableList<AgencyAssignment> agencyAssignments = FXCollections.observableArrayList();;
-    private DisasterDatabaseConn dbManager;
+    private AsyncDatabaseManager.Scope dbTasks;
+    private final ChangeTracker<AgencyAssignment> assignmentChanges = new ChangeTracker<>(Change.AGENCY_ASSIGNMENTS,
+        IDatabaseManager::getAgencyAssignmentById, AgencyAssignment::getAssignmentID);
     private ObservableList<DisasterReport> disasterReports;
     private ObservableList<Resource> assignedResources;
+    private final ViewRegistry views;
+    // Whether the assignments have been loaded, after which showing the screen only refreshes them
+    private boolean assignmentsLoaded;
+
+    /**
+     * Constructs a new ResponseCoordinationController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public ResponseCoordinationController(ViewRegistry views) {
+        this.views = views;
+    }
 
     /**
      * Initializes the controller class.
-     * Sets up the database connection, initializes UI components, and loads initial data.
+     * Initializes UI components; the data is loaded when the screen is shown.
      *
      * @param url The location used to resolve relative paths for the root object, or null if the location is not known.
      * @param rb The resources used to localize the root object, or null if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        dbManager = new DisasterDatabaseConn();
         disasterReports = FXCollections.observableArrayList();
         assignedResources = FXCollections.observableArrayList();
         
         setupDisasterTableColumns();
         setupAgencyAssignmentTableColumns();
+        setupAgencyComboBox();
+        setupDisasterComboBox();
+    }  
+    
+    /**
+     * Opens a database task scope for this screen and starts loading its data. The
+     * queries run concurrently in the background and each part of the screen is
+     * filled in as its data arrives. Assignments are loaded in full the first time
+     * the screen is shown and only brought up to date on later visits.
+     */
+    @Override
+    public void onShow() {
+        dbTasks = DisasterResponseSystem.getAsyncDb().openScope();
         populateAgencyComboBox();
-        populateDisasterComboBox();
         loadActiveDisasterReports();
-        loadAgencyAssignments();
-    }  
+        if (assignmentsLoaded) {
+            refreshAgencyAssignments();
+        } else {
+            loadAgencyAssignments();
+        }
+    }
+    
+    /**
+     * Cancels any database calls still running for this screen, including an export.
+     */
+    @Override
+    public void onHide() {
+        dbTasks.close();
+        exportStatusLabel.setText("");
+    }
     
     /**
      * Sets up the columns for the disaster table.
@@ -126,8 +175,16 @@ public class ResponseCoordinationController implements Initializable {
      * Populates the agency combo box with available agencies.
      */
     private void populateAgencyComboBox() {
-        List<Agency> agencies = dbManager.getAllAgencies();
-        agencyComboBox.setItems(FXCollections.observableArrayList(agencies));
+        dbTasks.load(db -> db.getAllAgencies(),
+            agencies -> agencyComboBox.setItems(FXCollections.observableArrayList(agencies)),
+            error -> showAlert("Error", "Failed to load agencies: " + error.getMessage(), Alert.AlertType.ERROR));
+    }
+    
+    /**
+     * Sets up how agencies are shown in the agency combo box.
+     * The items are filled in by {@link #populateAgencyComboBox()}.
+     */
+    private void setupAgencyComboBox() {
         agencyComboBox.setConverter(new StringConverter<Agency>() {
             @Override
             public String toString(Agency agency) {
@@ -141,11 +198,10 @@ public class ResponseCoordinationController implements Initializable {
         });
     }
     /**
-     * Populates the disaster combo box with active disaster reports.
+     * Sets up how active disaster reports are shown in the disaster combo box.
+     * The items are filled in by {@link #loadActiveDisasterReports()}.
      */
-    private void populateDisasterComboBox() {
-        List<DisasterReport> activeDisasters = dbManager.getActiveDisasterReports();
-        disasterComboBox.setItems(FXCollections.observableArrayList(activeDisasters));
+    private void setupDisasterComboBox() {
         disasterComboBox.setConverter(new StringConverter<DisasterReport>() {
             @Override
             public String toString(DisasterReport disaster) {
@@ -162,24 +218,37 @@ public class ResponseCoordinationController implements Initializable {
      * Loads and displays all agency assignments.
      */
     private void loadAgencyAssignments() {
+        assignmentsLoaded = true;
         if (agencyAssignments == null) {
             agencyAssignments = FXCollections.observableArrayList();
         }
-        agencyAssignments.clear();
-        agencyAssignments.addAll(dbManager.getAllAgencyAssignments());
         agencyAssignmentTable.setItems(agencyAssignments);
+        dbTasks.load(db -> {
+            assignmentChanges.reset(db);
+            return db.getAllAgencyAssignments();
+        }, assignments -> agencyAssignments.setAll(assignments),
+            error -> showAlert("Error", "Failed to load agency assignments: " + error.getMessage(), Alert.AlertType.ERROR));
     }
+
     /**
-     * Loads and displays active disaster reports.
+     * Brings the agency assignment table up to date by reloading only the
+     * assignments that changed since it was loaded or last refreshed.
+     */
+    private void refreshAgencyAssignments() {
+        dbTasks.load(assignmentChanges::poll,
+            changes -> changes.applyTo(agencyAssignments, ChangeTracker.Placement.LAST),
+            error -> showAlert("Error", "Failed to refresh agency assignments: " + error.getMessage(), Alert.AlertType.ERROR));
+    }
+    /**
+     * Loads active disaster reports and displays them in both the disaster table
+     * and the disaster combo box, using a single query.
      */
     private void loadActiveDisasterReports() {
-        try {
-            List<DisasterReport> activeReports = dbManager.getActiveDisasterReports();
+        disasterTable.setItems(disasterReports);
+        dbTasks.load(db -> db.getActiveDisasterReports(), activeReports -> {
             disasterReports.setAll(activeReports);
-            disasterTable.setItems(disasterReports);
-        } catch (UnsupportedOperationException e) {
-            showAlert("Error", "Failed to load active disaster reports: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+            disasterComboBox.setItems(FXCollections.observableArrayList(activeReports));
+        }, error -> showAlert("Error", "Failed to load active disaster reports: " + error.getMessage(), Alert.AlertType.ERROR));
     }
     /**
      * Assigns a selected agency to a selected disaster.
@@ -188,24 +257,26 @@ public class ResponseCoordinationController implements Initializable {
      */
     @FXML
     private void assignAgencyToDisaster(ActionEvent event) {
-        DisasterReport selectedDisaster = disasterComboBox.getValue();
-        Agency selectedAgency = agencyComboBox.getValue();
-
-        if (selectedDisaster == null || selectedAgency == null) {
-            showAlert("Error", "Please select both a disaster and an agency.", Alert.AlertType.ERROR);
-            return;
-        }
-
+        UiActionEvent action = UiActionEvent.start(this, "assignAgencyToDisaster");
         try {
-            boolean success = dbManager.assignAgencyToDisaster(selectedAgency.getId(), selectedDisaster.getReportID());
-            if (success) {
-                showAlert("Success", "Agency assigned successfully.", Alert.AlertType.INFORMATION);
-                loadAgencyAssignments();
-            } else {
-                showAlert("Error", "Failed to assign agency.", Alert.AlertType.ERROR);
+            DisasterReport selectedDisaster = disasterComboBox.getValue();
+            Agency selectedAgency = agencyComboBox.getValue();
+
+            if (selectedDisaster == null || selectedAgency == null) {
+                showAlert("Error", "Please select both a disaster and an agency.", Alert.AlertType.ERROR);
+                return;
             }
-        } catch (Exception e) {
-            showAlert("Error", "Agency assignment failed: " + e.getMessage(), Alert.AlertType.ERROR);
+
+            dbTasks.load(db -> db.assignAgencyToDisaster(selectedAgency.getId(), selectedDisaster.getReportID()), success -> {
+                if (success) {
+                    showAlert("Success", "Agency assigned successfully.", Alert.AlertType.INFORMATION);
+                    refreshAgencyAssignments();
+                } else {
+                    showAlert("Error", "Failed to assign agency.", Alert.AlertType.ERROR);
+                }
+            }, error -> showAlert("Error", "Agency assignment failed: " + error.getMessage(), Alert.AlertType.ERROR));
+        } finally {
+            action.finish();
         }
     }
     
@@ -215,8 +286,9 @@ public class ResponseCoordinationController implements Initializable {
      * @param disasterId The ID of the disaster to load assignments for.
      */
     private void loadAgencyAssignments(int disasterId) {
-        List<AgencyAssignment> assignments = dbManager.getAgenciesAssignedToDisaster(disasterId);
-        // Update your UI with the assignments (e.g., populate a TableView)
+        dbTasks.load(db -> db.getAgenciesAssignedToDisaster(disasterId), assignments -> {
+            // Update your UI with the assignments (e.g., populate a TableView)
+        }, error -> showAlert("Error", "Failed to load agency assignments: " + error.getMessage(), Alert.AlertType.ERROR));
     }
     
     /**
@@ -226,13 +298,18 @@ public class ResponseCoordinationController implements Initializable {
      */
     @FXML
     private void saveStrategicDecision(ActionEvent event) {
-//        String decision = strategicDecisionArea.getText();
-//        if (decision.isEmpty()) {
-//            showAlert("Error", "Please enter a strategic decision.");
-//            return;
-//        }
-//        // In a real system, you'd save this to a database
-//        showAlert("Success", "Strategic decision saved.");
+        UiActionEvent action = UiActionEvent.start(this, "saveStrategicDecision");
+        try {
+    //        String decision = strategicDecisionArea.getText();
+    //        if (decision.isEmpty()) {
+    //            showAlert("Error", "Please enter a strategic decision.");
+    //            return;
+    //        }
+    //        // In a real system, you'd save this to a database
+    //        showAlert("Success", "Strategic decision saved.");
+        } finally {
+            action.finish();
+        }
     }
     
     /**
@@ -242,12 +319,72 @@ public class ResponseCoordinationController implements Initializable {
      */
     @FXML
     private void generateReport(ActionEvent event) {
-        // This would typically generate a more comprehensive report
-        StringBuilder report = new StringBuilder("Disaster Response Report\n\n");
-        for (DisasterReport disaster : disasterReports) {
-            report.append(disaster.toString()).append("\n");
+        UiActionEvent action = UiActionEvent.start(this, "generateReport");
+        try {
+            // This would typically generate a more comprehensive report
+            StringBuilder report = new StringBuilder("Disaster Response Report\n\n");
+            for (DisasterReport disaster : disasterReports) {
+                report.append(disaster.toString()).append("\n");
+            }
+            showAlert("Report", report.toString(), Alert.AlertType.INFORMATION);
+        } finally {
+            action.finish();
+        }
+    }
+
+    /**
+     * Exports disaster reports, resource allocations or agency assignments to a CSV
+     * or JSON Lines file chosen by the user, for handing to partner agencies. The
+     * export runs in the background with its progress shown beside the button, and
+     * is cancelled if the user leaves the screen.
+     *
+     * @param event The action event triggered by clicking the export button.
+     */
+    @FXML
+    private void exportData(ActionEvent event) {
+        ChoiceDialog<BulkExporter.Dataset> dialog =
+            new ChoiceDialog<>(BulkExporter.Dataset.DISASTER_REPORTS, BulkExporter.Dataset.values());
+        dialog.setTitle("Export Data");
+        dialog.setHeaderText("Select the data to export");
+        dialog.setContentText("Data:");
+        BulkExporter.Dataset dataset = dialog.showAndWait().orElse(null);
+        if (dataset == null) {
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export " + dataset);
+        chooser.setInitialFileName(dataset.getCommandName() + ".csv");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV and JSON Lines files", BulkExporter.FILE_PATTERNS));
+        File file = chooser.showSaveDialog(disasterTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        exportStatusLabel.setText("Exporting " + file.getName() + "...");
+        dbTasks.load(db -> exportTo(db, dataset, file.toPath()), result -> {
+            exportStatusLabel.setText("");
+            showAlert("Export Finished", result.getSummary(), Alert.AlertType.INFORMATION);
+        }, error -> {
+            exportStatusLabel.setText("");
+            showAlert("Error", "Failed to export " + dataset + ": " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+
+    /**
+     * Exports a dataset to a file, showing progress as rows are written.
+     *
+     * @param db      the database to read from
+     * @param dataset the data to export
+     * @param file    the file to write
+     * @return the outcome of the export
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    private ExportResult exportTo(IDatabaseManager db, BulkExporter.Dataset dataset, Path file) {
+        try {
+            return BulkExporter.export(db, dataset, file, rows -> Platform.runLater(() ->
+                exportStatusLabel.setText(String.format("%,d rows written", rows))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        showAlert("Report", report.toString(), Alert.AlertType.INFORMATION);
     }
 
     /**
@@ -257,8 +394,13 @@ public class ResponseCoordinationController implements Initializable {
      */
     @FXML
     private void updateResponseEfforts(ActionEvent event) {
-//         // This would typically involve updating the status of resources or disasters
-//        showAlert("Info", "Response efforts updated.");
+        UiActionEvent action = UiActionEvent.start(this, "updateResponseEfforts");
+        try {
+    //         // This would typically involve updating the status of resources or disasters
+    //        showAlert("Info", "Response efforts updated.");
+        } finally {
+            action.finish();
+        }
     }
     
     /**
@@ -284,16 +426,11 @@ public class ResponseCoordinationController implements Initializable {
     @FXML
     private void goBackAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/ResponseMenu.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the response menu; the screen being left cancels its database calls
+            views.show(stage, Screen.RESPONSE_MENU);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
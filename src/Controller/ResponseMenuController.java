@@ -5,11 +5,8 @@ import java.net.URL;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 
@@ -21,6 +18,16 @@ import javafx.stage.Stage;
  * student id 12256739
  */
 public class ResponseMenuController implements Initializable {
+    private final ViewRegistry views;
+
+    /**
+     * Constructs a new ResponseMenuController.
+     *
+     * @param views the registry of screens to navigate to
+     */
+    public ResponseMenuController(ViewRegistry views) {
+        this.views = views;
+    }
 
     /**
      * Initializes the controller class.
@@ -43,16 +50,11 @@ public class ResponseMenuController implements Initializable {
     @FXML
     private void ResourceAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/ResourceManagementView.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the screen, loading it first if it was not preloaded
+            views.show(stage, Screen.RESOURCE_MANAGEMENT);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
@@ -68,16 +70,11 @@ public class ResponseMenuController implements Initializable {
     @FXML
     private void ResponseAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/ResponseCoordinationView.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the screen, loading it first if it was not preloaded
+            views.show(stage, Screen.RESPONSE_COORDINATION);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
@@ -93,16 +90,11 @@ public class ResponseMenuController implements Initializable {
     @FXML
     private void CommAction(ActionEvent event) {
         try {
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/CommunicationHubView.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the main menu scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the screen, loading it first if it was not preloaded
+            views.show(stage, Screen.COMMUNICATION_HUB);
         } catch (IOException e) {
             showAlert("Error", "Could not load main menu: " + e.getMessage(), Alert.AlertType.ERROR);
             // Handle the exception (e.g., show an error dialog)
@@ -121,16 +113,11 @@ public class ResponseMenuController implements Initializable {
             // Show logout success message
             showAlert("Logout", "Logged out successfully", Alert.AlertType.INFORMATION);
 
-            // Load the login page FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/Login.fxml"));
-            Parent root = loader.load();
-
             // Get the current stage
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-            // Set the login page scene
-            stage.setScene(new Scene(root));
-            stage.show();
+            // Show the login page
+            views.show(stage, Screen.LOGIN);
         } catch (IOException e) {
             showAlert("Error", "Could not load login page: " + e.getMessage(), Alert.AlertType.ERROR);
         }
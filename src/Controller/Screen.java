@@ -0,0 +1,33 @@
+package Controller;
+
+/**
+ * The screens of the Disaster Response System, each an FXML view in the View package.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public enum Screen {
+    MAIN_MENU("MainMenu.fxml"),
+    LOGIN("Login.fxml"),
+    REGISTRATION("Registration.fxml"),
+    DISASTER_REPORTING("DisasterReportingView.fxml"),
+    RESPONSE_MENU("ResponseMenu.fxml"),
+    RESOURCE_MANAGEMENT("ResourceManagementView.fxml"),
+    RESPONSE_COORDINATION("ResponseCoordinationView.fxml"),
+    COMMUNICATION_HUB("CommunicationHubView.fxml");
+
+    private final String fxmlFile;
+
+    Screen(String fxmlFile) {
+        this.fxmlFile = fxmlFile;
+    }
+
+    /**
+     * Gets the name of the screen's FXML file.
+     *
+     * @return the file name, e.g. MainMenu.fxml
+     */
+    public String getFxmlFile() {
+        return fxmlFile;
+    }
+}
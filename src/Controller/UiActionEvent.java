@@ -0,0 +1,52 @@
+package Controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a button handler, lasting while it held the
+ * JavaFX application thread. Database work the handler starts in the background
+ * is recorded by its own query events, whose stack traces name the handler, and
+ * a dialog the handler waits on counts towards its time.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@Name("drs.UiAction")
+@Label("UI Action")
+@Category({ "Disaster Response System", "User Interface" })
+@Description("A button handler running on the JavaFX application thread")
+@StackTrace(false)
+public class UiActionEvent extends Event {
+    @Label("Controller")
+    String controller;
+
+    @Label("Action")
+    String action;
+
+    /**
+     * Starts timing a button handler. Call {@link #finish()} when it returns.
+     *
+     * @param controller the controller handling the button
+     * @param action     the name of the handler
+     * @return the started event
+     */
+    static UiActionEvent start(Object controller, String action) {
+        UiActionEvent event = new UiActionEvent();
+        event.controller = controller.getClass().getSimpleName();
+        event.action = action;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the handler and records it if a recording is taking these events.
+     */
+    void finish() {
+        commit();
+    }
+}
@@ -0,0 +1,24 @@
+package Controller;
+
+/**
+ * A controller whose view is kept by the {@link ViewRegistry} and shown again each
+ * time the user navigates to it. Views may be loaded in the background before they
+ * are first shown, so {@code initialize} only builds the screen; the data it shows
+ * is loaded by {@link #onShow()}.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public interface ViewController {
+    /**
+     * Called on the JavaFX application thread each time the view is shown, including
+     * the first time. Loads or refreshes the data the screen shows.
+     */
+    void onShow();
+
+    /**
+     * Called on the JavaFX application thread when the user navigates away from the
+     * view. Cancels any work still running for the screen.
+     */
+    void onHide();
+}
@@ -0,0 +1,61 @@
+package Controller;
+
+import java.io.IOException;
+import java.net.URL;
+import javafx.fxml.FXMLLoader;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the loading of an FXML view, which parses the
+ * view and builds its controller, running its {@code initialize} method. Views
+ * are usually loaded by {@link ViewRegistry#preloadAll} on a background startup
+ * thread, and otherwise on the JavaFX application thread when first shown, so
+ * {@code initialize} must not touch the live scene or other APIs that only work
+ * on the application thread. The stack trace shows the preload or the navigation
+ * handler that loaded the view.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@Name("drs.ViewLoad")
+@Label("View Load")
+@Category({ "Disaster Response System", "User Interface" })
+@Description("An FXML view loaded when navigating between screens")
+@StackTrace(true)
+public class ViewLoadEvent extends Event {
+    @Label("View")
+    String view;
+
+    @Label("Controller")
+    String controller;
+
+    /**
+     * Loads a view, recording how long it took.
+     *
+     * @param <T>    the type of the view's root node
+     * @param loader the loader of the view
+     * @return the view's root node
+     * @throws IOException if the view cannot be loaded
+     */
+    public static <T> T load(FXMLLoader loader) throws IOException {
+        ViewLoadEvent event = new ViewLoadEvent();
+        event.begin();
+        try {
+            return loader.load();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                URL location = loader.getLocation();
+                event.view = location == null ? null : location.getPath().substring(location.getPath().lastIndexOf('/') + 1);
+                Object controller = loader.getController();
+                event.controller = controller == null ? null : controller.getClass().getSimpleName();
+                event.commit();
+            }
+        }
+    }
+}
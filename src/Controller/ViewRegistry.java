@@ -0,0 +1,166 @@
+package Controller;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+/**
+ * Loads each screen of the application once and reuses it on every later visit,
+ * so navigating does not parse the FXML, apply the stylesheets and build the
+ * controller again. Screens can be preloaded on a background thread at startup;
+ * one the user navigates to before its preload has started is loaded straight
+ * away instead of waiting its turn.
+ *
+ * Controllers are created through the registry's controller factory, which passes
+ * the registry to a controller with a constructor taking one, so controllers can
+ * navigate without reaching for shared state. Controllers that implement
+ * {@link ViewController} are told when their screen is shown and left, and load
+ * their data then rather than in {@code initialize}. As a preload runs
+ * {@code initialize} off the JavaFX application thread, it may only set up the
+ * controller's own nodes, not the live scene or the stage.
+ *
+ * {@link #show} must be called on the JavaFX application thread.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ViewRegistry {
+    private final Map<Screen, Slot> slots = new ConcurrentHashMap<>();
+    // The screen on show, only touched on the JavaFX application thread
+    private LoadedView current;
+
+    /**
+     * Loads every screen not loaded yet, one at a time on the calling thread, which
+     * should be a background thread. A screen that fails to load is loaded again
+     * when it is first shown.
+     */
+    public void preloadAll() {
+        for (Screen screen : Screen.values()) {
+            slots.computeIfAbsent(screen, Slot::new).loadIfUnclaimed();
+        }
+    }
+
+    /**
+     * Shows a screen in a window, loading it first if it has not been loaded. The
+     * screen on show is told it has been left and the new one that it is shown.
+     *
+     * @param stage  the window to show the screen in
+     * @param screen the screen to show
+     * @return the root of the screen's view
+     * @throws IOException if the screen cannot be loaded
+     */
+    public Parent show(Stage stage, Screen screen) throws IOException {
+        LoadedView view = get(screen);
+        if (current != null && current.controller instanceof ViewController controller) {
+            controller.onHide();
+        }
+        if (view.scene == null) {
+            view.scene = new Scene(view.root);
+        }
+        stage.setScene(view.scene);
+        stage.show();
+        current = view;
+        if (view.controller instanceof ViewController controller) {
+            controller.onShow();
+        }
+        return view.root;
+    }
+
+    /**
+     * Gets a loaded screen, loading it on this thread unless a preload already has it
+     * in hand, in which case it is waited for.
+     *
+     * @param screen the screen
+     * @return the loaded screen
+     * @throws IOException if the screen cannot be loaded
+     */
+    private LoadedView get(Screen screen) throws IOException {
+        Slot slot = slots.computeIfAbsent(screen, Slot::new);
+        slot.loadIfUnclaimed();
+        try {
+            return slot.view.join();
+        } catch (CompletionException e) {
+            // Forget the failure so the next visit tries again
+            slots.remove(screen, slot);
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Loads a screen's FXML, creating its controller with the controller factory.
+     *
+     * @param screen the screen
+     * @return the loaded screen
+     * @throws IOException if the FXML cannot be read or is not valid
+     */
+    private LoadedView load(Screen screen) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewRegistry.class.getResource("/View/" + screen.getFxmlFile()));
+        loader.setControllerFactory(this::createController);
+        Parent root = ViewLoadEvent.load(loader);
+        return new LoadedView(root, loader.getController());
+    }
+
+    /**
+     * Creates a controller, passing it this registry if it has a constructor taking one.
+     *
+     * @param type the controller class named in the FXML
+     * @return the new controller
+     */
+    private Object createController(Class<?> type) {
+        try {
+            try {
+                return type.getConstructor(ViewRegistry.class).newInstance(this);
+            } catch (NoSuchMethodException e) {
+                return type.getConstructor().newInstance();
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create controller " + type.getName(), e);
+        }
+    }
+
+    /**
+     * A screen being or waiting to be loaded. Whichever thread claims it first,
+     * the preloader or the application thread, loads it; the other waits.
+     */
+    private final class Slot {
+        private final Screen screen;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<LoadedView> view = new CompletableFuture<>();
+
+        private Slot(Screen screen) {
+            this.screen = screen;
+        }
+
+        private void loadIfUnclaimed() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    view.complete(load(screen));
+                } catch (IOException | RuntimeException e) {
+                    view.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A loaded screen: its view, its controller and, once shown, its scene.
+     */
+    private static final class LoadedView {
+        private final Parent root;
+        private final Object controller;
+        private Scene scene;
+
+        private LoadedView(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+}
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
  * @author Sagar Bhujel
  * student id 12256739
  */
-public class DisasterReport {
+public class DisasterReport implements Locatable {
     private int reportID;
     private String disasterType;
     private String location;
@@ -18,6 +18,8 @@ public class DisasterReport {
     private String description;
     private String status;
     private LocalDateTime timeStamp;
+    private Double latitude;
+    private Double longitude;
 
     /**
      * Constructs a new DisasterReport with the specified details.
@@ -179,6 +181,47 @@ public class DisasterReport {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    /**
+     * Gets the latitude of the disaster.
+     *
+     * @return The latitude in degrees, or null if no coordinates are known.
+     */
+    @Override
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Gets the longitude of the disaster.
+     *
+     * @return The longitude in degrees, or null if no coordinates are known.
+     */
+    @Override
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Sets the coordinates of the disaster. Both are given or both are null.
+     *
+     * @param latitude  The latitude in degrees, or null if not known.
+     * @param longitude The longitude in degrees, or null if not known.
+     */
+    public void setCoordinates(Double latitude, Double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Checks whether the coordinates of the disaster are known.
+     *
+     * @return true if both latitude and longitude are set.
+     */
+    @Override
+    public boolean hasCoordinates() {
+        return latitude != null && longitude != null;
+    }
     
     /**
      * Returns a string representation of the DisasterReport object.
@@ -195,6 +238,7 @@ public class DisasterReport {
                ", description='" + description + '\'' +
                ", timeStamp=" + timeStamp +
                ", status='" + status + '\'' +
+               (hasCoordinates() ? ", latitude=" + latitude + ", longitude=" + longitude : "") +
                '}';
     }
 
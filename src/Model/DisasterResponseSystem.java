@@ -1,10 +1,19 @@
 package Model;
 import Controller.MainMenuController;
+import Controller.Screen;
+import Controller.ViewRegistry;
+import Persistance.AsyncDatabaseManager;
+import Persistance.CachingDatabaseManager;
+import Persistance.DatabaseManagers;
 import Persistance.DisasterDatabaseConn;
+import Persistance.IDatabaseManager;
+import Persistance.InstrumentedDatabaseManager;
+import Persistance.ReportArchiver;
+import Util.FlightRecording;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import java.util.concurrent.CompletableFuture;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 
 /**
@@ -16,10 +25,20 @@ import javafx.stage.Stage;
  * student id 12256739
  */
 public class DisasterResponseSystem extends Application{
-    private static DisasterDatabaseConn dbConn;
+    private static IDatabaseManager dbConn;
+    private static AsyncDatabaseManager asyncDb;
+    private static ReportArchiver archiver;
+    private static Startup startup;
+    // The SQL database behind dbConn, connected to while the main menu is on show; null on the memory backend
+    private static DisasterDatabaseConn sqlDatabase;
 
     /**
-     * Starts the JavaFX application by loading the main menu FXML and setting up the primary stage.
+     * Starts the JavaFX application by showing the main menu on the primary stage.
+     * The database is then connected to, its reference data cached and the other
+     * screens loaded in the background, side by side, so that the window does not
+     * wait for any of them. Screens used before the database is ready wait for it in
+     * their background calls; if it cannot be reached the user is told, and each
+     * call tries it again.
      *
      * @param primaryStage The primary stage for this application, onto which
      *                     the application scene can be set.
@@ -28,33 +47,103 @@ public class DisasterResponseSystem extends Application{
     @Override
     public void start(Stage primaryStage) throws Exception {
         try{
-            // Load the main menu FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/View/MainMenu.fxml"));
-            Parent root = loader.load();
+            ViewRegistry views = new ViewRegistry();
 
-            // Set up the primary stage
+            // Set up the primary stage with the main menu
             primaryStage.setTitle("Disaster Response System");
-            primaryStage.setScene(new Scene(root));
-            primaryStage.show();
+            views.show(primaryStage, Screen.MAIN_MENU);
+            startup.recordFirstFrame(primaryStage.getScene());
+
+            // Get the database and the remaining screens ready while the user looks at the menu
+            CompletableFuture<Void> database = startup.stage("database", () -> {
+                if (sqlDatabase != null) {
+                    sqlDatabase.connect();
+                }
+            });
+            startup.stageAfter(database, "referenceData", () -> {
+                dbConn.getAllRoles();
+                dbConn.getAllAgencies();
+            });
+            startup.stage("views", views::preloadAll);
+            startup.finish();
+            database.exceptionally(error -> {
+                Platform.runLater(() -> showDatabaseUnavailable(error.getCause() != null ? error.getCause() : error));
+                return null;
+            });
         }catch (Exception e) {
             e.printStackTrace();
         }
     }
     
     /**
-     * The main entry point for the application. Initializes the database connection
+     * The main entry point for the application. Sets up the database manager
      * and launches the JavaFX application.
      *
      * @param args Command line arguments passed to the application.
      */
     public static void main(String[] args) {
-        // Initialize the database connection
-        dbConn = new DisasterDatabaseConn();
+        // Time the startup from here to the first frame and until the application is ready
+        startup = new Startup();
+
+        // Record database queries, view loads and button handlers if started with -Ddrs.jfr.record=true
+        FlightRecording.startIfEnabled();
+
+        // Set up the database manager on the backend chosen with -Ddrs.db.backend; the
+        // database itself is connected to in the background once the window is up
+        dbConn = openDatabase(DatabaseManagers.fromSystemProperty());
+        asyncDb = new AsyncDatabaseManager(dbConn, Platform::runLater);
+        // Move old, resolved reports to the archive tier in the background
+        archiver = new ReportArchiver(dbConn);
+        archiver.start();
 
         // Launch the JavaFX application
         launch(args);
     }
 
+    /**
+     * Sets up the database manager the application uses over a backend's manager.
+     * Repeated lookups on a SQL database are served from a cache; a backend that
+     * keeps its data in this process needs none. Calls that reach the backend are
+     * measured and published over JMX.
+     *
+     * @param backend the manager of the selected backend
+     * @return the database manager
+     */
+    private static IDatabaseManager openDatabase(IDatabaseManager backend) {
+        if (backend instanceof DisasterDatabaseConn sql) {
+            sqlDatabase = sql;
+            return new CachingDatabaseManager(instrument(sql));
+        }
+        return instrument(backend);
+    }
+
+    /**
+     * Tells the user that the database could not be reached at startup.
+     *
+     * @param error the reason
+     */
+    private static void showDatabaseUnavailable(Throwable error) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Database unavailable");
+        alert.setHeaderText(null);
+        alert.setContentText("The database could not be reached: " + error.getMessage()
+            + "\nScreens will try again when they load their data.");
+        alert.show();
+    }
+
+    /**
+     * Wraps a database manager so that its calls are measured, and publishes the
+     * metrics as MBeans under Persistance:type=DatabaseOperation.
+     *
+     * @param database the database manager to measure
+     * @return the measuring database manager
+     */
+    private static IDatabaseManager instrument(IDatabaseManager database) {
+        InstrumentedDatabaseManager instrumented = new InstrumentedDatabaseManager(database);
+        instrumented.registerMBeans();
+        return instrumented;
+    }
+
     /**
      * Closes the database connection when the application exits.
      * This method is called automatically by the JavaFX runtime.
@@ -64,6 +153,12 @@ public class DisasterResponseSystem extends Application{
     @Override
     public void stop() throws Exception {
         // Close the database connection when the application exits
+        if (archiver != null) {
+            archiver.close();
+        }
+        if (asyncDb != null) {
+            asyncDb.shutdown();
+        }
         if (dbConn != null) {
             dbConn.closeConnection();
         }
@@ -71,12 +166,35 @@ public class DisasterResponseSystem extends Application{
     }
     
     /**
-     * Gets the database connection object.
+     * Gets the database manager shared by every controller.
+     * All callers share the same underlying connection pool.
      *
-     * @return The DisasterDatabaseConn object used for database operations.
+     * @return The IDatabaseManager used for database operations.
      */
-    public static DisasterDatabaseConn getDbConn() {
+    public static IDatabaseManager getDbConn() {
         return dbConn;
     }
+    
+    /**
+     * Gets the asynchronous database manager used by the controllers.
+     * Calls made through it run off the JavaFX application thread and
+     * deliver their results back on it.
+     *
+     * @return The AsyncDatabaseManager wrapping the shared database manager.
+     */
+    public static AsyncDatabaseManager getAsyncDb() {
+        return asyncDb;
+    }
+    
+    /**
+     * Gets the readiness signal of the application, completed once the database has
+     * been connected to, its reference data cached and every screen loaded.
+     *
+     * @return a future completed when the application is ready, exceptionally if
+     *         part of the startup failed
+     */
+    public static CompletableFuture<Void> whenReady() {
+        return startup.whenReady();
+    }
    
 }
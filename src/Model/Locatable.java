@@ -0,0 +1,32 @@
+package Model;
+
+/**
+ * Implemented by the records that can have a position on the map, so proximity
+ * indexes can be built over any of them. The coordinates are optional: both are
+ * known or both are null.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public interface Locatable {
+    /**
+     * Gets the latitude.
+     *
+     * @return The latitude in degrees, or null if no coordinates are known.
+     */
+    Double getLatitude();
+
+    /**
+     * Gets the longitude.
+     *
+     * @return The longitude in degrees, or null if no coordinates are known.
+     */
+    Double getLongitude();
+
+    /**
+     * Checks whether the coordinates are known.
+     *
+     * @return true if both latitude and longitude are set.
+     */
+    boolean hasCoordinates();
+}
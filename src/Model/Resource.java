@@ -8,11 +8,13 @@ package Model;
  * @author Sagar Bhujel
  * student id 12256739
  */
-public class Resource {
+public class Resource implements Locatable {
     private int resourceID;
     private String type;
     private int quantity;
     private String status;
+    private Double latitude;
+    private Double longitude;
     
     /**
      * Constructs a new Resource with the specified details.
@@ -107,6 +109,47 @@ public class Resource {
     public void setStatus(String status){
         this.status = status;
     }
+
+    /**
+     * Gets the latitude of the depot the resource is held at.
+     *
+     * @return The latitude in degrees, or null if no coordinates are known.
+     */
+    @Override
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Gets the longitude of the depot the resource is held at.
+     *
+     * @return The longitude in degrees, or null if no coordinates are known.
+     */
+    @Override
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Sets the coordinates of the depot the resource is held at. Both are given or both are null.
+     *
+     * @param latitude  The latitude in degrees, or null if not known.
+     * @param longitude The longitude in degrees, or null if not known.
+     */
+    public void setCoordinates(Double latitude, Double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Checks whether the coordinates of the depot the resource is held at are known.
+     *
+     * @return true if both latitude and longitude are set.
+     */
+    @Override
+    public boolean hasCoordinates() {
+        return latitude != null && longitude != null;
+    }
     
     /**
      * Updates the status of the resource. This method is a placeholder and needs implementation.
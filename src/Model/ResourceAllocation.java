@@ -0,0 +1,118 @@
+package Model;
+
+/**
+ * Represents an allocation of a quantity of a resource to a disaster.
+ * This class encapsulates information about the allocation, including its unique identifier,
+ * the allocated resource, the disaster it was allocated to, and the quantity allocated.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ResourceAllocation {
+    private int allocationID;
+    private int resourceID;
+    private int disasterID;
+    private int quantity;
+
+    /**
+     * Constructs a new ResourceAllocation with the specified details.
+     *
+     * @param allocationID The unique identifier for this allocation.
+     * @param resourceID   The ID of the allocated resource.
+     * @param disasterID   The ID of the disaster the resource is allocated to.
+     * @param quantity     The quantity of the resource allocated.
+     */
+    public ResourceAllocation(int allocationID, int resourceID, int disasterID, int quantity) {
+        this.allocationID = allocationID;
+        this.resourceID = resourceID;
+        this.disasterID = disasterID;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the unique identifier of this allocation.
+     *
+     * @return The allocation ID.
+     */
+    public int getAllocationID() {
+        return allocationID;
+    }
+
+    /**
+     * Sets the unique identifier of this allocation.
+     *
+     * @param allocationID The new allocation ID to set.
+     */
+    public void setAllocationID(int allocationID) {
+        this.allocationID = allocationID;
+    }
+
+    /**
+     * Gets the ID of the allocated resource.
+     *
+     * @return The resource ID.
+     */
+    public int getResourceID() {
+        return resourceID;
+    }
+
+    /**
+     * Sets the ID of the allocated resource.
+     *
+     * @param resourceID The new resource ID to set.
+     */
+    public void setResourceID(int resourceID) {
+        this.resourceID = resourceID;
+    }
+
+    /**
+     * Gets the ID of the disaster the resource is allocated to.
+     *
+     * @return The disaster ID.
+     */
+    public int getDisasterID() {
+        return disasterID;
+    }
+
+    /**
+     * Sets the ID of the disaster the resource is allocated to.
+     *
+     * @param disasterID The new disaster ID to set.
+     */
+    public void setDisasterID(int disasterID) {
+        this.disasterID = disasterID;
+    }
+
+    /**
+     * Gets the quantity of the resource allocated.
+     *
+     * @return The allocated quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the quantity of the resource allocated.
+     *
+     * @param quantity The new quantity to set.
+     */
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Returns a string representation of the ResourceAllocation object.
+     *
+     * @return A string containing all the details of the allocation.
+     */
+    @Override
+    public String toString() {
+        return "ResourceAllocation{" +
+               "allocationID=" + allocationID +
+               ", resourceID=" + resourceID +
+               ", disasterID=" + disasterID +
+               ", quantity=" + quantity +
+               '}';
+    }
+}
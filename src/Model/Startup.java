@@ -0,0 +1,209 @@
+package Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+/**
+ * Times the startup of the application and runs the work it needs before it is
+ * fully usable as background stages, so the main menu can be shown first. Stages
+ * that do not depend on each other run at the same time; a stage can also wait
+ * for another, and is skipped if that one fails.
+ *
+ * Once every stage has finished and the first frame has been drawn, the time each
+ * part took is logged on one line, e.g.
+ * {@code firstFrame=180 firstFrameSinceJvmStart=650 database=1240 referenceData=35 views=410 ready=1290},
+ * in milliseconds since main was entered, except for the stage times. The same line
+ * is appended, with the date, to drs.startup.historyFile so startup times can be
+ * compared across runs.
+ *
+ * Stages are added and {@link #finish()} is called on the JavaFX application thread.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class Startup {
+    private static final String HISTORY_FILE = System.getProperty("drs.startup.historyFile",
+        System.getProperty("user.home") + File.separator + ".drs" + File.separator + "startup-times.log");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final long startNanos = System.nanoTime();
+    // How long the JVM had been running when main was entered, to also give time to first frame from launch
+    private final long jvmUptimeAtStartMs = ManagementFactory.getRuntimeMXBean().getUptime();
+    private final ExecutorService stageThreads = Executors.newCachedThreadPool(
+        Thread.ofPlatform().name("startup-", 0).daemon().factory());
+    // The outcome of each stage in the order they were added, guarded by itself
+    private final Map<String, String> outcomes = new LinkedHashMap<>();
+    private final List<CompletableFuture<Void>> stages = new ArrayList<>();
+    private final CompletableFuture<Long> firstFrameMillis = new CompletableFuture<>();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    /**
+     * The work of a stage.
+     */
+    @FunctionalInterface
+    public interface Work {
+        /**
+         * Does the work.
+         *
+         * @throws Exception if the work fails
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Starts a stage on a background thread straight away.
+     *
+     * @param name the name the stage is logged under
+     * @param work the work of the stage
+     * @return a future completed when the stage has finished, exceptionally if it failed
+     */
+    public CompletableFuture<Void> stage(String name, Work work) {
+        return stageAfter(CompletableFuture.completedFuture(null), name, work);
+    }
+
+    /**
+     * Starts a stage on a background thread once another stage has finished. If that
+     * stage fails this one is skipped, and fails with the same error.
+     *
+     * @param previous the stage to wait for
+     * @param name     the name the stage is logged under
+     * @param work     the work of the stage
+     * @return a future completed when the stage has finished, exceptionally if it failed
+     */
+    public CompletableFuture<Void> stageAfter(CompletableFuture<?> previous, String name, Work work) {
+        setOutcome(name, "skipped");
+        CompletableFuture<Void> stage = previous.thenRunAsync(() -> {
+            long begin = System.nanoTime();
+            try {
+                work.run();
+                setOutcome(name, Long.toString(millisSince(begin)));
+            } catch (Exception e) {
+                setOutcome(name, "failed");
+                System.out.println("Startup stage " + name + " failed. Error: " + e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, stageThreads);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Records the time of the first frame drawn for a scene, which should be the
+     * first one shown. The frame is taken to be drawn once its first layout pass is done.
+     *
+     * @param scene the scene on show
+     */
+    public void recordFirstFrame(Scene scene) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                firstFrameMillis.complete(millisSince(startNanos));
+                // Listeners cannot be removed while the pulse is notifying them
+                Runnable listener = this;
+                Platform.runLater(() -> scene.removePostLayoutPulseListener(listener));
+            }
+        });
+    }
+
+    /**
+     * Marks the end of the stages added so far. The application is ready once they
+     * have all finished, and the startup times are logged once it is ready and the
+     * first frame has been drawn.
+     *
+     * @return a future completed when the application is ready, exceptionally with
+     *         the error of a stage that failed
+     */
+    public CompletableFuture<Void> finish() {
+        CompletableFuture<Void> allStages = CompletableFuture.allOf(stages.toArray(CompletableFuture[]::new));
+        CompletableFuture<Long> readyMillis = allStages.handle((value, error) -> {
+            long elapsed = millisSince(startNanos);
+            if (error == null) {
+                ready.complete(null);
+            } else {
+                ready.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            }
+            return elapsed;
+        });
+        readyMillis.thenAcceptBothAsync(firstFrameMillis, this::report, stageThreads)
+            .whenComplete((value, error) -> stageThreads.shutdown());
+        return whenReady();
+    }
+
+    /**
+     * Gets the readiness signal of the application.
+     *
+     * @return a future completed when every stage has finished, exceptionally with
+     *         the error of a stage that failed
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.copy();
+    }
+
+    /**
+     * Logs the startup times and appends them to the history file.
+     *
+     * @param readyMillis      when the application became ready, in milliseconds since main was entered
+     * @param firstFrameMillis when the first frame was drawn, in milliseconds since main was entered
+     */
+    private void report(long readyMillis, long firstFrameMillis) {
+        StringBuilder line = new StringBuilder();
+        line.append("firstFrame=").append(firstFrameMillis)
+            .append(" firstFrameSinceJvmStart=").append(jvmUptimeAtStartMs + firstFrameMillis);
+        synchronized (outcomes) {
+            outcomes.forEach((name, outcome) -> line.append(' ').append(name).append('=').append(outcome));
+        }
+        line.append(" ready=").append(readyMillis);
+        System.out.println("Startup times (ms): " + line);
+
+        try {
+            Path history = Paths.get(HISTORY_FILE);
+            if (history.getParent() != null) {
+                Files.createDirectories(history.getParent());
+            }
+            Files.writeString(history, LocalDateTime.now().format(TIMESTAMP) + " " + line + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Error writing startup times: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the outcome logged for a stage.
+     *
+     * @param name    the stage name
+     * @param outcome its time in milliseconds, or what became of it
+     */
+    private void setOutcome(String name, String outcome) {
+        synchronized (outcomes) {
+            outcomes.put(name, outcome);
+        }
+    }
+
+    /**
+     * Gets the milliseconds elapsed since a System.nanoTime reading.
+     *
+     * @param startNanos the reading
+     * @return the elapsed milliseconds
+     */
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,260 @@
+package Persistance;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Asynchronous counterpart to {@link IDatabaseManager}.
+ * Each call runs on its own virtual thread, so a slow database never blocks the caller,
+ * and the returned future is completed on the callback executor (the JavaFX application
+ * thread in the running application), so results can be applied to the UI directly.
+ * Calls are expected to be made from that same thread, which guarantees callbacks
+ * attached to the returned future also run on it.
+ *
+ * Screens open a {@link Scope} and close it when the user navigates away; closing the
+ * scope cancels any calls that are still running so their results are never delivered.
+ * A cancelled call is left to finish, as interrupting a thread in the middle of a
+ * write can close its connection or, on H2, the database file, losing the write.
+ * Only long work that checks for interruption and stops cleanly, such as a bulk
+ * import or export, is started with {@link #supplyInterruptibly} so it is stopped.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class AsyncDatabaseManager {
+    private final IDatabaseManager database;
+    private final Executor callbackExecutor;
+    private final ExecutorService workers;
+
+    /**
+     * Constructs a new AsyncDatabaseManager.
+     *
+     * @param database         the database manager the calls are made against
+     * @param callbackExecutor the executor that results are delivered on, e.g. Platform::runLater
+     */
+    public AsyncDatabaseManager(IDatabaseManager database, Executor callbackExecutor) {
+        this.database = database;
+        this.callbackExecutor = callbackExecutor;
+        this.workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("db-call-", 0).factory());
+    }
+
+    /**
+     * Runs a database call on a virtual thread.
+     *
+     * @param <T>  the type of the call result
+     * @param call the call to make, e.g. {@code db -> db.getAllAgencies()}
+     * @return a future completed on the callback executor with the call result;
+     *         cancelling it drops the result but lets the call finish
+     */
+    public <T> CompletableFuture<T> supply(Function<IDatabaseManager, T> call) {
+        return supply(call, false);
+    }
+
+    /**
+     * Runs a database call on a virtual thread that is interrupted if the call is
+     * cancelled, for long work that stops cleanly when interrupted.
+     *
+     * @param <T>  the type of the call result
+     * @param call the call to make, e.g. an import through {@link BulkImporter}
+     * @return a future completed on the callback executor with the call result;
+     *         cancelling it interrupts the call if it is still running
+     */
+    public <T> CompletableFuture<T> supplyInterruptibly(Function<IDatabaseManager, T> call) {
+        return supply(call, true);
+    }
+
+    /**
+     * Runs a database call on a virtual thread.
+     *
+     * @param <T>           the type of the call result
+     * @param call          the call to make
+     * @param interruptible whether cancelling the call interrupts it
+     * @return a future completed on the callback executor with the call result
+     */
+    private <T> CompletableFuture<T> supply(Function<IDatabaseManager, T> call, boolean interruptible) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = workers.submit(() -> {
+            try {
+                T value = call.apply(database);
+                callbackExecutor.execute(() -> result.complete(value));
+            } catch (Throwable t) {
+                callbackExecutor.execute(() -> result.completeExceptionally(t));
+            }
+        });
+        if (interruptible) {
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Opens a new scope for the calls made by one screen.
+     *
+     * @return a new, open scope
+     */
+    public Scope openScope() {
+        return new Scope();
+    }
+
+    /**
+     * Gets the synchronous database manager behind this facade.
+     *
+     * @return the wrapped database manager
+     */
+    public IDatabaseManager getDatabase() {
+        return database;
+    }
+
+    /**
+     * Stops accepting calls and interrupts any that are still running.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * A group of database calls belonging to one screen, cancelled together when the
+     * screen is left.
+     */
+    public class Scope implements AutoCloseable {
+        private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        private Scope() {
+        }
+
+        /**
+         * Runs a database call on a virtual thread as part of this scope. Closing the
+         * scope drops its result but lets the call finish.
+         *
+         * @param <T>  the type of the call result
+         * @param call the call to make
+         * @return a future completed on the callback executor with the call result,
+         *         or already cancelled if the scope is closed
+         */
+        public <T> CompletableFuture<T> supply(Function<IDatabaseManager, T> call) {
+            return supply(call, false);
+        }
+
+        /**
+         * Runs a database call on a virtual thread as part of this scope, interrupted
+         * if the scope is closed before it finishes.
+         *
+         * @param <T>  the type of the call result
+         * @param call the call to make, which must stop cleanly when interrupted
+         * @return a future completed on the callback executor with the call result,
+         *         or already cancelled if the scope is closed
+         */
+        public <T> CompletableFuture<T> supplyInterruptibly(Function<IDatabaseManager, T> call) {
+            return supply(call, true);
+        }
+
+        /**
+         * Runs a database call on a virtual thread as part of this scope.
+         *
+         * @param <T>           the type of the call result
+         * @param call          the call to make
+         * @param interruptible whether closing the scope interrupts the call
+         * @return a future completed on the callback executor with the call result,
+         *         or already cancelled if the scope is closed
+         */
+        private <T> CompletableFuture<T> supply(Function<IDatabaseManager, T> call, boolean interruptible) {
+            if (closed) {
+                CompletableFuture<T> cancelled = new CompletableFuture<>();
+                cancelled.cancel(false);
+                return cancelled;
+            }
+            CompletableFuture<T> future = AsyncDatabaseManager.this.supply(call, interruptible);
+            pending.add(future);
+            future.whenComplete((value, error) -> pending.remove(future));
+            return future;
+        }
+
+        /**
+         * Runs a database call and hands its result to a callback on the callback executor.
+         * Nothing is delivered if the scope is closed before the call finishes.
+         *
+         * @param <T>       the type of the call result
+         * @param call      the call to make
+         * @param onSuccess receives the call result
+         * @param onError   receives the failure if the call throws
+         */
+        public <T> void load(Function<IDatabaseManager, T> call, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            deliver(supply(call), onSuccess, onError);
+        }
+
+        /**
+         * Runs a database call that is interrupted if the scope is closed before it
+         * finishes, and hands its result to a callback on the callback executor.
+         *
+         * @param <T>       the type of the call result
+         * @param call      the call to make, which must stop cleanly when interrupted
+         * @param onSuccess receives the call result
+         * @param onError   receives the failure if the call throws
+         */
+        public <T> void loadInterruptibly(Function<IDatabaseManager, T> call, Consumer<T> onSuccess,
+                Consumer<Throwable> onError) {
+            deliver(supplyInterruptibly(call), onSuccess, onError);
+        }
+
+        /**
+         * Hands the result of a call to a callback, or its failure to another unless it
+         * was cancelled.
+         *
+         * @param <T>       the type of the call result
+         * @param future    the call
+         * @param onSuccess receives the call result
+         * @param onError   receives the failure if the call throws
+         */
+        private <T> void deliver(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    onSuccess.accept(value);
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    if (!(cause instanceof CancellationException)) {
+                        onError.accept(cause);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Checks whether this scope has been closed.
+         *
+         * @return true if the scope no longer accepts calls
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Cancels every call in this scope that has not finished yet, so its result is
+         * not delivered, and stops the scope accepting new calls. Only calls started
+         * with {@link #supplyInterruptibly} are interrupted; the others run to the end.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            for (CompletableFuture<?> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+}
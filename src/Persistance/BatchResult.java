@@ -0,0 +1,116 @@
+package Persistance;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of a batch write made through {@link IDatabaseManager}.
+ * For every input row it holds either the key generated by the database or
+ * the reason that row was rejected, indexed by the row's position in the input list.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class BatchResult {
+    /**
+     * The key reported for a row that was not written.
+     */
+    public static final int NO_KEY = -1;
+
+    private final int[] generatedKeys;
+    private final Map<Integer, String> failures = new TreeMap<>();
+
+    /**
+     * Constructs a new BatchResult for a batch of the given size with no rows written yet.
+     *
+     * @param size the number of rows in the batch
+     */
+    public BatchResult(int size) {
+        generatedKeys = new int[size];
+        Arrays.fill(generatedKeys, NO_KEY);
+    }
+
+    /**
+     * Records the key generated for a row that was written.
+     *
+     * @param index the position of the row in the input list
+     * @param key   the generated key
+     */
+    void setGeneratedKey(int index, int key) {
+        generatedKeys[index] = key;
+        failures.remove(index);
+    }
+
+    /**
+     * Records that a row was not written.
+     *
+     * @param index  the position of the row in the input list
+     * @param reason why the row was rejected
+     */
+    void setFailure(int index, String reason) {
+        generatedKeys[index] = NO_KEY;
+        failures.put(index, reason);
+    }
+
+    /**
+     * Gets the generated keys, one per input row, with {@link #NO_KEY} for failed rows.
+     *
+     * @return a copy of the generated keys
+     */
+    public int[] getGeneratedKeys() {
+        return generatedKeys.clone();
+    }
+
+    /**
+     * Gets the rows that were not written.
+     *
+     * @return the failure reasons keyed by input row index
+     */
+    public Map<Integer, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Gets the number of rows that were written.
+     *
+     * @return the success count
+     */
+    public int getSuccessCount() {
+        return generatedKeys.length - failures.size();
+    }
+
+    /**
+     * Gets the number of rows that were not written.
+     *
+     * @return the failure count
+     */
+    public int getFailureCount() {
+        return failures.size();
+    }
+
+    /**
+     * Checks whether every row in the batch was written.
+     *
+     * @return true if no row failed
+     */
+    public boolean isFullySuccessful() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Returns a string summarising the batch outcome.
+     *
+     * @return a string with the success and failure counts
+     */
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+               "rows=" + generatedKeys.length +
+               ", succeeded=" + getSuccessCount() +
+               ", failed=" + getFailureCount() +
+               ", failures=" + failures +
+               '}';
+    }
+}
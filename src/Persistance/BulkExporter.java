@@ -0,0 +1,300 @@
+package Persistance;
+
+import Util.ChannelWriter;
+import Util.CsvWriter;
+import Util.JsonLinesWriter;
+import Util.RecordWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports disaster reports, resource allocations and agency assignments to CSV or
+ * JSON Lines files of any size, for handing situation data to partner agencies.
+ *
+ * Rows are read through the streaming queries of {@link IDatabaseManager}, so on
+ * the SQL backends they come from a server-side cursor, and each row is written
+ * as soon as it is read. Text is encoded into a direct buffer and handed to the
+ * file channel drs.export.bufferSize characters at a time, so memory use does not
+ * grow with the number of rows. The file is written under a temporary name and
+ * only moved into place once complete, so a failed or cancelled export never
+ * leaves a partial file behind.
+ *
+ * Field names match the model's properties and the names {@link BulkImporter}
+ * reads, so an exported file of reports can be imported into another system.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public final class BulkExporter {
+    /**
+     * File name patterns of the files {@link #create(Path, List)} can write, for file choosers.
+     */
+    public static final List<String> FILE_PATTERNS = List.of("*.csv", "*.jsonl", "*.ndjson",
+            "*.csv.gz", "*.jsonl.gz", "*.ndjson.gz");
+
+    private static final int BUFFER_SIZE = Integer.getInteger("drs.export.bufferSize", 16 * 1024);
+    private static final int PROGRESS_EVERY = Integer.getInteger("drs.export.progressEvery", 10_000);
+
+    private static final List<String> DISASTER_REPORT_FIELDS = List.of("reportID", "disasterType", "location",
+            "severity", "description", "status", "timeStamp", "latitude", "longitude");
+    private static final List<String> RESOURCE_ALLOCATION_FIELDS = List.of("allocationID", "resourceID",
+            "disasterID", "quantity");
+    private static final List<String> AGENCY_ASSIGNMENT_FIELDS = List.of("assignmentID", "agencyID", "agencyName",
+            "disasterID", "disasterType", "assignmentDate", "status");
+
+    /**
+     * The tables that can be exported.
+     */
+    public enum Dataset {
+        DISASTER_REPORTS("reports", "Disaster reports"),
+        RESOURCE_ALLOCATIONS("allocations", "Resource allocations"),
+        AGENCY_ASSIGNMENTS("assignments", "Agency assignments");
+
+        private final String commandName;
+        private final String displayName;
+
+        /**
+         * Constructs a new Dataset.
+         *
+         * @param commandName the name given on the command line
+         * @param displayName the name shown to users
+         */
+        Dataset(String commandName, String displayName) {
+            this.commandName = commandName;
+            this.displayName = displayName;
+        }
+
+        /**
+         * Gets the name given for this dataset on the command line.
+         *
+         * @return the command-line name, e.g. reports
+         */
+        public String getCommandName() {
+            return commandName;
+        }
+
+        /**
+         * Finds the dataset with a command-line name.
+         *
+         * @param name the name, in any case
+         * @return the dataset
+         * @throws IllegalArgumentException if no dataset has that name
+         */
+        public static Dataset fromCommandName(String name) {
+            for (Dataset dataset : values()) {
+                if (dataset.commandName.equalsIgnoreCase(name.trim())) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("Unknown dataset '" + name + "', expected reports, allocations or assignments");
+        }
+
+        /**
+         * Gets the name shown to users, so datasets can be listed in choice dialogs.
+         *
+         * @return the display name
+         */
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * Receives progress every drs.export.progressEvery rows, on the exporting thread.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long rowsWritten);
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private BulkExporter() {
+    }
+
+    /**
+     * Opens a file for writing, choosing the format from its extension: .csv for CSV,
+     * and .jsonl or .ndjson for JSON Lines. Either may be gzipped with a further .gz.
+     * An existing file is replaced.
+     *
+     * @param file   the file to write
+     * @param fields the field names
+     * @return a writer for its records, which the caller must close
+     * @throws IOException if the file cannot be created or its type is not supported
+     */
+    public static RecordWriter create(Path file, List<String> fields) throws IOException {
+        return create(file, file, fields);
+    }
+
+    /**
+     * Opens a file for writing in the format given by another file's extension.
+     *
+     * @param file   the file to write
+     * @param target the file whose name gives the format
+     * @param fields the field names
+     * @return a writer for its records, which the caller must close
+     * @throws IOException if the file cannot be created or the type is not supported
+     */
+    private static RecordWriter create(Path file, Path target, List<String> fields) throws IOException {
+        String name = target.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        boolean csv = name.endsWith(".csv");
+        if (!csv && !name.endsWith(".jsonl") && !name.endsWith(".ndjson")) {
+            throw new IOException("Unsupported file type: " + target.getFileName());
+        }
+        WritableByteChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            if (gzip) {
+                // Deflating runs over the buffer the ChannelWriter hands over, so no further buffering is needed
+                channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            }
+            ChannelWriter out = new ChannelWriter(channel, BUFFER_SIZE);
+            return csv ? new CsvWriter(out, fields) : new JsonLinesWriter(out, fields);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Exports a dataset.
+     *
+     * @param db       the database to read from
+     * @param dataset  the table to export
+     * @param file     the file to write, replaced if it exists
+     * @param progress notified as rows are written, or null
+     * @return the outcome of the export
+     * @throws IOException if the file cannot be written, or the export is interrupted
+     * @throws DataAccessException if the rows cannot be read
+     */
+    public static ExportResult export(IDatabaseManager db, Dataset dataset, Path file, ProgressListener progress)
+            throws IOException {
+        switch (dataset) {
+            case DISASTER_REPORTS:
+                return exportDisasterReports(db, file, progress);
+            case RESOURCE_ALLOCATIONS:
+                return exportResourceAllocations(db, file, progress);
+            default:
+                return exportAgencyAssignments(db, file, progress);
+        }
+    }
+
+    /**
+     * Exports every disaster report in report ID order.
+     *
+     * @param db       the database to read from
+     * @param file     the file to write, replaced if it exists
+     * @param progress notified as rows are written, or null
+     * @return the outcome of the export
+     * @throws IOException if the file cannot be written, or the export is interrupted
+     * @throws DataAccessException if the rows cannot be read
+     */
+    public static ExportResult exportDisasterReports(IDatabaseManager db, Path file, ProgressListener progress)
+            throws IOException {
+        return run(file, DISASTER_REPORT_FIELDS, db::streamAllDisasterReports, report -> new Object[] {
+            report.getReportID(), report.getDisasterType(), report.getLocation(), report.getSeverity(),
+            report.getDescription(), report.getStatus(), report.getTimeStamp(), report.getLatitude(),
+            report.getLongitude()
+        }, progress);
+    }
+
+    /**
+     * Exports every resource allocation in allocation ID order.
+     *
+     * @param db       the database to read from
+     * @param file     the file to write, replaced if it exists
+     * @param progress notified as rows are written, or null
+     * @return the outcome of the export
+     * @throws IOException if the file cannot be written, or the export is interrupted
+     * @throws DataAccessException if the rows cannot be read
+     */
+    public static ExportResult exportResourceAllocations(IDatabaseManager db, Path file, ProgressListener progress)
+            throws IOException {
+        return run(file, RESOURCE_ALLOCATION_FIELDS, db::streamAllResourceAllocations, allocation -> new Object[] {
+            allocation.getAllocationID(), allocation.getResourceID(), allocation.getDisasterID(),
+            allocation.getQuantity()
+        }, progress);
+    }
+
+    /**
+     * Exports every agency assignment in assignment ID order.
+     *
+     * @param db       the database to read from
+     * @param file     the file to write, replaced if it exists
+     * @param progress notified as rows are written, or null
+     * @return the outcome of the export
+     * @throws IOException if the file cannot be written, or the export is interrupted
+     * @throws DataAccessException if the rows cannot be read
+     */
+    public static ExportResult exportAgencyAssignments(IDatabaseManager db, Path file, ProgressListener progress)
+            throws IOException {
+        return run(file, AGENCY_ASSIGNMENT_FIELDS, db::streamAllAgencyAssignments, assignment -> new Object[] {
+            assignment.getAssignmentID(), assignment.getAgencyID(), assignment.getAgencyName(),
+            assignment.getDisasterID(), assignment.getDisasterType(), assignment.getAssignmentDate(),
+            assignment.getStatus()
+        }, progress);
+    }
+
+    /**
+     * Writes a stream of rows to a temporary file beside the target, then moves it
+     * into place. The temporary file is deleted if anything goes wrong.
+     *
+     * @param file     the file to write
+     * @param fields   the field names
+     * @param rows     opens the stream of rows to export
+     * @param values   gets a row's values, in field order
+     * @param progress notified as rows are written, or null
+     * @return the outcome of the export
+     * @throws IOException if the file cannot be written, or the thread is interrupted
+     */
+    private static <T> ExportResult run(Path file, List<String> fields, Supplier<Stream<T>> rows,
+            Function<T, Object[]> values, ProgressListener progress) throws IOException {
+        long start = System.nanoTime();
+        Path target = file.toAbsolutePath();
+        Path partial = target.resolveSibling("." + target.getFileName() + "." + ProcessHandle.current().pid() + "-"
+            + Thread.currentThread().threadId() + ".part");
+        long count = 0;
+        try {
+            try (RecordWriter out = create(partial, target, fields); Stream<T> stream = rows.get()) {
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedIOException("Export cancelled");
+                    }
+                    out.write(values.apply(iterator.next()));
+                    if (++count % PROGRESS_EVERY == 0 && progress != null) {
+                        progress.onProgress(count);
+                    }
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        if (progress != null) {
+            progress.onProgress(count);
+        }
+        return new ExportResult(target, count, Files.size(target), (System.nanoTime() - start) / 1_000_000);
+    }
+}
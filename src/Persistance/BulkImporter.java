@@ -0,0 +1,542 @@
+package Persistance;
+
+import Model.DisasterReport;
+import Model.Resource;
+import Util.CsvReader;
+import Util.GeoHash;
+import Util.JsonRecordReader;
+import Util.RecordReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports disaster reports and resources from CSV or JSON files of any size.
+ *
+ * The import runs as a pipeline. The calling thread reads the file a record at a
+ * time and hands it on in batches of drs.import.batchSize rows. A pool of
+ * drs.import.workers threads validates the batches, and a single writer thread
+ * stores them in file order through the batched inserts of
+ * {@link IDatabaseManager}, so the change log and caches see the new rows as
+ * usual. Only a few batches are in flight at once, so memory use does not grow
+ * with the file. Rows that are malformed, invalid or rejected by the database
+ * are reported with their row number and the rest are still imported.
+ *
+ * Field names are matched ignoring case and match the model's properties:
+ * disasterType, location, severity, description, timeStamp, latitude and
+ * longitude for reports, and type, quantity, status, latitude and longitude for
+ * resources. Other fields, such as IDs, are ignored.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public final class BulkImporter {
+    /**
+     * File name patterns of the files {@link #open(Path)} can read, for file choosers.
+     */
+    public static final List<String> FILE_PATTERNS = List.of("*.csv", "*.json", "*.jsonl", "*.ndjson",
+            "*.csv.gz", "*.json.gz", "*.jsonl.gz", "*.ndjson.gz");
+
+    private static final int BATCH_SIZE = Integer.getInteger("drs.import.batchSize", 1000);
+    private static final int WORKERS = Integer.getInteger("drs.import.workers",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int MAX_ERRORS = Integer.getInteger("drs.import.maxErrors", 1000);
+    // Enough validated batches queued to keep the writer busy while the workers catch up
+    private static final int BATCHES_IN_FLIGHT = WORKERS * 2;
+    private static final int MAX_DESCRIPTION_LENGTH = 65535;
+    private static final Future<?> FINISHED = CompletableFuture.completedFuture(null);
+
+    /**
+     * Receives progress as each batch is stored, on the import's writer thread.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long rowsImported, long rowsFailed);
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private BulkImporter() {
+    }
+
+    /**
+     * Opens a file for import, choosing the reader from its extension: .csv for CSV,
+     * and .json, .jsonl or .ndjson for JSON. Either may be gzipped with a further .gz.
+     *
+     * @param file the file to read
+     * @return a reader over its records, which the caller must close
+     * @throws IOException if the file cannot be opened or its type is not supported
+     */
+    public static RecordReader open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        InputStream in = Files.newInputStream(file);
+        try {
+            if (name.endsWith(".gz")) {
+                in = new GZIPInputStream(in, 64 * 1024);
+                name = name.substring(0, name.length() - ".gz".length());
+            }
+            InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            if (name.endsWith(".csv")) {
+                return new CsvReader(reader);
+            }
+            if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return new JsonRecordReader(reader);
+            }
+            throw new IOException("Unsupported file type: " + file.getFileName());
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Imports disaster reports. Every report is filed as Active, at the time given in
+     * its timeStamp field or now if it has none.
+     *
+     * @param db       the database to add the reports to
+     * @param records  the records to import
+     * @param progress notified as batches are stored, or null
+     * @return the outcome of the import
+     */
+    public static ImportResult importDisasterReports(IDatabaseManager db, RecordReader records, ProgressListener progress) {
+        return run(records, BulkImporter::parseDisasterReport, db::addDisasterReports, progress);
+    }
+
+    /**
+     * Imports resources. A resource without a status is Available.
+     *
+     * @param db       the database to add the resources to
+     * @param records  the records to import
+     * @param progress notified as batches are stored, or null
+     * @return the outcome of the import
+     */
+    public static ImportResult importResources(IDatabaseManager db, RecordReader records, ProgressListener progress) {
+        return run(records, BulkImporter::parseResource, db::addResources, progress);
+    }
+
+    /**
+     * Runs the import pipeline to the end of the file, or until a fatal error or
+     * interruption stops it. Batches already queued are still stored when reading
+     * stops early.
+     *
+     * @param records  the records to import
+     * @param parser   builds a row from a record's fields, throwing IllegalArgumentException if invalid
+     * @param writer   stores a batch of rows
+     * @param progress notified as batches are stored, or null
+     * @return the outcome of the import
+     */
+    private static <T> ImportResult run(RecordReader records, Function<Map<String, String>, T> parser,
+            Function<List<T>, BatchResult> writer, ProgressListener progress) {
+        ImportResult result = new ImportResult(MAX_ERRORS);
+        long start = System.nanoTime();
+        ExecutorService validators = Executors.newFixedThreadPool(WORKERS,
+            Thread.ofPlatform().name("import-validator-", 0).daemon().factory());
+        BlockingQueue<Future<Batch<T>>> pending = new ArrayBlockingQueue<>(BATCHES_IN_FLIGHT);
+        Thread writerThread = Thread.ofPlatform().name("import-writer").daemon()
+            .start(() -> writeBatches(pending, writer, result, progress));
+        try {
+            readBatches(records, parser, validators, pending, result);
+            pending.put(finished());
+            writerThread.join();
+        } catch (InterruptedException e) {
+            result.setFatalError("Import cancelled");
+            writerThread.interrupt();
+            awaitWriter(writerThread);
+            Thread.currentThread().interrupt();
+        } finally {
+            validators.shutdownNow();
+        }
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Reads the records in batches and queues each batch for validation. A record
+     * the reader reports as malformed is passed on as a failed row; any other read
+     * error stops reading and is recorded as fatal.
+     *
+     * @param records    the records to import
+     * @param parser     builds a row from a record's fields
+     * @param validators the pool to validate batches on
+     * @param pending    the queue of batches for the writer, in file order
+     * @param result     the result to record a fatal error in
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static <T> void readBatches(RecordReader records, Function<Map<String, String>, T> parser,
+            ExecutorService validators, BlockingQueue<Future<Batch<T>>> pending, ImportResult result)
+            throws InterruptedException {
+        List<RawRecord> chunk = new ArrayList<>(BATCH_SIZE);
+        long rowNumber = 0;
+        try {
+            while (true) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                Map<String, String> fields;
+                try {
+                    fields = records.next();
+                } catch (RecordReader.MalformedRecordException e) {
+                    chunk.add(new RawRecord(++rowNumber, null, e.getMessage()));
+                    continue;
+                }
+                if (fields == null) {
+                    break;
+                }
+                chunk.add(new RawRecord(++rowNumber, fields, null));
+                if (chunk.size() == BATCH_SIZE) {
+                    List<RawRecord> batch = chunk;
+                    pending.put(validators.submit(() -> validate(batch, parser)));
+                    chunk = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        } catch (IOException e) {
+            result.setFatalError(e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            List<RawRecord> batch = chunk;
+            pending.put(validators.submit(() -> validate(batch, parser)));
+        }
+    }
+
+    /**
+     * Validates a batch of records on a worker thread.
+     *
+     * @param records the records, in file order
+     * @param parser  builds a row from a record's fields
+     * @return the valid rows and the errors for the rest
+     */
+    private static <T> Batch<T> validate(List<RawRecord> records, Function<Map<String, String>, T> parser) {
+        Batch<T> batch = new Batch<>(records.size());
+        for (RawRecord record : records) {
+            if (record.error != null) {
+                batch.errors.add(new ImportResult.RowError(record.number, record.error));
+                continue;
+            }
+            try {
+                batch.add(record.number, parser.apply(normalize(record.fields)));
+            } catch (RuntimeException e) {
+                batch.errors.add(new ImportResult.RowError(record.number, e.getMessage()));
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Stores validated batches in file order until the end marker or an interrupt.
+     *
+     * @param pending  the queue of batches, in file order
+     * @param writer   stores a batch of rows
+     * @param result   the result to record the outcome in
+     * @param progress notified as batches are stored, or null
+     */
+    private static <T> void writeBatches(BlockingQueue<Future<Batch<T>>> pending, Function<List<T>, BatchResult> writer,
+            ImportResult result, ProgressListener progress) {
+        try {
+            while (true) {
+                Batch<T> batch = pending.take().get();
+                if (batch == null) {
+                    return;
+                }
+                write(batch, writer, result);
+                if (progress != null) {
+                    progress.onProgress(result.getRowsRead(), result.getRowsImported(), result.getRowsFailed());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // validate() catches every row's exception, so only an Error can get here
+            throw new IllegalStateException("Validating a batch failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stores one batch and records its rows' outcome, with the validation and
+     * database errors merged in row order.
+     *
+     * @param batch  the batch
+     * @param writer stores a batch of rows
+     * @param result the result to record the outcome in
+     */
+    private static <T> void write(Batch<T> batch, Function<List<T>, BatchResult> writer, ImportResult result) {
+        result.addRowsRead(batch.rows.size() + batch.errors.size());
+        List<ImportResult.RowError> errors = batch.errors;
+        if (!batch.rows.isEmpty()) {
+            try {
+                BatchResult stored = writer.apply(batch.rows);
+                result.addRowsImported(stored.getSuccessCount());
+                for (Map.Entry<Integer, String> failure : stored.getFailures().entrySet()) {
+                    errors.add(new ImportResult.RowError(batch.rowNumbers[failure.getKey()], failure.getValue()));
+                }
+            } catch (RuntimeException e) {
+                for (int i = 0; i < batch.rows.size(); i++) {
+                    errors.add(new ImportResult.RowError(batch.rowNumbers[i], "Batch aborted: " + e.getMessage()));
+                }
+            }
+            errors.sort(Comparator.comparingLong(ImportResult.RowError::getRow));
+        }
+        for (ImportResult.RowError error : errors) {
+            result.addRowError(error.getRow(), error.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the writer to finish the batch it is storing after being interrupted.
+     *
+     * @param writerThread the writer thread
+     */
+    private static void awaitWriter(Thread writerThread) {
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                // Keep waiting; the interrupt is restored by the caller
+            }
+        }
+    }
+
+    /**
+     * Gets the marker queued after the last batch.
+     *
+     * @return a future completed with no batch
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Future<Batch<T>> finished() {
+        return (Future<Batch<T>>) FINISHED;
+    }
+
+    /**
+     * Builds a disaster report from a record.
+     *
+     * @param fields the record's fields, with lower-case names
+     * @return the report, filed as Active
+     * @throws IllegalArgumentException if a field is missing or invalid
+     */
+    private static DisasterReport parseDisasterReport(Map<String, String> fields) {
+        String disasterType = text(fields, "disastertype", 50, true);
+        String location = text(fields, "location", 100, true);
+        int severity = integer(fields, "severity", 1, 10);
+        String description = text(fields, "description", MAX_DESCRIPTION_LENGTH, false);
+        LocalDateTime timeStamp = timestamp(fields, "timestamp");
+        DisasterReport report = new DisasterReport(0, disasterType, location, severity, description, "Active", timeStamp);
+        report.setCoordinates(decimal(fields, "latitude"), decimal(fields, "longitude"));
+        checkCoordinates(report.getLatitude(), report.getLongitude());
+        return report;
+    }
+
+    /**
+     * Builds a resource from a record.
+     *
+     * @param fields the record's fields, with lower-case names
+     * @return the resource
+     * @throws IllegalArgumentException if a field is missing or invalid
+     */
+    private static Resource parseResource(Map<String, String> fields) {
+        String type = text(fields, "type", 50, true);
+        int quantity = integer(fields, "quantity", 0, Integer.MAX_VALUE);
+        String status = text(fields, "status", 20, false);
+        Resource resource = new Resource(0, type, quantity, status == null ? "Available" : status);
+        resource.setCoordinates(decimal(fields, "latitude"), decimal(fields, "longitude"));
+        checkCoordinates(resource.getLatitude(), resource.getLongitude());
+        return resource;
+    }
+
+    /**
+     * Trims a record's field names and values, lower-cases the names and drops
+     * empty values, so files from different tools are read alike.
+     *
+     * @param fields the record's fields
+     * @return the normalized fields
+     */
+    private static Map<String, String> normalize(Map<String, String> fields) {
+        Map<String, String> normalized = new HashMap<>(fields.size() * 2);
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            String value = field.getValue().trim();
+            if (!value.isEmpty()) {
+                normalized.put(field.getKey().trim().toLowerCase(Locale.ROOT), value);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Gets a text field.
+     *
+     * @param fields    the record's fields
+     * @param name      the field name, in lower case
+     * @param maxLength the column's maximum length
+     * @param required  whether the field must be present
+     * @return the value, or null if it is absent and not required
+     * @throws IllegalArgumentException if it is required and absent, or too long
+     */
+    private static String text(Map<String, String> fields, String name, int maxLength, boolean required) {
+        String value = fields.get(name);
+        if (value == null) {
+            if (required) {
+                throw new IllegalArgumentException("Missing " + name);
+            }
+            return null;
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(name + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    /**
+     * Gets a required whole-number field.
+     *
+     * @param fields the record's fields
+     * @param name   the field name, in lower case
+     * @param min    the smallest value allowed
+     * @param max    the largest value allowed
+     * @return the value
+     * @throws IllegalArgumentException if it is absent, not a whole number or out of range
+     */
+    private static int integer(Map<String, String> fields, String name, int min, int max) {
+        String value = text(fields, name, Integer.MAX_VALUE, true);
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a whole number: " + value);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(name + " must be from " + min + " to " + max + ": " + value);
+        }
+        return number;
+    }
+
+    /**
+     * Gets an optional decimal field.
+     *
+     * @param fields the record's fields
+     * @param name   the field name, in lower case
+     * @return the value, or null if it is absent
+     * @throws IllegalArgumentException if it is not a number
+     */
+    private static Double decimal(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Gets an optional date and time field, written as ISO 8601 with either a T or a
+     * space between the date and time.
+     *
+     * @param fields the record's fields
+     * @param name   the field name, in lower case
+     * @return the value, or now if it is absent
+     * @throws IllegalArgumentException if it is not a date and time
+     */
+    private static LocalDateTime timestamp(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " is not a date and time: " + value);
+        }
+    }
+
+    /**
+     * Checks that coordinates are either both missing or a point on the Earth.
+     *
+     * @param latitude  the latitude in degrees, or null
+     * @param longitude the longitude in degrees, or null
+     * @throws IllegalArgumentException if only one is given or they are out of range
+     */
+    private static void checkCoordinates(Double latitude, Double longitude) {
+        if (latitude == null && longitude == null) {
+            return;
+        }
+        if (latitude == null || longitude == null || !GeoHash.isValid(latitude, longitude)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+    }
+
+    /**
+     * One record as read from the file, or the reason it could not be read.
+     */
+    private static class RawRecord {
+        private final long number;
+        private final Map<String, String> fields;
+        private final String error;
+
+        /**
+         * Constructs a new RawRecord.
+         *
+         * @param number the row number, counting from 1
+         * @param fields the fields, or null if the record was malformed
+         * @param error  why the record was malformed, or null
+         */
+        RawRecord(long number, Map<String, String> fields, String error) {
+            this.number = number;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A validated batch: the valid rows with their row numbers, and the errors for
+     * the rest.
+     *
+     * @param <T> the type of row
+     */
+    private static class Batch<T> {
+        private final List<T> rows;
+        private final long[] rowNumbers;
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+
+        /**
+         * Constructs a new, empty Batch.
+         *
+         * @param capacity the number of records in the batch
+         */
+        Batch(int capacity) {
+            rows = new ArrayList<>(capacity);
+            rowNumbers = new long[capacity];
+        }
+
+        /**
+         * Adds a valid row.
+         *
+         * @param number the row number
+         * @param row    the row
+         */
+        void add(long number, T row) {
+            rowNumbers[rows.size()] = number;
+            rows.add(row);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package Persistance;
+
+import Model.*;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A read-through, write-invalidate cache in front of another IDatabaseManager.
+ * Point lookups and the hot list queries are served from bounded LRU caches with a
+ * time-to-live; every write made through this manager removes exactly the cached
+ * entries it can affect. Other calls are forwarded unchanged.
+ *
+ * Callers get their own copies of cached users, resources and reports, so changing
+ * one, for instance before a write that then fails, never alters what other callers
+ * read. Cached lists are returned unmodifiable. The time-to-live bounds how long
+ * changes made by other clients of the same database can go unnoticed.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class CachingDatabaseManager extends ForwardingDatabaseManager {
+    // Cache policies can be tuned with -Ddrs.cache.<setting>=<value>
+    private static final int LOOKUP_MAX_ENTRIES = Integer.getInteger("drs.cache.lookupMaxEntries", 1000);
+    private static final long LOOKUP_TTL_MS = Long.getLong("drs.cache.lookupTtlMs", 30_000L);
+    private static final int LIST_MAX_ENTRIES = Integer.getInteger("drs.cache.listMaxEntries", 100);
+    private static final long LIST_TTL_MS = Long.getLong("drs.cache.listTtlMs", 10_000L);
+
+    private final LruCache<Integer, User> usersById =
+        new LruCache<>("usersById", LOOKUP_MAX_ENTRIES, LOOKUP_TTL_MS);
+    private final LruCache<String, User> usersByUsername =
+        new LruCache<>("usersByUsername", LOOKUP_MAX_ENTRIES, LOOKUP_TTL_MS);
+    private final LruCache<Integer, Resource> resourcesById =
+        new LruCache<>("resourcesById", LOOKUP_MAX_ENTRIES, LOOKUP_TTL_MS);
+    private final LruCache<Integer, DisasterReport> reportsById =
+        new LruCache<>("reportsById", LOOKUP_MAX_ENTRIES, LOOKUP_TTL_MS);
+    private final LruCache<String, List<DisasterReport>> activeReports =
+        new LruCache<>("activeReports", 1, LIST_TTL_MS);
+    private final LruCache<Integer, List<Resource>> allocationsByDisaster =
+        new LruCache<>("allocationsByDisaster", LIST_MAX_ENTRIES, LIST_TTL_MS);
+
+    private static final String ACTIVE_KEY = "Active";
+
+    /**
+     * Constructs a new CachingDatabaseManager.
+     *
+     * @param delegate the database manager that misses and writes are sent to
+     */
+    public CachingDatabaseManager(IDatabaseManager delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public User getUserById(int userId) {
+        return copyUser(usersById.get(userId, delegate::getUserById));
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return copyUser(usersByUsername.get(username, delegate::getUserByUsername));
+    }
+
+    @Override
+    public Resource getResourceById(int resourceId) {
+        return copyResource(resourcesById.get(resourceId, delegate::getResourceById));
+    }
+
+    @Override
+    public DisasterReport getDisasterReportById(int reportId) {
+        return copyDisasterReport(reportsById.get(reportId, delegate::getDisasterReportById));
+    }
+
+    @Override
+    public List<DisasterReport> getActiveDisasterReports() {
+        return copyAll(activeReports.get(ACTIVE_KEY, key -> List.copyOf(delegate.getActiveDisasterReports())),
+            CachingDatabaseManager::copyDisasterReport);
+    }
+
+    @Override
+    public List<Resource> getResourcesAllocatedToDisaster(int disasterId) {
+        return copyAll(allocationsByDisaster.get(disasterId, id -> List.copyOf(delegate.getResourcesAllocatedToDisaster(id))),
+            CachingDatabaseManager::copyResource);
+    }
+
+    @Override
+    public boolean addUser(User user) {
+        boolean added = delegate.addUser(user);
+        usersByUsername.invalidate(user.getUserName());
+        return added;
+    }
+
+    @Override
+    public BatchResult addUsers(List<User> users) {
+        BatchResult result = delegate.addUsers(users);
+        for (User user : users) {
+            usersByUsername.invalidate(user.getUserName());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean updateUser(User user) {
+        boolean updated = delegate.updateUser(user);
+        invalidateUser(user.getUserID());
+        usersByUsername.invalidate(user.getUserName());
+        return updated;
+    }
+
+    @Override
+    public boolean deleteUser(int userId) {
+        boolean deleted = delegate.deleteUser(userId);
+        invalidateUser(userId);
+        return deleted;
+    }
+
+    @Override
+    public boolean updateResource(Resource resource) {
+        boolean updated = delegate.updateResource(resource);
+        invalidateResource(resource.getResourceID());
+        return updated;
+    }
+
+    @Override
+    public boolean updateResourceStatus(int resourceId, String status) {
+        boolean updated = delegate.updateResourceStatus(resourceId, status);
+        invalidateResource(resourceId);
+        return updated;
+    }
+
+    @Override
+    public boolean deleteResource(int resourceId) {
+        boolean deleted = delegate.deleteResource(resourceId);
+        invalidateResource(resourceId);
+        return deleted;
+    }
+
+    @Override
+    public boolean addDisasterReport(DisasterReport report) {
+        boolean added = delegate.addDisasterReport(report);
+        activeReports.invalidateAll();
+        return added;
+    }
+
+    @Override
+    public BatchResult addDisasterReports(List<DisasterReport> reports) {
+        BatchResult result = delegate.addDisasterReports(reports);
+        activeReports.invalidateAll();
+        return result;
+    }
+
+    @Override
+    public boolean updateDisasterReport(DisasterReport report) {
+        boolean updated = delegate.updateDisasterReport(report);
+        reportsById.invalidate(report.getReportID());
+        activeReports.invalidateAll();
+        return updated;
+    }
+
+    @Override
+    public boolean deleteDisasterReport(int reportId) {
+        boolean deleted = delegate.deleteDisasterReport(reportId);
+        reportsById.invalidate(reportId);
+        activeReports.invalidateAll();
+        allocationsByDisaster.invalidate(reportId);
+        return deleted;
+    }
+
+    @Override
+    public boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity) {
+        boolean allocated = delegate.allocateResourceToDisaster(resourceId, disasterId, quantity);
+        invalidateAllocation(resourceId, disasterId);
+        return allocated;
+    }
+
+    @Override
+    public int reserveResource(int resourceId, int disasterId, int quantity, boolean allowPartial) {
+        int reserved = delegate.reserveResource(resourceId, disasterId, quantity, allowPartial);
+        invalidateAllocation(resourceId, disasterId);
+        return reserved;
+    }
+
+    @Override
+    public BatchResult allocateResources(List<ResourceAllocation> allocations) {
+        BatchResult result = delegate.allocateResources(allocations);
+        for (ResourceAllocation allocation : allocations) {
+            invalidateAllocation(allocation.getResourceID(), allocation.getDisasterID());
+        }
+        return result;
+    }
+
+    @Override
+    public int archiveDisasterReports(LocalDateTime olderThan, int limit) {
+        int archived = delegate.archiveDisasterReports(olderThan, limit);
+        if (archived > 0) {
+            // Archived reports leave the live tables along with their allocations
+            reportsById.invalidateAll();
+            allocationsByDisaster.invalidateAll();
+        }
+        return archived;
+    }
+
+    @Override
+    public void closeConnection() {
+        System.out.println("Closing cache: " + getCacheStatistics().values());
+        delegate.closeConnection();
+    }
+
+    /**
+     * Removes a user from both user caches.
+     *
+     * @param userId the ID of the user to remove
+     */
+    private void invalidateUser(int userId) {
+        usersById.invalidate(userId);
+        usersByUsername.invalidateIf((username, user) -> user.getUserID() == userId);
+    }
+
+    /**
+     * Removes the entries an allocation changes: the resource, whose stock was taken,
+     * wherever it is cached, and the disaster's allocation list.
+     *
+     * @param resourceId the ID of the allocated resource
+     * @param disasterId the ID of the disaster it was allocated to
+     */
+    private void invalidateAllocation(int resourceId, int disasterId) {
+        invalidateResource(resourceId);
+        allocationsByDisaster.invalidate(disasterId);
+    }
+
+    /**
+     * Removes a resource from the resource cache and every cached allocation list
+     * that contains it.
+     *
+     * @param resourceId the ID of the resource to remove
+     */
+    private void invalidateResource(int resourceId) {
+        resourcesById.invalidate(resourceId);
+        allocationsByDisaster.invalidateIf((disasterId, resources) ->
+            resources.stream().anyMatch(resource -> resource.getResourceID() == resourceId));
+    }
+
+    /**
+     * Copies a cached user so callers never share it.
+     *
+     * @param user the user to copy, or null
+     * @return the copy, or null if there was no user
+     */
+    private static User copyUser(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new User(user.getUserID(), user.getFullName(), user.getUserName(), user.getGender(),
+            user.getDateOfBirth(), user.getPhoneNumber(), user.getAddress(), user.getRole(), user.getEmail(),
+            user.getPassword());
+    }
+
+    /**
+     * Copies a cached resource so callers never share it.
+     *
+     * @param resource the resource to copy, or null
+     * @return the copy, or null if there was no resource
+     */
+    private static Resource copyResource(Resource resource) {
+        if (resource == null) {
+            return null;
+        }
+        Resource copy = new Resource(resource.getResourceID(), resource.getType(), resource.getQuantity(), resource.getStatus());
+        copy.setCoordinates(resource.getLatitude(), resource.getLongitude());
+        return copy;
+    }
+
+    /**
+     * Copies a cached disaster report so callers never share it.
+     *
+     * @param report the report to copy, or null
+     * @return the copy, or null if there was no report
+     */
+    private static DisasterReport copyDisasterReport(DisasterReport report) {
+        if (report == null) {
+            return null;
+        }
+        DisasterReport copy = new DisasterReport(report.getReportID(), report.getDisasterType(), report.getLocation(),
+            report.getSeverity(), report.getDescription(), report.getStatus(), report.getTimeStamp());
+        copy.setCoordinates(report.getLatitude(), report.getLongitude());
+        return copy;
+    }
+
+    /**
+     * Copies every element of a cached list.
+     *
+     * @param <T>  the element type
+     * @param list the cached list
+     * @param copy copies one element
+     * @return an unmodifiable list of the copies
+     */
+    private static <T> List<T> copyAll(List<T> list, UnaryOperator<T> copy) {
+        return list.stream().map(copy).toList();
+    }
+
+    /**
+     * Gets the number of lookups served from the caches.
+     *
+     * @return the total hit count across all caches
+     */
+    public long getHitCount() {
+        return caches().stream().mapToLong(LruCache::getHits).sum();
+    }
+
+    /**
+     * Gets the number of lookups that went to the database.
+     *
+     * @return the total miss count across all caches
+     */
+    public long getMissCount() {
+        return caches().stream().mapToLong(LruCache::getMisses).sum();
+    }
+
+    /**
+     * Gets a summary of each cache's size, hits, misses and evictions.
+     *
+     * @return one summary line per cache, keyed by cache name
+     */
+    public Map<String, String> getCacheStatistics() {
+        Map<String, String> statistics = new LinkedHashMap<>();
+        for (LruCache<?, ?> cache : caches()) {
+            statistics.put(cache.getName(), cache.toString());
+        }
+        return statistics;
+    }
+
+    /**
+     * Lists every cache kept by this manager.
+     *
+     * @return the caches
+     */
+    private List<LruCache<?, ?>> caches() {
+        return List.of(usersById, usersByUsername, resourcesById, reportsById, activeReports, allocationsByDisaster);
+    }
+}
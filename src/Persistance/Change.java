@@ -0,0 +1,91 @@
+package Persistance;
+
+/**
+ * One entry of the change log: a row of a table that was inserted, updated or
+ * deleted, and the version at which that happened. Only the latest change of each
+ * row is kept, so a row changed several times since a client last synced appears
+ * once, with its most recent operation.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class Change {
+    /**
+     * The table names changes are recorded under.
+     */
+    public static final String USERS = "users";
+    public static final String RESOURCES = "resources";
+    public static final String DISASTER_REPORTS = "disaster_reports";
+    public static final String AGENCY_ASSIGNMENTS = "agency_assignments";
+
+    /**
+     * The kind of write that changed a row.
+     */
+    public enum Operation { INSERT, UPDATE, DELETE }
+
+    private final long version;
+    private final String tableName;
+    private final int rowId;
+    private final Operation operation;
+
+    /**
+     * Constructs a new Change.
+     *
+     * @param version   the version the change was recorded at
+     * @param tableName the table of the changed row
+     * @param rowId     the ID of the changed row
+     * @param operation the kind of write
+     */
+    public Change(long version, String tableName, int rowId, Operation operation) {
+        this.version = version;
+        this.tableName = tableName;
+        this.rowId = rowId;
+        this.operation = operation;
+    }
+
+    /**
+     * Gets the version the change was recorded at.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the table of the changed row.
+     *
+     * @return the table name
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the ID of the changed row.
+     *
+     * @return the row ID
+     */
+    public int getRowId() {
+        return rowId;
+    }
+
+    /**
+     * Gets the kind of write that changed the row.
+     *
+     * @return the operation
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns a string representation of the change.
+     *
+     * @return a string describing the change
+     */
+    @Override
+    public String toString() {
+        return "Change{version=" + version + ", " + operation + " " + tableName + "#" + rowId + "}";
+    }
+}
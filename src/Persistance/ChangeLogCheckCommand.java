@@ -0,0 +1,136 @@
+package Persistance;
+
+import Model.DisasterReport;
+import Model.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the logged writes can be repeated on the same rows, for running
+ * after a change to the change log or to the writes that feed it. Run as
+ *
+ * <pre>java Persistance.ChangeLogCheckCommand</pre>
+ *
+ * or with "ant check-change-log". The database is the one chosen with
+ * -Ddrs.db.backend=mysql|embedded|memory, migrated first if needed. A report and a
+ * resource are added, then reserved from, updated and given a new status twice
+ * over; the stock, the allocation total and the change log entries of both rows
+ * must match afterwards. Every mismatch is printed; the exit status is 0 if there
+ * are none, 1 if there are and 2 if the check could not be run.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ChangeLogCheckCommand {
+    private static final String RESOURCE_TYPE = "Change log check";
+    private static final int INITIAL_STOCK = 10;
+    private static final int ROUNDS = 2;
+
+    /**
+     * Runs the check.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        IDatabaseManager database;
+        try {
+            database = DatabaseManagers.fromSystemProperty();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        int status;
+        try {
+            List<String> mismatches = check(database);
+            mismatches.forEach(System.out::println);
+            System.out.println(mismatches.isEmpty()
+                ? "Every logged write could be repeated"
+                : mismatches.size() + " mismatches found after repeating the logged writes");
+            status = mismatches.isEmpty() ? 0 : 1;
+        } catch (RuntimeException e) {
+            System.err.println("Change log check failed: " + e.getMessage());
+            status = 2;
+        } finally {
+            database.closeConnection();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Repeats the logged writes on a new report and resource.
+     *
+     * @param database the database to check
+     * @return a description of each mismatch found, empty if there are none
+     */
+    private static List<String> check(IDatabaseManager database) {
+        List<String> mismatches = new ArrayList<>();
+        long startVersion = database.getChangeVersion();
+        DisasterReport report = new DisasterReport(0, "Flood", "Change log check", 1,
+            "Added by the change log check", "Active", LocalDateTime.now());
+        Resource resource = new Resource(0, RESOURCE_TYPE, INITIAL_STOCK, "Available");
+        // Added as batches, which fill in the generated IDs
+        if (!database.addDisasterReports(List.of(report)).isFullySuccessful()
+                || !database.addResources(List.of(resource)).isFullySuccessful()) {
+            throw new IllegalStateException("the report and resource to check could not be added");
+        }
+        int reportId = report.getReportID();
+        int resourceId = resource.getResourceID();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            if (database.reserveResource(resourceId, reportId, 1, false) != 1) {
+                mismatches.add("Round " + round + ": reserveResource did not take stock");
+            }
+            if (!database.updateResourceStatus(resourceId, round % 2 == 0 ? "Available" : "In Use")) {
+                mismatches.add("Round " + round + ": updateResourceStatus failed");
+            }
+            report.setDescription("Updated by the change log check, round " + round);
+            if (!database.updateDisasterReport(report)) {
+                mismatches.add("Round " + round + ": updateDisasterReport failed");
+            }
+        }
+
+        Resource stored = database.getResourceById(resourceId);
+        if (stored == null || stored.getQuantity() != INITIAL_STOCK - ROUNDS) {
+            mismatches.add("Stock is " + (stored == null ? "missing" : stored.getQuantity())
+                + ", expected " + (INITIAL_STOCK - ROUNDS));
+        }
+        int allocated = database.getAllocatedQuantity(reportId, RESOURCE_TYPE);
+        if (allocated != ROUNDS) {
+            mismatches.add("Allocation total is " + allocated + ", expected " + ROUNDS);
+        }
+
+        List<Change> changes = new ArrayList<>();
+        long version = startVersion;
+        ChangeSet page;
+        do {
+            page = database.changesSince(version);
+            changes.addAll(page.getChanges());
+            version = page.getNextVersion();
+        } while (page.hasMore());
+        checkLogged(changes, Change.DISASTER_REPORTS, reportId, mismatches);
+        checkLogged(changes, Change.RESOURCES, resourceId, mismatches);
+        return mismatches;
+    }
+
+    /**
+     * Checks that a row has exactly one change log entry, for its last update.
+     *
+     * @param changes    the changes logged since the check started
+     * @param tableName  the table of the row
+     * @param rowId      the ID of the row
+     * @param mismatches the list to add a mismatch to
+     */
+    private static void checkLogged(List<Change> changes, String tableName, int rowId, List<String> mismatches) {
+        List<Change> entries = changes.stream()
+            .filter(change -> change.getTableName().equals(tableName) && change.getRowId() == rowId)
+            .toList();
+        if (entries.size() != 1) {
+            mismatches.add(tableName + " row " + rowId + " has " + entries.size() + " change log entries, expected 1");
+        } else if (entries.get(0).getOperation() != Change.Operation.UPDATE) {
+            mismatches.add(tableName + " row " + rowId + " was logged as " + entries.get(0).getOperation()
+                + ", expected UPDATE");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package Persistance;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The changes returned by {@link IDatabaseManager#changesSince(long)}, in version
+ * order, along with the version to ask from next time.
+ *
+ * The next version can be lower than the last change returned: a change that was
+ * recorded by a transaction still committing is not visible yet, so the version is
+ * held back until such a gap has had time to fill. Changes after the gap are then
+ * returned again by the next call, which is harmless because applying a change
+ * means reloading the current row.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ChangeSet {
+    private final List<Change> changes;
+    private final long nextVersion;
+    private final boolean more;
+
+    /**
+     * Constructs a new ChangeSet.
+     *
+     * @param changes     the changes, in version order
+     * @param nextVersion the version to ask for changes since next time
+     * @param more        whether further changes were left out because of the size limit
+     */
+    public ChangeSet(List<Change> changes, long nextVersion, boolean more) {
+        this.changes = Collections.unmodifiableList(changes);
+        this.nextVersion = nextVersion;
+        this.more = more;
+    }
+
+    /**
+     * Gets the changes, in version order.
+     *
+     * @return an unmodifiable list of changes
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Gets the version to ask for changes since next time.
+     *
+     * @return the next version
+     */
+    public long getNextVersion() {
+        return nextVersion;
+    }
+
+    /**
+     * Checks whether further changes were left out because of the size limit, in
+     * which case they can be fetched straight away from the next version.
+     *
+     * @return true if there are more changes to fetch
+     */
+    public boolean hasMore() {
+        return more;
+    }
+
+    /**
+     * Gets the IDs of the rows of one table that changed, each once, in the order of
+     * their changes.
+     *
+     * @param tableName the table, one of the {@link Change} table names
+     * @return the changed row IDs
+     */
+    public Set<Integer> getRowIds(String tableName) {
+        Set<Integer> rowIds = new LinkedHashSet<>();
+        for (Change change : changes) {
+            if (change.getTableName().equals(tableName)) {
+                rowIds.add(change.getRowId());
+            }
+        }
+        return rowIds;
+    }
+
+    /**
+     * Returns a string representation of the change set.
+     *
+     * @return a string describing the change set
+     */
+    @Override
+    public String toString() {
+        return "ChangeSet{changes=" + changes.size() + ", nextVersion=" + nextVersion + ", more=" + more + "}";
+    }
+}
@@ -0,0 +1,189 @@
+package Persistance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps a list of rows of one table in step with the database through the change
+ * log, so a screen can refresh by reloading only the rows that changed instead of
+ * the whole table. The tracker is reset in the same background task as the full
+ * load it follows, and each poll returns a {@link Delta} to apply to the list on
+ * the JavaFX thread.
+ *
+ * @param <T> the type of row tracked
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ChangeTracker<T> {
+
+    /**
+     * Loads the current state of one row.
+     *
+     * @param <T> the type of row loaded
+     */
+    @FunctionalInterface
+    public interface RowLoader<T> {
+        T load(IDatabaseManager db, int rowId);
+    }
+
+    /**
+     * Where new rows are added when a delta is applied.
+     */
+    public enum Placement { FIRST, LAST, NONE }
+
+    private final String tableName;
+    private final RowLoader<T> loader;
+    private final ToIntFunction<T> idOf;
+    private long version;
+
+    /**
+     * Constructs a new ChangeTracker.
+     *
+     * @param tableName the table to track, one of the {@link Change} table names
+     * @param loader    loads a changed row by ID, returning null once it is deleted
+     * @param idOf      gives the ID of a row
+     */
+    public ChangeTracker(String tableName, RowLoader<T> loader, ToIntFunction<T> idOf) {
+        this.tableName = tableName;
+        this.loader = loader;
+        this.idOf = idOf;
+    }
+
+    /**
+     * Starts tracking from the current version. Called before a full load, so any
+     * change made while the load runs is still returned by the next poll.
+     *
+     * @param db the database to read the version from
+     */
+    public synchronized void reset(IDatabaseManager db) {
+        version = db.getChangeVersion();
+    }
+
+    /**
+     * Fetches the rows of the tracked table that changed since the last reset or poll.
+     *
+     * @param db the database to read the changes and rows from
+     * @return the changed rows, to be applied on the JavaFX thread
+     */
+    public synchronized Delta<T> poll(IDatabaseManager db) {
+        Map<Integer, T> rows = new LinkedHashMap<>();
+        ChangeSet changes;
+        long previous;
+        do {
+            previous = version;
+            changes = db.changesSince(version);
+            for (int rowId : changes.getRowIds(tableName)) {
+                rows.put(rowId, null);
+            }
+            version = changes.getNextVersion();
+        } while (changes.hasMore() && version > previous);
+        for (Map.Entry<Integer, T> row : rows.entrySet()) {
+            row.setValue(loader.load(db, row.getKey()));
+        }
+        return new Delta<>(rows, idOf);
+    }
+
+    /**
+     * The rows of a table that changed between two polls, each either its current
+     * state or null when it no longer exists.
+     *
+     * @param <T> the type of row
+     */
+    public static class Delta<T> {
+        private final Map<Integer, T> rows;
+        private final ToIntFunction<T> idOf;
+
+        /**
+         * Constructs a new Delta.
+         *
+         * @param rows the current state of each changed row by ID, null if deleted
+         * @param idOf gives the ID of a row
+         */
+        private Delta(Map<Integer, T> rows, ToIntFunction<T> idOf) {
+            this.rows = rows;
+            this.idOf = idOf;
+        }
+
+        /**
+         * Checks whether nothing changed.
+         *
+         * @return true if there are no changed rows
+         */
+        public boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        /**
+         * Gets the changed rows.
+         *
+         * @return the current state of each changed row by ID, null for rows that no longer exist
+         */
+        public Map<Integer, T> getRows() {
+            return Collections.unmodifiableMap(rows);
+        }
+
+        /**
+         * Gets the number of changed rows.
+         *
+         * @return the number of rows
+         */
+        public int size() {
+            return rows.size();
+        }
+
+        /**
+         * Applies the changes to a list of rows: rows in the list are replaced by their
+         * current state or removed when deleted, and new rows are added in ID order at
+         * the given end of the list. As IDs only grow, a changed row that is not in the
+         * list is new only if its ID is above every ID in it; otherwise it lies outside
+         * the part of the table the list holds and is left out. The list is scanned
+         * once, however many rows changed.
+         *
+         * @param items     the list to update, usually a table's observable items
+         * @param placement where to add new rows
+         */
+        public void applyTo(List<T> items, Placement placement) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<Integer, Integer> positions = new HashMap<>();
+            int highestId = Integer.MIN_VALUE;
+            for (int i = 0; i < items.size(); i++) {
+                int id = idOf.applyAsInt(items.get(i));
+                positions.put(id, i);
+                highestId = Math.max(highestId, id);
+            }
+            List<Integer> removed = new ArrayList<>();
+            List<T> added = new ArrayList<>();
+            for (Map.Entry<Integer, T> row : rows.entrySet()) {
+                Integer position = positions.get(row.getKey());
+                if (row.getValue() == null) {
+                    if (position != null) {
+                        removed.add(position);
+                    }
+                } else if (position != null) {
+                    items.set(position, row.getValue());
+                } else if (row.getKey() > highestId) {
+                    added.add(row.getValue());
+                }
+            }
+            removed.sort(Comparator.reverseOrder());
+            for (int position : removed) {
+                items.remove(position);
+            }
+            if (placement == Placement.FIRST) {
+                added.sort(Comparator.comparingInt(idOf).reversed());
+                items.addAll(0, added);
+            } else if (placement == Placement.LAST) {
+                added.sort(Comparator.comparingInt(idOf));
+                items.addAll(added);
+            }
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package Persistance;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small JDBC connection pool shared by the whole Disaster Response System.
+ * Connections are opened lazily up to a maximum size, validated when borrowed,
+ * returned to the pool when closed by the caller, and evicted after sitting idle
+ * for longer than the configured timeout (never dropping below the minimum size).
+ * Borrow latency is recorded so that slow pool checkouts can be spotted.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionReturned = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int totalConnections;
+    private boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowNanosTotal = new AtomicLong();
+    private final AtomicLong borrowNanosMax = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsEvicted = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    /**
+     * Constructs a new ConnectionPool and opens the minimum number of connections.
+     *
+     * @param url                 the JDBC URL to connect to
+     * @param username            the database user name
+     * @param password            the database password
+     * @param minSize             the number of connections kept open even when idle
+     * @param maxSize             the maximum number of connections open at once
+     * @param idleTimeoutMillis   how long a connection may sit idle before it is evicted
+     * @param borrowTimeoutMillis how long a caller waits for a free connection before failing
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+            long idleTimeoutMillis, long borrowTimeoutMillis) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = 2;
+
+        for (int i = 0; i < minSize; i++) {
+            idle.push(new PooledConnection(openPhysicalConnection()));
+            totalConnections++;
+        }
+
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool. The returned connection must be closed by the
+     * caller (ideally with try-with-resources); closing it hands it back to the pool
+     * instead of closing the underlying socket.
+     *
+     * @return a validated connection
+     * @throws SQLException if the pool is closed, no connection becomes free in time,
+     *                      or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mayOpen = false;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        mayOpen = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        borrowTimeouts.incrementAndGet();
+                        throw new SQLTransientConnectionException(
+                            "Timed out after " + borrowTimeoutMillis + "ms waiting for a database connection");
+                    }
+                    try {
+                        connectionReturned.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mayOpen) {
+                try {
+                    candidate = new PooledConnection(openPhysicalConnection());
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isValid(candidate)) {
+                validationFailures.incrementAndGet();
+                discard(candidate);
+                continue;
+            }
+            recordBorrow(System.nanoTime() - start);
+            return candidate.lease();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the eviction thread. Connections that are
+     * currently borrowed are closed when they are returned.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pop().physical);
+                totalConnections--;
+            }
+            connectionReturned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Gets the number of connections currently borrowed.
+     *
+     * @return the number of active connections
+     */
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return totalConnections - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of connections currently idle in the pool.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of successful borrows since the pool was created.
+     *
+     * @return the borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Gets the mean time taken to borrow a connection, including validation and any wait.
+     *
+     * @return the average borrow latency in milliseconds
+     */
+    public double getAverageBorrowMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0.0 : borrowNanosTotal.get() / (count * 1_000_000.0);
+    }
+
+    /**
+     * Gets the slowest borrow observed since the pool was created.
+     *
+     * @return the maximum borrow latency in milliseconds
+     */
+    public double getMaxBorrowMillis() {
+        return borrowNanosMax.get() / 1_000_000.0;
+    }
+
+    /**
+     * Gets the number of borrows that gave up waiting for a free connection.
+     *
+     * @return the borrow timeout count
+     */
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.get();
+    }
+
+    /**
+     * Gets the number of physical connections opened since the pool was created.
+     *
+     * @return the number of connections created
+     */
+    public long getConnectionsCreated() {
+        return connectionsCreated.get();
+    }
+
+    /**
+     * Gets the number of idle connections closed by the evictor.
+     *
+     * @return the number of evicted connections
+     */
+    public long getConnectionsEvicted() {
+        return connectionsEvicted.get();
+    }
+
+    /**
+     * Gets the number of idle connections that failed validation when borrowed.
+     *
+     * @return the validation failure count
+     */
+    public long getValidationFailures() {
+        return validationFailures.get();
+    }
+
+    /**
+     * Returns a one-line summary of the pool state and borrow metrics.
+     *
+     * @return a string describing the pool
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool{active=%d, idle=%d, max=%d, borrows=%d, avgBorrow=%.3fms, "
+                + "maxBorrow=%.3fms, timeouts=%d, created=%d, evicted=%d, validationFailures=%d}",
+                getActiveCount(), getIdleCount(), maxSize, getBorrowCount(), getAverageBorrowMillis(),
+                getMaxBorrowMillis(), getBorrowTimeouts(), getConnectionsCreated(), getConnectionsEvicted(),
+                getValidationFailures());
+    }
+
+    /**
+     * Opens a new physical connection to the database.
+     *
+     * @return the new connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    private Connection openPhysicalConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, username, password);
+        connectionsCreated.incrementAndGet();
+        return conn;
+    }
+
+    /**
+     * Checks that an idle connection is still usable before handing it out.
+     *
+     * @param pooled the connection to check
+     * @return true if the connection is open and responds to a validation query
+     */
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return !pooled.physical.isClosed() && pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the latency of a successful borrow.
+     *
+     * @param nanos the time taken to borrow, in nanoseconds
+     */
+    private void recordBorrow(long nanos) {
+        borrowCount.incrementAndGet();
+        borrowNanosTotal.addAndGet(nanos);
+        borrowNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns a connection to the idle queue, or closes it if the pool has been closed.
+     *
+     * @param pooled the connection being returned
+     */
+    private void release(PooledConnection pooled) {
+        boolean broken;
+        try {
+            broken = pooled.physical.isClosed();
+            if (!broken && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            broken = true;
+        }
+        lock.lock();
+        try {
+            if (closed || broken) {
+                closeQuietly(pooled.physical);
+                totalConnections--;
+            } else {
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.push(pooled);
+            }
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes a connection that is no longer usable and frees its slot.
+     *
+     * @param pooled the connection to discard, or null if opening it failed
+     */
+    private void discard(PooledConnection pooled) {
+        if (pooled != null) {
+            closeQuietly(pooled.physical);
+        }
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionReturned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes idle connections that have not been used within the idle timeout,
+     * keeping at least the minimum number of connections open.
+     */
+    private void evictIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        lock.lock();
+        try {
+            // Oldest connections sit at the tail because returns are pushed to the head
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minSize) {
+                PooledConnection pooled = it.next();
+                if (pooled.lastReturned >= cutoff) {
+                    break;
+                }
+                it.remove();
+                closeQuietly(pooled.physical);
+                totalConnections--;
+                connectionsEvicted.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes a physical connection, ignoring any error.
+     *
+     * @param conn the connection to close
+     */
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Wraps a physical connection while it lives in the pool. Each lease hands out a
+     * proxy whose close() returns the connection to the pool exactly once.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private long lastReturned = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean returned;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!returned) {
+                                returned = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return returned || physical.isClosed();
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled[" + physical + "]";
+                        default:
+                            break;
+                    }
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+        }
+    }
+}
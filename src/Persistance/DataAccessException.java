@@ -0,0 +1,23 @@
+package Persistance;
+
+/**
+ * Unchecked exception thrown when a database error occurs somewhere that a
+ * checked SQLException cannot be propagated, such as while a stream of rows
+ * returned by {@link IDatabaseManager} is being consumed.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new DataAccessException with the specified message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the underlying database error
+     */
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
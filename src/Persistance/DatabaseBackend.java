@@ -0,0 +1,119 @@
+package Persistance;
+
+import java.io.File;
+
+/**
+ * The database engines the Disaster Response System can store its data in.
+ * Both run the same schema migrations and SQL through {@link DisasterDatabaseConn};
+ * the embedded engine is H2 running in MySQL compatibility mode, so it needs no
+ * database server and suits field laptops and repeatable performance test runs.
+ *
+ * The backend is chosen at startup with -Ddrs.db.backend=mysql|embedded. The
+ * embedded database is stored in the file given by -Ddrs.db.embeddedPath, or kept
+ * in memory for the life of the process when that path is "mem". Starting with
+ * -Ddrs.db.backend=memory uses {@link InMemoryDatabaseManager} instead of SQL;
+ * {@link DatabaseManagers} creates the right manager for any of the three.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public enum DatabaseBackend {
+    /**
+     * A MySQL server on localhost. Connector/J creates the database on first connect,
+     * saving a separate round trip, rewrites batched inserts into multi-row INSERT
+     * statements, and uses server-side cursors for statements given a fetch size so
+     * streamed queries run in constant memory.
+     */
+    MYSQL("jdbc:mysql://localhost:3306/disasterresponse"
+            + "?createDatabaseIfNotExist=true&rewriteBatchedStatements=true&useCursorFetch=true",
+            "root", "pass"),
+
+    /**
+     * An embedded H2 database in MySQL mode, opened in this process.
+     */
+    EMBEDDED(embeddedUrl(), "sa", "");
+
+    private static final String H2_SETTINGS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+    private static final String IN_MEMORY_PATH = "mem";
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    DatabaseBackend(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Builds the JDBC URL of the embedded database from drs.db.embeddedPath.
+     *
+     * @return the H2 URL
+     */
+    private static String embeddedUrl() {
+        String path = System.getProperty("drs.db.embeddedPath",
+            System.getProperty("user.home") + File.separator + ".drs" + File.separator + "disasterresponse");
+        if (IN_MEMORY_PATH.equals(path)) {
+            // Keep the in-memory database alive while the pool has no open connections
+            return "jdbc:h2:mem:disasterresponse;DB_CLOSE_DELAY=-1" + H2_SETTINGS;
+        }
+        return "jdbc:h2:file:" + path + H2_SETTINGS;
+    }
+
+    /**
+     * Gets the backend selected with the drs.db.backend system property.
+     *
+     * @return the selected backend, MYSQL if none was selected
+     * @throws IllegalArgumentException if the property names an unknown backend, or
+     *                                  the memory backend, which has no SQL database
+     */
+    public static DatabaseBackend fromSystemProperty() {
+        return fromName(System.getProperty("drs.db.backend", "mysql"));
+    }
+
+    /**
+     * Gets the backend with a name, as given to -Ddrs.db.backend.
+     *
+     * @param name the backend name: mysql or embedded
+     * @return the backend
+     * @throws IllegalArgumentException if the name is not a SQL backend
+     */
+    public static DatabaseBackend fromName(String name) {
+        if (DatabaseManagers.MEMORY.equalsIgnoreCase(name.trim())) {
+            throw new IllegalArgumentException("The memory backend has no SQL database, expected mysql or embedded");
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown database backend '" + name + "', expected mysql, embedded or memory");
+        }
+    }
+
+    /**
+     * Gets the JDBC URL of this backend.
+     *
+     * @return the JDBC URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the user name used to connect.
+     *
+     * @return the user name
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the password used to connect.
+     *
+     * @return the password
+     */
+    public String getPassword() {
+        return password;
+    }
+}
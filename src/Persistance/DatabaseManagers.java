@@ -0,0 +1,48 @@
+package Persistance;
+
+/**
+ * Creates the database manager for a backend name, the one place that maps the
+ * names accepted by -Ddrs.db.backend to an implementation, so the application and
+ * the command-line tools agree on them.
+ *
+ * "memory" keeps all data in this process with {@link InMemoryDatabaseManager};
+ * any other name is a {@link DatabaseBackend} served by {@link DisasterDatabaseConn},
+ * which does not connect until it is first used.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public final class DatabaseManagers {
+    /**
+     * The name of the in-process backend.
+     */
+    public static final String MEMORY = "memory";
+
+    private DatabaseManagers() {
+    }
+
+    /**
+     * Creates the database manager for the backend selected with the drs.db.backend
+     * system property.
+     *
+     * @return a new database manager, on MySQL if no backend was selected
+     * @throws IllegalArgumentException if the property names an unknown backend
+     */
+    public static IDatabaseManager fromSystemProperty() {
+        return create(System.getProperty("drs.db.backend", "mysql"));
+    }
+
+    /**
+     * Creates the database manager for a backend.
+     *
+     * @param backend the backend name: mysql, embedded or memory
+     * @return a new database manager
+     * @throws IllegalArgumentException if the name is not a known backend
+     */
+    public static IDatabaseManager create(String backend) {
+        if (MEMORY.equalsIgnoreCase(backend.trim())) {
+            return new InMemoryDatabaseManager();
+        }
+        return new DisasterDatabaseConn(DatabaseBackend.fromName(backend));
+    }
+}
@@ -0,0 +1,58 @@
+package Persistance;
+
+/**
+ * The management interface through which {@link InstrumentedDatabaseManager}
+ * publishes the metrics of one IDatabaseManager method over JMX. Each method is
+ * registered as Persistance:type=DatabaseOperation,name=&lt;method name&gt;, so
+ * operators can compare them in JConsole or VisualVM or scrape them with a JMX
+ * exporter.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public interface DatabaseOperationMXBean {
+    /**
+     * @return the number of calls made
+     */
+    long getCalls();
+
+    /**
+     * @return the number of calls that threw or reported failure
+     */
+    long getErrors();
+
+    /**
+     * @return the number of rows returned, or written by batch calls
+     */
+    long getRows();
+
+    /**
+     * @return the mean latency in milliseconds
+     */
+    double getMeanMillis();
+
+    /**
+     * @return the median latency in milliseconds
+     */
+    double getP50Millis();
+
+    /**
+     * @return the 99th percentile latency in milliseconds
+     */
+    double getP99Millis();
+
+    /**
+     * @return the 99.9th percentile latency in milliseconds
+     */
+    double getP999Millis();
+
+    /**
+     * @return the largest latency in milliseconds
+     */
+    double getMaxMillis();
+
+    /**
+     * Clears the metrics, so the next readings cover only the calls made from now on.
+     */
+    void reset();
+}
@@ -0,0 +1,211 @@
+package Persistance;
+
+import Util.LatencyHistogram;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one IDatabaseManager method: how often it was called, how often
+ * it failed, how many rows it returned and how long it took. Calls are recorded
+ * with counters and a {@link LatencyHistogram}, neither of which allocates, so
+ * every call can be measured.
+ *
+ * A call fails if it throws, returns false, or is a batch with rows that could not
+ * be written. {@link DisasterDatabaseConn} reports most SQL errors by returning
+ * false, so these are counted along with the exceptions.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class DatabaseOperationStats implements DatabaseOperationMXBean {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Constructs a new DatabaseOperationStats.
+     *
+     * @param name the name of the method measured
+     */
+    DatabaseOperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a call that returned an object. A collection or map counts as its
+     * size in rows, a batch as its rows written, null as none and anything else as
+     * one.
+     *
+     * @param <T>    the type of the result
+     * @param start  the System.nanoTime() when the call started
+     * @param result the call's result
+     * @return the result, so calls can be wrapped in place
+     */
+    <T> T completed(long start, T result) {
+        long rowCount;
+        boolean failed = false;
+        if (result == null) {
+            rowCount = 0;
+        } else if (result instanceof Collection<?> collection) {
+            rowCount = collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            rowCount = map.size();
+        } else if (result instanceof BatchResult batch) {
+            rowCount = batch.getSuccessCount();
+            failed = batch.getFailureCount() > 0;
+        } else {
+            rowCount = 1;
+        }
+        record(start, rowCount, failed);
+        return result;
+    }
+
+    /**
+     * Records a call that returned whether it succeeded.
+     *
+     * @param start  the System.nanoTime() when the call started
+     * @param result the call's result, false counting as a failure
+     * @return the result
+     */
+    boolean completed(long start, boolean result) {
+        record(start, result ? 1 : 0, !result);
+        return result;
+    }
+
+    /**
+     * Records a call that returned a number, counted as one row.
+     *
+     * @param start  the System.nanoTime() when the call started
+     * @param result the call's result
+     * @return the result
+     */
+    int completed(long start, int result) {
+        record(start, 1, false);
+        return result;
+    }
+
+    /**
+     * Records a call that returned a number, counted as one row.
+     *
+     * @param start  the System.nanoTime() when the call started
+     * @param result the call's result
+     * @return the result
+     */
+    long completed(long start, long result) {
+        record(start, 1, false);
+        return result;
+    }
+
+    /**
+     * Records a call that opened a stream; its rows are added as they are read.
+     *
+     * @param start the System.nanoTime() when the call started
+     */
+    void opened(long start) {
+        record(start, 0, false);
+    }
+
+    /**
+     * Records a call that threw.
+     *
+     * @param start the System.nanoTime() when the call started
+     */
+    void failed(long start) {
+        record(start, 0, true);
+    }
+
+    /**
+     * Counts rows read from a stream after the call that opened it has returned.
+     *
+     * @param count the number of rows
+     */
+    void addRows(long count) {
+        rows.add(count);
+    }
+
+    /**
+     * Records a finished call.
+     *
+     * @param start    the System.nanoTime() when the call started
+     * @param rowCount the rows it returned
+     * @param failed   whether it failed
+     */
+    private void record(long start, long rowCount, boolean failed) {
+        latency.record(System.nanoTime() - start);
+        calls.increment();
+        rows.add(rowCount);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Gets the name of the method measured.
+     *
+     * @return the method name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getValueAtPercentile(50) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getValueAtPercentile(99) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.getValueAtPercentile(99.9) / 1_000_000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        latency.reset();
+    }
+
+    /**
+     * Describes the metrics, for logs.
+     *
+     * @return the method name, counts and latency summary
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d, errors=%d, rows=%d, %s", name, getCalls(), getErrors(), getRows(), latency);
+    }
+}
@@ -0,0 +1,54 @@
+package Persistance;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for one SQL statement run by {@link DisasterDatabaseConn},
+ * lasting from its execution until its results were closed. The stack trace shows
+ * the controller lambda that made the call, so a recording links each query to
+ * the screen waiting on it.
+ *
+ * The events are emitted by {@link SlowQueryLog}, which already times every
+ * statement, and cost nothing while no recording has them enabled.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+@Name("drs.DatabaseQuery")
+@Label("Database Query")
+@Category({ "Disaster Response System", "Database" })
+@Description("A SQL statement, from its execution until its results were closed")
+@StackTrace(true)
+public class DatabaseQueryEvent extends Event {
+    @Label("SQL")
+    String sql;
+
+    @Label("Parameters")
+    String parameters;
+
+    @Label("Rows")
+    @Description("Rows read from a query or changed by an update, -1 if not known")
+    long rows;
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Execute Time")
+    @Description("Time taken to execute the statement, before any rows were read")
+    @Timespan(Timespan.NANOSECONDS)
+    long executeTime;
+
+    @Label("Fetch Time")
+    @Description("Time spent reading rows from the driver, not counting the caller's work between rows")
+    @Timespan(Timespan.NANOSECONDS)
+    long fetchTime;
+
+    @Label("Error")
+    String error;
+}
@@ -1,9 +1,34 @@
 package Persistance;
 
 import Model.*;
+import Util.GeoHash;
+import Util.GeoIndex;
+import Util.InvertedIndex;
+import Util.StripedLocks;
 import java.util.List;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class manages the database connection and operations for the Disaster Response System.
@@ -14,120 +39,220 @@ import java.util.ArrayList;
  */
 
 public class DisasterDatabaseConn implements IDatabaseManager{
-    private final String MYSQL_URL = "jdbc:mysql://localhost:3306";
-    private final String DB_URL = MYSQL_URL + "/disasterresponse";
-    private final String USERNAME = "root";
-    private final String PASSWORD = "pass";
+    // Pool sizing can be tuned with -Ddrs.db.pool.<setting>=<value>
+    private static final int POOL_MIN_SIZE = Integer.getInteger("drs.db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("drs.db.pool.maxSize", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("drs.db.pool.idleTimeoutMs", 300_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("drs.db.pool.borrowTimeoutMs", 5_000L);
+    // After failing to reach the database, calls fail straight away for this long before it is tried again
+    private static final long RECONNECT_INTERVAL_MS = Long.getLong("drs.db.reconnectIntervalMs", 5_000L);
+    // Rows fetched per round trip by the stream* methods
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger("drs.db.streamFetchSize", 1000);
     
-    private Connection connection;
+    private static final String INSERT_USER_SQL = "INSERT INTO users (username, password, role, fullName, gender, dateOfBirth, phoneNumber, address, email) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RESOURCE_SQL = "INSERT INTO resources (type, quantity, status, latitude, longitude, geohash) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_REPORT_SQL = "INSERT INTO disaster_reports (disasterType, location, severity, description, timeStamp, "
+            + "latitude, longitude, geohash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ALLOCATION_SQL = "INSERT INTO resource_allocations (resourceID, disasterID, quantity) VALUES (?, ?, ?)";
+    // Takes stock only if enough is left, so concurrent allocations can never overdraw it
+    private static final String RESERVE_STOCK_SQL = "UPDATE resources SET quantity = quantity - ? WHERE resourceID = ? AND quantity >= ?";
+    // Adds an allocation to the running total for its disaster and resource type
+    private static final String ADD_TO_TOTALS_SQL = "INSERT INTO disaster_allocation_totals (disasterID, resourceType, quantity) "
+            + "SELECT ?, type, ? FROM resources WHERE resourceID = ? ON DUPLICATE KEY UPDATE quantity = quantity + ?";
+    private static final String INSERT_ASSIGNMENT_SQL = "INSERT INTO agency_assignments (agencyID, disasterID) VALUES (?, ?)";
+    // Columns shared by the live and archived report tables, so rows can be moved and queried across both
+    private static final String REPORT_COLUMNS = "reportID, disasterType, location, severity, description, timeStamp, status, "
+            + "latitude, longitude, geohash";
+
+    // Replaces the row's previous change, so it gets a new version and the log keeps one entry per row
+    private static final String LOG_CHANGE_SQL = "REPLACE INTO change_log (tableName, rowID, operation) VALUES (?, ?, ?)";
+    // H2 does not replace on the (tableName, rowID) unique index, so there the previous change is deleted and the
+    // new one inserted instead; V4__change_log.sql still describes REPLACE, but is checksummed and cannot be edited.
+    // A newly inserted row has no previous change, so nothing is deleted for it
+    private static final String CLEAR_CHANGE_SQL = "DELETE FROM change_log WHERE tableName = ? AND rowID = ?";
+    private static final String INSERT_CHANGE_SQL = "INSERT INTO change_log (tableName, rowID, operation) VALUES (?, ?, ?)";
+
+    // Change log reads: the most changes returned per call, and how long a gap in the
+    // versions is waited on before it is taken to be a rolled-back write
+    private static final int MAX_CHANGES = Integer.getInteger("drs.sync.maxChanges", 1000);
+    private static final int GAP_GRACE_SECONDS = Integer.getInteger("drs.sync.gapGraceSeconds", 5);
+    
+    // Agencies and roles are tiny and rarely change, so they are shared by every instance
+    // and refreshed after drs.cache.referenceTtlMs in case another client changed them
+    private static final long REFERENCE_TTL_MS = Long.getLong("drs.cache.referenceTtlMs", 60_000L);
+    private static final ReferenceDataCache<Agency> AGENCY_CACHE = new ReferenceDataCache<>(REFERENCE_TTL_MS);
+    private static final ReferenceDataCache<String> ROLE_CACHE = new ReferenceDataCache<>(REFERENCE_TTL_MS);
+    
+    // Allocations of the same resource queue on these locks in-process instead of each
+    // holding a pooled connection while it waits for the row lock in the database
+    private static final StripedLocks RESOURCE_LOCKS = new StripedLocks(Integer.getInteger("drs.db.allocationStripes", 64));
+
+    private static final Object POOL_LOCK = new Object();
+    private static final Map<DatabaseBackend, ConnectionPool> SHARED_POOLS = new EnumMap<>(DatabaseBackend.class);
+    // The last failure to reach each backend and when it may be tried again, guarded by POOL_LOCK
+    private static final Map<DatabaseBackend, SQLException> CONNECT_FAILURES = new EnumMap<>(DatabaseBackend.class);
+    private static final Map<DatabaseBackend, Long> RETRY_AFTER_NANOS = new EnumMap<>(DatabaseBackend.class);
+    // Statements slower than drs.db.slowQuery.thresholdMs are logged with their caller and parameters
+    private static final SlowQueryLog SLOW_QUERIES = new SlowQueryLog();
+    
+    // InnoDB leaves words shorter than innodb_ft_min_token_size out of its full-text indexes
+    private static final int MIN_FULLTEXT_WORD_LENGTH = Integer.getInteger("drs.search.minWordLength", 3);
+
+    // Nine geohash characters locate a point to within about 5 metres
+    private static final int GEOHASH_PRECISION = 9;
+    // How long proximity lookups may go without checking the change log for writes from other processes
+    private static final long GEO_SYNC_INTERVAL_MS = Long.getLong("drs.geo.syncIntervalMs", 1_000L);
+
+    private final DatabaseBackend backend;
+    // The shared pool, looked up on first use so that constructing an instance never waits for the database
+    private volatile ConnectionPool pool;
+
+    // Report search index for backends without full-text indexes, built on the first
+    // search and brought up to date from the change log before each one
+    private final ChangeTracker<DisasterReport> searchIndexChanges =
+        new ChangeTracker<>(Change.DISASTER_REPORTS, IDatabaseManager::getDisasterReportById, DisasterReport::getReportID);
+    private InvertedIndex searchIndex;
+
+    // Proximity indexes over the reports and resources that have coordinates
+    private final LocationIndex<DisasterReport> reportLocations = new LocationIndex<>(Change.DISASTER_REPORTS,
+        "SELECT * FROM disaster_reports WHERE geohash IS NOT NULL ORDER BY geohash", this::createDisasterReportFromResultSet,
+        IDatabaseManager::getDisasterReportById, DisasterReport::getReportID, DisasterDatabaseConn::copyDisasterReport);
+    private final LocationIndex<Resource> resourceLocations = new LocationIndex<>(Change.RESOURCES,
+        "SELECT * FROM resources WHERE geohash IS NOT NULL ORDER BY geohash", this::createResourceFromResultSet,
+        IDatabaseManager::getResourceById, Resource::getResourceID, DisasterDatabaseConn::copyResource);
     
     /**
-     * Constructs a new DisasterDatabaseConn object.
-     * Initializes the database connection and creates necessary tables if they don't exist.
+     * Constructs a new DisasterDatabaseConn object on the backend selected with the
+     * drs.db.backend system property.
      */
     public DisasterDatabaseConn() {
-        try {
-            // First, connect to MySQL server without specifying a database
-            connection = DriverManager.getConnection(MYSQL_URL, USERNAME, PASSWORD);
-            // Create the database if it doesn't exist
-            try (Statement stmt = connection.createStatement()) {
-                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS disasterresponse");
-            }
-            
-            // Close the initial connection
-            connection.close();
-            
-            connection = DriverManager.getConnection(DB_URL, USERNAME, PASSWORD);
-            createTables();
-        } catch (SQLException e) {
-            System.out.println("Database connection failed. Error: " + e.getMessage());
+        this(DatabaseBackend.fromSystemProperty());
+    }
+    
+    /**
+     * Constructs a new DisasterDatabaseConn object backed by the application-wide
+     * connection pool for the given backend. Constructing one does not touch the
+     * database: the first instance to be used, or {@link #connect()}, creates the
+     * database and the pool and brings the schema up to date, and later instances
+     * reuse them.
+     *
+     * @param backend the database engine to store data in
+     */
+    public DisasterDatabaseConn(DatabaseBackend backend) {
+        this.backend = backend;
+    }
+    
+    /**
+     * Connects to the database now rather than on the first call, creating the
+     * shared pool and running any pending schema migrations if no instance has yet.
+     *
+     * @throws SQLException if the database cannot be reached or migrated
+     */
+    public void connect() throws SQLException {
+        getPool();
+    }
+    
+    /**
+     * Gets the shared pool of this instance's backend, connecting to the database
+     * if it has not been reached yet.
+     *
+     * @return the shared pool
+     * @throws SQLException if the database cannot be reached or migrated
+     */
+    private ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            current = getSharedPool(backend);
+            pool = current;
         }
+        return current;
     }
     
     /**
-     * Creates the necessary tables in the database if they don't already exist.
-     *
-     * @throws SQLException if there's an error executing SQL statements
-     */
-    private void createTables() throws SQLException {
-        String createUsersTable = "CREATE TABLE IF NOT EXISTS users (" +
-            "userID INT AUTO_INCREMENT PRIMARY KEY," +
-            "username VARCHAR(50) UNIQUE NOT NULL," +
-            "password VARCHAR(50) NOT NULL," +
-            "role VARCHAR(20) NOT NULL," +
-            "fullName VARCHAR(100) NOT NULL," +
-            "gender INT," +
-            "dateOfBirth DATE," +
-            "phoneNumber VARCHAR(20)," +
-            "address VARCHAR(200)," +
-            "email VARCHAR(100)" +
-        ")";
-
-        String createResourcesTable = "CREATE TABLE IF NOT EXISTS resources (" +
-            "resourceID INT AUTO_INCREMENT PRIMARY KEY," +
-            "type VARCHAR(50) NOT NULL," +
-            "quantity INT NOT NULL," +
-            "status VARCHAR(20) NOT NULL" +
-        ")";
-
-        String createDisasterReportsTable = "CREATE TABLE IF NOT EXISTS disaster_reports (" +
-            "reportID INT AUTO_INCREMENT PRIMARY KEY," +
-            "disasterType VARCHAR(50) NOT NULL," +
-            "location VARCHAR(100) NOT NULL," +
-            "severity INT NOT NULL," +
-            "description TEXT," +
-            "timeStamp DATETIME NOT NULL," +
-            "status VARCHAR(20) DEFAULT 'Active'" +
-        ")";
-
-        String createResourceAllocationsTable = "CREATE TABLE IF NOT EXISTS resource_allocations (" +
-            "allocationID INT AUTO_INCREMENT PRIMARY KEY," +
-            "resourceID INT," +
-            "disasterID INT," +
-            "quantity INT NOT NULL," +
-            "FOREIGN KEY (resourceID) REFERENCES resources(resourceID)," +
-            "FOREIGN KEY (disasterID) REFERENCES disaster_reports(reportID)" +
-        ")";
-        
-        String createAgenciesTable = "CREATE TABLE IF NOT EXISTS agencies (" +
-            "id INT AUTO_INCREMENT PRIMARY KEY," +
-            "name VARCHAR(100) NOT NULL," +
-            "type VARCHAR(50) NOT NULL" +
-        ")";
-        
-        String createAgencyAssignmentsTable = "CREATE TABLE IF NOT EXISTS agency_assignments (" +
-            "assignmentID INT AUTO_INCREMENT PRIMARY KEY," +
-            "agencyID INT," +
-            "disasterID INT," +
-            "assignmentDate DATETIME DEFAULT CURRENT_TIMESTAMP," +
-            "status VARCHAR(20) DEFAULT 'Assigned'," +
-            "FOREIGN KEY (agencyID) REFERENCES agencies(id)," +
-            "FOREIGN KEY (disasterID) REFERENCES disaster_reports(reportID)" +
-        ")";
-
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createUsersTable);
-            stmt.execute(createResourcesTable);
-            stmt.execute(createDisasterReportsTable);
-            stmt.execute(createResourceAllocationsTable);
-            stmt.execute(createAgenciesTable);
-            stmt.execute(createAgencyAssignmentsTable);
-            
-            // Insert default agencies if the table is empty
-            String checkAgencies = "SELECT COUNT(*) FROM agencies";
-            ResultSet rs = stmt.executeQuery(checkAgencies);
-            rs.next();
-            if (rs.getInt(1) == 0) {
-                String insertAgencies = "INSERT INTO agencies (name, type) VALUES " +
-                    "('Fire Department', 'Emergency')," +
-                    "('Police', 'Law Enforcement')," +
-                    "('Medical Services', 'Healthcare')," +
-                    "('Red Cross', 'Humanitarian')";
-                stmt.execute(insertAgencies);
+     * Returns the connection pool shared by every DisasterDatabaseConn on a backend,
+     * creating it and running any pending schema migrations on first use. If the
+     * database could not be reached, the failure is reported again without retrying
+     * until drs.db.reconnectIntervalMs has passed, so a server that is down does not
+     * make every call wait for a connection timeout.
+     *
+     * @param backend the database engine to connect to
+     * @return the shared pool
+     * @throws SQLException if the database cannot be reached or migrated
+     */
+    private static ConnectionPool getSharedPool(DatabaseBackend backend) throws SQLException {
+        synchronized (POOL_LOCK) {
+            ConnectionPool sharedPool = SHARED_POOLS.get(backend);
+            if (sharedPool != null) {
+                return sharedPool;
+            }
+            SQLException failure = CONNECT_FAILURES.get(backend);
+            if (failure != null && System.nanoTime() - RETRY_AFTER_NANOS.get(backend) < 0) {
+                throw new SQLException("Database is not available: " + failure.getMessage(), failure);
+            }
+            ConnectionPool created = null;
+            try {
+                created = new ConnectionPool(backend.getUrl(), backend.getUsername(), backend.getPassword(),
+                    POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS);
+                try (Connection conn = created.getConnection()) {
+                    new SchemaMigrator(conn).migrate();
+                }
+                SHARED_POOLS.put(backend, created);
+                CONNECT_FAILURES.remove(backend);
+                RETRY_AFTER_NANOS.remove(backend);
+                return created;
+            } catch (SQLException e) {
+                if (created != null) {
+                    created.close();
+                }
+                System.out.println("Database connection failed. Error: " + e.getMessage());
+                CONNECT_FAILURES.put(backend, e);
+                RETRY_AFTER_NANOS.put(backend, System.nanoTime() + RECONNECT_INTERVAL_MS * 1_000_000L);
+                throw e;
             }
         }
     }
     
+    /**
+     * Borrows a connection from the shared pool, watched by the slow query log.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @return a pooled connection
+     * @throws SQLException if the database is unavailable or no connection is free
+     */
+    private Connection getConnection() throws SQLException {
+        ConnectionPool current = getPool();
+        return SLOW_QUERIES.watch(current.getConnection(), current);
+    }
+    
+    /**
+     * Gets the connection pool used by this instance, for monitoring its metrics.
+     *
+     * @return the shared connection pool, or null if this instance has not reached the database yet
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+    
+    /**
+     * Gets the log of slow statements shared by every instance, for monitoring.
+     *
+     * @return the slow query log
+     */
+    public static SlowQueryLog getSlowQueryLog() {
+        return SLOW_QUERIES;
+    }
+    
+    /**
+     * Gets the database engine this instance stores data in.
+     *
+     * @return the backend
+     */
+    public DatabaseBackend getBackend() {
+        return backend;
+    }
+    
     /**
      * Adds a new user to the database.
      *
@@ -136,19 +261,12 @@ public class DisasterDatabaseConn implements IDatabaseManager{
      */
     @Override
     public boolean addUser(User user) {
-        String sql = "INSERT INTO users (username, password, role, fullName, gender, dateOfBirth, phoneNumber, address, email) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)){
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getRole());
-            pstmt.setString(4, user.getFullName());
-            pstmt.setInt(5, user.getGender());
-            pstmt.setDate(6, Date.valueOf(user.getDateOfBirth()));
-            pstmt.setString(7, user.getPhoneNumber());
-            pstmt.setString(8, user.getAddress());
-            pstmt.setString(9, user.getEmail());
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean added = insertLogged(INSERT_USER_SQL, Change.USERS, user, this::bindUser);
+            if (added) {
+                ROLE_CACHE.invalidate();
+            }
+            return added;
         } catch (SQLException e) {
             System.out.println("Error adding user: " + e.getMessage());
             return false;
@@ -164,7 +282,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     @Override
     public User getUserById(int userId) {
         String sql = "SELECT * FROM users WHERE userID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -185,7 +304,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     @Override
     public User getUserByUsername(String username) {
         String sql = "SELECT * FROM users WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -206,7 +326,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users";
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 users.add(createUserFromResultSet(rs));
@@ -217,6 +338,33 @@ public class DisasterDatabaseConn implements IDatabaseManager{
         return users;
     }
 
+    /**
+     * Retrieves one page of users, newest first, using keyset pagination.
+     * Pass Integer.MAX_VALUE to get the first page, then the smallest ID of the
+     * previous page to get the next one.
+     *
+     * @param beforeUserId only users with an ID below this are returned
+     * @param limit the maximum number of users to return
+     * @return a List of at most limit User objects in descending ID order
+     */
+    @Override
+    public List<User> getUsersBefore(int beforeUserId, int limit) {
+        List<User> users = new ArrayList<>();
+        String sql = "SELECT * FROM users WHERE userID < ? ORDER BY userID DESC LIMIT ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, beforeUserId);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                users.add(createUserFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting page of users: " + e.getMessage());
+        }
+        return users;
+    }
+
     /**
      * Adds a new resource to the database.
      *
@@ -225,12 +373,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
      */
     @Override
     public boolean addResource(Resource resource) {
-        String sql = "INSERT INTO resources (type, quantity, status) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, resource.getType());
-            pstmt.setInt(2, resource.getQuantity());
-            pstmt.setString(3, resource.getStatus());
-            return pstmt.executeUpdate() > 0;
+        try {
+            return insertLogged(INSERT_RESOURCE_SQL, Change.RESOURCES, resource, this::bindResource);
         } catch (SQLException e) {
             System.out.println("Error adding resource: " + e.getMessage());
             return false;
@@ -246,7 +390,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     @Override
     public Resource getResourceById(int resourceId) {
         String sql = "SELECT * FROM resources WHERE resourceID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, resourceId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -267,7 +412,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     public List<Resource> getAllResources() {
         List<Resource> resources = new ArrayList<>();
         String sql = "SELECT * FROM resources";
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 resources.add(createResourceFromResultSet(rs));
@@ -288,7 +434,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     public List<Resource> getResourcesByType(String resourceType) {
         List<Resource> resources = new ArrayList<>();
         String sql = "SELECT * FROM resources WHERE type = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, resourceType);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
@@ -308,14 +455,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
      */
     @Override
     public boolean addDisasterReport(DisasterReport report) {
-        String sql = "INSERT INTO disaster_reports (disasterType, location, severity, description, timeStamp) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, report.getDisasterType());
-            pstmt.setString(2, report.getLocation());
-            pstmt.setInt(3, report.getSeverity());
-            pstmt.setString(4, report.getDescription());
-            pstmt.setTimestamp(5, Timestamp.valueOf(report.getTimeStamp()));
-            return pstmt.executeUpdate() > 0;
+        try {
+            return insertLogged(INSERT_REPORT_SQL, Change.DISASTER_REPORTS, report, this::bindDisasterReport);
         } catch (SQLException e) {
             System.out.println("Error adding disaster report: " + e.getMessage());
             return false;
@@ -331,7 +472,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     @Override
     public DisasterReport getDisasterReportById(int reportId) {
         String sql = "SELECT * FROM disaster_reports WHERE reportID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, reportId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -352,7 +494,8 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     public List<DisasterReport> getAllDisasterReports() {
         List<DisasterReport> reports = new ArrayList<>();
         String sql = "SELECT * FROM disaster_reports";
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 reports.add(createDisasterReportFromResultSet(rs));
@@ -364,16 +507,20 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     }
 
     /**
-     * Retrieves all active disaster reports from the database.
+     * Retrieves all active disaster reports from the database, most severe and most
+     * recent first. The filter and ordering are both served by the
+     * (status, severity, timeStamp) index, so no sort or table scan is needed.
      *
      * @return a List of all active DisasterReport objects in the database
      */
     @Override
     public List<DisasterReport> getActiveDisasterReports() {
         List<DisasterReport> reports = new ArrayList<>();
-        String sql = "SELECT * FROM disaster_reports WHERE status = 'Active'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = "SELECT * FROM disaster_reports WHERE status = ? ORDER BY severity DESC, timeStamp DESC";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, "Active");
+            ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 reports.add(createDisasterReportFromResultSet(rs));
             }
@@ -384,248 +531,910 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     }
 
     /**
-     * Allocates a resource to a specific disaster.
+     * Retrieves one page of disaster reports, newest first, using keyset pagination.
+     * Pass Integer.MAX_VALUE to get the first page, then the smallest ID of the
+     * previous page to get the next (older) one. Unlike OFFSET paging, the cost of a
+     * page does not grow with how far into the history it is.
      *
-     * @param resourceId the ID of the resource to allocate
-     * @param disasterId the ID of the disaster to allocate the resource to
-     * @param quantity the quantity of the resource to allocate
-     * @return true if the allocation was successful, false otherwise
+     * @param beforeReportId only reports with an ID below this are returned
+     * @param limit the maximum number of reports to return
+     * @return a List of at most limit DisasterReport objects in descending ID order
      */
     @Override
-    public boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity) {
-        String sql = "INSERT INTO resource_allocations (resourceID, disasterID, quantity) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, resourceId);
-            pstmt.setInt(2, disasterId);
-            pstmt.setInt(3, quantity);
-            return pstmt.executeUpdate() > 0;
+    public List<DisasterReport> getDisasterReportsBefore(int beforeReportId, int limit) {
+        List<DisasterReport> reports = new ArrayList<>();
+        String sql = "SELECT * FROM disaster_reports WHERE reportID < ? ORDER BY reportID DESC LIMIT ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, beforeReportId);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                reports.add(createDisasterReportFromResultSet(rs));
+            }
         } catch (SQLException e) {
-            System.out.println("Error allocating resource to disaster: " + e.getMessage());
-            return false;
+            System.out.println("Error getting page of disaster reports: " + e.getMessage());
         }
+        return reports;
     }
 
     /**
-     * Retrieves all resources allocated to a specific disaster.
+     * Retrieves the page of disaster reports immediately newer than the given ID.
+     * This is used to page back towards the newest reports after older pages
+     * have been dropped from memory.
      *
-     * @param disasterId the ID of the disaster
-     * @return a List of Resource objects allocated to the specified disaster
+     * @param afterReportId only reports with an ID above this are returned
+     * @param limit the maximum number of reports to return
+     * @return a List of at most limit DisasterReport objects in descending ID order
      */
     @Override
-    public List<Resource> getResourcesAllocatedToDisaster(int disasterId) {
-        List<Resource> resources = new ArrayList<>();
-        String sql = "SELECT r.*, ra.quantity FROM resources r JOIN resource_allocations ra ON r.resourceID = ra.resourceID WHERE ra.disasterID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, disasterId);
+    public List<DisasterReport> getDisasterReportsAfter(int afterReportId, int limit) {
+        List<DisasterReport> reports = new ArrayList<>();
+        String sql = "SELECT * FROM (SELECT * FROM disaster_reports WHERE reportID > ? ORDER BY reportID ASC LIMIT ?) AS page "
+                + "ORDER BY reportID DESC";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, afterReportId);
+            pstmt.setInt(2, limit);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                resources.add(createResourceFromResultSet(rs));
+                reports.add(createDisasterReportFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.out.println("Error getting resources allocated to disaster: " + e.getMessage());
+            System.out.println("Error getting page of disaster reports: " + e.getMessage());
         }
-        return resources;
+        return reports;
     }
 
     /**
-     * Closes the database connection.
+     * Searches the descriptions and locations of disaster reports for the words of a
+     * query. A report must contain every word, and the last word also matches longer
+     * words while it is still being typed. On MySQL this is a boolean-mode match on
+     * the FULLTEXT index ranked by its relevance; other backends search an in-process
+     * index ranked by tf-idf.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of reports to return
+     * @return the matching reports, best match first, newest first among equal matches
      */
     @Override
-    public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+    public List<DisasterReport> searchDisasterReports(String query, int limit) {
+        if (backend != DatabaseBackend.MYSQL) {
+            return getDisasterReportsByIds(searchReportIndex().search(query, InvertedIndex.endsInWord(query), limit));
+        }
+        List<DisasterReport> reports = new ArrayList<>();
+        String terms = toBooleanQuery(query);
+        if (terms.isEmpty()) {
+            return reports;
+        }
+        String sql = "SELECT *, MATCH(description, location) AGAINST (? IN BOOLEAN MODE) AS relevance FROM disaster_reports "
+                + "WHERE MATCH(description, location) AGAINST (? IN BOOLEAN MODE) ORDER BY relevance DESC, reportID DESC LIMIT ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, terms);
+            pstmt.setString(2, terms);
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                reports.add(createDisasterReportFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.out.println("Error closing connection: " + e.getMessage());
+            System.out.println("Error searching disaster reports: " + e.getMessage());
         }
+        return reports;
     }
-    
+
     /**
-     * Creates a User object from a ResultSet.
+     * Turns a query into a boolean-mode full-text search requiring each of its words.
+     * Only letters and digits are kept, so the user cannot enter search operators, and
+     * words too short to be in the index are dropped rather than matching nothing.
      *
-     * @param rs the ResultSet containing user data
-     * @return a User object populated with data from the ResultSet
-     * @throws SQLException if there's an error accessing the ResultSet
+     * @param query the words to search for
+     * @return the boolean-mode search, empty if no word is long enough to search for
      */
-    private User createUserFromResultSet(ResultSet rs) throws SQLException {
-        return new User(
-            rs.getInt("userID"),
-            rs.getString("fullName"),
-            rs.getString("username"),
-            rs.getInt("gender"),
-            rs.getDate("dateOfBirth").toLocalDate(),
-            rs.getString("phoneNumber"),
-            rs.getString("address"),
-            rs.getString("role"),
-            rs.getString("email"),
-            rs.getString("password")
-        );
+    private String toBooleanQuery(String query) {
+        List<String> words = InvertedIndex.tokenize(query);
+        StringBuilder terms = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            if (words.get(i).length() >= MIN_FULLTEXT_WORD_LENGTH) {
+                terms.append(terms.length() == 0 ? "+" : " +").append(words.get(i));
+                if (i == words.size() - 1 && InvertedIndex.endsInWord(query)) {
+                    terms.append('*');
+                }
+            }
+        }
+        return terms.toString();
     }
 
     /**
-     * Creates a Resource object from a ResultSet.
+     * Gets the in-process report search index, building it from all reports on first
+     * use and otherwise applying the reports changed since the last search.
      *
-     * @param rs the ResultSet containing resource data
-     * @return a Resource object populated with data from the ResultSet
-     * @throws SQLException if there's an error accessing the ResultSet
+     * @return the up-to-date search index
      */
-    private Resource createResourceFromResultSet(ResultSet rs) throws SQLException {
-        return new Resource(
-            rs.getInt("resourceID"),
-            rs.getString("type"),
-            rs.getInt("quantity"),
-            rs.getString("status")
-        );
+    private InvertedIndex searchReportIndex() {
+        synchronized (searchIndexChanges) {
+            if (searchIndex == null) {
+                InvertedIndex index = new InvertedIndex();
+                searchIndexChanges.reset(this);
+                try (Stream<DisasterReport> reports = streamAllDisasterReports()) {
+                    reports.forEach(report -> index.put(report.getReportID(), report.getDescription(), report.getLocation()));
+                }
+                searchIndex = index;
+            } else {
+                searchIndexChanges.poll(this).getRows().forEach((reportId, report) -> {
+                    if (report == null) {
+                        searchIndex.remove(reportId);
+                    } else {
+                        searchIndex.put(reportId, report.getDescription(), report.getLocation());
+                    }
+                });
+            }
+            return searchIndex;
+        }
     }
 
     /**
-     * Creates a DisasterReport object from a ResultSet.
+     * Retrieves disaster reports by ID in a single query.
      *
-     * @param rs the ResultSet containing disaster report data
-     * @return a DisasterReport object populated with data from the ResultSet
-     * @throws SQLException if there's an error accessing the ResultSet
+     * @param reportIds the IDs of the reports to retrieve
+     * @return the reports found, in the order of the given IDs
      */
-    private DisasterReport createDisasterReportFromResultSet(ResultSet rs) throws SQLException {
-        return new DisasterReport(
-            rs.getInt("reportID"),
-            rs.getString("disasterType"),
-            rs.getString("location"),
-            rs.getInt("severity"),
-            rs.getString("description"),
-            rs.getString("status"),
-            rs.getTimestamp("timestamp").toLocalDateTime()
-            
-        );
+    private List<DisasterReport> getDisasterReportsByIds(int[] reportIds) {
+        List<DisasterReport> reports = new ArrayList<>();
+        if (reportIds.length == 0) {
+            return reports;
+        }
+        String sql = "SELECT * FROM disaster_reports WHERE reportID IN (" + placeholders(reportIds.length) + ")";
+        Map<Integer, DisasterReport> found = new HashMap<>();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < reportIds.length; i++) {
+                pstmt.setInt(i + 1, reportIds[i]);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                DisasterReport report = createDisasterReportFromResultSet(rs);
+                found.put(report.getReportID(), report);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting disaster reports: " + e.getMessage());
+        }
+        for (int reportId : reportIds) {
+            DisasterReport report = found.get(reportId);
+            if (report != null) {
+                reports.add(report);
+            }
+        }
+        return reports;
     }
 
     /**
-     * Updates an existing resource in the database.
+     * Allocates a quantity of a resource to a specific disaster, taking it from the
+     * resource's stock. Nothing is allocated unless the whole quantity is available.
      *
-     * @param resource the Resource object with updated information
-     * @return true if the update was successful, false otherwise
+     * @param resourceId the ID of the resource to allocate
+     * @param disasterId the ID of the disaster to allocate the resource to
+     * @param quantity the quantity of the resource to allocate
+     * @return true if the allocation was successful, false otherwise
      */
     @Override
-    public boolean updateResource(Resource resource) {
-        String sql = "UPDATE resources SET type = ?, quantity = ?, status = ? WHERE resourceID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)){
-            pstmt.setString(1, resource.getType());
-            pstmt.setInt(2, resource.getQuantity());
-            pstmt.setString(3, resource.getStatus());
-            pstmt.setInt(4, resource.getResourceID());
-            return pstmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            System.out.println("Error updating resource: " + e.getMessage());
-            return false;
-        }
+    public boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity) {
+        return quantity > 0 && reserveResource(resourceId, disasterId, quantity, false) == quantity;
     }
 
     /**
-     * Updates an existing user in the database.
+     * Takes a quantity of a resource from its stock and records it as allocated to a
+     * disaster, in one transaction. The stock is decremented with a conditional UPDATE,
+     * so concurrent allocations can never take more than is left.
      *
-     * @param user the User object with updated information
-     * @return true if the update was successful, false otherwise
+     * @param resourceId the ID of the resource to allocate
+     * @param disasterId the ID of the disaster to allocate the resource to
+     * @param quantity the quantity requested
+     * @param allowPartial whether to allocate whatever is left when the stock is short
+     * @return the quantity allocated, 0 if nothing was allocated
      */
     @Override
-    public boolean updateUser(User user) {
-        String sql = "UPDATE users SET username = ?, password = ?, role = ?, fullName = ?, gender = ?, "
-                + "dateOfBirth = ?, phoneNumber = ?, address = ?, email = ? WHERE userID = ?";
-        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getRole());
-            pstmt.setString(4, user.getFullName());
-            pstmt.setInt(5, user.getGender());
-            pstmt.setDate(6, Date.valueOf(user.getDateOfBirth()));
-            pstmt.setString(7, user.getPhoneNumber());
-            pstmt.setString(8, user.getAddress());
-            pstmt.setString(9, user.getEmail());
-            pstmt.setInt(10, user.getUserID());
-            return pstmt.executeUpdate() > 0;
+    public int reserveResource(int resourceId, int disasterId, int quantity, boolean allowPartial) {
+        if (quantity <= 0) {
+            return 0;
+        }
+        Lock lock = RESOURCE_LOCKS.get(resourceId);
+        lock.lock();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            int reserved = reserve(conn, new ResourceAllocation(0, resourceId, disasterId, quantity), allowPartial);
+            conn.commit();
+            return reserved;
         } catch (SQLException e) {
-            System.out.println("Error updating user: " + e.getMessage());
-            return false;
+            System.out.println("Error reserving resource: " + e.getMessage());
+            return 0;
+        } finally {
+            lock.unlock();
         }
-        
     }
 
     /**
-     * Deletes a user from the database.
+     * Takes an allocation from the resource's stock and inserts it, on a connection with
+     * an open transaction. The allocation's ID is set, and its quantity is reduced to
+     * what was actually taken when a partial allocation is made.
      *
-     * @param userId the ID of the user to delete
-     * @return true if the deletion was successful, false otherwise
+     * @param conn         the connection holding the open transaction
+     * @param allocation   the allocation to make
+     * @param allowPartial whether to allocate whatever is left when the stock is short
+     * @return the quantity allocated, 0 if the stock was short and nothing was written
+     * @throws SQLException if a statement fails; the transaction must then be rolled back
      */
-    @Override
-    public boolean deleteUser(int userId) {
-//        String sql = "DELETE FROM users WHERE userID = ?";
-//        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
-//            pstmt.setInt(1, userId);
-//            return pstmt.executeUpdate() > 0;
-//        } catch (SQLException e) {
-//            System.out.println("Error deleting user: " + e.getMessage());
-//            return false;
-//        }  
-        return true;
+    private int reserve(Connection conn, ResourceAllocation allocation, boolean allowPartial) throws SQLException {
+        int quantity = allocation.getQuantity();
+        if (allowPartial) {
+            // Lock the row first so the quantity read is still the stock when it is taken
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT quantity FROM resources WHERE resourceID = ? FOR UPDATE")) {
+                pstmt.setInt(1, allocation.getResourceID());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return 0;
+                    }
+                    quantity = Math.min(quantity, rs.getInt("quantity"));
+                }
+            }
+            if (quantity <= 0) {
+                return 0;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(RESERVE_STOCK_SQL)) {
+            bindReservation(pstmt, allocation.getResourceID(), quantity);
+            if (pstmt.executeUpdate() == 0) {
+                return 0;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ALLOCATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, allocation.getResourceID());
+            pstmt.setInt(2, allocation.getDisasterID());
+            pstmt.setInt(3, quantity);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    allocation.setAllocationID(keys.getInt(1));
+                }
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(ADD_TO_TOTALS_SQL)) {
+            bindTotal(pstmt, allocation.getDisasterID(), allocation.getResourceID(), quantity);
+            pstmt.executeUpdate();
+        }
+        logChange(conn, Change.RESOURCES, allocation.getResourceID(), Change.Operation.UPDATE);
+        allocation.setQuantity(quantity);
+        return quantity;
     }
 
     /**
-     * Deletes a resource from the database.
+     * Binds an allocation to the parameters of the allocation totals upsert.
      *
-     * @param resourceId the ID of the resource to delete
-     * @return true if the deletion was successful, false otherwise
+     * @param pstmt      the statement to bind
+     * @param disasterId the disaster the resource was allocated to
+     * @param resourceId the allocated resource, whose type the total is kept for
+     * @param quantity   the quantity allocated
+     * @throws SQLException if a parameter cannot be set
      */
-    @Override
-    public boolean deleteResource(int resourceId) {
-//        String sql = "DELETE FROM resources WHERE resourceID = ?";
-//        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
-//            pstmt.setInt(1, resourceId);
-//            return pstmt.executeUpdate() > 0;
-//        } catch (SQLException e) {
-//            System.out.println("Error deleting resource: " + e.getMessage());
-//            return false;
-//        }
-        return true;
+    private void bindTotal(PreparedStatement pstmt, int disasterId, int resourceId, int quantity) throws SQLException {
+        pstmt.setInt(1, disasterId);
+        pstmt.setInt(2, quantity);
+        pstmt.setInt(3, resourceId);
+        pstmt.setInt(4, quantity);
     }
 
     /**
-     * Updates an existing disaster report in the database.
+     * Binds a resource and quantity to the parameters of the conditional stock UPDATE.
      *
-     * @param report the DisasterReport object with updated information
-     * @return true if the update was successful, false otherwise
+     * @param pstmt      the statement to bind
+     * @param resourceId the resource to take stock from
+     * @param quantity   the quantity to take
+     * @throws SQLException if a parameter cannot be set
      */
-    @Override
-    public boolean updateDisasterReport(DisasterReport report) {
-        String sql = "UPDATE disaster_reports SET disasterType = ?, "
-                + "location = ?, severity = ?, description = ?, timeStamp = ? WHERE reportID = ?";
-        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
-            pstmt.setString(1, report.getDisasterType());
-            pstmt.setString(2, report.getLocation());
-            pstmt.setInt(3, report.getSeverity());
-            pstmt.setString(4, report.getDescription());
-            pstmt.setTimestamp(5, Timestamp.valueOf(report.getTimeStamp()));
-            pstmt.setInt(6, report.getReportID());
-            return pstmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            System.out.println("Error updating disaster report: " + e.getMessage());
-            return false;
-        }
+    private void bindReservation(PreparedStatement pstmt, int resourceId, int quantity) throws SQLException {
+        pstmt.setInt(1, quantity);
+        pstmt.setInt(2, resourceId);
+        pstmt.setInt(3, quantity);
     }
 
     /**
-     * Deletes a disaster report from the database.
+     * Retrieves all resources allocated to a specific disaster.
      *
-     * @param reportId the ID of the disaster report to delete
-     * @return true if the deletion was successful, false otherwise
+     * @param disasterId the ID of the disaster
+     * @return a List of Resource objects allocated to the specified disaster
      */
     @Override
-    public boolean deleteDisasterReport(int reportId) {
-        String sql = "DELETE FROM disaster_reports WHERE reportID = ?";
-        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
-            pstmt.setInt(1, reportId);
-            return pstmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            System.out.println("Error deleting disaster report: " + e.getMessage());
-            return false;
+    public List<Resource> getResourcesAllocatedToDisaster(int disasterId) {
+        List<Resource> resources = new ArrayList<>();
+        String sql = "SELECT r.*, ra.quantity FROM resources r JOIN resource_allocations ra ON r.resourceID = ra.resourceID WHERE ra.disasterID = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, disasterId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                resources.add(createResourceFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting resources allocated to disaster: " + e.getMessage());
+        }
+        return resources;
+    }
+
+    /**
+     * Retrieves the total quantity allocated to a disaster for each resource type.
+     * The totals are maintained with every allocation, so this reads one row per type
+     * rather than the allocation history. A total is kept under the type the resource
+     * had when it was allocated.
+     *
+     * @param disasterId the ID of the disaster
+     * @return the allocated quantity per resource type, ordered by type
+     */
+    @Override
+    public Map<String, Integer> getAllocationTotals(int disasterId) {
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        String sql = "SELECT resourceType, quantity FROM disaster_allocation_totals WHERE disasterID = ? ORDER BY resourceType";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, disasterId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                totals.put(rs.getString("resourceType"), rs.getInt("quantity"));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting allocation totals: " + e.getMessage());
+        }
+        return totals;
+    }
+
+    /**
+     * Retrieves the total quantity of one resource type allocated to a disaster.
+     *
+     * @param disasterId the ID of the disaster
+     * @param resourceType the resource type
+     * @return the allocated quantity, 0 if none has been allocated
+     */
+    @Override
+    public int getAllocatedQuantity(int disasterId, String resourceType) {
+        String sql = "SELECT quantity FROM disaster_allocation_totals WHERE disasterID = ? AND resourceType = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, disasterId);
+            pstmt.setString(2, resourceType);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getInt("quantity");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting allocated quantity: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the disaster reports nearest to a location. Lookups are answered from an
+     * in-process proximity index, which reflects writes from other processes within
+     * drs.geo.syncIntervalMs.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param count     the maximum number of reports to return
+     * @return the nearest reports with coordinates, nearest first
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportsNear(double latitude, double longitude, int count) {
+        return reportLocations.nearest(latitude, longitude, count);
+    }
+
+    /**
+     * Finds the disaster reports within a distance of a location, from the in-process
+     * proximity index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param radiusKm  the distance in kilometres
+     * @return the reports within the distance, nearest first
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportsWithin(double latitude, double longitude, double radiusKm) {
+        return reportLocations.within(latitude, longitude, radiusKm);
+    }
+
+    /**
+     * Finds the resources held nearest to a location, from the in-process proximity
+     * index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param count     the maximum number of resources to return
+     * @return the nearest resources with coordinates, nearest first
+     */
+    @Override
+    public List<Resource> getResourcesNear(double latitude, double longitude, int count) {
+        return resourceLocations.nearest(latitude, longitude, count);
+    }
+
+    /**
+     * Finds the resources held within a distance of a location, from the in-process
+     * proximity index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param radiusKm  the distance in kilometres
+     * @return the resources within the distance, nearest first
+     */
+    @Override
+    public List<Resource> getResourcesWithin(double latitude, double longitude, double radiusKm) {
+        return resourceLocations.within(latitude, longitude, radiusKm);
+    }
+
+    /**
+     * Moves one batch of old, resolved disaster reports to the archive tables, along
+     * with their allocations and agency assignments, in a single transaction. The
+     * reports' allocation totals are dropped; they can be recomputed from the archived
+     * allocations. Each moved report and assignment is logged as deleted, so screens
+     * showing it drop it on their next refresh.
+     *
+     * @param olderThan only reports filed before this time are archived
+     * @param limit     the maximum number of reports to archive, oldest first
+     * @return the number of reports archived, 0 if none were due or the batch failed
+     */
+    @Override
+    public int archiveDisasterReports(LocalDateTime olderThan, int limit) {
+        String select = "SELECT reportID FROM disaster_reports WHERE status <> 'Active' AND timeStamp < ? "
+                + "ORDER BY timeStamp LIMIT ? FOR UPDATE";
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            List<Integer> reportIds = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(select)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(olderThan));
+                pstmt.setInt(2, limit);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    reportIds.add(rs.getInt(1));
+                }
+            }
+            if (reportIds.isEmpty()) {
+                conn.commit();
+                return 0;
+            }
+            String ids = "(" + placeholders(reportIds.size()) + ")";
+            List<Integer> assignmentIds = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT assignmentID FROM agency_assignments WHERE disasterID IN " + ids)) {
+                bindIds(pstmt, reportIds);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    assignmentIds.add(rs.getInt(1));
+                }
+            }
+            executeForIds(conn, "INSERT INTO disaster_reports_archive (" + REPORT_COLUMNS + ") SELECT " + REPORT_COLUMNS
+                    + " FROM disaster_reports WHERE reportID IN " + ids, reportIds);
+            executeForIds(conn, "INSERT INTO resource_allocations_archive (allocationID, resourceID, disasterID, quantity) "
+                    + "SELECT allocationID, resourceID, disasterID, quantity FROM resource_allocations WHERE disasterID IN " + ids, reportIds);
+            executeForIds(conn, "INSERT INTO agency_assignments_archive (assignmentID, agencyID, disasterID, assignmentDate, status) "
+                    + "SELECT assignmentID, agencyID, disasterID, assignmentDate, status FROM agency_assignments WHERE disasterID IN " + ids, reportIds);
+            executeForIds(conn, "DELETE FROM resource_allocations WHERE disasterID IN " + ids, reportIds);
+            executeForIds(conn, "DELETE FROM agency_assignments WHERE disasterID IN " + ids, reportIds);
+            executeForIds(conn, "DELETE FROM disaster_allocation_totals WHERE disasterID IN " + ids, reportIds);
+            executeForIds(conn, "DELETE FROM disaster_reports WHERE reportID IN " + ids, reportIds);
+            logChanges(conn, Change.AGENCY_ASSIGNMENTS, assignmentIds, Change.Operation.DELETE);
+            logChanges(conn, Change.DISASTER_REPORTS, reportIds, Change.Operation.DELETE);
+            conn.commit();
+            return reportIds.size();
+        } catch (SQLException e) {
+            System.out.println("Error archiving disaster reports: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Retrieves the disaster reports filed in a period from both the live and the
+     * archive tables.
+     *
+     * @param from the start of the period, inclusive
+     * @param to   the end of the period, exclusive
+     * @return the reports filed in the period, oldest first
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportHistory(LocalDateTime from, LocalDateTime to) {
+        List<DisasterReport> reports = new ArrayList<>();
+        String sql = "SELECT " + REPORT_COLUMNS + " FROM disaster_reports WHERE timeStamp >= ? AND timeStamp < ? "
+                + "UNION ALL SELECT " + REPORT_COLUMNS + " FROM disaster_reports_archive WHERE timeStamp >= ? AND timeStamp < ? "
+                + "ORDER BY timeStamp, reportID";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(from));
+            pstmt.setTimestamp(2, Timestamp.valueOf(to));
+            pstmt.setTimestamp(3, Timestamp.valueOf(from));
+            pstmt.setTimestamp(4, Timestamp.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                reports.add(createDisasterReportFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting disaster report history: " + e.getMessage());
+        }
+        return reports;
+    }
+
+    /**
+     * Gets the version a client can sync from after loading the current data. This is
+     * the newest change old enough that no earlier write can still be committing, so
+     * a write in flight during the load is returned by the next changesSince call.
+     * Found by reading back from the newest change, which only visits the changes of
+     * the last few seconds.
+     *
+     * @return the version to pass to changesSince, 0 if the log is empty or cannot be read
+     */
+    @Override
+    public long getChangeVersion() {
+        String sql = "SELECT version FROM change_log WHERE changedAt < TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) "
+                + "ORDER BY version DESC LIMIT 1";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, -GAP_GRACE_SECONDS);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getLong("version");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting change version: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Retrieves the rows changed after a version, at most drs.sync.maxChanges at a time,
+     * read through the primary key so the cost depends on the number of changes rather
+     * than the size of any table.
+     *
+     * Versions are handed out when a write happens but become visible when it commits,
+     * so a missing version may still appear. The version to sync from next is therefore
+     * only moved past a gap once the change after it is drs.sync.gapGraceSeconds old;
+     * a gap that old is left by a rolled-back write or a row that has changed again since.
+     *
+     * @param version the version the client last synced to
+     * @return the changes after the version; empty with the same version if the log cannot be read
+     */
+    @Override
+    public ChangeSet changesSince(long version) {
+        List<Change> changes = new ArrayList<>();
+        long nextVersion = version;
+        boolean heldBack = false;
+        String sql = "SELECT version, tableName, rowID, operation, "
+                + "TIMESTAMPDIFF(SECOND, changedAt, CURRENT_TIMESTAMP) AS ageSeconds "
+                + "FROM change_log WHERE version > ? ORDER BY version LIMIT ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, version);
+            pstmt.setInt(2, MAX_CHANGES + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (changes.size() < MAX_CHANGES && rs.next()) {
+                long changeVersion = rs.getLong("version");
+                if (!heldBack && (changeVersion == nextVersion + 1 || rs.getLong("ageSeconds") >= GAP_GRACE_SECONDS)) {
+                    nextVersion = changeVersion;
+                } else {
+                    heldBack = true;
+                }
+                changes.add(new Change(changeVersion, rs.getString("tableName"), rs.getInt("rowID"),
+                    Change.Operation.valueOf(rs.getString("operation"))));
+            }
+            return new ChangeSet(changes, nextVersion, rs.next());
+        } catch (SQLException e) {
+            System.out.println("Error getting changes: " + e.getMessage());
+            return new ChangeSet(new ArrayList<>(), version, false);
+        }
+    }
+
+    /**
+     * Checks through EXPLAIN that the hot queries of this class are served by indexes.
+     *
+     * @return a description of each full table scan found, empty if there are none
+     * @throws SQLException if the query plans cannot be read
+     */
+    public List<String> findFullTableScans() throws SQLException {
+        try (Connection conn = getConnection()) {
+            return new QueryPlanInspector(conn).findFullTableScans();
+        }
+    }
+
+    /**
+     * Closes the shared connection pool of this instance's backend. This should only be
+     * called when the application exits, as every DisasterDatabaseConn instance on the
+     * same backend shares the pool.
+     */
+    @Override
+    public void closeConnection() {
+        synchronized (POOL_LOCK) {
+            ConnectionPool sharedPool = SHARED_POOLS.remove(backend);
+            if (sharedPool != null) {
+                System.out.println("Closing " + sharedPool);
+                sharedPool.close();
+            }
+        }
+    }
+    
+    /**
+     * Creates a User object from a ResultSet.
+     *
+     * @param rs the ResultSet containing user data
+     * @return a User object populated with data from the ResultSet
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private User createUserFromResultSet(ResultSet rs) throws SQLException {
+        return new User(
+            rs.getInt("userID"),
+            rs.getString("fullName"),
+            rs.getString("username"),
+            rs.getInt("gender"),
+            rs.getDate("dateOfBirth").toLocalDate(),
+            rs.getString("phoneNumber"),
+            rs.getString("address"),
+            rs.getString("role"),
+            rs.getString("email"),
+            rs.getString("password")
+        );
+    }
+
+    /**
+     * Creates a Resource object from a ResultSet.
+     *
+     * @param rs the ResultSet containing resource data
+     * @return a Resource object populated with data from the ResultSet
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private Resource createResourceFromResultSet(ResultSet rs) throws SQLException {
+        Resource resource = new Resource(
+            rs.getInt("resourceID"),
+            rs.getString("type"),
+            rs.getInt("quantity"),
+            rs.getString("status")
+        );
+        resource.setCoordinates(getCoordinate(rs, "latitude"), getCoordinate(rs, "longitude"));
+        return resource;
+    }
+
+    /**
+     * Creates a DisasterReport object from a ResultSet.
+     *
+     * @param rs the ResultSet containing disaster report data
+     * @return a DisasterReport object populated with data from the ResultSet
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private DisasterReport createDisasterReportFromResultSet(ResultSet rs) throws SQLException {
+        DisasterReport report = new DisasterReport(
+            rs.getInt("reportID"),
+            rs.getString("disasterType"),
+            rs.getString("location"),
+            rs.getInt("severity"),
+            rs.getString("description"),
+            rs.getString("status"),
+            rs.getTimestamp("timestamp").toLocalDateTime()
+            
+        );
+        report.setCoordinates(getCoordinate(rs, "latitude"), getCoordinate(rs, "longitude"));
+        return report;
+    }
+
+    /**
+     * Reads a nullable coordinate column.
+     *
+     * @param rs     the ResultSet positioned on a row
+     * @param column the name of the column
+     * @return the coordinate in degrees, or null if the column is NULL
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private Double getCoordinate(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Copies a resource held in a proximity index so callers never share it.
+     *
+     * @param resource the resource to copy
+     * @return the copy
+     */
+    private static Resource copyResource(Resource resource) {
+        Resource copy = new Resource(resource.getResourceID(), resource.getType(), resource.getQuantity(), resource.getStatus());
+        copy.setCoordinates(resource.getLatitude(), resource.getLongitude());
+        return copy;
+    }
+
+    /**
+     * Copies a disaster report held in a proximity index so callers never share it.
+     *
+     * @param report the report to copy
+     * @return the copy
+     */
+    private static DisasterReport copyDisasterReport(DisasterReport report) {
+        DisasterReport copy = new DisasterReport(report.getReportID(), report.getDisasterType(), report.getLocation(),
+            report.getSeverity(), report.getDescription(), report.getStatus(), report.getTimeStamp());
+        copy.setCoordinates(report.getLatitude(), report.getLongitude());
+        return copy;
+    }
+
+    /**
+     * Creates an AgencyAssignment object from a ResultSet.
+     * The query must select the agency name as agencyName along with the disasterType.
+     *
+     * @param rs the ResultSet containing agency assignment data
+     * @return an AgencyAssignment object populated with data from the ResultSet
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private AgencyAssignment createAgencyAssignmentFromResultSet(ResultSet rs) throws SQLException {
+        return new AgencyAssignment(
+            rs.getInt("assignmentID"),
+            rs.getInt("agencyID"),
+            rs.getString("agencyName"),
+            rs.getInt("disasterID"),
+            rs.getTimestamp("assignmentDate").toLocalDateTime(),
+            rs.getString("status"),
+            rs.getString("disasterType")
+        );
+    }
+
+    /**
+     * Creates a ResourceAllocation object from a ResultSet.
+     *
+     * @param rs the ResultSet containing resource allocation data
+     * @return a ResourceAllocation object populated with data from the ResultSet
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private ResourceAllocation createResourceAllocationFromResultSet(ResultSet rs) throws SQLException {
+        return new ResourceAllocation(
+            rs.getInt("allocationID"),
+            rs.getInt("resourceID"),
+            rs.getInt("disasterID"),
+            rs.getInt("quantity")
+        );
+    }
+
+    /**
+     * Updates an existing resource in the database.
+     *
+     * @param resource the Resource object with updated information
+     * @return true if the update was successful, false otherwise
+     */
+    @Override
+    public boolean updateResource(Resource resource) {
+        String sql = "UPDATE resources SET type = ?, quantity = ?, status = ?, latitude = ?, longitude = ?, geohash = ? "
+                + "WHERE resourceID = ?";
+        try {
+            return updateLogged(sql, Change.RESOURCES, resource.getResourceID(), Change.Operation.UPDATE, resource, (pstmt, row) -> {
+                bindResource(pstmt, row);
+                pstmt.setInt(7, row.getResourceID());
+            });
+        } catch (SQLException e) {
+            System.out.println("Error updating resource: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Changes only the status of a resource. Unlike {@link #updateResource}, the
+     * quantity is not written back, so stock taken by {@link #reserveResource} since
+     * the resource was read is never restored.
+     *
+     * @param resourceId the ID of the resource
+     * @param status     the new status
+     * @return true if the resource exists and was updated, false otherwise
+     */
+    @Override
+    public boolean updateResourceStatus(int resourceId, String status) {
+        String sql = "UPDATE resources SET status = ? WHERE resourceID = ?";
+        try {
+            return updateLogged(sql, Change.RESOURCES, resourceId, Change.Operation.UPDATE, status, (pstmt, value) -> {
+                pstmt.setString(1, value);
+                pstmt.setInt(2, resourceId);
+            });
+        } catch (SQLException e) {
+            System.out.println("Error updating resource status: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Updates an existing user in the database.
+     *
+     * @param user the User object with updated information
+     * @return true if the update was successful, false otherwise
+     */
+    @Override
+    public boolean updateUser(User user) {
+        String sql = "UPDATE users SET username = ?, password = ?, role = ?, fullName = ?, gender = ?, "
+                + "dateOfBirth = ?, phoneNumber = ?, address = ?, email = ? WHERE userID = ?";
+        try {
+            boolean updated = updateLogged(sql, Change.USERS, user.getUserID(), Change.Operation.UPDATE, user, (pstmt, row) -> {
+                bindUser(pstmt, row);
+                pstmt.setInt(10, row.getUserID());
+            });
+            if (updated) {
+                ROLE_CACHE.invalidate();
+            }
+            return updated;
+        } catch (SQLException e) {
+            System.out.println("Error updating user: " + e.getMessage());
+            return false;
+        }
+        
+    }
+
+    /**
+     * Deletes a user from the database.
+     *
+     * @param userId the ID of the user to delete
+     * @return true if the deletion was successful, false otherwise
+     */
+    @Override
+    public boolean deleteUser(int userId) {
+//        String sql = "DELETE FROM users WHERE userID = ?";
+//        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
+//            pstmt.setInt(1, userId);
+//            return pstmt.executeUpdate() > 0;
+//        } catch (SQLException e) {
+//            System.out.println("Error deleting user: " + e.getMessage());
+//            return false;
+//        }  
+        return true;
+    }
+
+    /**
+     * Deletes a resource from the database.
+     *
+     * @param resourceId the ID of the resource to delete
+     * @return true if the deletion was successful, false otherwise
+     */
+    @Override
+    public boolean deleteResource(int resourceId) {
+//        String sql = "DELETE FROM resources WHERE resourceID = ?";
+//        try(PreparedStatement pstmt = connection.prepareStatement(sql)){
+//            pstmt.setInt(1, resourceId);
+//            return pstmt.executeUpdate() > 0;
+//        } catch (SQLException e) {
+//            System.out.println("Error deleting resource: " + e.getMessage());
+//            return false;
+//        }
+        return true;
+    }
+
+    /**
+     * Updates an existing disaster report in the database.
+     *
+     * @param report the DisasterReport object with updated information
+     * @return true if the update was successful, false otherwise
+     */
+    @Override
+    public boolean updateDisasterReport(DisasterReport report) {
+        String sql = "UPDATE disaster_reports SET disasterType = ?, location = ?, severity = ?, description = ?, "
+                + "timeStamp = ?, latitude = ?, longitude = ?, geohash = ? WHERE reportID = ?";
+        try {
+            return updateLogged(sql, Change.DISASTER_REPORTS, report.getReportID(), Change.Operation.UPDATE, report, (pstmt, row) -> {
+                bindDisasterReport(pstmt, row);
+                pstmt.setInt(9, row.getReportID());
+            });
+        } catch (SQLException e) {
+            System.out.println("Error updating disaster report: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a disaster report from the database.
+     *
+     * @param reportId the ID of the disaster report to delete
+     * @return true if the deletion was successful, false otherwise
+     */
+    @Override
+    public boolean deleteDisasterReport(int reportId) {
+        String sql = "DELETE FROM disaster_reports WHERE reportID = ?";
+        try {
+            return updateLogged(sql, Change.DISASTER_REPORTS, reportId, Change.Operation.DELETE, reportId,
+                (pstmt, row) -> pstmt.setInt(1, row));
+        } catch (SQLException e) {
+            System.out.println("Error deleting disaster report: " + e.getMessage());
+            return false;
         }
     }
 
@@ -637,8 +1446,10 @@ public class DisasterDatabaseConn implements IDatabaseManager{
      */
     @Override
     public int getDisasterIdByType(String disasterType) {
-        String sql = "SELECT reportID FROM disaster_reports WHERE disasterType = ? LIMIT 1";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        // Answered from the disasterType index alone, which already holds reportID
+        String sql = "SELECT reportID FROM disaster_reports WHERE disasterType = ? ORDER BY reportID LIMIT 1";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, disasterType);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -652,40 +1463,72 @@ public class DisasterDatabaseConn implements IDatabaseManager{
 
     /**
      * Retrieves all unique roles from the users table.
+     * The roles are served from a shared snapshot that is reloaded when a user is
+     * added or updated, or when the snapshot expires.
      *
-     * @return a List of all unique roles in the database
+     * @return an unmodifiable List of all unique roles in the database
      */
     @Override
     public List<String> getAllRoles() {
+        try {
+            return ROLE_CACHE.get(this::loadAllRoles);
+        } catch (SQLException e) {
+            System.out.println("Error getting roles: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Loads all unique roles from the users table.
+     *
+     * @return a List of all unique roles in the database
+     * @throws SQLException if there's an error executing the query
+     */
+    private List<String> loadAllRoles() throws SQLException {
         List<String> roles = new ArrayList<>();
-        String sql = "SELECT DISTINCT role FROM users";
-        try (Statement stmt = connection.createStatement();
+        // Resolved as a loose scan of the role index rather than reading every user
+        String sql = "SELECT DISTINCT role FROM users ORDER BY role";
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 roles.add(rs.getString("role"));
             }
+        }
+        return roles;
+    }
+
+    /**
+     * Retrieves all agencies from the database.
+     * The agencies are served from a shared snapshot that is reloaded when it expires.
+     *
+     * @return an unmodifiable List of all Agency objects in the database
+     */
+    @Override
+    public List<Agency> getAllAgencies() {
+        try {
+            return AGENCY_CACHE.get(this::loadAllAgencies);
         } catch (SQLException e) {
-            System.out.println("Error getting roles: " + e.getMessage());
+            System.out.println("Error getting all agencies: " + e.getMessage());
+            return List.of();
         }
-        return roles;
     }
 
     /**
-     * Retrieves all agencies from the database.
+     * Loads all agencies from the database.
      *
      * @return a List of all Agency objects in the database
+     * @throws SQLException if there's an error executing the query
      */
-    @Override
-    public List<Agency> getAllAgencies() {
+    private List<Agency> loadAllAgencies() throws SQLException {
         List<Agency> agencies = new ArrayList<>();
         String sql = "SELECT * FROM agencies";
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                agencies.add(new Agency(Integer.parseInt(rs.getString("id")), rs.getString("name"), rs.getString("type")));
+                agencies.add(new Agency(rs.getInt("id"), rs.getString("name"), rs.getString("type")));
             }
-        } catch (SQLException e) {
-            System.out.println("Error getting all agencies: " + e.getMessage());
         }
         return agencies;
     }
@@ -699,11 +1542,11 @@ public class DisasterDatabaseConn implements IDatabaseManager{
      */
     @Override
     public boolean assignAgencyToDisaster(int agencyId, int disasterId) {
-       String sql = "INSERT INTO agency_assignments (agencyID, disasterID) VALUES (?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, agencyId);
-            pstmt.setInt(2, disasterId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return insertLogged(INSERT_ASSIGNMENT_SQL, Change.AGENCY_ASSIGNMENTS, null, (pstmt, row) -> {
+                pstmt.setInt(1, agencyId);
+                pstmt.setInt(2, disasterId);
+            });
         } catch (SQLException e) {
             System.out.println("Error assigning agency to disaster: " + e.getMessage());
             return false;
@@ -719,23 +1562,16 @@ public class DisasterDatabaseConn implements IDatabaseManager{
     @Override
     public List<AgencyAssignment> getAgenciesAssignedToDisaster(int disasterId) {
         List<AgencyAssignment> assignments = new ArrayList<>();
-        String sql = "SELECT aa.*, a.name as agencyName FROM agency_assignments aa " +
+        String sql = "SELECT aa.*, a.name as agencyName, dr.disasterType FROM agency_assignments aa " +
                      "JOIN agencies a ON aa.agencyID = a.id " +
+                     "JOIN disaster_reports dr ON aa.disasterID = dr.reportID " +
                      "WHERE aa.disasterID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, disasterId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                assignments.add(new AgencyAssignment(
-                    rs.getInt("assignmentID"),
-                    rs.getInt("agencyID"),
-                    rs.getString("agencyName"),
-                    rs.getInt("disasterID"),
-                    rs.getTimestamp("assignmentDate").toLocalDateTime(),
-                    rs.getString("status"),
-                    rs.getString("DisasterType")
-                    
-                ));
+                assignments.add(createAgencyAssignmentFromResultSet(rs));
             }
         } catch (SQLException e) {
             System.out.println("Error getting agencies assigned to disaster: " + e.getMessage());
@@ -754,22 +1590,850 @@ public class DisasterDatabaseConn implements IDatabaseManager{
         String sql = "SELECT aa.*, a.name as agencyName, dr.disasterType FROM agency_assignments aa " +
                      "JOIN agencies a ON aa.agencyID = a.id " +
                      "JOIN disaster_reports dr ON aa.disasterID = dr.reportID";
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                assignments.add(new AgencyAssignment(
-                    rs.getInt("assignmentID"),
-                    rs.getInt("agencyID"),
-                    rs.getString("agencyName"),
-                    rs.getInt("disasterID"),
-                    rs.getTimestamp("assignmentDate").toLocalDateTime(),
-                    rs.getString("status"),
-                    rs.getString("disasterType")
-                ));
+                assignments.add(createAgencyAssignmentFromResultSet(rs));
             }
         } catch (SQLException e) {
             System.out.println("Error getting all agency assignments: " + e.getMessage());
         }
         return assignments;
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves an agency assignment by its ID.
+     *
+     * @param assignmentId the ID of the assignment
+     * @return the AgencyAssignment if found, null otherwise
+     */
+    @Override
+    public AgencyAssignment getAgencyAssignmentById(int assignmentId) {
+        String sql = "SELECT aa.*, a.name as agencyName, dr.disasterType FROM agency_assignments aa " +
+                     "JOIN agencies a ON aa.agencyID = a.id " +
+                     "JOIN disaster_reports dr ON aa.disasterID = dr.reportID " +
+                     "WHERE aa.assignmentID = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, assignmentId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return createAgencyAssignmentFromResultSet(rs);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error getting agency assignment: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Adds several users to the database in a single batched transaction.
+     * The generated IDs are also set on the User objects that were written.
+     *
+     * @param users the User objects to be added
+     * @return the generated IDs and any rows that could not be added
+     */
+    @Override
+    public BatchResult addUsers(List<User> users) {
+        BatchResult result = executeBatch(INSERT_USER_SQL, Change.USERS, users, this::bindUser, User::setUserID);
+        if (result.getSuccessCount() > 0) {
+            ROLE_CACHE.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * Adds several resources to the database in a single batched transaction.
+     * The generated IDs are also set on the Resource objects that were written.
+     *
+     * @param resources the Resource objects to be added
+     * @return the generated IDs and any rows that could not be added
+     */
+    @Override
+    public BatchResult addResources(List<Resource> resources) {
+        return executeBatch(INSERT_RESOURCE_SQL, Change.RESOURCES, resources, this::bindResource, Resource::setResourceID);
+    }
+
+    /**
+     * Adds several disaster reports to the database in a single batched transaction.
+     * The generated IDs are also set on the DisasterReport objects that were written.
+     *
+     * @param reports the DisasterReport objects to be added
+     * @return the generated IDs and any rows that could not be added
+     */
+    @Override
+    public BatchResult addDisasterReports(List<DisasterReport> reports) {
+        return executeBatch(INSERT_REPORT_SQL, Change.DISASTER_REPORTS, reports, this::bindDisasterReport, DisasterReport::setReportID);
+    }
+
+    /**
+     * Records several resource allocations in a single transaction, taking each from
+     * its resource's stock. The stock updates are sent as one batch, followed by batches
+     * for the allocations that got their stock, their additions to the allocation totals
+     * and the change log. An allocation whose stock is short is rejected as a whole. The generated IDs are also set on the ResourceAllocation
+     * objects that were written. The batch holds the same in-process locks as
+     * {@link #reserveResource} for every resource it allocates from, so single and
+     * batched allocations of a resource queue here rather than on its database row.
+     *
+     * @param allocations the allocations to record
+     * @return the generated IDs and any rows that could not be recorded
+     */
+    @Override
+    public BatchResult allocateResources(List<ResourceAllocation> allocations) {
+        BatchResult result = new BatchResult(allocations.size());
+        List<Integer> order = new ArrayList<>(allocations.size());
+        for (int i = 0; i < allocations.size(); i++) {
+            if (allocations.get(i).getQuantity() > 0) {
+                order.add(i);
+            } else {
+                result.setFailure(i, "Quantity must be positive");
+            }
+        }
+        if (order.isEmpty()) {
+            return result;
+        }
+        // Taking stock in resource ID order makes concurrent batches lock rows in the
+        // same order, so they cannot deadlock
+        order.sort(Comparator.comparingInt(i -> allocations.get(i).getResourceID()));
+        List<Integer> reserved = new ArrayList<>(order.size());
+        List<ReentrantLock> locks = RESOURCE_LOCKS.getAll(
+            order.stream().mapToInt(index -> allocations.get(index).getResourceID()).toArray());
+        locks.forEach(Lock::lock);
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(RESERVE_STOCK_SQL)) {
+                for (int index : order) {
+                    bindReservation(pstmt, allocations.get(index).getResourceID(), allocations.get(index).getQuantity());
+                    pstmt.addBatch();
+                }
+                int[] counts = pstmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        result.setFailure(order.get(i), "Not enough stock");
+                    } else {
+                        reserved.add(order.get(i));
+                    }
+                }
+            }
+            if (!reserved.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ALLOCATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int index : reserved) {
+                        ResourceAllocation allocation = allocations.get(index);
+                        pstmt.setInt(1, allocation.getResourceID());
+                        pstmt.setInt(2, allocation.getDisasterID());
+                        pstmt.setInt(3, allocation.getQuantity());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        for (int index : reserved) {
+                            if (!keys.next()) {
+                                break;
+                            }
+                            result.setGeneratedKey(index, keys.getInt(1));
+                            allocations.get(index).setAllocationID(keys.getInt(1));
+                        }
+                    }
+                    try (PreparedStatement totals = conn.prepareStatement(ADD_TO_TOTALS_SQL)) {
+                        for (int index : reserved) {
+                            ResourceAllocation allocation = allocations.get(index);
+                            bindTotal(totals, allocation.getDisasterID(), allocation.getResourceID(), allocation.getQuantity());
+                            totals.addBatch();
+                        }
+                        totals.executeBatch();
+                    }
+                    logChanges(conn, Change.RESOURCES, reserved.stream()
+                        .map(index -> allocations.get(index).getResourceID()).toList(), Change.Operation.UPDATE);
+                } catch (BatchUpdateException e) {
+                    // The rollback also returns the stock, so each allocation is retried on its own
+                    conn.rollback();
+                    reserveRowByRow(conn, allocations, reserved, result);
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            System.out.println("Error allocating resources: " + e.getMessage());
+            for (int index : order) {
+                result.setFailure(index, "Batch aborted: " + e.getMessage());
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Makes the allocations of a rejected batch one at a time, each behind a savepoint,
+     * to find which ones fail.
+     *
+     * @param conn        the connection holding the open transaction
+     * @param allocations all allocations of the batch
+     * @param indexes     the positions of the allocations to make
+     * @param result      the result to record keys and failures in
+     * @throws SQLException if a savepoint cannot be set or rolled back to
+     */
+    private void reserveRowByRow(Connection conn, List<ResourceAllocation> allocations, List<Integer> indexes,
+            BatchResult result) throws SQLException {
+        for (int index : indexes) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                if (reserve(conn, allocations.get(index), false) > 0) {
+                    result.setGeneratedKey(index, allocations.get(index).getAllocationID());
+                } else {
+                    result.setFailure(index, "Not enough stock");
+                }
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                result.setFailure(index, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Assigns several agencies to disasters in a single batched transaction.
+     * Only the agency and disaster IDs of each assignment are used; the
+     * generated IDs are set on the AgencyAssignment objects that were written.
+     *
+     * @param assignments the assignments to record
+     * @return the generated IDs and any rows that could not be recorded
+     */
+    @Override
+    public BatchResult assignAgencies(List<AgencyAssignment> assignments) {
+        return executeBatch(INSERT_ASSIGNMENT_SQL, Change.AGENCY_ASSIGNMENTS, assignments, (pstmt, assignment) -> {
+            pstmt.setInt(1, assignment.getAgencyID());
+            pstmt.setInt(2, assignment.getDisasterID());
+        }, AgencyAssignment::setAssignmentID);
+    }
+
+    /**
+     * Streams every disaster report in the database in report ID order.
+     * Rows are fetched from the server in chunks as the stream is consumed, so memory use
+     * does not depend on the table size. The stream must be closed to release its connection.
+     *
+     * @return a Stream of DisasterReport objects, empty if the query could not be run
+     */
+    @Override
+    public Stream<DisasterReport> streamAllDisasterReports() {
+        return streamQuery("SELECT * FROM disaster_reports ORDER BY reportID", this::createDisasterReportFromResultSet);
+    }
+
+    /**
+     * Streams every resource in the database in resource ID order.
+     * The stream must be closed to release its connection.
+     *
+     * @return a Stream of Resource objects, empty if the query could not be run
+     */
+    @Override
+    public Stream<Resource> streamAllResources() {
+        return streamQuery("SELECT * FROM resources ORDER BY resourceID", this::createResourceFromResultSet);
+    }
+
+    /**
+     * Streams every agency assignment in the database in assignment ID order.
+     * The stream must be closed to release its connection.
+     *
+     * @return a Stream of AgencyAssignment objects, empty if the query could not be run
+     */
+    @Override
+    public Stream<AgencyAssignment> streamAllAgencyAssignments() {
+        String sql = "SELECT aa.*, a.name as agencyName, dr.disasterType FROM agency_assignments aa " +
+                     "JOIN agencies a ON aa.agencyID = a.id " +
+                     "JOIN disaster_reports dr ON aa.disasterID = dr.reportID " +
+                     "ORDER BY aa.assignmentID";
+        return streamQuery(sql, this::createAgencyAssignmentFromResultSet);
+    }
+
+    /**
+     * Streams every resource allocation in the database in allocation ID order.
+     * The stream must be closed to release its connection.
+     *
+     * @return a Stream of ResourceAllocation objects, empty if the query could not be run
+     */
+    @Override
+    public Stream<ResourceAllocation> streamAllResourceAllocations() {
+        return streamQuery("SELECT * FROM resource_allocations ORDER BY allocationID",
+            this::createResourceAllocationFromResultSet);
+    }
+
+    /**
+     * Maps the current row of a ResultSet to an object.
+     *
+     * @param <T> the type of object produced
+     */
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Runs a query on a forward-only, read-only cursor and exposes its rows as a lazy
+     * Stream. The connection, statement and result set stay open until the stream is
+     * closed. A database error while the stream is consumed is thrown as a
+     * DataAccessException.
+     *
+     * @param sql    the query to run
+     * @param mapper maps each row to an object
+     * @return a Stream over the query results, empty if the query could not be run
+     */
+    private <T> Stream<T> streamQuery(String sql, RowMapper<T> mapper) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            conn = getConnection();
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            System.out.println("Error streaming query: " + e.getMessage());
+            closeQuietly(pstmt, conn);
+            return Stream.empty();
+        }
+        final Connection streamConn = conn;
+        final PreparedStatement streamStmt = pstmt;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error reading streamed rows: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                System.out.println("Error closing streamed result set: " + e.getMessage());
+            }
+            closeQuietly(streamStmt, streamConn);
+        });
+    }
+
+    /**
+     * Closes a statement and returns its connection to the pool, ignoring errors.
+     *
+     * @param stmt the statement to close, may be null
+     * @param conn the connection to close, may be null
+     */
+    private void closeQuietly(Statement stmt, Connection conn) {
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.out.println("Error closing statement: " + e.getMessage());
+        }
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            System.out.println("Error closing connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Binds the parameters of a single row to a prepared statement.
+     *
+     * @param <T> the type of object being written
+     */
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement pstmt, T row) throws SQLException;
+    }
+
+    /**
+     * Inserts a list of rows as one JDBC batch inside a single transaction.
+     * Rows that cannot be bound are reported as failures without being sent. If the
+     * database rejects the batch, it is rolled back and the rows are re-run one at a
+     * time in the same transaction so that only the offending rows are reported. The
+     * rows written are recorded in the change log in the same transaction.
+     *
+     * @param sql       the INSERT statement to run for each row
+     * @param tableName the table inserted into, as recorded in the change log
+     * @param rows      the rows to insert
+     * @param binder    binds one row to the statement parameters
+     * @param keySetter stores the generated key back on the row
+     * @return the generated keys and per-row failures
+     */
+    private <T> BatchResult executeBatch(String sql, String tableName, List<T> rows, RowBinder<T> binder,
+            ObjIntConsumer<T> keySetter) {
+        BatchResult result = new BatchResult(rows.size());
+        if (rows.isEmpty()) {
+            return result;
+        }
+        List<Integer> batched = new ArrayList<>(rows.size());
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        binder.bind(pstmt, rows.get(i));
+                        pstmt.addBatch();
+                        batched.add(i);
+                    } catch (SQLException | RuntimeException e) {
+                        result.setFailure(i, "Invalid row: " + e.getMessage());
+                        pstmt.clearParameters();
+                    }
+                }
+                if (batched.isEmpty()) {
+                    return result;
+                }
+                try {
+                    pstmt.executeBatch();
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        for (int index : batched) {
+                            if (!keys.next()) {
+                                break;
+                            }
+                            result.setGeneratedKey(index, keys.getInt(1));
+                            keySetter.accept(rows.get(index), keys.getInt(1));
+                        }
+                    }
+                } catch (BatchUpdateException e) {
+                    conn.rollback();
+                    executeRowByRow(conn, sql, rows, batched, binder, keySetter, result);
+                }
+            }
+            logChanges(conn, tableName, Arrays.stream(result.getGeneratedKeys())
+                .filter(key -> key != BatchResult.NO_KEY).boxed().toList(), Change.Operation.INSERT);
+            conn.commit();
+        } catch (SQLException e) {
+            System.out.println("Error executing batch: " + e.getMessage());
+            for (int index : batched) {
+                result.setFailure(index, "Batch aborted: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Re-runs the rows of a rejected batch individually to find which ones fail.
+     *
+     * @param conn      the connection holding the open transaction
+     * @param sql       the INSERT statement to run for each row
+     * @param rows      all rows of the batch
+     * @param indexes   the positions of the rows to re-run
+     * @param binder    binds one row to the statement parameters
+     * @param keySetter stores the generated key back on the row
+     * @param result    the result to record keys and failures in
+     * @throws SQLException if the statement cannot be prepared
+     */
+    private <T> void executeRowByRow(Connection conn, String sql, List<T> rows, List<Integer> indexes,
+            RowBinder<T> binder, ObjIntConsumer<T> keySetter, BatchResult result) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int index : indexes) {
+                try {
+                    binder.bind(pstmt, rows.get(index));
+                    pstmt.executeUpdate();
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            result.setGeneratedKey(index, keys.getInt(1));
+                            keySetter.accept(rows.get(index), keys.getInt(1));
+                        }
+                    }
+                } catch (SQLException e) {
+                    result.setFailure(index, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts one row and records it in the change log, in one transaction.
+     *
+     * @param sql       the INSERT statement
+     * @param tableName the table inserted into, as recorded in the change log
+     * @param row       the row to insert
+     * @param binder    binds the row to the statement parameters
+     * @return true if the row was inserted, false otherwise
+     * @throws SQLException if a statement fails; nothing is then written
+     */
+    private <T> boolean insertLogged(String sql, String tableName, T row, RowBinder<T> binder) throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                binder.bind(pstmt, row);
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        logChange(conn, tableName, keys.getInt(1), Change.Operation.INSERT);
+                    }
+                }
+            }
+            conn.commit();
+            return true;
+        }
+    }
+
+    /**
+     * Updates or deletes one row and records it in the change log, in one transaction.
+     *
+     * @param sql       the UPDATE or DELETE statement
+     * @param tableName the table written to, as recorded in the change log
+     * @param rowId     the ID of the row written
+     * @param operation the kind of write, as recorded in the change log
+     * @param row       the value the statement is bound from
+     * @param binder    binds the value to the statement parameters
+     * @return true if the row was found and written, false otherwise
+     * @throws SQLException if a statement fails; nothing is then written
+     */
+    private <T> boolean updateLogged(String sql, String tableName, int rowId, Change.Operation operation, T row,
+            RowBinder<T> binder) throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                binder.bind(pstmt, row);
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            logChange(conn, tableName, rowId, operation);
+            conn.commit();
+            return true;
+        }
+    }
+
+    /**
+     * Records a change to one row in the change log, on a connection with an open
+     * transaction so the entry commits or rolls back with the write itself.
+     *
+     * @param conn      the connection holding the open transaction
+     * @param tableName the table of the changed row
+     * @param rowId     the ID of the changed row
+     * @param operation the kind of write
+     * @throws SQLException if the entry cannot be written
+     */
+    private void logChange(Connection conn, String tableName, int rowId, Change.Operation operation) throws SQLException {
+        markLocationsStale(tableName);
+        if (clearsPreviousChange(operation)) {
+            try (PreparedStatement clear = conn.prepareStatement(CLEAR_CHANGE_SQL)) {
+                clear.setString(1, tableName);
+                clear.setInt(2, rowId);
+                clear.executeUpdate();
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(logChangeSql())) {
+            pstmt.setString(1, tableName);
+            pstmt.setInt(2, rowId);
+            pstmt.setString(3, operation.name());
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Records changes to several rows of a table in the change log as one batch. The
+     * rows are logged in ID order, each once, so concurrent writers lock the entries
+     * in the same order.
+     *
+     * @param conn      the connection holding the open transaction
+     * @param tableName the table of the changed rows
+     * @param rowIds    the IDs of the changed rows
+     * @param operation the kind of write
+     * @throws SQLException if the entries cannot be written
+     */
+    private void logChanges(Connection conn, String tableName, Collection<Integer> rowIds, Change.Operation operation)
+            throws SQLException {
+        if (rowIds.isEmpty()) {
+            return;
+        }
+        markLocationsStale(tableName);
+        Set<Integer> ordered = new TreeSet<>(rowIds);
+        if (clearsPreviousChange(operation)) {
+            try (PreparedStatement clear = conn.prepareStatement(CLEAR_CHANGE_SQL)) {
+                for (int rowId : ordered) {
+                    clear.setString(1, tableName);
+                    clear.setInt(2, rowId);
+                    clear.addBatch();
+                }
+                clear.executeBatch();
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(logChangeSql())) {
+            for (int rowId : ordered) {
+                pstmt.setString(1, tableName);
+                pstmt.setInt(2, rowId);
+                pstmt.setString(3, operation.name());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Gets the statement that writes a change log entry: REPLACE on MySQL, which
+     * drops the row's previous change itself, and a plain INSERT elsewhere.
+     *
+     * @return the SQL
+     */
+    private String logChangeSql() {
+        return backend == DatabaseBackend.MYSQL ? LOG_CHANGE_SQL : INSERT_CHANGE_SQL;
+    }
+
+    /**
+     * Checks whether a row's previous change must be deleted before logging a new
+     * one: only where REPLACE is not used, and never for a newly inserted row.
+     *
+     * @param operation the kind of write
+     * @return true if the previous change is deleted first
+     */
+    private boolean clearsPreviousChange(Change.Operation operation) {
+        return backend != DatabaseBackend.MYSQL && operation != Change.Operation.INSERT;
+    }
+
+    /**
+     * Builds the parameter placeholders of an IN list.
+     *
+     * @param count the number of values in the list
+     * @return the placeholders, separated by commas
+     */
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Binds IDs to the parameters of a statement, starting from the first.
+     *
+     * @param pstmt the statement to bind
+     * @param ids   the IDs, one per parameter
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindIds(PreparedStatement pstmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setInt(i + 1, ids.get(i));
+        }
+    }
+
+    /**
+     * Runs a write whose only parameters are a list of IDs.
+     *
+     * @param conn the connection holding the open transaction
+     * @param sql  the statement, with one placeholder per ID
+     * @param ids  the IDs to bind
+     * @throws SQLException if the statement fails
+     */
+    private static void executeForIds(Connection conn, String sql, List<Integer> ids) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindIds(pstmt, ids);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Makes the next proximity lookup on a table pick up a write to it made through
+     * this connection, rather than wait for the sync interval.
+     *
+     * @param tableName the written table
+     */
+    private void markLocationsStale(String tableName) {
+        if (Change.DISASTER_REPORTS.equals(tableName)) {
+            reportLocations.markStale();
+        } else if (Change.RESOURCES.equals(tableName)) {
+            resourceLocations.markStale();
+        }
+    }
+
+    /**
+     * Binds a User to the parameters of the user INSERT statement.
+     *
+     * @param pstmt the statement to bind
+     * @param user  the user to write
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindUser(PreparedStatement pstmt, User user) throws SQLException {
+        pstmt.setString(1, user.getUserName());
+        pstmt.setString(2, user.getPassword());
+        pstmt.setString(3, user.getRole());
+        pstmt.setString(4, user.getFullName());
+        pstmt.setInt(5, user.getGender());
+        pstmt.setDate(6, Date.valueOf(user.getDateOfBirth()));
+        pstmt.setString(7, user.getPhoneNumber());
+        pstmt.setString(8, user.getAddress());
+        pstmt.setString(9, user.getEmail());
+    }
+
+    /**
+     * Binds a Resource to the parameters of the resource INSERT statement, which the
+     * UPDATE statement shares.
+     *
+     * @param pstmt    the statement to bind
+     * @param resource the resource to write
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindResource(PreparedStatement pstmt, Resource resource) throws SQLException {
+        pstmt.setString(1, resource.getType());
+        pstmt.setInt(2, resource.getQuantity());
+        pstmt.setString(3, resource.getStatus());
+        bindCoordinates(pstmt, 4, resource.getLatitude(), resource.getLongitude());
+    }
+
+    /**
+     * Binds a DisasterReport to the parameters of the disaster report INSERT statement,
+     * which the UPDATE statement shares.
+     *
+     * @param pstmt  the statement to bind
+     * @param report the report to write
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindDisasterReport(PreparedStatement pstmt, DisasterReport report) throws SQLException {
+        pstmt.setString(1, report.getDisasterType());
+        pstmt.setString(2, report.getLocation());
+        pstmt.setInt(3, report.getSeverity());
+        pstmt.setString(4, report.getDescription());
+        pstmt.setTimestamp(5, Timestamp.valueOf(report.getTimeStamp()));
+        bindCoordinates(pstmt, 6, report.getLatitude(), report.getLongitude());
+    }
+
+    /**
+     * Binds optional coordinates and their geohash to three consecutive parameters.
+     *
+     * @param pstmt     the statement to bind
+     * @param index     the index of the latitude parameter
+     * @param latitude  the latitude in degrees, or null
+     * @param longitude the longitude in degrees, or null
+     * @throws SQLException if only one coordinate is given, they are out of range, or a
+     *                      parameter cannot be set
+     */
+    private void bindCoordinates(PreparedStatement pstmt, int index, Double latitude, Double longitude) throws SQLException {
+        if (latitude == null && longitude == null) {
+            pstmt.setNull(index, Types.DOUBLE);
+            pstmt.setNull(index + 1, Types.DOUBLE);
+            pstmt.setNull(index + 2, Types.VARCHAR);
+            return;
+        }
+        if (latitude == null || longitude == null || !GeoHash.isValid(latitude, longitude)) {
+            throw new SQLException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+        pstmt.setDouble(index, latitude);
+        pstmt.setDouble(index + 1, longitude);
+        pstmt.setString(index + 2, GeoHash.encode(latitude, longitude, GEOHASH_PRECISION));
+    }
+
+    /**
+     * A proximity index over the rows of one table that have coordinates, built from
+     * the database on the first lookup and then kept up to date through the change
+     * log. So that lookups are answered from memory, the change log is checked at most
+     * every drs.geo.syncIntervalMs, and on the first lookup after a write through this
+     * connection; writes from other processes show up within that interval.
+     *
+     * @param <T> the type of row indexed
+     */
+    private final class LocationIndex<T extends Locatable> {
+        private final ChangeTracker<T> changes;
+        private final String loadSql;
+        private final RowMapper<T> mapper;
+        private final ToIntFunction<T> idOf;
+        private final UnaryOperator<T> copier;
+        private GeoIndex<T> index;
+        private long syncedAt;
+        private volatile boolean stale;
+
+        /**
+         * Constructs a new LocationIndex.
+         *
+         * @param tableName the table indexed, one of the {@link Change} table names
+         * @param loadSql   selects every row that has coordinates
+         * @param mapper    maps a selected row
+         * @param loader    loads a changed row by ID, returning null once it is deleted
+         * @param idOf      gives the ID of a row
+         * @param copier    copies a row before it is returned to a caller
+         */
+        private LocationIndex(String tableName, String loadSql, RowMapper<T> mapper, ChangeTracker.RowLoader<T> loader,
+                ToIntFunction<T> idOf, UnaryOperator<T> copier) {
+            this.changes = new ChangeTracker<>(tableName, loader, idOf);
+            this.loadSql = loadSql;
+            this.mapper = mapper;
+            this.idOf = idOf;
+            this.copier = copier;
+        }
+
+        /**
+         * Marks the index as behind a write made through this connection.
+         */
+        private void markStale() {
+            stale = true;
+        }
+
+        /**
+         * Finds the rows nearest to a location.
+         *
+         * @param latitude  the latitude of the location in degrees
+         * @param longitude the longitude of the location in degrees
+         * @param count     the maximum number of rows to return
+         * @return copies of the nearest rows, nearest first
+         */
+        private List<T> nearest(double latitude, double longitude, int count) {
+            return copyAll(current().nearest(latitude, longitude, count));
+        }
+
+        /**
+         * Finds the rows within a distance of a location.
+         *
+         * @param latitude  the latitude of the location in degrees
+         * @param longitude the longitude of the location in degrees
+         * @param radiusKm  the distance in kilometres
+         * @return copies of the rows within the distance, nearest first
+         */
+        private List<T> within(double latitude, double longitude, double radiusKm) {
+            return copyAll(current().within(latitude, longitude, radiusKm));
+        }
+
+        /**
+         * Gets the index, building it on first use and otherwise applying the rows
+         * changed since it was last synced when it is due.
+         *
+         * @return the index
+         */
+        private synchronized GeoIndex<T> current() {
+            long now = System.nanoTime();
+            if (index == null) {
+                GeoIndex<T> built = new GeoIndex<>();
+                stale = false;
+                changes.reset(DisasterDatabaseConn.this);
+                try (Stream<T> rows = streamQuery(loadSql, mapper)) {
+                    rows.forEach(row -> built.put(idOf.applyAsInt(row), row.getLatitude(), row.getLongitude(), row));
+                }
+                index = built;
+                syncedAt = now;
+            } else if (stale || now - syncedAt >= GEO_SYNC_INTERVAL_MS * 1_000_000L) {
+                // Cleared before polling, so a write committed during the poll is picked up next time
+                stale = false;
+                changes.poll(DisasterDatabaseConn.this).getRows().forEach((rowId, row) -> {
+                    if (row != null && row.hasCoordinates()) {
+                        index.put(rowId, row.getLatitude(), row.getLongitude(), row);
+                    } else {
+                        index.remove(rowId);
+                    }
+                });
+                syncedAt = now;
+            }
+            return index;
+        }
+
+        /**
+         * Copies rows found in the index.
+         *
+         * @param rows the rows found
+         * @return the copies, in the same order
+         */
+        private List<T> copyAll(List<T> rows) {
+            List<T> copies = new ArrayList<>(rows.size());
+            for (T row : rows) {
+                copies.add(copier.apply(row));
+            }
+            return copies;
+        }
+    }
+}
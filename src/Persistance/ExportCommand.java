@@ -0,0 +1,60 @@
+package Persistance;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Exports a table to a file without starting the user interface, for scheduled
+ * hand-overs to partner agencies. Run as
+ *
+ * <pre>java Persistance.ExportCommand reports|allocations|assignments FILE</pre>
+ *
+ * where the extension of FILE picks the format as described in
+ * {@link BulkExporter#create}. The database is the one chosen with
+ * -Ddrs.db.backend=mysql|embedded|memory. The exit status is 0 on success, 1 if the
+ * export failed and 2 if the arguments are wrong.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ExportCommand {
+    /**
+     * Runs the export.
+     *
+     * @param args the dataset and the file to write
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ExportCommand reports|allocations|assignments FILE");
+            System.exit(2);
+        }
+        BulkExporter.Dataset dataset;
+        try {
+            dataset = BulkExporter.Dataset.fromCommandName(args[0]);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        IDatabaseManager database;
+        try {
+            database = DatabaseManagers.fromSystemProperty();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        int status = 0;
+        try {
+            ExportResult result = BulkExporter.export(database, dataset, Path.of(args[1]),
+                rows -> System.err.printf("  %,d rows written%n", rows));
+            System.out.println(result.getSummary());
+        } catch (IOException | DataAccessException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            status = 1;
+        } finally {
+            database.closeConnection();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,87 @@
+package Persistance;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of a {@link BulkExporter} run: the file written, how many rows and
+ * bytes went into it, and how long it took.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ExportResult {
+    private final Path file;
+    private final long rowsWritten;
+    private final long bytesWritten;
+    private final long elapsedMillis;
+
+    /**
+     * Constructs a new ExportResult.
+     *
+     * @param file          the file written
+     * @param rowsWritten   the number of rows written
+     * @param bytesWritten  the size of the file
+     * @param elapsedMillis how long the export took, in milliseconds
+     */
+    ExportResult(Path file, long rowsWritten, long bytesWritten, long elapsedMillis) {
+        this.file = file;
+        this.rowsWritten = rowsWritten;
+        this.bytesWritten = bytesWritten;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Gets the file written.
+     *
+     * @return the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of rows written.
+     *
+     * @return the number of rows, not counting any header line
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Gets the size of the file written.
+     *
+     * @return the number of bytes, after compression if the file is gzipped
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Gets how long the export took.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the export rate.
+     *
+     * @return the rows written per second
+     */
+    public double getRowsPerSecond() {
+        return rowsWritten * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    /**
+     * Describes the result for display.
+     *
+     * @return the summary text
+     */
+    public String getSummary() {
+        return String.format("Exported %,d rows (%,d bytes) to %s in %.1f s (%,.0f rows/s).",
+                rowsWritten, bytesWritten, file.getFileName(), elapsedMillis / 1000.0, getRowsPerSecond());
+    }
+}
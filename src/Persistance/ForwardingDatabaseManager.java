@@ -0,0 +1,302 @@
+package Persistance;
+
+import Model.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An IDatabaseManager that forwards every call to another IDatabaseManager.
+ * Decorators such as {@link CachingDatabaseManager} extend this class and override
+ * only the methods they add behaviour to.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public abstract class ForwardingDatabaseManager implements IDatabaseManager {
+    protected final IDatabaseManager delegate;
+
+    /**
+     * Constructs a new ForwardingDatabaseManager.
+     *
+     * @param delegate the database manager that calls are forwarded to
+     */
+    protected ForwardingDatabaseManager(IDatabaseManager delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the database manager that calls are forwarded to.
+     *
+     * @return the wrapped database manager
+     */
+    public IDatabaseManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean addUser(User user) {
+        return delegate.addUser(user);
+    }
+
+    @Override
+    public User getUserById(int userId) {
+        return delegate.getUserById(userId);
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return delegate.getUserByUsername(username);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public List<User> getUsersBefore(int beforeUserId, int limit) {
+        return delegate.getUsersBefore(beforeUserId, limit);
+    }
+
+    @Override
+    public List<String> getAllRoles() {
+        return delegate.getAllRoles();
+    }
+
+    @Override
+    public boolean updateUser(User user) {
+        return delegate.updateUser(user);
+    }
+
+    @Override
+    public boolean deleteUser(int userId) {
+        return delegate.deleteUser(userId);
+    }
+
+    @Override
+    public boolean addResource(Resource resource) {
+        return delegate.addResource(resource);
+    }
+
+    @Override
+    public Resource getResourceById(int resourceId) {
+        return delegate.getResourceById(resourceId);
+    }
+
+    @Override
+    public List<Resource> getAllResources() {
+        return delegate.getAllResources();
+    }
+
+    @Override
+    public List<Resource> getResourcesByType(String resourceType) {
+        return delegate.getResourcesByType(resourceType);
+    }
+
+    @Override
+    public boolean updateResource(Resource resource) {
+        return delegate.updateResource(resource);
+    }
+
+    @Override
+    public boolean updateResourceStatus(int resourceId, String status) {
+        return delegate.updateResourceStatus(resourceId, status);
+    }
+
+    @Override
+    public boolean deleteResource(int resourceId) {
+        return delegate.deleteResource(resourceId);
+    }
+
+    @Override
+    public boolean addDisasterReport(DisasterReport report) {
+        return delegate.addDisasterReport(report);
+    }
+
+    @Override
+    public DisasterReport getDisasterReportById(int reportId) {
+        return delegate.getDisasterReportById(reportId);
+    }
+
+    @Override
+    public int getDisasterIdByType(String disasterType) {
+        return delegate.getDisasterIdByType(disasterType);
+    }
+
+    @Override
+    public List<DisasterReport> getAllDisasterReports() {
+        return delegate.getAllDisasterReports();
+    }
+
+    @Override
+    public List<DisasterReport> getActiveDisasterReports() {
+        return delegate.getActiveDisasterReports();
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsBefore(int beforeReportId, int limit) {
+        return delegate.getDisasterReportsBefore(beforeReportId, limit);
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsAfter(int afterReportId, int limit) {
+        return delegate.getDisasterReportsAfter(afterReportId, limit);
+    }
+
+    @Override
+    public List<DisasterReport> searchDisasterReports(String query, int limit) {
+        return delegate.searchDisasterReports(query, limit);
+    }
+
+    @Override
+    public boolean updateDisasterReport(DisasterReport report) {
+        return delegate.updateDisasterReport(report);
+    }
+
+    @Override
+    public boolean deleteDisasterReport(int reportId) {
+        return delegate.deleteDisasterReport(reportId);
+    }
+
+    @Override
+    public boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity) {
+        return delegate.allocateResourceToDisaster(resourceId, disasterId, quantity);
+    }
+
+    @Override
+    public int reserveResource(int resourceId, int disasterId, int quantity, boolean allowPartial) {
+        return delegate.reserveResource(resourceId, disasterId, quantity, allowPartial);
+    }
+
+    @Override
+    public List<Resource> getResourcesAllocatedToDisaster(int disasterId) {
+        return delegate.getResourcesAllocatedToDisaster(disasterId);
+    }
+
+    @Override
+    public Map<String, Integer> getAllocationTotals(int disasterId) {
+        return delegate.getAllocationTotals(disasterId);
+    }
+
+    @Override
+    public int getAllocatedQuantity(int disasterId, String resourceType) {
+        return delegate.getAllocatedQuantity(disasterId, resourceType);
+    }
+
+    @Override
+    public List<Agency> getAllAgencies() {
+        return delegate.getAllAgencies();
+    }
+
+    @Override
+    public boolean assignAgencyToDisaster(int agencyId, int disasterId) {
+        return delegate.assignAgencyToDisaster(agencyId, disasterId);
+    }
+
+    @Override
+    public List<AgencyAssignment> getAllAgencyAssignments() {
+        return delegate.getAllAgencyAssignments();
+    }
+
+    @Override
+    public AgencyAssignment getAgencyAssignmentById(int assignmentId) {
+        return delegate.getAgencyAssignmentById(assignmentId);
+    }
+
+    @Override
+    public List<AgencyAssignment> getAgenciesAssignedToDisaster(int disasterId) {
+        return delegate.getAgenciesAssignedToDisaster(disasterId);
+    }
+
+    @Override
+    public Stream<DisasterReport> streamAllDisasterReports() {
+        return delegate.streamAllDisasterReports();
+    }
+
+    @Override
+    public Stream<Resource> streamAllResources() {
+        return delegate.streamAllResources();
+    }
+
+    @Override
+    public Stream<AgencyAssignment> streamAllAgencyAssignments() {
+        return delegate.streamAllAgencyAssignments();
+    }
+
+    @Override
+    public Stream<ResourceAllocation> streamAllResourceAllocations() {
+        return delegate.streamAllResourceAllocations();
+    }
+
+    @Override
+    public BatchResult addUsers(List<User> users) {
+        return delegate.addUsers(users);
+    }
+
+    @Override
+    public BatchResult addResources(List<Resource> resources) {
+        return delegate.addResources(resources);
+    }
+
+    @Override
+    public BatchResult addDisasterReports(List<DisasterReport> reports) {
+        return delegate.addDisasterReports(reports);
+    }
+
+    @Override
+    public BatchResult allocateResources(List<ResourceAllocation> allocations) {
+        return delegate.allocateResources(allocations);
+    }
+
+    @Override
+    public BatchResult assignAgencies(List<AgencyAssignment> assignments) {
+        return delegate.assignAgencies(assignments);
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsNear(double latitude, double longitude, int count) {
+        return delegate.getDisasterReportsNear(latitude, longitude, count);
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsWithin(double latitude, double longitude, double radiusKm) {
+        return delegate.getDisasterReportsWithin(latitude, longitude, radiusKm);
+    }
+
+    @Override
+    public List<Resource> getResourcesNear(double latitude, double longitude, int count) {
+        return delegate.getResourcesNear(latitude, longitude, count);
+    }
+
+    @Override
+    public List<Resource> getResourcesWithin(double latitude, double longitude, double radiusKm) {
+        return delegate.getResourcesWithin(latitude, longitude, radiusKm);
+    }
+
+    @Override
+    public int archiveDisasterReports(LocalDateTime olderThan, int limit) {
+        return delegate.archiveDisasterReports(olderThan, limit);
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportHistory(LocalDateTime from, LocalDateTime to) {
+        return delegate.getDisasterReportHistory(from, to);
+    }
+
+    @Override
+    public long getChangeVersion() {
+        return delegate.getChangeVersion();
+    }
+
+    @Override
+    public ChangeSet changesSince(long version) {
+        return delegate.changesSince(version);
+    }
+
+    @Override
+    public void closeConnection() {
+        delegate.closeConnection();
+    }
+}
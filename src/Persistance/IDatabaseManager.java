@@ -1,6 +1,9 @@
 package Persistance;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import Model.*;
 /**
  * Interface defining the contract for database operations in the Disaster Response System.
@@ -17,6 +20,7 @@ public interface IDatabaseManager {
     User getUserById(int userId);
     User getUserByUsername(String username);
     List<User> getAllUsers();
+    List<User> getUsersBefore(int beforeUserId, int limit);
     List<String> getAllRoles();
     boolean updateUser(User user);
     boolean deleteUser(int userId);
@@ -27,6 +31,7 @@ public interface IDatabaseManager {
     List<Resource> getAllResources();
     List<Resource> getResourcesByType(String resourceType);
     boolean updateResource(Resource resource);
+    boolean updateResourceStatus(int resourceId, String status);
     boolean deleteResource(int resourceId);
     
     // Disaster report-related methods
@@ -35,12 +40,18 @@ public interface IDatabaseManager {
     int getDisasterIdByType(String disasterType);
     List<DisasterReport> getAllDisasterReports();
     List<DisasterReport> getActiveDisasterReports();
+    List<DisasterReport> getDisasterReportsBefore(int beforeReportId, int limit);
+    List<DisasterReport> getDisasterReportsAfter(int afterReportId, int limit);
+    List<DisasterReport> searchDisasterReports(String query, int limit);
     boolean updateDisasterReport(DisasterReport report);
     boolean deleteDisasterReport(int reportId);
     
-    // Resource allocation methods
+    // Resource allocation methods; each allocation is taken from the resource's stock atomically
     boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity);
+    int reserveResource(int resourceId, int disasterId, int quantity, boolean allowPartial);
     List<Resource> getResourcesAllocatedToDisaster(int disasterId);
+    Map<String, Integer> getAllocationTotals(int disasterId);
+    int getAllocatedQuantity(int disasterId, String resourceType);
     
     //Adding agency
     List<Agency> getAllAgencies();
@@ -48,8 +59,35 @@ public interface IDatabaseManager {
     //agency allocation
     boolean assignAgencyToDisaster(int agencyId, int disasterId);
     List<AgencyAssignment> getAllAgencyAssignments();
+    AgencyAssignment getAgencyAssignmentById(int assignmentId);
     List<AgencyAssignment> getAgenciesAssignedToDisaster(int disasterId);
     
+    // Streaming queries; the returned stream holds a connection open and must be closed
+    Stream<DisasterReport> streamAllDisasterReports();
+    Stream<Resource> streamAllResources();
+    Stream<AgencyAssignment> streamAllAgencyAssignments();
+    Stream<ResourceAllocation> streamAllResourceAllocations();
+    
+    // Batch write methods, each written as one JDBC batch in a single transaction
+    BatchResult addUsers(List<User> users);
+    BatchResult addResources(List<Resource> resources);
+    BatchResult addDisasterReports(List<DisasterReport> reports);
+    BatchResult allocateResources(List<ResourceAllocation> allocations);
+    BatchResult assignAgencies(List<AgencyAssignment> assignments);
+    
+    // Proximity lookups over the reports and resources that have coordinates, nearest first
+    List<DisasterReport> getDisasterReportsNear(double latitude, double longitude, int count);
+    List<DisasterReport> getDisasterReportsWithin(double latitude, double longitude, double radiusKm);
+    List<Resource> getResourcesNear(double latitude, double longitude, int count);
+    List<Resource> getResourcesWithin(double latitude, double longitude, double radiusKm);
+    
+    // Archive tier; resolved reports move out of the live tables once old, and only history queries read them
+    int archiveDisasterReports(LocalDateTime olderThan, int limit);
+    List<DisasterReport> getDisasterReportHistory(LocalDateTime from, LocalDateTime to);
+    
+    // Change capture; every write is logged so clients can fetch only what changed since they last synced
+    long getChangeVersion();
+    ChangeSet changesSince(long version);
     
     // Connection management
     void closeConnection();
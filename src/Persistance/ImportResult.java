@@ -0,0 +1,226 @@
+package Persistance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a {@link BulkImporter} run: how many rows were read, imported and
+ * rejected, the first of the per-row errors, and the error that ended the run
+ * early, if any.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ImportResult {
+    private final int maxErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private String fatalError;
+    private long elapsedMillis;
+
+    /**
+     * Constructs a new, empty ImportResult.
+     *
+     * @param maxErrors how many row errors to keep; the rest are only counted
+     */
+    ImportResult(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Records that rows were read from the file.
+     *
+     * @param count the number of rows
+     */
+    void addRowsRead(long count) {
+        rowsRead += count;
+    }
+
+    /**
+     * Records that rows were stored.
+     *
+     * @param count the number of rows
+     */
+    void addRowsImported(long count) {
+        rowsImported += count;
+    }
+
+    /**
+     * Records a row that could not be imported.
+     *
+     * @param row     the row's number in the file, counting from 1
+     * @param message why it failed
+     */
+    void addRowError(long row, String message) {
+        rowsFailed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    /**
+     * Records the error that stopped the import before the end of the file.
+     *
+     * @param message what went wrong
+     */
+    void setFatalError(String message) {
+        fatalError = message;
+    }
+
+    /**
+     * Records how long the import took.
+     *
+     * @param elapsedMillis the time taken in milliseconds
+     */
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Gets the number of rows read from the file.
+     *
+     * @return the number of rows read
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Gets the number of rows stored.
+     *
+     * @return the number of rows imported
+     */
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * Gets the number of rows that were malformed, invalid or rejected by the database.
+     *
+     * @return the number of rows failed
+     */
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    /**
+     * Gets the errors for failed rows, in file order, up to the configured limit.
+     *
+     * @return the row errors
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Gets the error that stopped the import before the end of the file.
+     *
+     * @return the error, or null if the whole file was read
+     */
+    public String getFatalError() {
+        return fatalError;
+    }
+
+    /**
+     * Checks whether the whole file was read.
+     *
+     * @return true if the import was not stopped early
+     */
+    public boolean isComplete() {
+        return fatalError == null;
+    }
+
+    /**
+     * Gets how long the import took.
+     *
+     * @return the time taken in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the import rate.
+     *
+     * @return the rows read per second
+     */
+    public double getRowsPerSecond() {
+        return rowsRead * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    /**
+     * Describes the result for display, listing the first few row errors.
+     *
+     * @param errorsShown the most row errors to list
+     * @return the summary text
+     */
+    public String getSummary(int errorsShown) {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Imported %,d of %,d rows in %.1f s (%,.0f rows/s).",
+                rowsImported, rowsRead, elapsedMillis / 1000.0, getRowsPerSecond()));
+        if (fatalError != null) {
+            summary.append("\nStopped early: ").append(fatalError);
+        }
+        if (rowsFailed > 0) {
+            summary.append(String.format("\n%,d rows failed:", rowsFailed));
+            for (int i = 0; i < Math.min(errorsShown, errors.size()); i++) {
+                summary.append('\n').append(errors.get(i));
+            }
+            if (rowsFailed > errorsShown) {
+                summary.append("\n...");
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Why one row of the file could not be imported.
+     */
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        /**
+         * Constructs a new RowError.
+         *
+         * @param row     the row's number in the file, counting from 1
+         * @param message why it failed
+         */
+        RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        /**
+         * Gets the row's number in the file, counting from 1 and not counting a
+         * CSV header.
+         *
+         * @return the row number
+         */
+        public long getRow() {
+            return row;
+        }
+
+        /**
+         * Gets why the row failed.
+         *
+         * @return the error message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Describes the error for display.
+         *
+         * @return the row number and message
+         */
+        @Override
+        public String toString() {
+            return "Row " + row + ": " + message;
+        }
+    }
+}
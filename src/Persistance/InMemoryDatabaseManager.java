@@ -0,0 +1,1677 @@
+package Persistance;
+
+import Model.*;
+import Util.GeoHash;
+import Util.GeoIndex;
+import Util.IntObjectMap;
+import Util.InvertedIndex;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * An IDatabaseManager that keeps all data in memory, for benchmarks and for running
+ * the application in a demo or training mode without a database. It follows the
+ * behaviour of {@link DisasterDatabaseConn}: IDs are generated from 1, required
+ * columns, unique usernames and references between tables are enforced, the default
+ * agencies are present, and deleteUser and deleteResource leave the data unchanged.
+ *
+ * Rows are stored in {@link IntObjectMap}s keyed by their primitive ID, with secondary
+ * indexes on report status and type, resource type, username and the disaster of an
+ * allocation or assignment, a full-text index of report descriptions and locations
+ * and proximity indexes of report and resource coordinates, along with running
+ * allocation totals per disaster and resource type. Every write is recorded in a
+ * change log that keeps the latest change of each row. Archived reports, with their
+ * allocations and assignments, are kept apart from the live rows and only read by
+ * history queries. Each table has its own read/write lock, so readers run
+ * concurrently and only writers to the same table block each other. Calls that touch
+ * several tables take the locks in the order the tables are declared, so they cannot
+ * deadlock. Callers always receive copies, so changing a returned object does not
+ * change the stored data.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class InMemoryDatabaseManager implements IDatabaseManager {
+    private static final String ACTIVE_STATUS = "Active";
+    private static final String ASSIGNED_STATUS = "Assigned";
+    private static final int MAX_CHANGES = Integer.getInteger("drs.sync.maxChanges", 1000);
+
+    private final Table<User> users = new Table<>(InMemoryDatabaseManager::copyUser);
+    private final Table<Resource> resources = new Table<>(InMemoryDatabaseManager::copyResource);
+    private final Table<DisasterReport> reports = new Table<>(InMemoryDatabaseManager::copyDisasterReport);
+    private final Table<Agency> agencies = new Table<>(InMemoryDatabaseManager::copyAgency);
+    private final Table<ResourceAllocation> allocations = new Table<>(InMemoryDatabaseManager::copyAllocation);
+    private final Table<AgencyAssignment> assignments = new Table<>(InMemoryDatabaseManager::copyAssignment);
+
+    // Secondary indexes, each guarded by the lock of the table it indexes
+    private final Map<String, User> usersByUsername = new HashMap<>();
+    private final Map<String, IntObjectMap<Resource>> resourcesByType = new HashMap<>();
+    private final Map<String, IntObjectMap<DisasterReport>> reportsByStatus = new HashMap<>();
+    private final Map<String, IntObjectMap<DisasterReport>> reportsByType = new HashMap<>();
+    private final IntObjectMap<IntObjectMap<ResourceAllocation>> allocationsByDisaster = new IntObjectMap<>();
+    private final IntObjectMap<IntObjectMap<AgencyAssignment>> assignmentsByDisaster = new IntObjectMap<>();
+    // Words of each report's description and location, for searchDisasterReports
+    private final InvertedIndex reportText = new InvertedIndex();
+    private final GeoIndex<DisasterReport> reportLocations = new GeoIndex<>();
+    private final GeoIndex<Resource> resourceLocations = new GeoIndex<>();
+
+    // Archive tier, guarded by the reports lock: archived reports and the allocations
+    // and assignments that were moved out of the live tables with them
+    private final IntObjectMap<DisasterReport> archivedReports = new IntObjectMap<>();
+    private final IntObjectMap<ResourceAllocation> archivedAllocations = new IntObjectMap<>();
+    private final IntObjectMap<AgencyAssignment> archivedAssignments = new IntObjectMap<>();
+    // Quantity allocated per disaster and resource type, maintained with each allocation
+    private final IntObjectMap<Map<String, Integer>> allocationTotals = new IntObjectMap<>();
+
+    // The change log, holding the latest change of each row by version, and the version
+    // of each row's latest change by table; both guarded by changeLock
+    private final Object changeLock = new Object();
+    private final TreeMap<Long, Change> changeLog = new TreeMap<>();
+    private final Map<String, IntObjectMap<Long>> latestChanges = new HashMap<>();
+    private long changeVersion;
+
+    /**
+     * Constructs a new InMemoryDatabaseManager holding only the default agencies.
+     */
+    public InMemoryDatabaseManager() {
+        for (Agency agency : List.of(new Agency("Fire Department", "Emergency"), new Agency("Police", "Law Enforcement"),
+                new Agency("Medical Services", "Healthcare"), new Agency("Red Cross", "Humanitarian"))) {
+            agency.setId(agencies.nextId++);
+            agencies.rows.put(agency.getId(), agency);
+        }
+    }
+
+    /**
+     * Adds a new user.
+     *
+     * @param user the User object to be added
+     * @return true if the user was successfully added, false otherwise
+     */
+    @Override
+    public boolean addUser(User user) {
+        users.lock.writeLock().lock();
+        try {
+            insertUser(user);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error adding user: " + e.getMessage());
+            return false;
+        } finally {
+            users.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a user by their ID.
+     *
+     * @param userId the ID of the user to retrieve
+     * @return the User object if found, null otherwise
+     */
+    @Override
+    public User getUserById(int userId) {
+        return users.get(userId);
+    }
+
+    /**
+     * Retrieves a user by their username.
+     *
+     * @param username the username of the user to retrieve
+     * @return the User object if found, null otherwise
+     */
+    @Override
+    public User getUserByUsername(String username) {
+        users.lock.readLock().lock();
+        try {
+            User user = usersByUsername.get(username);
+            return user == null ? null : copyUser(user);
+        } finally {
+            users.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves all users in ID order.
+     *
+     * @return a List of all User objects
+     */
+    @Override
+    public List<User> getAllUsers() {
+        return users.all();
+    }
+
+    /**
+     * Retrieves one page of users, newest first.
+     *
+     * @param beforeUserId only users with an ID below this are returned
+     * @param limit the maximum number of users to return
+     * @return a List of at most limit User objects in descending ID order
+     */
+    @Override
+    public List<User> getUsersBefore(int beforeUserId, int limit) {
+        return users.before(beforeUserId, limit);
+    }
+
+    /**
+     * Retrieves all unique roles in alphabetical order.
+     *
+     * @return an unmodifiable List of all unique roles
+     */
+    @Override
+    public List<String> getAllRoles() {
+        users.lock.readLock().lock();
+        try {
+            TreeSet<String> roles = new TreeSet<>();
+            for (User user : users.rows.values()) {
+                roles.add(user.getRole());
+            }
+            return List.copyOf(roles);
+        } finally {
+            users.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Updates an existing user.
+     *
+     * @param user the User object with updated information
+     * @return true if the update was successful, false otherwise
+     */
+    @Override
+    public boolean updateUser(User user) {
+        users.lock.writeLock().lock();
+        try {
+            User existing = users.rows.get(user.getUserID());
+            if (existing == null) {
+                return false;
+            }
+            validateUser(user);
+            User owner = usersByUsername.get(user.getUserName());
+            if (owner != null && owner != existing) {
+                throw new IllegalArgumentException("Duplicate entry '" + user.getUserName() + "' for key 'username'");
+            }
+            usersByUsername.remove(existing.getUserName());
+            User updated = copyUser(user);
+            users.rows.put(updated.getUserID(), updated);
+            usersByUsername.put(updated.getUserName(), updated);
+            logChange(Change.USERS, updated.getUserID(), Change.Operation.UPDATE);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error updating user: " + e.getMessage());
+            return false;
+        } finally {
+            users.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a user. Like DisasterDatabaseConn, users are not removed yet.
+     *
+     * @param userId the ID of the user to delete
+     * @return true
+     */
+    @Override
+    public boolean deleteUser(int userId) {
+        return true;
+    }
+
+    /**
+     * Adds a new resource.
+     *
+     * @param resource the Resource object to be added
+     * @return true if the resource was successfully added, false otherwise
+     */
+    @Override
+    public boolean addResource(Resource resource) {
+        resources.lock.writeLock().lock();
+        try {
+            insertResource(resource);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error adding resource: " + e.getMessage());
+            return false;
+        } finally {
+            resources.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a resource by its ID.
+     *
+     * @param resourceId the ID of the resource to retrieve
+     * @return the Resource object if found, null otherwise
+     */
+    @Override
+    public Resource getResourceById(int resourceId) {
+        return resources.get(resourceId);
+    }
+
+    /**
+     * Retrieves all resources in ID order.
+     *
+     * @return a List of all Resource objects
+     */
+    @Override
+    public List<Resource> getAllResources() {
+        return resources.all();
+    }
+
+    /**
+     * Retrieves all resources of a specific type, served from the type index.
+     *
+     * @param resourceType the type of resources to retrieve
+     * @return a List of Resource objects of the specified type in ID order
+     */
+    @Override
+    public List<Resource> getResourcesByType(String resourceType) {
+        resources.lock.readLock().lock();
+        try {
+            return resources.copyInIdOrder(resourcesByType.get(resourceType));
+        } finally {
+            resources.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Updates an existing resource.
+     *
+     * @param resource the Resource object with updated information
+     * @return true if the update was successful, false otherwise
+     */
+    @Override
+    public boolean updateResource(Resource resource) {
+        resources.lock.writeLock().lock();
+        try {
+            Resource existing = resources.rows.get(resource.getResourceID());
+            if (existing == null) {
+                return false;
+            }
+            validateResource(resource);
+            removeFromIndex(resourcesByType, existing.getType(), existing.getResourceID());
+            Resource updated = new StockedResource(resource.getResourceID(), resource);
+            resources.rows.put(updated.getResourceID(), updated);
+            addToIndex(resourcesByType, updated.getType(), updated.getResourceID(), updated);
+            locateResource(updated);
+            logChange(Change.RESOURCES, updated.getResourceID(), Change.Operation.UPDATE);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error updating resource: " + e.getMessage());
+            return false;
+        } finally {
+            resources.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the status of a resource, leaving its stock untouched.
+     *
+     * @param resourceId the ID of the resource
+     * @param status     the new status
+     * @return true if the resource exists and was updated, false otherwise
+     */
+    @Override
+    public boolean updateResourceStatus(int resourceId, String status) {
+        if (status == null) {
+            System.out.println("Error updating resource status: Resource is missing a required field");
+            return false;
+        }
+        resources.lock.writeLock().lock();
+        try {
+            Resource existing = resources.rows.get(resourceId);
+            if (existing == null) {
+                return false;
+            }
+            existing.setStatus(status);
+            logChange(Change.RESOURCES, resourceId, Change.Operation.UPDATE);
+            return true;
+        } finally {
+            resources.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a resource. Like DisasterDatabaseConn, resources are not removed yet.
+     *
+     * @param resourceId the ID of the resource to delete
+     * @return true
+     */
+    @Override
+    public boolean deleteResource(int resourceId) {
+        return true;
+    }
+
+    /**
+     * Adds a new disaster report with the status Active.
+     *
+     * @param report the DisasterReport object to be added
+     * @return true if the report was successfully added, false otherwise
+     */
+    @Override
+    public boolean addDisasterReport(DisasterReport report) {
+        reports.lock.writeLock().lock();
+        try {
+            insertDisasterReport(report);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error adding disaster report: " + e.getMessage());
+            return false;
+        } finally {
+            reports.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a disaster report by its ID.
+     *
+     * @param reportId the ID of the disaster report to retrieve
+     * @return the DisasterReport object if found, null otherwise
+     */
+    @Override
+    public DisasterReport getDisasterReportById(int reportId) {
+        return reports.get(reportId);
+    }
+
+    /**
+     * Retrieves the lowest ID of a disaster report of the given type.
+     *
+     * @param disasterType the type of disaster to search for
+     * @return the ID of the disaster, or -1 if not found
+     */
+    @Override
+    public int getDisasterIdByType(String disasterType) {
+        reports.lock.readLock().lock();
+        try {
+            IntObjectMap<DisasterReport> ofType = reportsByType.get(disasterType);
+            return ofType == null ? -1 : ofType.sortedKeys()[0];
+        } finally {
+            reports.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves all disaster reports in ID order.
+     *
+     * @return a List of all DisasterReport objects
+     */
+    @Override
+    public List<DisasterReport> getAllDisasterReports() {
+        return reports.all();
+    }
+
+    /**
+     * Retrieves all active disaster reports from the status index, most severe first
+     * and newest first within the same severity.
+     *
+     * @return a List of all active DisasterReport objects
+     */
+    @Override
+    public List<DisasterReport> getActiveDisasterReports() {
+        List<DisasterReport> active;
+        reports.lock.readLock().lock();
+        try {
+            active = reports.copyInIdOrder(reportsByStatus.get(ACTIVE_STATUS));
+        } finally {
+            reports.lock.readLock().unlock();
+        }
+        active.sort(Comparator.comparingInt(DisasterReport::getSeverity)
+            .thenComparing(DisasterReport::getTimeStamp).reversed());
+        return active;
+    }
+
+    /**
+     * Retrieves one page of disaster reports, newest first.
+     *
+     * @param beforeReportId only reports with an ID below this are returned
+     * @param limit the maximum number of reports to return
+     * @return a List of at most limit DisasterReport objects in descending ID order
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportsBefore(int beforeReportId, int limit) {
+        return reports.before(beforeReportId, limit);
+    }
+
+    /**
+     * Retrieves the page of disaster reports immediately newer than the given ID.
+     *
+     * @param afterReportId only reports with an ID above this are returned
+     * @param limit the maximum number of reports to return
+     * @return a List of at most limit DisasterReport objects in descending ID order
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportsAfter(int afterReportId, int limit) {
+        return reports.after(afterReportId, limit);
+    }
+
+    /**
+     * Searches the descriptions and locations of disaster reports for the words of a
+     * query, through the full-text index. A report must contain every word, and the
+     * last word also matches longer words while it is still being typed.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of reports to return
+     * @return the matching reports ranked by tf-idf, newest first among equal matches
+     */
+    @Override
+    public List<DisasterReport> searchDisasterReports(String query, int limit) {
+        List<DisasterReport> matches = new ArrayList<>();
+        reports.lock.readLock().lock();
+        try {
+            for (int reportId : reportText.search(query, InvertedIndex.endsInWord(query), limit)) {
+                matches.add(copyDisasterReport(reports.rows.get(reportId)));
+            }
+        } finally {
+            reports.lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    /**
+     * Updates an existing disaster report. As in DisasterDatabaseConn, the status is
+     * not changed.
+     *
+     * @param report the DisasterReport object with updated information
+     * @return true if the update was successful, false otherwise
+     */
+    @Override
+    public boolean updateDisasterReport(DisasterReport report) {
+        reports.lock.writeLock().lock();
+        try {
+            DisasterReport existing = reports.rows.get(report.getReportID());
+            if (existing == null) {
+                return false;
+            }
+            validateDisasterReport(report);
+            removeFromIndex(reportsByType, existing.getDisasterType(), existing.getReportID());
+            removeFromIndex(reportsByStatus, existing.getStatus(), existing.getReportID());
+            DisasterReport updated = copyDisasterReport(report);
+            updated.setStatus(existing.getStatus());
+            indexDisasterReport(updated);
+            logChange(Change.DISASTER_REPORTS, updated.getReportID(), Change.Operation.UPDATE);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error updating disaster report: " + e.getMessage());
+            return false;
+        } finally {
+            reports.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a disaster report. As with the foreign keys in the database, a report
+     * that has resources or agencies assigned to it cannot be deleted.
+     *
+     * @param reportId the ID of the disaster report to delete
+     * @return true if the deletion was successful, false otherwise
+     */
+    @Override
+    public boolean deleteDisasterReport(int reportId) {
+        reports.lock.writeLock().lock();
+        allocations.lock.readLock().lock();
+        assignments.lock.readLock().lock();
+        try {
+            if (allocationsByDisaster.containsKey(reportId) || assignmentsByDisaster.containsKey(reportId)) {
+                System.out.println("Error deleting disaster report: report " + reportId + " is still referenced");
+                return false;
+            }
+            DisasterReport removed = reports.rows.remove(reportId);
+            if (removed == null) {
+                return false;
+            }
+            removeFromIndex(reportsByType, removed.getDisasterType(), reportId);
+            removeFromIndex(reportsByStatus, removed.getStatus(), reportId);
+            reportText.remove(reportId);
+            reportLocations.remove(reportId);
+            logChange(Change.DISASTER_REPORTS, reportId, Change.Operation.DELETE);
+            return true;
+        } finally {
+            assignments.lock.readLock().unlock();
+            allocations.lock.readLock().unlock();
+            reports.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Allocates a quantity of a resource to a disaster, taking it from the resource's
+     * stock. Nothing is allocated unless the whole quantity is available.
+     *
+     * @param resourceId the ID of the resource to allocate
+     * @param disasterId the ID of the disaster to allocate the resource to
+     * @param quantity the quantity of the resource to allocate
+     * @return true if the allocation was successful, false otherwise
+     */
+    @Override
+    public boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity) {
+        return quantity > 0 && reserveResource(resourceId, disasterId, quantity, false) == quantity;
+    }
+
+    /**
+     * Takes a quantity of a resource from its stock and records it as allocated to a
+     * disaster. The stock is taken with a compare-and-set, so allocations of different
+     * resources never wait for each other and concurrent allocations of the same
+     * resource can never take more than is left.
+     *
+     * @param resourceId the ID of the resource to allocate
+     * @param disasterId the ID of the disaster to allocate the resource to
+     * @param quantity the quantity requested
+     * @param allowPartial whether to allocate whatever is left when the stock is short
+     * @return the quantity allocated, 0 if nothing was allocated
+     */
+    @Override
+    public int reserveResource(int resourceId, int disasterId, int quantity, boolean allowPartial) {
+        if (quantity <= 0) {
+            return 0;
+        }
+        resources.lock.readLock().lock();
+        reports.lock.readLock().lock();
+        try {
+            return reserve(new ResourceAllocation(0, resourceId, disasterId, quantity), allowPartial);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error reserving resource: " + e.getMessage());
+            return 0;
+        } finally {
+            reports.lock.readLock().unlock();
+            resources.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the resource of each allocation to a specific disaster, like the
+     * join in DisasterDatabaseConn.
+     *
+     * @param disasterId the ID of the disaster
+     * @return a List of Resource objects allocated to the specified disaster
+     */
+    @Override
+    public List<Resource> getResourcesAllocatedToDisaster(int disasterId) {
+        List<Resource> allocated = new ArrayList<>();
+        resources.lock.readLock().lock();
+        allocations.lock.readLock().lock();
+        try {
+            for (ResourceAllocation allocation : allocations.copyInIdOrder(allocationsByDisaster.get(disasterId))) {
+                Resource resource = resources.rows.get(allocation.getResourceID());
+                if (resource != null) {
+                    allocated.add(copyResource(resource));
+                }
+            }
+        } finally {
+            allocations.lock.readLock().unlock();
+            resources.lock.readLock().unlock();
+        }
+        return allocated;
+    }
+
+    /**
+     * Retrieves the total quantity allocated to a disaster for each resource type,
+     * from totals maintained with every allocation.
+     *
+     * @param disasterId the ID of the disaster
+     * @return the allocated quantity per resource type, ordered by type
+     */
+    @Override
+    public Map<String, Integer> getAllocationTotals(int disasterId) {
+        allocations.lock.readLock().lock();
+        try {
+            Map<String, Integer> totals = allocationTotals.get(disasterId);
+            return totals == null ? new LinkedHashMap<>() : new LinkedHashMap<>(totals);
+        } finally {
+            allocations.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the total quantity of one resource type allocated to a disaster.
+     *
+     * @param disasterId the ID of the disaster
+     * @param resourceType the resource type
+     * @return the allocated quantity, 0 if none has been allocated
+     */
+    @Override
+    public int getAllocatedQuantity(int disasterId, String resourceType) {
+        allocations.lock.readLock().lock();
+        try {
+            Map<String, Integer> totals = allocationTotals.get(disasterId);
+            return totals == null ? 0 : totals.getOrDefault(resourceType, 0);
+        } finally {
+            allocations.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves all agencies.
+     *
+     * @return an unmodifiable List of all Agency objects
+     */
+    @Override
+    public List<Agency> getAllAgencies() {
+        return List.copyOf(agencies.all());
+    }
+
+    /**
+     * Assigns an agency to a specific disaster.
+     *
+     * @param agencyId the ID of the agency to assign
+     * @param disasterId the ID of the disaster to assign the agency to
+     * @return true if the assignment was successful, false otherwise
+     */
+    @Override
+    public boolean assignAgencyToDisaster(int agencyId, int disasterId) {
+        reports.lock.readLock().lock();
+        agencies.lock.readLock().lock();
+        assignments.lock.writeLock().lock();
+        try {
+            insertAssignment(agencyId, disasterId);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error assigning agency to disaster: " + e.getMessage());
+            return false;
+        } finally {
+            assignments.lock.writeLock().unlock();
+            agencies.lock.readLock().unlock();
+            reports.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves all agency assignments with their agency name and disaster type.
+     *
+     * @return a List of all AgencyAssignment objects
+     */
+    @Override
+    public List<AgencyAssignment> getAllAgencyAssignments() {
+        return joinAssignments(null);
+    }
+
+    /**
+     * Retrieves an agency assignment by its ID, with its agency name and disaster type.
+     *
+     * @param assignmentId the ID of the assignment
+     * @return the AgencyAssignment if found, null otherwise
+     */
+    @Override
+    public AgencyAssignment getAgencyAssignmentById(int assignmentId) {
+        reports.lock.readLock().lock();
+        agencies.lock.readLock().lock();
+        assignments.lock.readLock().lock();
+        try {
+            AgencyAssignment stored = assignments.rows.get(assignmentId);
+            if (stored == null) {
+                return null;
+            }
+            Agency agency = agencies.rows.get(stored.getAgencyID());
+            DisasterReport report = reports.rows.get(stored.getDisasterID());
+            if (agency == null || report == null) {
+                return null;
+            }
+            AgencyAssignment assignment = copyAssignment(stored);
+            assignment.setAgencyName(agency.getName());
+            assignment.setDisasterType(report.getDisasterType());
+            return assignment;
+        } finally {
+            assignments.lock.readLock().unlock();
+            agencies.lock.readLock().unlock();
+            reports.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves all agencies assigned to a specific disaster, served from the
+     * disaster index.
+     *
+     * @param disasterId the ID of the disaster
+     * @return a List of AgencyAssignment objects for the specified disaster
+     */
+    @Override
+    public List<AgencyAssignment> getAgenciesAssignedToDisaster(int disasterId) {
+        return joinAssignments(disasterId);
+    }
+
+    /**
+     * Streams all disaster reports in ID order from a snapshot taken when the
+     * stream is created.
+     *
+     * @return a stream of all disaster reports
+     */
+    @Override
+    public Stream<DisasterReport> streamAllDisasterReports() {
+        return getAllDisasterReports().stream();
+    }
+
+    /**
+     * Streams all resources in ID order from a snapshot taken when the stream is created.
+     *
+     * @return a stream of all resources
+     */
+    @Override
+    public Stream<Resource> streamAllResources() {
+        return getAllResources().stream();
+    }
+
+    /**
+     * Streams all agency assignments in ID order from a snapshot taken when the
+     * stream is created.
+     *
+     * @return a stream of all agency assignments
+     */
+    @Override
+    public Stream<AgencyAssignment> streamAllAgencyAssignments() {
+        return getAllAgencyAssignments().stream();
+    }
+
+    /**
+     * Streams all resource allocations in ID order from a snapshot taken when the
+     * stream is created.
+     *
+     * @return a stream of all resource allocations
+     */
+    @Override
+    public Stream<ResourceAllocation> streamAllResourceAllocations() {
+        return allocations.all().stream();
+    }
+
+    /**
+     * Adds several users under a single lock. The generated IDs are also set on the
+     * User objects that were written.
+     *
+     * @param users the User objects to be added
+     * @return the generated IDs and any rows that could not be added
+     */
+    @Override
+    public BatchResult addUsers(List<User> users) {
+        BatchResult result = new BatchResult(users.size());
+        this.users.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    int id = insertUser(users.get(i));
+                    users.get(i).setUserID(id);
+                    result.setGeneratedKey(i, id);
+                } catch (IllegalArgumentException e) {
+                    result.setFailure(i, e.getMessage());
+                }
+            }
+        } finally {
+            this.users.lock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Adds several resources under a single lock. The generated IDs are also set on
+     * the Resource objects that were written.
+     *
+     * @param resources the Resource objects to be added
+     * @return the generated IDs and any rows that could not be added
+     */
+    @Override
+    public BatchResult addResources(List<Resource> resources) {
+        BatchResult result = new BatchResult(resources.size());
+        this.resources.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < resources.size(); i++) {
+                try {
+                    int id = insertResource(resources.get(i));
+                    resources.get(i).setResourceID(id);
+                    result.setGeneratedKey(i, id);
+                } catch (IllegalArgumentException e) {
+                    result.setFailure(i, e.getMessage());
+                }
+            }
+        } finally {
+            this.resources.lock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Adds several disaster reports under a single lock. The generated IDs are also
+     * set on the DisasterReport objects that were written.
+     *
+     * @param reports the DisasterReport objects to be added
+     * @return the generated IDs and any rows that could not be added
+     */
+    @Override
+    public BatchResult addDisasterReports(List<DisasterReport> reports) {
+        BatchResult result = new BatchResult(reports.size());
+        this.reports.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < reports.size(); i++) {
+                try {
+                    int id = insertDisasterReport(reports.get(i));
+                    reports.get(i).setReportID(id);
+                    result.setGeneratedKey(i, id);
+                } catch (IllegalArgumentException e) {
+                    result.setFailure(i, e.getMessage());
+                }
+            }
+        } finally {
+            this.reports.lock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Records several resource allocations, taking each from its resource's stock.
+     * An allocation whose stock is short is rejected as a whole. The generated IDs
+     * are also set on the ResourceAllocation objects that were written.
+     *
+     * @param allocations the allocations to record
+     * @return the generated IDs and any rows that could not be recorded
+     */
+    @Override
+    public BatchResult allocateResources(List<ResourceAllocation> allocations) {
+        BatchResult result = new BatchResult(allocations.size());
+        resources.lock.readLock().lock();
+        reports.lock.readLock().lock();
+        try {
+            for (int i = 0; i < allocations.size(); i++) {
+                try {
+                    if (allocations.get(i).getQuantity() <= 0) {
+                        result.setFailure(i, "Quantity must be positive");
+                    } else if (reserve(allocations.get(i), false) > 0) {
+                        result.setGeneratedKey(i, allocations.get(i).getAllocationID());
+                    } else {
+                        result.setFailure(i, "Not enough stock");
+                    }
+                } catch (IllegalArgumentException e) {
+                    result.setFailure(i, e.getMessage());
+                }
+            }
+        } finally {
+            reports.lock.readLock().unlock();
+            resources.lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Assigns several agencies to disasters under a single lock. Only the agency and
+     * disaster IDs of each assignment are used; the generated IDs are set on the
+     * AgencyAssignment objects that were written.
+     *
+     * @param assignments the assignments to record
+     * @return the generated IDs and any rows that could not be recorded
+     */
+    @Override
+    public BatchResult assignAgencies(List<AgencyAssignment> assignments) {
+        BatchResult result = new BatchResult(assignments.size());
+        reports.lock.readLock().lock();
+        agencies.lock.readLock().lock();
+        this.assignments.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < assignments.size(); i++) {
+                try {
+                    AgencyAssignment assignment = assignments.get(i);
+                    int id = insertAssignment(assignment.getAgencyID(), assignment.getDisasterID());
+                    assignment.setAssignmentID(id);
+                    result.setGeneratedKey(i, id);
+                } catch (IllegalArgumentException e) {
+                    result.setFailure(i, e.getMessage());
+                }
+            }
+        } finally {
+            this.assignments.lock.writeLock().unlock();
+            agencies.lock.readLock().unlock();
+            reports.lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the disaster reports nearest to a location, through the proximity index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param count     the maximum number of reports to return
+     * @return the nearest reports with coordinates, nearest first
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportsNear(double latitude, double longitude, int count) {
+        reports.lock.readLock().lock();
+        try {
+            return copyAll(reportLocations.nearest(latitude, longitude, count), InMemoryDatabaseManager::copyDisasterReport);
+        } finally {
+            reports.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the disaster reports within a distance of a location, through the
+     * proximity index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param radiusKm  the distance in kilometres
+     * @return the reports within the distance, nearest first
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportsWithin(double latitude, double longitude, double radiusKm) {
+        reports.lock.readLock().lock();
+        try {
+            return copyAll(reportLocations.within(latitude, longitude, radiusKm), InMemoryDatabaseManager::copyDisasterReport);
+        } finally {
+            reports.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the resources held nearest to a location, through the proximity index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param count     the maximum number of resources to return
+     * @return the nearest resources with coordinates, nearest first
+     */
+    @Override
+    public List<Resource> getResourcesNear(double latitude, double longitude, int count) {
+        resources.lock.readLock().lock();
+        try {
+            return copyAll(resourceLocations.nearest(latitude, longitude, count), InMemoryDatabaseManager::copyResource);
+        } finally {
+            resources.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the resources held within a distance of a location, through the
+     * proximity index.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param radiusKm  the distance in kilometres
+     * @return the resources within the distance, nearest first
+     */
+    @Override
+    public List<Resource> getResourcesWithin(double latitude, double longitude, double radiusKm) {
+        resources.lock.readLock().lock();
+        try {
+            return copyAll(resourceLocations.within(latitude, longitude, radiusKm), InMemoryDatabaseManager::copyResource);
+        } finally {
+            resources.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves one batch of old, resolved disaster reports to the archive, along with
+     * their allocations and agency assignments, and drops their allocation totals.
+     * Each moved report and assignment is logged as deleted.
+     *
+     * @param olderThan only reports filed before this time are archived
+     * @param limit     the maximum number of reports to archive, oldest first
+     * @return the number of reports archived
+     */
+    @Override
+    public int archiveDisasterReports(LocalDateTime olderThan, int limit) {
+        reports.lock.writeLock().lock();
+        allocations.lock.writeLock().lock();
+        assignments.lock.writeLock().lock();
+        try {
+            List<DisasterReport> due = new ArrayList<>();
+            for (Map.Entry<String, IntObjectMap<DisasterReport>> status : reportsByStatus.entrySet()) {
+                if (!ACTIVE_STATUS.equals(status.getKey())) {
+                    for (DisasterReport report : status.getValue().values()) {
+                        if (report.getTimeStamp().isBefore(olderThan)) {
+                            due.add(report);
+                        }
+                    }
+                }
+            }
+            due.sort(Comparator.comparing(DisasterReport::getTimeStamp).thenComparingInt(DisasterReport::getReportID));
+            List<DisasterReport> batch = due.subList(0, Math.min(Math.max(limit, 0), due.size()));
+            for (DisasterReport report : batch) {
+                int reportId = report.getReportID();
+                IntObjectMap<ResourceAllocation> reportAllocations = allocationsByDisaster.remove(reportId);
+                if (reportAllocations != null) {
+                    for (ResourceAllocation allocation : reportAllocations.values()) {
+                        allocations.rows.remove(allocation.getAllocationID());
+                        archivedAllocations.put(allocation.getAllocationID(), allocation);
+                    }
+                }
+                IntObjectMap<AgencyAssignment> reportAssignments = assignmentsByDisaster.remove(reportId);
+                if (reportAssignments != null) {
+                    for (AgencyAssignment assignment : reportAssignments.values()) {
+                        assignments.rows.remove(assignment.getAssignmentID());
+                        archivedAssignments.put(assignment.getAssignmentID(), assignment);
+                        logChange(Change.AGENCY_ASSIGNMENTS, assignment.getAssignmentID(), Change.Operation.DELETE);
+                    }
+                }
+                allocationTotals.remove(reportId);
+                reports.rows.remove(reportId);
+                removeFromIndex(reportsByType, report.getDisasterType(), reportId);
+                removeFromIndex(reportsByStatus, report.getStatus(), reportId);
+                reportText.remove(reportId);
+                reportLocations.remove(reportId);
+                archivedReports.put(reportId, report);
+                logChange(Change.DISASTER_REPORTS, reportId, Change.Operation.DELETE);
+            }
+            return batch.size();
+        } finally {
+            assignments.lock.writeLock().unlock();
+            allocations.lock.writeLock().unlock();
+            reports.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the disaster reports filed in a period from both the live reports and
+     * the archive.
+     *
+     * @param from the start of the period, inclusive
+     * @param to   the end of the period, exclusive
+     * @return the reports filed in the period, oldest first
+     */
+    @Override
+    public List<DisasterReport> getDisasterReportHistory(LocalDateTime from, LocalDateTime to) {
+        List<DisasterReport> history = new ArrayList<>();
+        reports.lock.readLock().lock();
+        try {
+            for (IntObjectMap<DisasterReport> tier : List.of(reports.rows, archivedReports)) {
+                for (DisasterReport report : tier.values()) {
+                    if (!report.getTimeStamp().isBefore(from) && report.getTimeStamp().isBefore(to)) {
+                        history.add(copyDisasterReport(report));
+                    }
+                }
+            }
+        } finally {
+            reports.lock.readLock().unlock();
+        }
+        history.sort(Comparator.comparing(DisasterReport::getTimeStamp).thenComparingInt(DisasterReport::getReportID));
+        return history;
+    }
+
+    /**
+     * Gets the version of the latest change. Changes are logged while the written
+     * table is still locked, so every change up to this version is already visible.
+     *
+     * @return the version to pass to changesSince, 0 if nothing has changed
+     */
+    @Override
+    public long getChangeVersion() {
+        synchronized (changeLock) {
+            return changeVersion;
+        }
+    }
+
+    /**
+     * Retrieves the rows changed after a version, at most drs.sync.maxChanges at a time.
+     *
+     * @param version the version the client last synced to
+     * @return the changes after the version, in version order
+     */
+    @Override
+    public ChangeSet changesSince(long version) {
+        List<Change> changes = new ArrayList<>();
+        synchronized (changeLock) {
+            for (Change change : changeLog.tailMap(version, false).values()) {
+                if (changes.size() == MAX_CHANGES) {
+                    return new ChangeSet(changes, changes.get(changes.size() - 1).getVersion(), true);
+                }
+                changes.add(change);
+            }
+            return new ChangeSet(changes, Math.max(version, changeVersion), false);
+        }
+    }
+
+    /**
+     * Does nothing, as there is no connection to close. The data stays available.
+     */
+    @Override
+    public void closeConnection() {
+    }
+
+    /**
+     * Stores a new user. The users write lock must be held.
+     *
+     * @param user the user to store
+     * @return the generated user ID
+     * @throws IllegalArgumentException if a required field is missing or the username is taken
+     */
+    private int insertUser(User user) {
+        validateUser(user);
+        if (usersByUsername.containsKey(user.getUserName())) {
+            throw new IllegalArgumentException("Duplicate entry '" + user.getUserName() + "' for key 'username'");
+        }
+        User stored = copyUser(user);
+        stored.setUserID(users.nextId++);
+        users.rows.put(stored.getUserID(), stored);
+        usersByUsername.put(stored.getUserName(), stored);
+        logChange(Change.USERS, stored.getUserID(), Change.Operation.INSERT);
+        return stored.getUserID();
+    }
+
+    /**
+     * Stores a new resource. The resources write lock must be held.
+     *
+     * @param resource the resource to store
+     * @return the generated resource ID
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    private int insertResource(Resource resource) {
+        validateResource(resource);
+        Resource stored = new StockedResource(resources.nextId++, resource);
+        resources.rows.put(stored.getResourceID(), stored);
+        addToIndex(resourcesByType, stored.getType(), stored.getResourceID(), stored);
+        locateResource(stored);
+        logChange(Change.RESOURCES, stored.getResourceID(), Change.Operation.INSERT);
+        return stored.getResourceID();
+    }
+
+    /**
+     * Stores a new disaster report with the status Active. The reports write lock
+     * must be held.
+     *
+     * @param report the report to store
+     * @return the generated report ID
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    private int insertDisasterReport(DisasterReport report) {
+        validateDisasterReport(report);
+        DisasterReport stored = copyDisasterReport(report);
+        stored.setReportID(reports.nextId++);
+        stored.setStatus(ACTIVE_STATUS);
+        indexDisasterReport(stored);
+        logChange(Change.DISASTER_REPORTS, stored.getReportID(), Change.Operation.INSERT);
+        return stored.getReportID();
+    }
+
+    /**
+     * Takes an allocation from the resource's stock and stores it. The resources and
+     * reports read locks must be held, which keeps both rows in place; the allocations
+     * write lock is only taken to append the allocation. The allocation's ID is set,
+     * and its quantity is reduced to what was actually taken when a partial allocation
+     * is made.
+     *
+     * @param allocation   the allocation to make
+     * @param allowPartial whether to allocate whatever is left when the stock is short
+     * @return the quantity allocated, 0 if the stock was short and nothing was stored
+     * @throws IllegalArgumentException if the resource or disaster does not exist
+     */
+    private int reserve(ResourceAllocation allocation, boolean allowPartial) {
+        StockedResource resource = (StockedResource) resources.rows.get(allocation.getResourceID());
+        if (resource == null) {
+            throw new IllegalArgumentException("Resource " + allocation.getResourceID() + " does not exist");
+        }
+        if (!reports.rows.containsKey(allocation.getDisasterID())) {
+            throw new IllegalArgumentException("Disaster " + allocation.getDisasterID() + " does not exist");
+        }
+        int taken = resource.take(allocation.getQuantity(), allowPartial);
+        if (taken == 0) {
+            return 0;
+        }
+        allocation.setQuantity(taken);
+        allocations.lock.writeLock().lock();
+        try {
+            ResourceAllocation stored = copyAllocation(allocation);
+            stored.setAllocationID(allocations.nextId++);
+            allocations.rows.put(stored.getAllocationID(), stored);
+            addToIndex(allocationsByDisaster, stored.getDisasterID(), stored.getAllocationID(), stored);
+            Map<String, Integer> totals = allocationTotals.get(stored.getDisasterID());
+            if (totals == null) {
+                totals = new TreeMap<>();
+                allocationTotals.put(stored.getDisasterID(), totals);
+            }
+            totals.merge(resource.getType(), taken, Integer::sum);
+            allocation.setAllocationID(stored.getAllocationID());
+        } finally {
+            allocations.lock.writeLock().unlock();
+        }
+        logChange(Change.RESOURCES, resource.getResourceID(), Change.Operation.UPDATE);
+        return taken;
+    }
+
+    /**
+     * Stores a new agency assignment. The reports and agencies read locks and the
+     * assignments write lock must be held.
+     *
+     * @param agencyId   the ID of the agency to assign
+     * @param disasterId the ID of the disaster to assign it to
+     * @return the generated assignment ID
+     * @throws IllegalArgumentException if the agency or disaster does not exist
+     */
+    private int insertAssignment(int agencyId, int disasterId) {
+        if (!agencies.rows.containsKey(agencyId)) {
+            throw new IllegalArgumentException("Agency " + agencyId + " does not exist");
+        }
+        if (!reports.rows.containsKey(disasterId)) {
+            throw new IllegalArgumentException("Disaster " + disasterId + " does not exist");
+        }
+        AgencyAssignment stored = new AgencyAssignment(assignments.nextId++, agencyId, null, disasterId,
+            LocalDateTime.now(), ASSIGNED_STATUS, null);
+        assignments.rows.put(stored.getAssignmentID(), stored);
+        addToIndex(assignmentsByDisaster, disasterId, stored.getAssignmentID(), stored);
+        logChange(Change.AGENCY_ASSIGNMENTS, stored.getAssignmentID(), Change.Operation.INSERT);
+        return stored.getAssignmentID();
+    }
+
+    /**
+     * Records a change to a row in the change log, replacing the row's previous change.
+     * Called while the written table is locked, after the write.
+     *
+     * @param tableName the table of the changed row
+     * @param rowId     the ID of the changed row
+     * @param operation the kind of write
+     */
+    private void logChange(String tableName, int rowId, Change.Operation operation) {
+        synchronized (changeLock) {
+            long version = ++changeVersion;
+            IntObjectMap<Long> latest = latestChanges.computeIfAbsent(tableName, name -> new IntObjectMap<>());
+            Long previous = latest.put(rowId, version);
+            if (previous != null) {
+                changeLog.remove(previous);
+            }
+            changeLog.put(version, new Change(version, tableName, rowId, operation));
+        }
+    }
+
+    /**
+     * Stores a disaster report in the table and its indexes. The reports write lock
+     * must be held.
+     *
+     * @param report the report to store
+     */
+    private void indexDisasterReport(DisasterReport report) {
+        reports.rows.put(report.getReportID(), report);
+        addToIndex(reportsByType, report.getDisasterType(), report.getReportID(), report);
+        addToIndex(reportsByStatus, report.getStatus(), report.getReportID(), report);
+        reportText.put(report.getReportID(), report.getDescription(), report.getLocation());
+        if (report.hasCoordinates()) {
+            reportLocations.put(report.getReportID(), report.getLatitude(), report.getLongitude(), report);
+        } else {
+            reportLocations.remove(report.getReportID());
+        }
+    }
+
+    /**
+     * Places a stored resource in the proximity index, or takes it out when its
+     * coordinates are not known. The resources write lock must be held.
+     *
+     * @param resource the stored resource
+     */
+    private void locateResource(Resource resource) {
+        if (resource.hasCoordinates()) {
+            resourceLocations.put(resource.getResourceID(), resource.getLatitude(), resource.getLongitude(), resource);
+        } else {
+            resourceLocations.remove(resource.getResourceID());
+        }
+    }
+
+    /**
+     * Copies assignments in ID order, filling in the agency name and disaster type.
+     *
+     * @param disasterId the disaster to copy the assignments of, or null for all
+     * @return the joined assignments
+     */
+    private List<AgencyAssignment> joinAssignments(Integer disasterId) {
+        List<AgencyAssignment> joined = new ArrayList<>();
+        reports.lock.readLock().lock();
+        agencies.lock.readLock().lock();
+        assignments.lock.readLock().lock();
+        try {
+            IntObjectMap<AgencyAssignment> source = disasterId == null
+                ? assignments.rows : assignmentsByDisaster.get(disasterId);
+            for (AgencyAssignment assignment : assignments.copyInIdOrder(source)) {
+                Agency agency = agencies.rows.get(assignment.getAgencyID());
+                DisasterReport report = reports.rows.get(assignment.getDisasterID());
+                if (agency != null && report != null) {
+                    assignment.setAgencyName(agency.getName());
+                    assignment.setDisasterType(report.getDisasterType());
+                    joined.add(assignment);
+                }
+            }
+        } finally {
+            assignments.lock.readLock().unlock();
+            agencies.lock.readLock().unlock();
+            reports.lock.readLock().unlock();
+        }
+        return joined;
+    }
+
+    /**
+     * Checks the fields the users table declares NOT NULL.
+     *
+     * @param user the user to check
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    private static void validateUser(User user) {
+        if (user.getUserName() == null || user.getPassword() == null || user.getRole() == null
+                || user.getFullName() == null || user.getDateOfBirth() == null) {
+            throw new IllegalArgumentException("User is missing a required field");
+        }
+    }
+
+    /**
+     * Checks the fields the resources table declares NOT NULL.
+     *
+     * @param resource the resource to check
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    private static void validateResource(Resource resource) {
+        if (resource.getType() == null || resource.getStatus() == null) {
+            throw new IllegalArgumentException("Resource is missing a required field");
+        }
+        validateCoordinates(resource.getLatitude(), resource.getLongitude());
+    }
+
+    /**
+     * Checks the fields the disaster_reports table declares NOT NULL.
+     *
+     * @param report the report to check
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    private static void validateDisasterReport(DisasterReport report) {
+        if (report.getDisasterType() == null || report.getLocation() == null || report.getTimeStamp() == null) {
+            throw new IllegalArgumentException("Disaster report is missing a required field");
+        }
+        validateCoordinates(report.getLatitude(), report.getLongitude());
+    }
+
+    /**
+     * Checks that coordinates are either both missing or a point on the Earth.
+     *
+     * @param latitude  the latitude in degrees, or null
+     * @param longitude the longitude in degrees, or null
+     * @throws IllegalArgumentException if only one is given or they are out of range
+     */
+    private static void validateCoordinates(Double latitude, Double longitude) {
+        if (latitude == null && longitude == null) {
+            return;
+        }
+        if (latitude == null || longitude == null || !GeoHash.isValid(latitude, longitude)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+    }
+
+    /**
+     * Adds a row to a string-keyed index.
+     *
+     * @param index the index
+     * @param key   the indexed value of the row
+     * @param id    the row ID
+     * @param row   the row
+     */
+    private static <T> void addToIndex(Map<String, IntObjectMap<T>> index, String key, int id, T row) {
+        index.computeIfAbsent(key, k -> new IntObjectMap<>()).put(id, row);
+    }
+
+    /**
+     * Removes a row from a string-keyed index, dropping the key once it has no rows.
+     *
+     * @param index the index
+     * @param key   the indexed value of the row
+     * @param id    the row ID
+     */
+    private static <T> void removeFromIndex(Map<String, IntObjectMap<T>> index, String key, int id) {
+        IntObjectMap<T> rows = index.get(key);
+        if (rows != null && rows.remove(id) != null && rows.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Adds a row to an index keyed by another table's ID.
+     *
+     * @param index the index
+     * @param key   the referenced ID
+     * @param id    the row ID
+     * @param row   the row
+     */
+    private static <T> void addToIndex(IntObjectMap<IntObjectMap<T>> index, int key, int id, T row) {
+        IntObjectMap<T> rows = index.get(key);
+        if (rows == null) {
+            rows = new IntObjectMap<>();
+            index.put(key, rows);
+        }
+        rows.put(id, row);
+    }
+
+    /**
+     * Copies stored rows in the order given.
+     *
+     * @param rows   the stored rows
+     * @param copier copies one row
+     * @return the copies
+     */
+    private static <T> List<T> copyAll(List<T> rows, UnaryOperator<T> copier) {
+        List<T> copies = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            copies.add(copier.apply(row));
+        }
+        return copies;
+    }
+
+    /**
+     * Copies a user so stored rows are never shared with callers.
+     *
+     * @param user the user to copy
+     * @return the copy
+     */
+    private static User copyUser(User user) {
+        return new User(user.getUserID(), user.getFullName(), user.getUserName(), user.getGender(),
+            user.getDateOfBirth(), user.getPhoneNumber(), user.getAddress(), user.getRole(), user.getEmail(),
+            user.getPassword());
+    }
+
+    /**
+     * Copies a resource so stored rows are never shared with callers.
+     *
+     * @param resource the resource to copy
+     * @return the copy
+     */
+    private static Resource copyResource(Resource resource) {
+        Resource copy = new Resource(resource.getResourceID(), resource.getType(), resource.getQuantity(), resource.getStatus());
+        copy.setCoordinates(resource.getLatitude(), resource.getLongitude());
+        return copy;
+    }
+
+    /**
+     * Copies a disaster report so stored rows are never shared with callers.
+     *
+     * @param report the report to copy
+     * @return the copy
+     */
+    private static DisasterReport copyDisasterReport(DisasterReport report) {
+        DisasterReport copy = new DisasterReport(report.getReportID(), report.getDisasterType(), report.getLocation(),
+            report.getSeverity(), report.getDescription(), report.getStatus(), report.getTimeStamp());
+        copy.setCoordinates(report.getLatitude(), report.getLongitude());
+        return copy;
+    }
+
+    /**
+     * Copies an agency so stored rows are never shared with callers.
+     *
+     * @param agency the agency to copy
+     * @return the copy
+     */
+    private static Agency copyAgency(Agency agency) {
+        return new Agency(agency.getId(), agency.getName(), agency.getType());
+    }
+
+    /**
+     * Copies an allocation so stored rows are never shared with callers.
+     *
+     * @param allocation the allocation to copy
+     * @return the copy
+     */
+    private static ResourceAllocation copyAllocation(ResourceAllocation allocation) {
+        return new ResourceAllocation(allocation.getAllocationID(), allocation.getResourceID(),
+            allocation.getDisasterID(), allocation.getQuantity());
+    }
+
+    /**
+     * Copies an agency assignment so stored rows are never shared with callers.
+     *
+     * @param assignment the assignment to copy
+     * @return the copy
+     */
+    private static AgencyAssignment copyAssignment(AgencyAssignment assignment) {
+        return new AgencyAssignment(assignment.getAssignmentID(), assignment.getAgencyID(), assignment.getAgencyName(),
+            assignment.getDisasterID(), assignment.getAssignmentDate(), assignment.getStatus(),
+            assignment.getDisasterType());
+    }
+
+    /**
+     * A stored resource whose quantity is its stock, held in an AtomicInteger so it
+     * can be taken while other threads read the resource under the table read lock.
+     */
+    private static final class StockedResource extends Resource {
+        private final AtomicInteger stock;
+
+        private StockedResource(int resourceID, Resource resource) {
+            super(resourceID, resource.getType(), 0, resource.getStatus());
+            stock = new AtomicInteger(resource.getQuantity());
+            setCoordinates(resource.getLatitude(), resource.getLongitude());
+        }
+
+        @Override
+        public int getQuantity() {
+            return stock.get();
+        }
+
+        @Override
+        public void setQuantity(int quantity) {
+            stock.set(quantity);
+        }
+
+        /**
+         * Takes stock, retrying if another thread changed it in the meantime.
+         *
+         * @param quantity     the quantity requested
+         * @param allowPartial whether to take whatever is left when the stock is short
+         * @return the quantity taken, 0 if none
+         */
+        private int take(int quantity, boolean allowPartial) {
+            while (true) {
+                int available = stock.get();
+                int taken = available >= quantity ? quantity : allowPartial ? Math.max(available, 0) : 0;
+                if (taken == 0) {
+                    return 0;
+                }
+                if (stock.compareAndSet(available, available - taken)) {
+                    return taken;
+                }
+            }
+        }
+    }
+
+    /**
+     * The rows of one table keyed by ID, the next ID to generate, and the lock that
+     * guards both as well as the indexes on the table.
+     *
+     * @param <T> the type of the rows
+     */
+    private static final class Table<T> {
+        private final IntObjectMap<T> rows = new IntObjectMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final UnaryOperator<T> copier;
+        private int nextId = 1;
+
+        private Table(UnaryOperator<T> copier) {
+            this.copier = copier;
+        }
+
+        /**
+         * Copies the row with an ID.
+         *
+         * @param id the row ID
+         * @return a copy of the row, or null if there is none
+         */
+        private T get(int id) {
+            lock.readLock().lock();
+            try {
+                T row = rows.get(id);
+                return row == null ? null : copier.apply(row);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Copies every row in ID order.
+         *
+         * @return the copied rows
+         */
+        private List<T> all() {
+            lock.readLock().lock();
+            try {
+                return copyInIdOrder(rows);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Copies the rows of a map in ID order. The caller must hold the lock.
+         *
+         * @param source the rows to copy, or null for none
+         * @return the copied rows
+         */
+        private List<T> copyInIdOrder(IntObjectMap<T> source) {
+            List<T> copies = new ArrayList<>(source == null ? 0 : source.size());
+            if (source != null) {
+                for (int id : source.sortedKeys()) {
+                    copies.add(copier.apply(source.get(id)));
+                }
+            }
+            return copies;
+        }
+
+        /**
+         * Copies up to limit rows with an ID below beforeId, highest ID first. IDs are
+         * generated in sequence, so this walks down from the highest candidate ID.
+         *
+         * @param beforeId only rows with an ID below this are copied
+         * @param limit    the maximum number of rows to copy
+         * @return the copied rows in descending ID order
+         */
+        private List<T> before(int beforeId, int limit) {
+            List<T> page = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (long id = Math.min(beforeId - 1L, nextId - 1L); id >= 1 && page.size() < limit; id--) {
+                    T row = rows.get((int) id);
+                    if (row != null) {
+                        page.add(copier.apply(row));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return page;
+        }
+
+        /**
+         * Copies up to limit rows with an ID above afterId, taking the lowest IDs
+         * first and returning them highest ID first.
+         *
+         * @param afterId only rows with an ID above this are copied
+         * @param limit   the maximum number of rows to copy
+         * @return the copied rows in descending ID order
+         */
+        private List<T> after(int afterId, int limit) {
+            List<T> page = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (long id = Math.max(afterId + 1L, 1L); id < nextId && page.size() < limit; id++) {
+                    T row = rows.get((int) id);
+                    if (row != null) {
+                        page.add(copier.apply(row));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            Collections.reverse(page);
+            return page;
+        }
+    }
+}
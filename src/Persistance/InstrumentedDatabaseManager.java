@@ -0,0 +1,746 @@
+package Persistance;
+
+import Model.*;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures every call made through another IDatabaseManager: the number of calls,
+ * failures and rows returned, and a latency histogram, per method. The metrics can
+ * be read with {@link #getOperationStats()} or, once {@link #registerMBeans()} has
+ * been called, over JMX as one {@link DatabaseOperationMXBean} per method, so
+ * operators can see in production which queries are slow or failing.
+ *
+ * Recording is allocation-free, so the decorator can stay on in production. Rows
+ * read from a stream are counted as the stream is consumed, while its latency is
+ * the time taken to open it.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class InstrumentedDatabaseManager extends ForwardingDatabaseManager {
+    private static final String MBEAN_NAME = "Persistance:type=DatabaseOperation,name=";
+
+    private final List<DatabaseOperationStats> operations = new ArrayList<>();
+    private final DatabaseOperationStats addUser = operation("addUser");
+    private final DatabaseOperationStats getUserById = operation("getUserById");
+    private final DatabaseOperationStats getUserByUsername = operation("getUserByUsername");
+    private final DatabaseOperationStats getAllUsers = operation("getAllUsers");
+    private final DatabaseOperationStats getUsersBefore = operation("getUsersBefore");
+    private final DatabaseOperationStats getAllRoles = operation("getAllRoles");
+    private final DatabaseOperationStats updateUser = operation("updateUser");
+    private final DatabaseOperationStats deleteUser = operation("deleteUser");
+    private final DatabaseOperationStats addResource = operation("addResource");
+    private final DatabaseOperationStats getResourceById = operation("getResourceById");
+    private final DatabaseOperationStats getAllResources = operation("getAllResources");
+    private final DatabaseOperationStats getResourcesByType = operation("getResourcesByType");
+    private final DatabaseOperationStats updateResource = operation("updateResource");
+    private final DatabaseOperationStats updateResourceStatus = operation("updateResourceStatus");
+    private final DatabaseOperationStats deleteResource = operation("deleteResource");
+    private final DatabaseOperationStats addDisasterReport = operation("addDisasterReport");
+    private final DatabaseOperationStats getDisasterReportById = operation("getDisasterReportById");
+    private final DatabaseOperationStats getDisasterIdByType = operation("getDisasterIdByType");
+    private final DatabaseOperationStats getAllDisasterReports = operation("getAllDisasterReports");
+    private final DatabaseOperationStats getActiveDisasterReports = operation("getActiveDisasterReports");
+    private final DatabaseOperationStats getDisasterReportsBefore = operation("getDisasterReportsBefore");
+    private final DatabaseOperationStats getDisasterReportsAfter = operation("getDisasterReportsAfter");
+    private final DatabaseOperationStats searchDisasterReports = operation("searchDisasterReports");
+    private final DatabaseOperationStats updateDisasterReport = operation("updateDisasterReport");
+    private final DatabaseOperationStats deleteDisasterReport = operation("deleteDisasterReport");
+    private final DatabaseOperationStats allocateResourceToDisaster = operation("allocateResourceToDisaster");
+    private final DatabaseOperationStats reserveResource = operation("reserveResource");
+    private final DatabaseOperationStats getResourcesAllocatedToDisaster = operation("getResourcesAllocatedToDisaster");
+    private final DatabaseOperationStats getAllocationTotals = operation("getAllocationTotals");
+    private final DatabaseOperationStats getAllocatedQuantity = operation("getAllocatedQuantity");
+    private final DatabaseOperationStats getAllAgencies = operation("getAllAgencies");
+    private final DatabaseOperationStats assignAgencyToDisaster = operation("assignAgencyToDisaster");
+    private final DatabaseOperationStats getAllAgencyAssignments = operation("getAllAgencyAssignments");
+    private final DatabaseOperationStats getAgencyAssignmentById = operation("getAgencyAssignmentById");
+    private final DatabaseOperationStats getAgenciesAssignedToDisaster = operation("getAgenciesAssignedToDisaster");
+    private final DatabaseOperationStats streamAllDisasterReports = operation("streamAllDisasterReports");
+    private final DatabaseOperationStats streamAllResources = operation("streamAllResources");
+    private final DatabaseOperationStats streamAllAgencyAssignments = operation("streamAllAgencyAssignments");
+    private final DatabaseOperationStats streamAllResourceAllocations = operation("streamAllResourceAllocations");
+    private final DatabaseOperationStats addUsers = operation("addUsers");
+    private final DatabaseOperationStats addResources = operation("addResources");
+    private final DatabaseOperationStats addDisasterReports = operation("addDisasterReports");
+    private final DatabaseOperationStats allocateResources = operation("allocateResources");
+    private final DatabaseOperationStats assignAgencies = operation("assignAgencies");
+    private final DatabaseOperationStats getDisasterReportsNear = operation("getDisasterReportsNear");
+    private final DatabaseOperationStats getDisasterReportsWithin = operation("getDisasterReportsWithin");
+    private final DatabaseOperationStats getResourcesNear = operation("getResourcesNear");
+    private final DatabaseOperationStats getResourcesWithin = operation("getResourcesWithin");
+    private final DatabaseOperationStats archiveDisasterReports = operation("archiveDisasterReports");
+    private final DatabaseOperationStats getDisasterReportHistory = operation("getDisasterReportHistory");
+    private final DatabaseOperationStats getChangeVersion = operation("getChangeVersion");
+    private final DatabaseOperationStats changesSince = operation("changesSince");
+
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    /**
+     * Constructs a new InstrumentedDatabaseManager.
+     *
+     * @param delegate the database manager whose calls are measured
+     */
+    public InstrumentedDatabaseManager(IDatabaseManager delegate) {
+        super(delegate);
+    }
+
+    /**
+     * Gets the metrics of every method, in the order IDatabaseManager declares them.
+     *
+     * @return an unmodifiable list of the metrics
+     */
+    public List<DatabaseOperationStats> getOperationStats() {
+        return List.copyOf(operations);
+    }
+
+    /**
+     * Publishes the metrics of every method on the platform MBean server, replacing
+     * those of any other instance. They are withdrawn when the connection is closed.
+     */
+    public synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (DatabaseOperationStats operation : operations) {
+            try {
+                ObjectName name = new ObjectName(MBEAN_NAME + operation.getName());
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(operation, name);
+                registeredNames.add(name);
+            } catch (JMException e) {
+                System.out.println("Error registering database metrics: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Withdraws the metrics published by {@link #registerMBeans()}.
+     */
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                System.out.println("Error unregistering database metrics: " + e.getMessage());
+            }
+        }
+        registeredNames.clear();
+    }
+
+    @Override
+    public boolean addUser(User user) {
+        long start = System.nanoTime();
+        try {
+            return addUser.completed(start, delegate.addUser(user));
+        } catch (RuntimeException e) {
+            addUser.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User getUserById(int userId) {
+        long start = System.nanoTime();
+        try {
+            return getUserById.completed(start, delegate.getUserById(userId));
+        } catch (RuntimeException e) {
+            getUserById.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        long start = System.nanoTime();
+        try {
+            return getUserByUsername.completed(start, delegate.getUserByUsername(username));
+        } catch (RuntimeException e) {
+            getUserByUsername.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        long start = System.nanoTime();
+        try {
+            return getAllUsers.completed(start, delegate.getAllUsers());
+        } catch (RuntimeException e) {
+            getAllUsers.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> getUsersBefore(int beforeUserId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return getUsersBefore.completed(start, delegate.getUsersBefore(beforeUserId, limit));
+        } catch (RuntimeException e) {
+            getUsersBefore.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getAllRoles() {
+        long start = System.nanoTime();
+        try {
+            return getAllRoles.completed(start, delegate.getAllRoles());
+        } catch (RuntimeException e) {
+            getAllRoles.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateUser(User user) {
+        long start = System.nanoTime();
+        try {
+            return updateUser.completed(start, delegate.updateUser(user));
+        } catch (RuntimeException e) {
+            updateUser.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean deleteUser(int userId) {
+        long start = System.nanoTime();
+        try {
+            return deleteUser.completed(start, delegate.deleteUser(userId));
+        } catch (RuntimeException e) {
+            deleteUser.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean addResource(Resource resource) {
+        long start = System.nanoTime();
+        try {
+            return addResource.completed(start, delegate.addResource(resource));
+        } catch (RuntimeException e) {
+            addResource.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Resource getResourceById(int resourceId) {
+        long start = System.nanoTime();
+        try {
+            return getResourceById.completed(start, delegate.getResourceById(resourceId));
+        } catch (RuntimeException e) {
+            getResourceById.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Resource> getAllResources() {
+        long start = System.nanoTime();
+        try {
+            return getAllResources.completed(start, delegate.getAllResources());
+        } catch (RuntimeException e) {
+            getAllResources.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Resource> getResourcesByType(String resourceType) {
+        long start = System.nanoTime();
+        try {
+            return getResourcesByType.completed(start, delegate.getResourcesByType(resourceType));
+        } catch (RuntimeException e) {
+            getResourcesByType.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateResource(Resource resource) {
+        long start = System.nanoTime();
+        try {
+            return updateResource.completed(start, delegate.updateResource(resource));
+        } catch (RuntimeException e) {
+            updateResource.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateResourceStatus(int resourceId, String status) {
+        long start = System.nanoTime();
+        try {
+            return updateResourceStatus.completed(start, delegate.updateResourceStatus(resourceId, status));
+        } catch (RuntimeException e) {
+            updateResourceStatus.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean deleteResource(int resourceId) {
+        long start = System.nanoTime();
+        try {
+            return deleteResource.completed(start, delegate.deleteResource(resourceId));
+        } catch (RuntimeException e) {
+            deleteResource.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean addDisasterReport(DisasterReport report) {
+        long start = System.nanoTime();
+        try {
+            return addDisasterReport.completed(start, delegate.addDisasterReport(report));
+        } catch (RuntimeException e) {
+            addDisasterReport.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public DisasterReport getDisasterReportById(int reportId) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterReportById.completed(start, delegate.getDisasterReportById(reportId));
+        } catch (RuntimeException e) {
+            getDisasterReportById.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getDisasterIdByType(String disasterType) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterIdByType.completed(start, delegate.getDisasterIdByType(disasterType));
+        } catch (RuntimeException e) {
+            getDisasterIdByType.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getAllDisasterReports() {
+        long start = System.nanoTime();
+        try {
+            return getAllDisasterReports.completed(start, delegate.getAllDisasterReports());
+        } catch (RuntimeException e) {
+            getAllDisasterReports.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getActiveDisasterReports() {
+        long start = System.nanoTime();
+        try {
+            return getActiveDisasterReports.completed(start, delegate.getActiveDisasterReports());
+        } catch (RuntimeException e) {
+            getActiveDisasterReports.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsBefore(int beforeReportId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterReportsBefore.completed(start, delegate.getDisasterReportsBefore(beforeReportId, limit));
+        } catch (RuntimeException e) {
+            getDisasterReportsBefore.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsAfter(int afterReportId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterReportsAfter.completed(start, delegate.getDisasterReportsAfter(afterReportId, limit));
+        } catch (RuntimeException e) {
+            getDisasterReportsAfter.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> searchDisasterReports(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return searchDisasterReports.completed(start, delegate.searchDisasterReports(query, limit));
+        } catch (RuntimeException e) {
+            searchDisasterReports.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateDisasterReport(DisasterReport report) {
+        long start = System.nanoTime();
+        try {
+            return updateDisasterReport.completed(start, delegate.updateDisasterReport(report));
+        } catch (RuntimeException e) {
+            updateDisasterReport.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean deleteDisasterReport(int reportId) {
+        long start = System.nanoTime();
+        try {
+            return deleteDisasterReport.completed(start, delegate.deleteDisasterReport(reportId));
+        } catch (RuntimeException e) {
+            deleteDisasterReport.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean allocateResourceToDisaster(int resourceId, int disasterId, int quantity) {
+        long start = System.nanoTime();
+        try {
+            return allocateResourceToDisaster.completed(start, delegate.allocateResourceToDisaster(resourceId, disasterId, quantity));
+        } catch (RuntimeException e) {
+            allocateResourceToDisaster.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int reserveResource(int resourceId, int disasterId, int quantity, boolean allowPartial) {
+        long start = System.nanoTime();
+        try {
+            return reserveResource.completed(start, delegate.reserveResource(resourceId, disasterId, quantity, allowPartial));
+        } catch (RuntimeException e) {
+            reserveResource.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Resource> getResourcesAllocatedToDisaster(int disasterId) {
+        long start = System.nanoTime();
+        try {
+            return getResourcesAllocatedToDisaster.completed(start, delegate.getResourcesAllocatedToDisaster(disasterId));
+        } catch (RuntimeException e) {
+            getResourcesAllocatedToDisaster.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getAllocationTotals(int disasterId) {
+        long start = System.nanoTime();
+        try {
+            return getAllocationTotals.completed(start, delegate.getAllocationTotals(disasterId));
+        } catch (RuntimeException e) {
+            getAllocationTotals.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getAllocatedQuantity(int disasterId, String resourceType) {
+        long start = System.nanoTime();
+        try {
+            return getAllocatedQuantity.completed(start, delegate.getAllocatedQuantity(disasterId, resourceType));
+        } catch (RuntimeException e) {
+            getAllocatedQuantity.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Agency> getAllAgencies() {
+        long start = System.nanoTime();
+        try {
+            return getAllAgencies.completed(start, delegate.getAllAgencies());
+        } catch (RuntimeException e) {
+            getAllAgencies.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean assignAgencyToDisaster(int agencyId, int disasterId) {
+        long start = System.nanoTime();
+        try {
+            return assignAgencyToDisaster.completed(start, delegate.assignAgencyToDisaster(agencyId, disasterId));
+        } catch (RuntimeException e) {
+            assignAgencyToDisaster.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<AgencyAssignment> getAllAgencyAssignments() {
+        long start = System.nanoTime();
+        try {
+            return getAllAgencyAssignments.completed(start, delegate.getAllAgencyAssignments());
+        } catch (RuntimeException e) {
+            getAllAgencyAssignments.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public AgencyAssignment getAgencyAssignmentById(int assignmentId) {
+        long start = System.nanoTime();
+        try {
+            return getAgencyAssignmentById.completed(start, delegate.getAgencyAssignmentById(assignmentId));
+        } catch (RuntimeException e) {
+            getAgencyAssignmentById.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<AgencyAssignment> getAgenciesAssignedToDisaster(int disasterId) {
+        long start = System.nanoTime();
+        try {
+            return getAgenciesAssignedToDisaster.completed(start, delegate.getAgenciesAssignedToDisaster(disasterId));
+        } catch (RuntimeException e) {
+            getAgenciesAssignedToDisaster.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<DisasterReport> streamAllDisasterReports() {
+        long start = System.nanoTime();
+        try {
+            return streamed(streamAllDisasterReports, start, delegate.streamAllDisasterReports());
+        } catch (RuntimeException e) {
+            streamAllDisasterReports.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Resource> streamAllResources() {
+        long start = System.nanoTime();
+        try {
+            return streamed(streamAllResources, start, delegate.streamAllResources());
+        } catch (RuntimeException e) {
+            streamAllResources.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<AgencyAssignment> streamAllAgencyAssignments() {
+        long start = System.nanoTime();
+        try {
+            return streamed(streamAllAgencyAssignments, start, delegate.streamAllAgencyAssignments());
+        } catch (RuntimeException e) {
+            streamAllAgencyAssignments.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<ResourceAllocation> streamAllResourceAllocations() {
+        long start = System.nanoTime();
+        try {
+            return streamed(streamAllResourceAllocations, start, delegate.streamAllResourceAllocations());
+        } catch (RuntimeException e) {
+            streamAllResourceAllocations.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult addUsers(List<User> users) {
+        long start = System.nanoTime();
+        try {
+            return addUsers.completed(start, delegate.addUsers(users));
+        } catch (RuntimeException e) {
+            addUsers.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult addResources(List<Resource> resources) {
+        long start = System.nanoTime();
+        try {
+            return addResources.completed(start, delegate.addResources(resources));
+        } catch (RuntimeException e) {
+            addResources.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult addDisasterReports(List<DisasterReport> reports) {
+        long start = System.nanoTime();
+        try {
+            return addDisasterReports.completed(start, delegate.addDisasterReports(reports));
+        } catch (RuntimeException e) {
+            addDisasterReports.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult allocateResources(List<ResourceAllocation> allocations) {
+        long start = System.nanoTime();
+        try {
+            return allocateResources.completed(start, delegate.allocateResources(allocations));
+        } catch (RuntimeException e) {
+            allocateResources.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchResult assignAgencies(List<AgencyAssignment> assignments) {
+        long start = System.nanoTime();
+        try {
+            return assignAgencies.completed(start, delegate.assignAgencies(assignments));
+        } catch (RuntimeException e) {
+            assignAgencies.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsNear(double latitude, double longitude, int count) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterReportsNear.completed(start, delegate.getDisasterReportsNear(latitude, longitude, count));
+        } catch (RuntimeException e) {
+            getDisasterReportsNear.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportsWithin(double latitude, double longitude, double radiusKm) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterReportsWithin.completed(start, delegate.getDisasterReportsWithin(latitude, longitude, radiusKm));
+        } catch (RuntimeException e) {
+            getDisasterReportsWithin.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Resource> getResourcesNear(double latitude, double longitude, int count) {
+        long start = System.nanoTime();
+        try {
+            return getResourcesNear.completed(start, delegate.getResourcesNear(latitude, longitude, count));
+        } catch (RuntimeException e) {
+            getResourcesNear.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Resource> getResourcesWithin(double latitude, double longitude, double radiusKm) {
+        long start = System.nanoTime();
+        try {
+            return getResourcesWithin.completed(start, delegate.getResourcesWithin(latitude, longitude, radiusKm));
+        } catch (RuntimeException e) {
+            getResourcesWithin.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int archiveDisasterReports(LocalDateTime olderThan, int limit) {
+        long start = System.nanoTime();
+        try {
+            return archiveDisasterReports.completed(start, delegate.archiveDisasterReports(olderThan, limit));
+        } catch (RuntimeException e) {
+            archiveDisasterReports.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<DisasterReport> getDisasterReportHistory(LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        try {
+            return getDisasterReportHistory.completed(start, delegate.getDisasterReportHistory(from, to));
+        } catch (RuntimeException e) {
+            getDisasterReportHistory.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getChangeVersion() {
+        long start = System.nanoTime();
+        try {
+            return getChangeVersion.completed(start, delegate.getChangeVersion());
+        } catch (RuntimeException e) {
+            getChangeVersion.failed(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public ChangeSet changesSince(long version) {
+        long start = System.nanoTime();
+        try {
+            return changesSince.completed(start, delegate.changesSince(version));
+        } catch (RuntimeException e) {
+            changesSince.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Withdraws the published metrics and closes the wrapped database manager.
+     */
+    @Override
+    public void closeConnection() {
+        unregisterMBeans();
+        delegate.closeConnection();
+    }
+
+    /**
+     * Creates the metrics of a method.
+     *
+     * @param name the method name
+     * @return the new metrics
+     */
+    private DatabaseOperationStats operation(String name) {
+        DatabaseOperationStats operation = new DatabaseOperationStats(name);
+        operations.add(operation);
+        return operation;
+    }
+
+    /**
+     * Records the opening of a stream and counts its rows as they are read.
+     *
+     * @param <T>       the type of row
+     * @param operation the metrics of the method that opened the stream
+     * @param start     the System.nanoTime() when the call started
+     * @param rows      the stream
+     * @return a stream of the same rows
+     */
+    private static <T> Stream<T> streamed(DatabaseOperationStats operation, long start, Stream<T> rows) {
+        operation.opened(start);
+        return rows.peek(row -> operation.addRows(1));
+    }
+}
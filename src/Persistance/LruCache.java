@@ -0,0 +1,194 @@
+package Persistance;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe cache that evicts the least recently used entry when full
+ * and treats entries older than a time-to-live as missing. Hit, miss and eviction
+ * counts are kept so the effectiveness of each cache can be monitored.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class LruCache<K, V> {
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructs a new, empty LruCache.
+     *
+     * @param name       a name identifying the cache in statistics
+     * @param maxEntries the maximum number of entries kept
+     * @param ttlMillis  how long an entry is served after it was loaded
+     */
+    public LruCache(String name, int maxEntries, long ttlMillis) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        // Access order makes iteration run from least to most recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached value for a key, loading and caching it on a miss.
+     * Null results are returned but not cached. The loader runs without holding
+     * the cache lock, so two threads missing on the same key may both load it.
+     *
+     * @param key    the key to look up
+     * @param loader loads the value on a miss
+     * @return the cached or loaded value
+     */
+    public V get(K key, Function<K, V> loader) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMillis) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        long invalidationsBefore = invalidations.get();
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                // Skip caching if an invalidation ran while loading; the value may be stale
+                if (invalidations.get() == invalidationsBefore) {
+                    entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entry for a key.
+     *
+     * @param key the key to remove
+     */
+    public synchronized void invalidate(K key) {
+        invalidations.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry matching a condition.
+     *
+     * @param condition tested against each key and value
+     */
+    public synchronized void invalidateIf(BiPredicate<K, V> condition) {
+        invalidations.incrementAndGet();
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = it.next();
+            if (condition.test(entry.getKey(), entry.getValue().value)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Gets the name of this cache.
+     *
+     * @return the cache name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of entries currently cached.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to load the value.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of entries dropped because the cache was full.
+     *
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns a one-line summary of the cache statistics.
+     *
+     * @return a string with the size, hits, misses and evictions
+     */
+    @Override
+    public String toString() {
+        long total = getHits() + getMisses();
+        return String.format("%s{size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d}",
+                name, size(), maxEntries, getHits(), getMisses(),
+                total == 0 ? 0.0 : getHits() * 100.0 / total, getEvictions());
+    }
+
+    /**
+     * A cached value and the time it was loaded.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package Persistance;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Checks through EXPLAIN that the hot queries are served by indexes, for running
+ * after a schema or query change. Run as
+ *
+ * <pre>java Persistance.PlanCheckCommand</pre>
+ *
+ * or with "ant check-plans". The database is the one chosen with
+ * -Ddrs.db.backend=mysql|embedded, migrated first if needed. Every full table
+ * scan found is printed; the exit status is 0 if there are none, 1 if there are
+ * and 2 if the check could not be run.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class PlanCheckCommand {
+    /**
+     * Runs the check.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        DisasterDatabaseConn database;
+        try {
+            database = new DisasterDatabaseConn(DatabaseBackend.fromSystemProperty());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        int status;
+        try {
+            List<String> scans = database.findFullTableScans();
+            scans.forEach(System.out::println);
+            System.out.println(scans.isEmpty()
+                ? "Every hot query on " + database.getBackend() + " is served by an index"
+                : scans.size() + " full table scans found on " + database.getBackend());
+            status = scans.isEmpty() ? 0 : 1;
+        } catch (SQLException e) {
+            System.err.println("Plan check failed: " + e.getMessage());
+            status = 2;
+        } finally {
+            database.closeConnection();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,142 @@
+package Persistance;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks, through EXPLAIN, that the hot query paths of {@link DisasterDatabaseConn}
+ * are served by the indexes delivered in the schema migrations rather than by full
+ * table scans. It can be run against any database after a migration or index change,
+ * and is run by {@link PlanCheckCommand} and "ant check-plans".
+ *
+ * MySQL reports a full scan as access type ALL; H2 names the table followed by
+ * tableScan in its plan. Queries using MySQL-only syntax are only checked on MySQL.
+ * Note that MySQL may still choose a table scan for very small tables, so the check
+ * is only meaningful there against a database holding a realistic amount of data.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class QueryPlanInspector {
+    /**
+     * The SQL of each indexed query path in DisasterDatabaseConn, mapped to
+     * representative parameter values.
+     */
+    static final Map<String, Object[]> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        HOT_QUERIES.put("SELECT * FROM disaster_reports WHERE status = ? ORDER BY severity DESC, timeStamp DESC",
+            new Object[] { "Active" });
+        HOT_QUERIES.put("SELECT reportID FROM disaster_reports WHERE disasterType = ? ORDER BY reportID LIMIT 1",
+            new Object[] { "Flood" });
+        HOT_QUERIES.put("SELECT * FROM resources WHERE type = ?",
+            new Object[] { "Water" });
+        HOT_QUERIES.put("SELECT DISTINCT role FROM users ORDER BY role",
+            new Object[0]);
+        HOT_QUERIES.put("SELECT r.*, ra.quantity FROM resources r JOIN resource_allocations ra ON r.resourceID = ra.resourceID WHERE ra.disasterID = ?",
+            new Object[] { 1 });
+        HOT_QUERIES.put("SELECT resourceType, quantity FROM disaster_allocation_totals WHERE disasterID = ? ORDER BY resourceType",
+            new Object[] { 1 });
+        HOT_QUERIES.put("SELECT * FROM disaster_reports WHERE reportID < ? ORDER BY reportID DESC LIMIT ?",
+            new Object[] { Integer.MAX_VALUE, 100 });
+        HOT_QUERIES.put("SELECT * FROM disaster_reports WHERE MATCH(description, location) AGAINST (? IN BOOLEAN MODE) LIMIT ?",
+            new Object[] { "+flood*", 100 });
+        HOT_QUERIES.put("SELECT * FROM disaster_reports WHERE geohash IS NOT NULL ORDER BY geohash",
+            new Object[0]);
+        HOT_QUERIES.put("SELECT * FROM resources WHERE geohash IS NOT NULL ORDER BY geohash",
+            new Object[0]);
+    }
+
+    /**
+     * The hot queries that only run on MySQL; other backends serve these differently.
+     */
+    static final Set<String> MYSQL_ONLY_QUERIES = Set.of(
+        "SELECT * FROM disaster_reports WHERE MATCH(description, location) AGAINST (? IN BOOLEAN MODE) LIMIT ?");
+
+    // A full scan in an H2 plan, e.g. /* public.agencies.tableScan */
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("/\\*\\s*(?:\\w+\\.)?(\\w+)\\.tableScan");
+
+    private final Connection connection;
+
+    /**
+     * Constructs a new QueryPlanInspector for the database behind the given connection.
+     *
+     * @param connection the connection to run EXPLAIN on
+     */
+    public QueryPlanInspector(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Runs EXPLAIN on every hot query and collects the ones that scan a whole table.
+     *
+     * @return one description per table scanned in full, empty if every query uses an index
+     * @throws SQLException if a query cannot be explained
+     */
+    public List<String> findFullTableScans() throws SQLException {
+        boolean mysql = isMySql();
+        List<String> scans = new ArrayList<>();
+        for (Map.Entry<String, Object[]> query : HOT_QUERIES.entrySet()) {
+            if (!mysql && MYSQL_ONLY_QUERIES.contains(query.getKey())) {
+                continue;
+            }
+            for (String table : explainFullScans(query.getKey(), query.getValue())) {
+                scans.add("Full scan of " + table + " in: " + query.getKey());
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Runs EXPLAIN on a single query and returns the tables it reads in full.
+     *
+     * @param sql    the query to explain
+     * @param params the values to bind to its parameters
+     * @return the names of the tables that are scanned in full
+     * @throws SQLException if the query cannot be explained
+     */
+    public List<String> explainFullScans(String sql, Object... params) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            boolean mysql = isMySql();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (mysql) {
+                        if ("ALL".equalsIgnoreCase(rs.getString("type"))) {
+                            tables.add(rs.getString("table"));
+                        }
+                    } else {
+                        Matcher scan = H2_TABLE_SCAN.matcher(rs.getString(1));
+                        while (scan.find()) {
+                            tables.add(scan.group(1));
+                        }
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Checks whether the connection is to MySQL, whose EXPLAIN output is tabular,
+     * rather than H2, which explains a query as a single annotated plan.
+     *
+     * @return true for MySQL
+     * @throws SQLException if the metadata cannot be read
+     */
+    private boolean isMySql() throws SQLException {
+        return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+}
@@ -0,0 +1,98 @@
+package Persistance;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches a small, rarely changing reference list (such as agencies or roles) as an
+ * immutable snapshot. The list is loaded on first use and then served from memory
+ * until it is invalidated by a write or its time-to-live runs out, which picks up
+ * changes made by other clients of the same database.
+ *
+ * @param <T> the type of the cached values
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ReferenceDataCache<T> {
+
+    /**
+     * Loads the current values from the database.
+     *
+     * @param <T> the type of the loaded values
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        List<T> load() throws SQLException;
+    }
+
+    private final long ttlMillis;
+    private volatile Snapshot<T> snapshot;
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructs a new, empty ReferenceDataCache.
+     *
+     * @param ttlMillis how long a loaded snapshot is served before it is reloaded
+     */
+    public ReferenceDataCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Gets the cached values, loading them if the cache is empty, invalidated or expired.
+     * If loading fails, the last snapshot is served again, even if it has expired.
+     *
+     * @param loader loads the values from the database
+     * @return an unmodifiable list of the cached values
+     * @throws SQLException if loading fails and there is no earlier snapshot to fall back on
+     */
+    public List<T> get(Loader<T> loader) throws SQLException {
+        Snapshot<T> current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < ttlMillis) {
+            return current.values;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && System.currentTimeMillis() - current.loadedAt < ttlMillis) {
+                return current.values;
+            }
+            long loadGeneration = generation.get();
+            try {
+                Snapshot<T> loaded = new Snapshot<>(List.copyOf(loader.load()), System.currentTimeMillis());
+                // A write that invalidated the cache while loading may not be in this snapshot
+                if (loadGeneration == generation.get()) {
+                    snapshot = loaded;
+                }
+                return loaded.values;
+            } catch (SQLException e) {
+                if (current != null) {
+                    return current.values;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Discards the cached snapshot so the next call to get reloads it.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * An immutable list of values and the time it was loaded.
+     */
+    private static final class Snapshot<T> {
+        private final List<T> values;
+        private final long loadedAt;
+
+        private Snapshot(List<T> values, long loadedAt) {
+            this.values = values;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package Persistance;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves resolved disaster reports to the archive tier in the background, so the
+ * live tables every screen queries only grow with current incidents.
+ *
+ * Every drs.archive.intervalMinutes the archiver moves the reports that are no
+ * longer Active and were filed more than drs.archive.ageDays ago. It works in
+ * batches of drs.archive.batchSize, each its own short transaction, and pauses
+ * drs.archive.batchPauseMs between them so it never holds locks or a pooled
+ * connection for long. An interval of 0 or less turns the archiver off.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ReportArchiver implements AutoCloseable {
+    private static final long INTERVAL_MINUTES = Long.getLong("drs.archive.intervalMinutes", 60L);
+    private static final long AGE_DAYS = Long.getLong("drs.archive.ageDays", 365L);
+    private static final int BATCH_SIZE = Integer.getInteger("drs.archive.batchSize", 500);
+    private static final long BATCH_PAUSE_MS = Long.getLong("drs.archive.batchPauseMs", 200L);
+    // The first run waits a little so it does not compete with application startup
+    private static final long INITIAL_DELAY_MINUTES = 1;
+
+    private final IDatabaseManager database;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new ReportArchiver.
+     *
+     * @param database the database to archive reports in
+     */
+    public ReportArchiver(IDatabaseManager database) {
+        this.database = database;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("report-archiver").daemon().factory());
+    }
+
+    /**
+     * Starts archiving on a schedule, unless the archiver is turned off.
+     */
+    public void start() {
+        if (INTERVAL_MINUTES > 0) {
+            scheduler.scheduleWithFixedDelay(this::runScheduled, INITIAL_DELAY_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Archives every report that is due, a batch at a time, stopping at the first
+     * batch that is not full.
+     *
+     * @return the number of reports archived
+     * @throws InterruptedException if the thread is interrupted while pausing between batches
+     */
+    public int runOnce() throws InterruptedException {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(AGE_DAYS);
+        int total = 0;
+        while (true) {
+            int archived = database.archiveDisasterReports(cutoff, BATCH_SIZE);
+            total += archived;
+            if (archived < BATCH_SIZE) {
+                return total;
+            }
+            Thread.sleep(BATCH_PAUSE_MS);
+        }
+    }
+
+    /**
+     * Runs one scheduled pass. Failures are reported and the next pass still runs,
+     * as an exception would cancel the schedule.
+     */
+    private void runScheduled() {
+        try {
+            int archived = runOnce();
+            if (archived > 0) {
+                System.out.println("Archived " + archived + " disaster reports");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.out.println("Error archiving disaster reports: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops archiving, interrupting a pass that is still running between batches.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,421 @@
+package Persistance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned schema migrations in the migrations folder to the database.
+ * Each applied script is recorded in the schema_version table together with a checksum
+ * of its contents, so a script that was edited after being applied is detected.
+ * When the schema is already current, checking it costs a single query.
+ *
+ * New migrations are added by placing a script named V&lt;n&gt;__description.sql in
+ * the migrations folder and appending its file name to {@link #MIGRATIONS}. A script
+ * named V&lt;n&gt;__description.&lt;product&gt;.sql, such as V5__fulltext.mysql.sql, only
+ * runs against that database product; elsewhere it is recorded as applied without
+ * running, so every database ends up at the same version.
+ *
+ * MySQL commits DDL implicitly, so a script that fails partway leaves the statements
+ * before the failure applied. Scripts are therefore safe to run again: tables are
+ * created with IF NOT EXISTS, and a CREATE INDEX or ALTER TABLE ... ADD COLUMN whose
+ * index or column the database already has is skipped. On MySQL the migrations run
+ * under a named lock, so two instances starting together do not both apply them;
+ * an embedded database is only ever opened by one process.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class SchemaMigrator {
+    /**
+     * The migration scripts, in the order they must be applied.
+     */
+    static final List<String> MIGRATIONS = List.of(
+        "V1__initial_schema.sql",
+        "V2__secondary_indexes.sql",
+        "V3__allocation_totals.sql",
+        "V4__change_log.sql",
+        "V5__report_fulltext.mysql.sql",
+        "V6__coordinates.sql",
+        "V7__report_archive.sql"
+    );
+
+    private static final String MIGRATIONS_FOLDER = "migrations/";
+    private static final String TABLE_NOT_FOUND_STATE = "42S02";
+    private static final String MIGRATION_LOCK = "disasterresponse.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = Integer.getInteger("drs.db.migrationLockTimeoutSeconds", 60);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "^CREATE\\s+(?:UNIQUE\\s+|FULLTEXT\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_COLUMN = Pattern.compile(
+        "^ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+COLUMN\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final Connection connection;
+
+    /**
+     * Constructs a new SchemaMigrator that migrates the database behind the given connection.
+     *
+     * @param connection the connection to run the migrations on
+     */
+    public SchemaMigrator(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Brings the schema up to the latest version, applying any migrations that have
+     * not been applied yet. When the schema is already current this is a single read
+     * of schema_version; the migration lock is only taken, and the versions read
+     * again under it, when a migration is pending.
+     *
+     * @return the number of migrations applied, 0 if the schema was already current
+     * @throws SQLException if a migration fails, an applied script has been modified,
+     *                      or another instance held the migration lock for too long
+     */
+    public int migrate() throws SQLException {
+        if (!hasPending(readAppliedVersions())) {
+            return 0;
+        }
+        String product = connection.getMetaData().getDatabaseProductName();
+        boolean locked = lock(product);
+        try {
+            return migrate(product);
+        } finally {
+            if (locked) {
+                unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies the pending migrations, reading which ones are pending only once the
+     * migration lock is held.
+     *
+     * @param product the database product name reported by the driver
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails or an applied script has been modified
+     */
+    private int migrate(String product) throws SQLException {
+        Map<Integer, Long> applied = readAppliedVersions();
+        int count = 0;
+        for (String script : MIGRATIONS) {
+            int version = parseVersion(script);
+            String sql = loadScript(script);
+            long checksum = checksum(sql);
+            Long appliedChecksum = applied.get(version);
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    throw new SQLException("Migration " + script + " has been modified since it was applied");
+                }
+                continue;
+            }
+            if (runsOn(script, product)) {
+                apply(version, script, splitStatements(sql), checksum);
+            } else {
+                apply(version, script, List.of(), checksum);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether any migration has not been applied yet, and that none of those
+     * applied has been modified since.
+     *
+     * @param applied the applied versions mapped to their checksums
+     * @return true if a migration is pending
+     * @throws SQLException if an applied script has been modified
+     */
+    private boolean hasPending(Map<Integer, Long> applied) throws SQLException {
+        boolean pending = false;
+        for (String script : MIGRATIONS) {
+            Long appliedChecksum = applied.get(parseVersion(script));
+            if (appliedChecksum == null) {
+                pending = true;
+            } else if (appliedChecksum != checksum(loadScript(script))) {
+                throw new SQLException("Migration " + script + " has been modified since it was applied");
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Takes the MySQL named lock that keeps two instances from migrating at once,
+     * waiting up to drs.db.migrationLockTimeoutSeconds for another instance to finish.
+     *
+     * @param product the database product name reported by the driver
+     * @return true if a lock was taken, false on databases that need none
+     * @throws SQLException if the lock could not be taken in time
+     */
+    private boolean lock(String product) throws SQLException {
+        if (!"MySQL".equalsIgnoreCase(product)) {
+            return false;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, MIGRATION_LOCK);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another instance to finish migrating the schema");
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases the migration lock taken by {@link #lock(String)}.
+     *
+     * @throws SQLException if the lock cannot be released
+     */
+    private void unlock() throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, MIGRATION_LOCK);
+            stmt.executeQuery().close();
+        }
+    }
+
+    /**
+     * Reads the versions already recorded in schema_version, creating the table if
+     * this is the first run.
+     *
+     * @return the applied versions mapped to their checksums
+     * @throws SQLException if the table cannot be read or created
+     */
+    private Map<Integer, Long> readAppliedVersions() throws SQLException {
+        Map<Integer, Long> applied = new LinkedHashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version ORDER BY version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        } catch (SQLException e) {
+            if (!TABLE_NOT_FOUND_STATE.equals(e.getSQLState()) && schemaVersionTableExists()) {
+                throw e;
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY," +
+                    "description VARCHAR(200) NOT NULL," +
+                    "checksum BIGINT NOT NULL," +
+                    "appliedAt DATETIME DEFAULT CURRENT_TIMESTAMP," +
+                    "executionMillis INT NOT NULL" +
+                ")");
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Checks the database metadata for the schema_version table, for drivers that do
+     * not report a missing table with the standard SQL state.
+     *
+     * @return true if the table exists
+     * @throws SQLException if the metadata cannot be read
+     */
+    private boolean schemaVersionTableExists() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[] { "schema_version", "SCHEMA_VERSION" }) {
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, name, new String[] { "TABLE" })) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a single migration script and records it in schema_version. Statements
+     * whose index or column already exists, left by an earlier attempt that failed
+     * partway, are skipped.
+     *
+     * @param version    the migration version
+     * @param script     the script file name
+     * @param statements the statements of the script, empty to only record it
+     * @param checksum   the checksum of the script contents
+     * @throws SQLException if any statement in the script fails
+     */
+    private void apply(int version, String script, List<String> statements, long checksum) throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(
+                 "INSERT INTO schema_version (version, description, checksum, executionMillis) VALUES (?, ?, ?, ?)")) {
+            for (String statement : statements) {
+                if (!alreadyApplied(statement)) {
+                    stmt.execute(statement);
+                }
+            }
+            record.setInt(1, version);
+            record.setString(2, script);
+            record.setLong(3, checksum);
+            record.setInt(4, (int) (System.currentTimeMillis() - start));
+            record.executeUpdate();
+            connection.commit();
+            System.out.println((statements.isEmpty() ? "Skipped schema migration " : "Applied schema migration ") + script);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration " + script + " failed: " + e.getMessage(), e.getSQLState(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Checks whether a CREATE INDEX or ALTER TABLE ... ADD COLUMN statement has
+     * already taken effect. Other statements are never considered applied.
+     *
+     * @param statement the statement
+     * @return true if the index or column the statement adds already exists
+     * @throws SQLException if the metadata cannot be read
+     */
+    private boolean alreadyApplied(String statement) throws SQLException {
+        Matcher index = CREATE_INDEX.matcher(statement);
+        if (index.find()) {
+            return indexExists(index.group(2), index.group(1));
+        }
+        Matcher column = ADD_COLUMN.matcher(statement);
+        if (column.find()) {
+            return columnExists(column.group(1), column.group(2));
+        }
+        return false;
+    }
+
+    /**
+     * Checks the database metadata for an index on a table.
+     *
+     * @param table the table name
+     * @param index the index name
+     * @return true if the table has the index
+     * @throws SQLException if the metadata cannot be read
+     */
+    private boolean indexExists(String table, String index) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the database metadata for a column of a table.
+     *
+     * @param table  the table name
+     * @param column the column name
+     * @return true if the table has the column
+     * @throws SQLException if the metadata cannot be read
+     */
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the version number from a script name such as V3__add_indexes.sql.
+     *
+     * @param script the script file name
+     * @return the version number
+     */
+    static int parseVersion(String script) {
+        int separator = script.indexOf("__");
+        if (!script.startsWith("V") || separator < 2) {
+            throw new IllegalArgumentException("Badly named migration script: " + script);
+        }
+        return Integer.parseInt(script.substring(1, separator));
+    }
+
+    /**
+     * Checks whether a script runs against a database product. Scripts without a
+     * product in their name run everywhere.
+     *
+     * @param script  the script file name
+     * @param product the database product name reported by the driver, such as MySQL or H2
+     * @return true if the script's statements should be run
+     */
+    static boolean runsOn(String script, String product) {
+        String name = script.substring(0, script.length() - ".sql".length());
+        int qualifier = name.lastIndexOf('.');
+        return qualifier < name.indexOf("__") || name.substring(qualifier + 1).equalsIgnoreCase(product);
+    }
+
+    /**
+     * Loads a migration script from the classpath.
+     *
+     * @param script the script file name
+     * @return the script contents with line endings normalised
+     * @throws SQLException if the script cannot be found or read
+     */
+    private static String loadScript(String script) throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(MIGRATIONS_FOLDER + script)) {
+            if (in == null) {
+                throw new SQLException("Migration script not found: " + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration script " + script, e);
+        }
+    }
+
+    /**
+     * Calculates the checksum recorded for a script.
+     *
+     * @param sql the script contents
+     * @return the CRC32 of the contents
+     */
+    static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Splits a script into individual statements. Statements end with a semicolon at
+     * the end of a line, and lines starting with -- are treated as comments.
+     *
+     * @param sql the script contents
+     * @return the statements in the script
+     */
+    static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : sql.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String statement = current.toString().trim();
+                statements.add(statement.substring(0, statement.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+}
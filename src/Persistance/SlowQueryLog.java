@@ -0,0 +1,843 @@
+package Persistance;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import jdk.jfr.EventType;
+
+/**
+ * Logs the SQL statements that take longer than drs.db.slowQuery.thresholdMs,
+ * with their SQL text, bound parameters, row count, duration and the controller
+ * method that ran them, so a screen that hangs can be traced to its query.
+ *
+ * Statements are timed by wrapping the pooled connections of
+ * {@link DisasterDatabaseConn} in a proxy. A statement is slow when the time spent
+ * in the driver, executing it and then reading its rows, passes the threshold, so a
+ * slow fetch counts as well as a slow plan. The time the caller spends between rows
+ * is not counted, so a streamed export that writes each row as it goes is not
+ * logged for its own work; the time until the results were closed is logged
+ * alongside. Only a statement found to be
+ * slow has its caller looked up and is handed to a single background thread, which
+ * runs EXPLAIN on it when drs.db.slowQuery.explain is true and appends it to
+ * drs.db.slowQuery.file. The queue to that thread is bounded and never blocks, so
+ * logging cannot hold up a query; entries that arrive while it is full are
+ * counted and dropped.
+ *
+ * Values bound to the columns listed in drs.db.slowQuery.redactColumns
+ * (password by default) are replaced with *** as soon as they are bound, so they
+ * reach neither the log nor the Flight Recorder events. A value is matched to its
+ * column through the INSERT column list or a comparison such as {@code password = ?}.
+ *
+ * The log is rotated once it reaches drs.db.slowQuery.maxFileBytes, keeping
+ * drs.db.slowQuery.maxFiles old files numbered .1, .2 and so on, newest first. A
+ * negative threshold turns logging off.
+ *
+ * Every statement is also reported to Java Flight Recorder as a
+ * {@link DatabaseQueryEvent}. While no recording takes those events and logging
+ * is off, connections are left unwrapped.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class SlowQueryLog {
+    private static final long THRESHOLD_MS = Long.getLong("drs.db.slowQuery.thresholdMs", 500L);
+    private static final boolean EXPLAIN = Boolean.getBoolean("drs.db.slowQuery.explain");
+    private static final String FILE = System.getProperty("drs.db.slowQuery.file",
+        System.getProperty("user.home") + File.separator + ".drs" + File.separator + "slow-queries.log");
+    private static final long MAX_FILE_BYTES = Long.getLong("drs.db.slowQuery.maxFileBytes", 10L * 1024 * 1024);
+    private static final int MAX_FILES = Integer.getInteger("drs.db.slowQuery.maxFiles", 5);
+    private static final int QUEUE_SIZE = Integer.getInteger("drs.db.slowQuery.queueSize", 1000);
+    // Long SQL and values are cut short so one statement cannot flood the log
+    private static final int MAX_SQL_LENGTH = 4000;
+    private static final int MAX_VALUE_LENGTH = 200;
+    private static final String CONTROLLER_PACKAGE = "Controller.";
+    // Columns whose bound values are never recorded, in lower case
+    private static final Set<String> REDACTED_COLUMNS = Arrays.stream(
+            System.getProperty("drs.db.slowQuery.redactColumns", "password").split(","))
+        .map(column -> column.trim().toLowerCase(Locale.ROOT))
+        .filter(column -> !column.isEmpty())
+        .collect(Collectors.toUnmodifiableSet());
+    private static final String REDACTED = "***";
+    private static final Set<String> COMPARISONS = Set.of("=", "<>", "!=", "<", ">", "<=", ">=", "LIKE");
+    private static final EventType QUERY_EVENTS = EventType.getEventType(DatabaseQueryEvent.class);
+
+    private final long thresholdNanos;
+    private final Path file;
+    private final ThreadPoolExecutor writer;
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Only touched by the writer thread
+    private BufferedWriter out;
+    private long fileBytes;
+    private long droppedReported;
+
+    /**
+     * Constructs a new SlowQueryLog configured from the drs.db.slowQuery system
+     * properties. The writer thread is only started when the first slow statement
+     * is logged.
+     */
+    public SlowQueryLog() {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(THRESHOLD_MS);
+        this.file = Paths.get(FILE);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+            Thread.ofPlatform().name("slow-query-log").daemon().factory(), (task, executor) -> dropped.incrementAndGet());
+    }
+
+    /**
+     * Checks whether statements are being timed.
+     *
+     * @return true unless the threshold is negative
+     */
+    public boolean isEnabled() {
+        return THRESHOLD_MS >= 0;
+    }
+
+    /**
+     * Wraps a connection so the statements it runs are timed.
+     *
+     * @param connection  the connection to watch
+     * @param explainPool the pool to borrow a connection from to run EXPLAIN on
+     * @return the wrapped connection, or the connection itself if logging is off
+     *         and no recording is taking query events
+     */
+    Connection watch(Connection connection, ConnectionPool explainPool) {
+        if (!isEnabled() && !QUERY_EVENTS.isEnabled()) {
+            return connection;
+        }
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result = forward(connection, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    return watchStatement((Statement) result, (String) args[0], explainPool);
+                case "createStatement":
+                    return watchStatement((Statement) result, null, explainPool);
+                default:
+                    return result;
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    /**
+     * Gets the number of slow statements written to the log.
+     *
+     * @return the count
+     */
+    public long getLoggedCount() {
+        return logged.get();
+    }
+
+    /**
+     * Gets the number of slow statements dropped because the writer had fallen behind.
+     *
+     * @return the count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the file slow statements are written to.
+     *
+     * @return the current log file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Wraps a statement so its executions are timed.
+     *
+     * @param statement   the statement
+     * @param sql         the SQL it was prepared with, or null for a plain statement
+     * @param explainPool the pool to run EXPLAIN on
+     * @return the wrapped statement
+     */
+    private Statement watchStatement(Statement statement, String sql, ConnectionPool explainPool) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+            new WatchedStatement(statement, sql, explainPool));
+    }
+
+    /**
+     * Calls a method on the object behind a proxy, rethrowing what it throws.
+     *
+     * @param target the object
+     * @param method the method
+     * @param args   the arguments
+     * @return the method's result
+     * @throws Throwable whatever the method threw
+     */
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Times the executions of one statement and records its bound parameters. A
+     * query stays open until its result set, the statement or the next execution
+     * closes it; other statements finish when they return.
+     */
+    private final class WatchedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final ConnectionPool explainPool;
+        // Which parameters, by 0-based index, are bound to a redacted column
+        private final boolean[] redacted;
+        private Object[] parameters = new Object[8];
+        private int parameterCount;
+        private int batchSize;
+
+        // The execution in progress: its SQL, start time, time to execute, time spent
+        // reading rows and rows read, and its Flight Recorder event if a recording is taking them
+        private String sql;
+        private long start;
+        private long executeNanos;
+        private long fetchNanos;
+        private long rows;
+        private boolean open;
+        private DatabaseQueryEvent event;
+
+        private WatchedStatement(Statement statement, String preparedSql, ConnectionPool explainPool) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.explainPool = explainPool;
+            this.redacted = redactedParameters(preparedSql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            switch (name) {
+                case "clearParameters":
+                    Arrays.fill(parameters, 0, parameterCount, null);
+                    parameterCount = 0;
+                    break;
+                case "addBatch":
+                    batchSize++;
+                    break;
+                case "clearBatch":
+                    batchSize = 0;
+                    break;
+                case "close":
+                    finish(null);
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    // PreparedStatement setters take the parameter index then the value
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    }
+                    break;
+            }
+            return forward(statement, method, args);
+        }
+
+        /**
+         * Runs and times one of the execute methods.
+         *
+         * @param method the method
+         * @param args   its arguments, the SQL first for a plain statement
+         * @return its result, with a result set wrapped to count rows
+         * @throws Throwable whatever the method threw
+         */
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finish(null);
+            sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (QUERY_EVENTS.isEnabled()) {
+                event = new DatabaseQueryEvent();
+                event.begin();
+            }
+            start = System.nanoTime();
+            fetchNanos = 0;
+            rows = 0;
+            open = true;
+            Object result;
+            try {
+                result = forward(statement, method, args);
+            } catch (Throwable t) {
+                executeNanos = System.nanoTime() - start;
+                finish(t.getMessage());
+                throw t;
+            }
+            executeNanos = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                    new CountedResultSet((ResultSet) result, this));
+            }
+            if (result instanceof Number) {
+                rows = ((Number) result).longValue();
+            } else if (result instanceof int[]) {
+                rows = Arrays.stream((int[]) result).filter(count -> count > 0).sum();
+            } else if (result instanceof long[]) {
+                rows = Arrays.stream((long[]) result).filter(count -> count > 0).sum();
+            } else if (Boolean.FALSE.equals(result)) {
+                rows = statement.getUpdateCount();
+            } else {
+                rows = -1;
+            }
+            finish(null);
+            if (method.getName().endsWith("Batch")) {
+                batchSize = 0;
+            }
+            return result;
+        }
+
+        /**
+         * Records the value bound to a parameter.
+         *
+         * @param index the parameter's 1-based index
+         * @param value the value
+         */
+        private void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value != null && index <= redacted.length && redacted[index - 1] ? REDACTED : value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        /**
+         * Ends the execution in progress, if any, logs it if it was slow and commits
+         * its Flight Recorder event.
+         *
+         * @param error the message of the exception it failed with, or null
+         */
+        private void finish(String error) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            long elapsed = System.nanoTime() - start;
+            if (isEnabled() && executeNanos + fetchNanos >= thresholdNanos) {
+                SlowQuery query = new SlowQuery(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), sql,
+                    Arrays.copyOf(parameters, parameterCount), batchSize, rows, executeNanos, fetchNanos, elapsed,
+                    findCaller(), Thread.currentThread().getName(), error);
+                writer.execute(() -> write(query, explainPool));
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.sql = truncate(sql == null ? "" : sql.trim(), MAX_SQL_LENGTH);
+                    event.parameters = formatParameters(Arrays.copyOf(parameters, parameterCount));
+                    event.rows = rows;
+                    event.batchSize = batchSize;
+                    event.executeTime = executeNanos;
+                    event.fetchTime = fetchNanos;
+                    event.error = error;
+                    event.commit();
+                }
+                event = null;
+            }
+        }
+    }
+
+    /**
+     * Counts the rows read from a query's result set, times the calls that read them
+     * and ends the query when it is closed.
+     */
+    private static final class CountedResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final WatchedStatement statement;
+
+        private CountedResultSet(ResultSet resultSet, WatchedStatement statement) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    long begin = System.nanoTime();
+                    Object hasRow = forward(resultSet, method, args);
+                    statement.fetchNanos += System.nanoTime() - begin;
+                    if (Boolean.TRUE.equals(hasRow)) {
+                        statement.rows++;
+                    }
+                    return hasRow;
+                case "close":
+                    statement.finish(null);
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return forward(resultSet, method, args);
+        }
+    }
+
+    /**
+     * Works out which parameters of a prepared statement are bound to a redacted
+     * column: those in the place of the column in the VALUES of an INSERT or REPLACE
+     * with a column list, and those compared to the column, as in
+     * {@code SET password = ?} or {@code WHERE u.password = ?}.
+     *
+     * @param sql the statement's SQL, or null for a plain statement
+     * @return a flag per parameter, by 0-based index, true if it is redacted
+     */
+    static boolean[] redactedParameters(String sql) {
+        if (sql == null || REDACTED_COLUMNS.isEmpty()) {
+            return new boolean[0];
+        }
+        List<String> tokens = tokenize(sql);
+        List<String> columns = insertColumns(tokens);
+        List<Boolean> redacted = new ArrayList<>();
+        int depth = 0;
+        int valuesDepth = -1;
+        int position = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            switch (token) {
+                case "(":
+                    depth++;
+                    if (valuesDepth < 0 && columns != null && i > 0 && tokens.get(i - 1).equalsIgnoreCase("VALUES")) {
+                        valuesDepth = depth;
+                    }
+                    if (depth == valuesDepth) {
+                        position = 0;
+                    }
+                    break;
+                case ")":
+                    depth--;
+                    break;
+                case ",":
+                    if (depth == valuesDepth) {
+                        position++;
+                    }
+                    break;
+                case "?":
+                    String column = null;
+                    if (valuesDepth > 0 && depth == valuesDepth && position < columns.size()) {
+                        column = columns.get(position);
+                    } else if (i >= 2 && COMPARISONS.contains(tokens.get(i - 1).toUpperCase(Locale.ROOT))) {
+                        column = tokens.get(i - 2);
+                    }
+                    redacted.add(column != null && REDACTED_COLUMNS.contains(
+                        column.substring(column.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT)));
+                    break;
+                default:
+                    break;
+            }
+        }
+        boolean[] flags = new boolean[redacted.size()];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = redacted.get(i);
+        }
+        return flags;
+    }
+
+    /**
+     * Gets the column list of an INSERT or REPLACE statement.
+     *
+     * @param tokens the statement's tokens
+     * @return the column names in order, or null if it is not an INSERT or REPLACE
+     *         with a column list
+     */
+    private static List<String> insertColumns(List<String> tokens) {
+        if (tokens.isEmpty() || !(tokens.get(0).equalsIgnoreCase("INSERT") || tokens.get(0).equalsIgnoreCase("REPLACE"))) {
+            return null;
+        }
+        int open = tokens.indexOf("(");
+        if (open < 0 || open > 0 && tokens.get(open - 1).equalsIgnoreCase("VALUES")) {
+            return null;
+        }
+        List<String> columns = new ArrayList<>();
+        for (int i = open + 1; i < tokens.size() && !tokens.get(i).equals(")"); i++) {
+            if (!tokens.get(i).equals(",")) {
+                columns.add(tokens.get(i));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Splits SQL into identifiers, numbers, operators and punctuation. String
+     * literals are kept as a single quote mark, quoted identifiers lose their
+     * quotes and comments are dropped.
+     *
+     * @param sql the SQL
+     * @return the tokens in order
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                int end = i + 1;
+                while (end < length && sql.charAt(end) != c) {
+                    end += sql.charAt(end) == '\\' ? 2 : 1;
+                }
+                tokens.add(c == '\'' ? "'" : sql.substring(i + 1, Math.min(end, length)));
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_'
+                        || sql.charAt(end) == '.' || sql.charAt(end) == '$')) {
+                    end++;
+                }
+                tokens.add(sql.substring(i, end));
+                i = end;
+            } else if ((c == '<' || c == '>' || c == '!') && i + 1 < length
+                    && (sql.charAt(i + 1) == '=' || c == '<' && sql.charAt(i + 1) == '>')) {
+                tokens.add(sql.substring(i, i + 2));
+                i += 2;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Finds the controller method that ran the statement, by walking the stack.
+     * Controllers query through lambdas on database threads, so a lambda is named
+     * after the method it was written in.
+     *
+     * @return the class and method, or the first caller outside the persistence
+     *         layer and the JDK when no controller is on the stack
+     */
+    private static String findCaller() {
+        return StackWalker.getInstance().walk(frames -> {
+            String fallback = "unknown";
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (className.startsWith(CONTROLLER_PACKAGE)) {
+                    return describe(frame);
+                }
+                if ("unknown".equals(fallback) && !isInternal(className)) {
+                    fallback = describe(frame);
+                }
+            }
+            return fallback;
+        });
+    }
+
+    /**
+     * Checks whether a class belongs to the persistence layer, the JDK or a driver.
+     *
+     * @param className the fully qualified class name
+     * @return true if it is not application code above the persistence layer
+     */
+    private static boolean isInternal(String className) {
+        return className.startsWith("Persistance.") || className.startsWith("java.")
+            || className.startsWith("javax.") || className.startsWith("jdk.") || className.startsWith("sun.")
+            || className.startsWith("com.sun.") || className.startsWith("com.mysql.")
+            || className.startsWith("org.h2.") || className.startsWith("$Proxy") || className.contains(".$Proxy");
+    }
+
+    /**
+     * Names a stack frame by its simple class name and method, with lambdas named
+     * after their enclosing method.
+     *
+     * @param frame the frame
+     * @return the class and method
+     */
+    private static String describe(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        if (nested > 0) {
+            simpleName = simpleName.substring(0, nested);
+        }
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            method = method.substring("lambda$".length(), end > 0 ? end : method.length());
+        }
+        return simpleName + "." + method;
+    }
+
+    /**
+     * Explains a slow statement if asked to and appends it to the log. Runs on the
+     * writer thread.
+     *
+     * @param query       the statement
+     * @param explainPool the pool to run EXPLAIN on
+     */
+    private void write(SlowQuery query, ConnectionPool explainPool) {
+        StringBuilder entry = new StringBuilder(512);
+        entry.append(query.loggedAt).append(String.format(Locale.ROOT,
+            " %,.1f ms in the database (executed in %,.1f ms, rows read in %,.1f ms), %,.1f ms until closed, ",
+            (query.executeNanos + query.fetchNanos) / 1_000_000.0, query.executeNanos / 1_000_000.0,
+            query.fetchNanos / 1_000_000.0, query.totalNanos / 1_000_000.0));
+        entry.append(query.rows < 0 ? "? rows" : String.format(Locale.ROOT, "%,d rows", query.rows));
+        entry.append(", caller ").append(query.caller).append(", thread ").append(query.thread).append(System.lineSeparator());
+        entry.append("    SQL: ").append(truncate(query.sql == null ? "" : query.sql.trim(), MAX_SQL_LENGTH)).append(System.lineSeparator());
+        if (query.parameters.length > 0) {
+            entry.append("    Parameters: ").append(formatParameters(query.parameters));
+            if (query.batchSize > 1) {
+                entry.append(" (last of a batch of ").append(query.batchSize).append(')');
+            }
+            entry.append(System.lineSeparator());
+        }
+        if (query.error != null) {
+            entry.append("    Failed: ").append(query.error).append(System.lineSeparator());
+        }
+        if (EXPLAIN && explainPool != null && isSelect(query.sql)) {
+            for (String line : explain(query, explainPool)) {
+                entry.append("    Plan: ").append(line).append(System.lineSeparator());
+            }
+        }
+        long droppedSince = dropped.get() - droppedReported;
+        if (droppedSince > 0) {
+            entry.append("    (").append(droppedSince).append(" earlier slow statements were dropped)")
+                .append(System.lineSeparator());
+            droppedReported += droppedSince;
+        }
+        try {
+            append(entry.toString());
+            logged.incrementAndGet();
+        } catch (IOException e) {
+            System.out.println("Could not write to the slow query log " + file + ". Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs EXPLAIN on a slow query with the parameters it ran with.
+     *
+     * @param query       the query
+     * @param explainPool the pool to borrow a connection from
+     * @return one line per row of the plan, or the reason it could not be explained
+     */
+    private static List<String> explain(SlowQuery query, ConnectionPool explainPool) {
+        List<String> plan = new ArrayList<>();
+        try (Connection conn = explainPool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + query.sql)) {
+            for (int i = 0; i < query.parameters.length; i++) {
+                pstmt.setObject(i + 1, query.parameters[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData columns = rs.getMetaData();
+                while (rs.next()) {
+                    StringBuilder row = new StringBuilder();
+                    for (int i = 1; i <= columns.getColumnCount(); i++) {
+                        Object value = rs.getObject(i);
+                        if (value != null) {
+                            if (row.length() > 0) {
+                                row.append(", ");
+                            }
+                            row.append(columns.getColumnLabel(i)).append('=').append(value.toString().trim());
+                        }
+                    }
+                    plan.add(row.toString().replaceAll("\\s*\\R\\s*", " "));
+                }
+            }
+        } catch (SQLException e) {
+            plan.add("unavailable, " + e.getMessage());
+        }
+        return plan;
+    }
+
+    /**
+     * Checks whether a statement is a query that EXPLAIN can be run on without side effects.
+     *
+     * @param sql the statement's SQL
+     * @return true if it is a SELECT
+     */
+    private static boolean isSelect(String sql) {
+        return sql != null && sql.trim().regionMatches(true, 0, "SELECT", 0, 6);
+    }
+
+    /**
+     * Formats bound parameter values for the log, quoting text.
+     *
+     * @param parameters the values
+     * @return the values in brackets
+     */
+    private static String formatParameters(Object[] parameters) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            Object value = parameters[i];
+            if (value == null) {
+                text.append("NULL");
+            } else if (value instanceof CharSequence) {
+                text.append('\'').append(truncate(value.toString(), MAX_VALUE_LENGTH).replace("'", "''")).append('\'');
+            } else if (value instanceof byte[]) {
+                text.append("<").append(((byte[]) value).length).append(" bytes>");
+            } else {
+                text.append(truncate(value.toString(), MAX_VALUE_LENGTH));
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * Cuts text short, marking where it was cut.
+     *
+     * @param text      the text
+     * @param maxLength the most characters to keep
+     * @return the text, shortened if needed
+     */
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength) + "...";
+    }
+
+    /**
+     * Appends an entry to the log, rotating the log first if the entry would take it
+     * past its maximum size.
+     *
+     * @param entry the entry
+     * @throws IOException if the log cannot be written
+     */
+    private void append(String entry) throws IOException {
+        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+        if (out == null) {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            fileBytes = Files.exists(file) ? Files.size(file) : 0;
+            open();
+        }
+        if (fileBytes > 0 && fileBytes + bytes.length > MAX_FILE_BYTES) {
+            rotate();
+        }
+        out.write(entry);
+        out.flush();
+        fileBytes += bytes.length;
+    }
+
+    /**
+     * Opens the log file for appending.
+     *
+     * @throws IOException if it cannot be opened
+     */
+    private void open() throws IOException {
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Moves the current log to .1, each older log up one number, drops the oldest
+     * and starts a new log.
+     *
+     * @throws IOException if the files cannot be moved
+     */
+    private void rotate() throws IOException {
+        out.close();
+        if (MAX_FILES > 0) {
+            Files.deleteIfExists(rotated(MAX_FILES));
+            for (int i = MAX_FILES - 1; i >= 1; i--) {
+                if (Files.exists(rotated(i))) {
+                    Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        fileBytes = 0;
+        open();
+    }
+
+    /**
+     * Gets the path of an old log.
+     *
+     * @param number the log's number, 1 being the newest
+     * @return the path
+     */
+    private Path rotated(int number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    /**
+     * A slow statement waiting to be written to the log.
+     */
+    private static final class SlowQuery {
+        private final LocalDateTime loggedAt;
+        private final String sql;
+        private final Object[] parameters;
+        private final int batchSize;
+        private final long rows;
+        private final long executeNanos;
+        private final long fetchNanos;
+        private final long totalNanos;
+        private final String caller;
+        private final String thread;
+        private final String error;
+
+        private SlowQuery(LocalDateTime loggedAt, String sql, Object[] parameters, int batchSize, long rows,
+                long executeNanos, long fetchNanos, long totalNanos, String caller, String thread, String error) {
+            this.loggedAt = loggedAt;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.batchSize = batchSize;
+            this.rows = rows;
+            this.executeNanos = executeNanos;
+            this.fetchNanos = fetchNanos;
+            this.totalNanos = totalNanos;
+            this.caller = caller;
+            this.thread = thread;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+-- Initial Disaster Response System schema.
+-- Uses IF NOT EXISTS so databases created before migrations were introduced
+-- are adopted as version 1 without changes.
+
+CREATE TABLE IF NOT EXISTS users (
+    userID INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password VARCHAR(50) NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    fullName VARCHAR(100) NOT NULL,
+    gender INT,
+    dateOfBirth DATE,
+    phoneNumber VARCHAR(20),
+    address VARCHAR(200),
+    email VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS resources (
+    resourceID INT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    quantity INT NOT NULL,
+    status VARCHAR(20) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS disaster_reports (
+    reportID INT AUTO_INCREMENT PRIMARY KEY,
+    disasterType VARCHAR(50) NOT NULL,
+    location VARCHAR(100) NOT NULL,
+    severity INT NOT NULL,
+    description TEXT,
+    timeStamp DATETIME NOT NULL,
+    status VARCHAR(20) DEFAULT 'Active'
+);
+
+CREATE TABLE IF NOT EXISTS resource_allocations (
+    allocationID INT AUTO_INCREMENT PRIMARY KEY,
+    resourceID INT,
+    disasterID INT,
+    quantity INT NOT NULL,
+    FOREIGN KEY (resourceID) REFERENCES resources(resourceID),
+    FOREIGN KEY (disasterID) REFERENCES disaster_reports(reportID)
+);
+
+CREATE TABLE IF NOT EXISTS agencies (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    type VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS agency_assignments (
+    assignmentID INT AUTO_INCREMENT PRIMARY KEY,
+    agencyID INT,
+    disasterID INT,
+    assignmentDate DATETIME DEFAULT CURRENT_TIMESTAMP,
+    status VARCHAR(20) DEFAULT 'Assigned',
+    FOREIGN KEY (agencyID) REFERENCES agencies(id),
+    FOREIGN KEY (disasterID) REFERENCES disaster_reports(reportID)
+);
+
+-- Insert default agencies if the table is empty
+INSERT INTO agencies (name, type)
+SELECT seed.name, seed.type FROM (
+    SELECT 'Fire Department' AS name, 'Emergency' AS type
+    UNION ALL SELECT 'Police', 'Law Enforcement'
+    UNION ALL SELECT 'Medical Services', 'Healthcare'
+    UNION ALL SELECT 'Red Cross', 'Humanitarian'
+) AS seed
+WHERE NOT EXISTS (SELECT 1 FROM agencies);
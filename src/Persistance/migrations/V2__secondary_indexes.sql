@@ -0,0 +1,21 @@
+-- Secondary indexes for the hot query paths in DisasterDatabaseConn.
+-- InnoDB appends the primary key to every secondary index, so an index on
+-- (disasterType) also covers "SELECT reportID ... WHERE disasterType = ?".
+
+-- getActiveDisasterReports: WHERE status = ? ORDER BY severity DESC, timeStamp DESC
+CREATE INDEX idx_reports_status_severity_time ON disaster_reports (status, severity, timeStamp);
+
+-- getDisasterIdByType: WHERE disasterType = ? ORDER BY reportID LIMIT 1
+CREATE INDEX idx_reports_type ON disaster_reports (disasterType);
+
+-- getResourcesByType: WHERE type = ?
+CREATE INDEX idx_resources_type ON resources (type);
+
+-- getAllRoles: SELECT DISTINCT role resolved as a loose index scan
+CREATE INDEX idx_users_role ON users (role);
+
+-- getResourcesAllocatedToDisaster: covering index for the allocation side of the join
+CREATE INDEX idx_allocations_disaster_resource ON resource_allocations (disasterID, resourceID, quantity);
+
+-- getAgenciesAssignedToDisaster: lookup by disaster, then join on agency
+CREATE INDEX idx_assignments_disaster_agency ON agency_assignments (disasterID, agencyID);
@@ -0,0 +1,18 @@
+-- Running totals of the quantity allocated to each disaster per resource type,
+-- kept up to date inside every allocation transaction so dashboards read a
+-- single row per type instead of joining the allocation history.
+
+CREATE TABLE IF NOT EXISTS disaster_allocation_totals (
+    disasterID INT NOT NULL,
+    resourceType VARCHAR(50) NOT NULL,
+    quantity INT NOT NULL,
+    PRIMARY KEY (disasterID, resourceType),
+    FOREIGN KEY (disasterID) REFERENCES disaster_reports(reportID)
+);
+
+-- Backfill from the allocations made before the totals existed
+INSERT INTO disaster_allocation_totals (disasterID, resourceType, quantity)
+SELECT ra.disasterID, r.type, SUM(ra.quantity)
+FROM resource_allocations ra
+JOIN resources r ON r.resourceID = ra.resourceID
+GROUP BY ra.disasterID, r.type;
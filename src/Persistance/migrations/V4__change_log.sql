@@ -0,0 +1,15 @@
+-- Change capture for incremental refreshes. Every write records the rows it
+-- touched here in the same transaction. REPLACE gives a row a new version each
+-- time it changes, so the table holds only the latest change of each row and
+-- clients read just the rows changed since the version they last synced to.
+
+CREATE TABLE IF NOT EXISTS change_log (
+    version BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tableName VARCHAR(50) NOT NULL,
+    rowID INT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    changedAt DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- One row per changed row, which is also what REPLACE matches on
+CREATE UNIQUE INDEX uq_change_log_row ON change_log (tableName, rowID);
@@ -0,0 +1,5 @@
+-- Full-text index for searchDisasterReports, matched in boolean mode against the
+-- words of a report's description and location. MySQL only: H2 has no FULLTEXT
+-- indexes, so the embedded backend searches an in-process index instead.
+
+CREATE FULLTEXT INDEX ft_reports_text ON disaster_reports (description, location);
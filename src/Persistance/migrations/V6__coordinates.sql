@@ -0,0 +1,17 @@
+-- Optional coordinates of disaster reports and of the depots resources are held
+-- at, for proximity lookups. Each point's geohash is stored next to it: nearby
+-- points share a geohash prefix, so the B-tree index on it groups them on every
+-- backend. A MySQL SPATIAL index would need a NOT NULL POINT column, which
+-- optional coordinates cannot have, and H2 has no spatial indexes.
+
+ALTER TABLE disaster_reports ADD COLUMN latitude DOUBLE;
+ALTER TABLE disaster_reports ADD COLUMN longitude DOUBLE;
+ALTER TABLE disaster_reports ADD COLUMN geohash VARCHAR(12);
+
+ALTER TABLE resources ADD COLUMN latitude DOUBLE;
+ALTER TABLE resources ADD COLUMN longitude DOUBLE;
+ALTER TABLE resources ADD COLUMN geohash VARCHAR(12);
+
+-- Loading the proximity indexes: WHERE geohash IS NOT NULL ORDER BY geohash
+CREATE INDEX idx_reports_geohash ON disaster_reports (geohash);
+CREATE INDEX idx_resources_geohash ON resources (geohash);
@@ -0,0 +1,46 @@
+-- Cold tier for resolved disaster reports. The archiver moves reports that are no
+-- longer Active and older than drs.archive.ageDays here in batches, together with
+-- their allocations and agency assignments, so the live tables only hold current
+-- incidents. Only history queries read these tables. Partitioning disaster_reports
+-- by timeStamp instead is not possible: MySQL does not partition tables that
+-- foreign keys refer to. The archive tables keep the original IDs and have no
+-- foreign keys, so rows can be moved without touching anything else.
+
+CREATE TABLE IF NOT EXISTS disaster_reports_archive (
+    reportID INT PRIMARY KEY,
+    disasterType VARCHAR(50) NOT NULL,
+    location VARCHAR(100) NOT NULL,
+    severity INT NOT NULL,
+    description TEXT,
+    timeStamp DATETIME NOT NULL,
+    status VARCHAR(20),
+    latitude DOUBLE,
+    longitude DOUBLE,
+    geohash VARCHAR(12),
+    archivedAt DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS resource_allocations_archive (
+    allocationID INT PRIMARY KEY,
+    resourceID INT,
+    disasterID INT,
+    quantity INT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS agency_assignments_archive (
+    assignmentID INT PRIMARY KEY,
+    agencyID INT,
+    disasterID INT,
+    assignmentDate DATETIME,
+    status VARCHAR(20)
+);
+
+-- Archiver: WHERE status <> 'Active' AND timeStamp < ? ORDER BY timeStamp, oldest first
+CREATE INDEX idx_reports_time ON disaster_reports (timeStamp);
+
+-- getDisasterReportHistory: WHERE timeStamp >= ? AND timeStamp < ? on both tiers
+CREATE INDEX idx_reports_archive_time ON disaster_reports_archive (timeStamp);
+
+-- Archived allocations and assignments are looked up by the disaster they belonged to
+CREATE INDEX idx_allocations_archive_disaster ON resource_allocations_archive (disasterID);
+CREATE INDEX idx_assignments_archive_disaster ON agency_assignments_archive (disasterID);
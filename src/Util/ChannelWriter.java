@@ -0,0 +1,163 @@
+package Util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes text to a byte channel as UTF-8. Characters are collected in a buffer
+ * and encoded straight into a direct byte buffer that is handed to the channel
+ * when full, so writing a large file costs one channel write per buffer and no
+ * per-call copying. Characters that cannot be encoded, such as unpaired
+ * surrogates, are replaced.
+ *
+ * Like other writers, a ChannelWriter is not safe for use by several threads.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class ChannelWriter extends Writer {
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private boolean closed;
+
+    /**
+     * Constructs a new ChannelWriter.
+     *
+     * @param channel    the channel to write to, closed with this writer
+     * @param bufferSize the number of characters buffered before they are encoded and written
+     */
+    public ChannelWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize * 3);
+    }
+
+    /**
+     * Writes one character.
+     *
+     * @param c the character
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void write(int c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put((char) c);
+    }
+
+    /**
+     * Writes part of an array of characters.
+     *
+     * @param text   the characters
+     * @param offset the index of the first character to write
+     * @param length the number of characters to write
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void write(char[] text, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int count = Math.min(length, chars.remaining());
+            chars.put(text, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes part of a string without copying it to an array first.
+     *
+     * @param text   the string
+     * @param offset the index of the first character to write
+     * @param length the number of characters to write
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int count = Math.min(length, chars.remaining());
+            chars.put(text, offset, offset + count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Encodes the buffered characters and writes the bytes to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        encode(false);
+        drain();
+    }
+
+    /**
+     * Writes out the buffered characters and closes the channel.
+     *
+     * @throws IOException if the channel cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            encode(true);
+            while (encoder.flush(bytes) == CoderResult.OVERFLOW) {
+                drain();
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the buffered characters into the byte buffer, writing it to the channel
+     * whenever it fills. A high surrogate at the end of the buffer is kept back until
+     * its pair arrives, unless this is the end of the input.
+     *
+     * @param endOfInput whether no more characters will be written
+     * @throws IOException if the channel cannot be written
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (encoder.encode(chars, bytes, endOfInput) == CoderResult.OVERFLOW) {
+            drain();
+        }
+        chars.compact();
+    }
+
+    /**
+     * Writes the encoded bytes to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,185 @@
+package Util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads CSV records as described by RFC 4180, with the first line naming the
+ * fields. Fields may be quoted, and quoted fields may contain commas, line breaks
+ * and doubled quotes. Lines may end with CRLF, LF or CR, blank lines are skipped
+ * and a leading byte order mark is ignored. Empty fields are left out of the
+ * records.
+ *
+ * The input is read through a buffer of its own, so the reader passed in does
+ * not need to be buffered.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class CsvReader implements RecordReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END = -1;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private final String[] header;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    /**
+     * Constructs a new CsvReader and reads the header line.
+     *
+     * @param in the CSV text
+     * @throws IOException if the header cannot be read
+     */
+    public CsvReader(Reader in) throws IOException {
+        this.in = in;
+        if (peek() == '\uFEFF') {
+            position++;
+        }
+        List<String> names = readRecord();
+        header = names == null ? new String[0] : new String[names.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = names.get(i).trim();
+        }
+    }
+
+    /**
+     * Gets the field names from the header line.
+     *
+     * @return the field names, in file order
+     */
+    public List<String> getHeader() {
+        return List.of(header);
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record's non-empty fields by name, or null at the end of the file
+     * @throws MalformedRecordException if the record does not have one value per header field
+     * @throws IOException              if the file cannot be read or a quoted field is never closed
+     */
+    @Override
+    public Map<String, String> next() throws IOException {
+        List<String> values;
+        do {
+            values = readRecord();
+        } while (values != null && values.size() == 1 && values.get(0).isEmpty());
+        if (values == null) {
+            return null;
+        }
+        if (values.size() != header.length) {
+            throw new MalformedRecordException("Expected " + header.length + " fields but found " + values.size()
+                    + " on line " + (line - 1));
+        }
+        Map<String, String> record = new HashMap<>(header.length * 2);
+        for (int i = 0; i < header.length; i++) {
+            if (!values.get(i).isEmpty()) {
+                record.put(header[i], values.get(i));
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Reads the fields of one line, which may span several physical lines when a
+     * quoted field contains line breaks.
+     *
+     * @return the fields, or null at the end of the file
+     * @throws IOException if the text cannot be read or a quoted field is never closed
+     */
+    private List<String> readRecord() throws IOException {
+        if (peek() == END) {
+            return null;
+        }
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        long startLine = line;
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        position++;
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == END) {
+                    throw new IOException("Unterminated quoted field starting on line " + startLine);
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == '\n' || c == '\r' || c == END) {
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the character, or END at the end of the text
+     * @throws IOException if the text cannot be read
+     */
+    private int read() throws IOException {
+        int c = peek();
+        if (c != END) {
+            position++;
+        }
+        return c;
+    }
+
+    /**
+     * Looks at the next character without reading it, refilling the buffer when it
+     * is used up.
+     *
+     * @return the character, or END at the end of the text
+     * @throws IOException if the text cannot be read
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            int count = in.read(buffer, 0, buffer.length);
+            if (count <= 0) {
+                return END;
+            }
+            position = 0;
+            limit = count;
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,111 @@
+package Util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes CSV records as described by RFC 4180, starting with a header line of
+ * field names, in the form {@link CsvReader} reads back. A value is quoted only
+ * when it contains a comma, quote or line break or starts or ends with a space,
+ * and quotes inside it are doubled. Lines end with LF.
+ *
+ * The writer passed in should be buffered, as values are written to it piece by
+ * piece.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public final class CsvWriter implements RecordWriter {
+    private final Writer out;
+    private final int fieldCount;
+
+    /**
+     * Constructs a new CsvWriter and writes the header line.
+     *
+     * @param out    the writer to write the CSV text to, closed with this writer
+     * @param fields the field names
+     * @throws IOException if the header cannot be written
+     */
+    public CsvWriter(Writer out, List<String> fields) throws IOException {
+        this.out = out;
+        this.fieldCount = fields.size();
+        write(fields.toArray());
+    }
+
+    /**
+     * Writes a record as one line.
+     *
+     * @param values the record's values, in field order
+     * @throws IOException if the text cannot be written
+     */
+    @Override
+    public void write(Object... values) throws IOException {
+        if (values.length != fieldCount) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " values but got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                writeValue(values[i].toString());
+            }
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes one value, quoting it if needed.
+     *
+     * @param value the value's text
+     * @throws IOException if the text cannot be written
+     */
+    private void writeValue(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', start)) {
+            out.write(value, start, quote + 1 - start);
+            out.write('"');
+            start = quote + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    /**
+     * Checks whether a value must be quoted to be read back unchanged.
+     *
+     * @param value the value's text
+     * @return true if it has a comma, quote or line break, or a leading or trailing space
+     */
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        if (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes out any buffered text and closes the underlying writer.
+     *
+     * @throws IOException if the text cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
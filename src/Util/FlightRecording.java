@@ -0,0 +1,96 @@
+package Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Starts a continuous Java Flight Recorder recording of the application when it
+ * is launched with -Ddrs.jfr.record=true. The recording uses the JDK's default
+ * low-overhead settings together with the bundled disasterresponse.jfc, which
+ * turns on the application's own events: database queries, view loads and button
+ * handlers.
+ *
+ * Only the last drs.jfr.maxAgeMinutes, and at most drs.jfr.maxSizeMb, are kept.
+ * They are written to drs.jfr.file when the application exits, and can be dumped
+ * from a running application with jcmd &lt;pid&gt; JFR.dump name=drs filename=&lt;file&gt;.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public final class FlightRecording {
+    private static final boolean ENABLED = Boolean.getBoolean("drs.jfr.record");
+    private static final String FILE = System.getProperty("drs.jfr.file",
+        System.getProperty("user.home") + File.separator + ".drs" + File.separator + "disasterresponse.jfr");
+    private static final long MAX_AGE_MINUTES = Long.getLong("drs.jfr.maxAgeMinutes", 30L);
+    private static final long MAX_SIZE_MB = Long.getLong("drs.jfr.maxSizeMb", 100L);
+    private static final String SETTINGS = "disasterresponse.jfc";
+    private static final String RECORDING_NAME = "drs";
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts the recording if the application was launched with drs.jfr.record=true.
+     * A recording that cannot be started is reported and the application runs on
+     * without it.
+     *
+     * @return the running recording, or null if recording is off or failed to start
+     */
+    public static Recording startIfEnabled() {
+        if (!ENABLED) {
+            return null;
+        }
+        try {
+            Recording recording = new Recording(loadSettings());
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(MAX_AGE_MINUTES));
+            recording.setMaxSize(MAX_SIZE_MB * 1024 * 1024);
+            Path destination = Paths.get(FILE);
+            if (destination.getParent() != null) {
+                Files.createDirectories(destination.getParent());
+            }
+            recording.setDestination(destination);
+            recording.setDumpOnExit(true);
+            recording.start();
+            return recording;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.out.println("Flight recording could not be started. Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Combines the JDK's default settings with the bundled application settings,
+     * which take precedence.
+     *
+     * @return the event settings
+     * @throws IOException    if the settings cannot be read
+     * @throws ParseException if the settings are not valid
+     */
+    private static Map<String, String> loadSettings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (InputStream in = FlightRecording.class.getResourceAsStream(SETTINGS)) {
+            if (in == null) {
+                throw new IOException("Missing " + SETTINGS);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,104 @@
+package Util;
+
+/**
+ * Geohash encoding and great-circle distances for latitude/longitude points.
+ *
+ * A geohash interleaves the bits of a point's longitude and latitude, halving the
+ * range of each in turn, and writes them five bits to a character. Points that
+ * share a prefix lie in the same cell, so sorting or indexing by geohash keeps
+ * nearby points together; each character makes the cell 32 times smaller.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public final class GeoHash {
+    /**
+     * The mean radius of the Earth, in kilometres.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int MAX_PRECISION = 12;
+
+    /**
+     * Not instantiable.
+     */
+    private GeoHash() {
+    }
+
+    /**
+     * Checks whether a latitude and longitude are a point on the Earth.
+     *
+     * @param latitude  the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @return true if the latitude is within [-90, 90] and the longitude within [-180, 180]
+     */
+    public static boolean isValid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    /**
+     * Encodes a point as a geohash.
+     *
+     * @param latitude  the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @param precision the number of characters, from 1 to 12
+     * @return the geohash of the cell containing the point
+     * @throws IllegalArgumentException if the point is not valid or the precision is out of range
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (!isValid(latitude, longitude)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be from 1 to " + MAX_PRECISION);
+        }
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean lonBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                index <<= 1;
+                if (lonBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (longitude >= mid) {
+                        index |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (latitude >= mid) {
+                        index |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                lonBit = !lonBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * Calculates the great-circle distance between two points with the haversine
+     * formula.
+     *
+     * @param latitude1  the latitude of the first point in degrees
+     * @param longitude1 the longitude of the first point in degrees
+     * @param latitude2  the latitude of the second point in degrees
+     * @param longitude2 the longitude of the second point in degrees
+     * @return the distance in kilometres
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLat = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLon = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,542 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory proximity index over points on the Earth, answering nearest-K and
+ * within-radius queries without measuring the distance to every point.
+ *
+ * Points are bucketed in a grid whose cells are those of 5-character geohashes,
+ * about 4.9 km by 4.9 km at the equator and narrower towards the poles, kept in a
+ * hash map keyed by cell so only occupied cells take memory. A within-radius query
+ * visits the cells overlapping the circle's bounding box; a nearest-K query visits
+ * rings of cells around the query point until no point outside the rings can be
+ * closer than the K-th found. When a query would visit more cells than are
+ * occupied, it visits the occupied cells instead, skipping those too far away.
+ *
+ * Queries share a read lock and run concurrently; updates take the write lock.
+ *
+ * @param <T> the type of the values stored with the points
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class GeoIndex<T> {
+    // 12 latitude bits and 13 longitude bits, as in a 5-character geohash
+    private static final int LAT_CELLS = 1 << 12;
+    private static final int LON_CELLS = 1 << 13;
+    private static final double CELL_DEGREES = 180.0 / LAT_CELLS;
+    // Rings wider than this would wrap around the grid onto columns already visited
+    private static final int MAX_RING = LON_CELLS / 4;
+
+    private final IntObjectMap<Cell<T>> cells = new IntObjectMap<>();
+    private final IntObjectMap<Entry<T>> entries = new IntObjectMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes a point, replacing whatever was indexed under its ID before.
+     *
+     * @param id        the ID of the point
+     * @param latitude  the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @param value     the value to return for the point
+     * @throws IllegalArgumentException if the coordinates are not valid
+     */
+    public void put(int id, double latitude, double longitude, T value) {
+        if (!GeoHash.isValid(latitude, longitude)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+        Entry<T> entry = new Entry<>(id, latitude, longitude, value, cellKey(row(latitude), column(longitude)));
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            Cell<T> cell = cells.get(entry.cellKey);
+            if (cell == null) {
+                cell = new Cell<>(entry.cellKey);
+                cells.put(entry.cellKey, cell);
+            }
+            cell.add(entry);
+            entries.put(id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a point from the index.
+     *
+     * @param id the ID of the point
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of points indexed.
+     *
+     * @return the number of points
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the points nearest to a location.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param count     the maximum number of points to return
+     * @return the values of the nearest points, nearest first
+     */
+    public List<T> nearest(double latitude, double longitude, int count) {
+        if (count <= 0 || !GeoHash.isValid(latitude, longitude)) {
+            return new ArrayList<>();
+        }
+        Nearest<T> nearest = new Nearest<>(latitude, longitude, count);
+        int row = row(latitude);
+        int column = column(longitude);
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; ; ring++) {
+                if (ring > MAX_RING || 8L * ring > cells.size()) {
+                    for (Cell<T> cell : cells.values()) {
+                        if (ringOf(cell.key, row, column) >= ring
+                                && (!nearest.isFull() || cellDistanceKm(cell.key, latitude, longitude) < nearest.farthestKm())) {
+                            nearest.offerAll(cell);
+                        }
+                    }
+                    break;
+                }
+                visitRing(row, column, ring, nearest);
+                if (nearest.isFull() && nearest.farthestKm() <= distanceOutsideKm(latitude, longitude, row, column, ring)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return nearest.values();
+    }
+
+    /**
+     * Finds the points within a distance of a location.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param radiusKm  the distance in kilometres
+     * @return the values of the points within the distance, nearest first
+     */
+    public List<T> within(double latitude, double longitude, double radiusKm) {
+        if (!(radiusKm >= 0) || !GeoHash.isValid(latitude, longitude)) {
+            return new ArrayList<>();
+        }
+        List<Candidate<T>> found = new ArrayList<>();
+        double radiusDegrees = Math.toDegrees(radiusKm / GeoHash.EARTH_RADIUS_KM);
+        int row = row(latitude);
+        int column = column(longitude);
+        int firstRow = Math.max(0, row - (int) Math.ceil(radiusDegrees / CELL_DEGREES));
+        int lastRow = Math.min(LAT_CELLS - 1, row + (int) Math.ceil(radiusDegrees / CELL_DEGREES));
+        int columns = LON_CELLS;
+        double sinRadius = Math.sin(radiusKm / GeoHash.EARTH_RADIUS_KM);
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        if (Math.abs(latitude) + radiusDegrees < 90 && radiusDegrees < 90 && sinRadius < cosLatitude) {
+            // The widest longitude span of the circle, reached away from the query's latitude
+            double halfWidth = Math.toDegrees(Math.asin(sinRadius / cosLatitude));
+            columns = Math.min(LON_CELLS, 2 * (int) Math.ceil(halfWidth / CELL_DEGREES) + 1);
+        }
+        lock.readLock().lock();
+        try {
+            if ((long) (lastRow - firstRow + 1) * columns > cells.size()) {
+                for (Cell<T> cell : cells.values()) {
+                    if (cellDistanceKm(cell.key, latitude, longitude) <= radiusKm) {
+                        collectWithin(cell, latitude, longitude, radiusKm, found);
+                    }
+                }
+            } else {
+                int firstColumn = column - columns / 2;
+                for (int r = firstRow; r <= lastRow; r++) {
+                    for (int c = firstColumn; c < firstColumn + columns; c++) {
+                        Cell<T> cell = cells.get(cellKey(r, Math.floorMod(c, LON_CELLS)));
+                        if (cell != null) {
+                            collectWithin(cell, latitude, longitude, radiusKm, found);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort(Candidate.NEAREST_FIRST);
+        List<T> values = new ArrayList<>(found.size());
+        for (Candidate<T> candidate : found) {
+            values.add(candidate.entry.value);
+        }
+        return values;
+    }
+
+    /**
+     * Removes a point from its cell and from the index, dropping the cell once it is
+     * empty. The write lock must be held.
+     *
+     * @param id the ID of the point
+     */
+    private void removeEntry(int id) {
+        Entry<T> entry = entries.remove(id);
+        if (entry != null) {
+            Cell<T> cell = cells.get(entry.cellKey);
+            if (cell.remove(entry) == 0) {
+                cells.remove(entry.cellKey);
+            }
+        }
+    }
+
+    /**
+     * Offers the points of the cells in one ring around a cell: those whose row or
+     * column is exactly the given number of cells away from it.
+     *
+     * @param row     the row of the centre cell
+     * @param column  the column of the centre cell
+     * @param ring    the distance of the ring in cells
+     * @param nearest the points found so far
+     */
+    private void visitRing(int row, int column, int ring, Nearest<T> nearest) {
+        for (int r = row - ring; r <= row + ring; r++) {
+            if (r < 0 || r >= LAT_CELLS) {
+                continue;
+            }
+            int step = ring == 0 || r == row - ring || r == row + ring ? 1 : 2 * ring;
+            for (int c = column - ring; c <= column + ring; c += step) {
+                Cell<T> cell = cells.get(cellKey(r, Math.floorMod(c, LON_CELLS)));
+                if (cell != null) {
+                    nearest.offerAll(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the points of a cell that lie within a distance of a location.
+     *
+     * @param cell      the cell
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param radiusKm  the distance in kilometres
+     * @param found     the list to add the points to
+     */
+    private static <T> void collectWithin(Cell<T> cell, double latitude, double longitude, double radiusKm,
+            List<Candidate<T>> found) {
+        for (int i = 0; i < cell.size; i++) {
+            Entry<T> entry = cell.entries[i];
+            double distance = GeoHash.distanceKm(latitude, longitude, entry.latitude, entry.longitude);
+            if (distance <= radiusKm) {
+                found.add(new Candidate<>(entry, distance));
+            }
+        }
+    }
+
+    /**
+     * Gets a lower bound on the distance from a location to any point outside the
+     * square of cells within a number of rings of the location's cell.
+     *
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @param row       the row of the location's cell
+     * @param column    the column of the location's cell
+     * @param ring      the number of rings around the cell
+     * @return the distance in kilometres, infinite if the rings cover every cell
+     */
+    private static double distanceOutsideKm(double latitude, double longitude, int row, int column, int ring) {
+        double bound = Double.POSITIVE_INFINITY;
+        if (row - ring > 0) {
+            bound = Math.min(bound, latitudeGapKm(latitude - ((row - ring) * CELL_DEGREES - 90)));
+        }
+        if (row + ring + 1 < LAT_CELLS) {
+            bound = Math.min(bound, latitudeGapKm((row + ring + 1) * CELL_DEGREES - 90 - latitude));
+        }
+        double offset = longitudeInGrid(longitude) - column * CELL_DEGREES;
+        double gap = Math.min(offset + ring * CELL_DEGREES, (ring + 1) * CELL_DEGREES - offset);
+        return Math.min(bound, longitudeGapKm(latitude, gap));
+    }
+
+    /**
+     * Gets a lower bound on the distance from a location to any point in a cell.
+     *
+     * @param key       the key of the cell
+     * @param latitude  the latitude of the location in degrees
+     * @param longitude the longitude of the location in degrees
+     * @return the distance in kilometres, 0 if the location is in the cell
+     */
+    private static double cellDistanceKm(int key, double latitude, double longitude) {
+        double south = (key / LON_CELLS) * CELL_DEGREES - 90;
+        double west = (key % LON_CELLS) * CELL_DEGREES;
+        double x = longitudeInGrid(longitude);
+        double latitudeGap = latitude < south ? south - latitude
+                : latitude > south + CELL_DEGREES ? latitude - south - CELL_DEGREES : 0;
+        double longitudeGap = x >= west && x <= west + CELL_DEGREES ? 0
+                : Math.min(floorMod360(west - x), floorMod360(x - west - CELL_DEGREES));
+        return Math.max(latitudeGapKm(latitudeGap), longitudeGapKm(latitude, longitudeGap));
+    }
+
+    /**
+     * Converts a difference in latitude to the distance it spans.
+     *
+     * @param degrees the difference in degrees
+     * @return the distance in kilometres
+     */
+    private static double latitudeGapKm(double degrees) {
+        return Math.toRadians(degrees) * GeoHash.EARTH_RADIUS_KM;
+    }
+
+    /**
+     * Gets the shortest distance from a location to a meridian a given longitude
+     * away. Every point at least that far away in longitude is at least that far.
+     *
+     * @param latitude the latitude of the location in degrees
+     * @param degrees  the difference in longitude in degrees
+     * @return the distance in kilometres
+     */
+    private static double longitudeGapKm(double latitude, double degrees) {
+        double sinGap = Math.sin(Math.toRadians(Math.min(degrees, 90)));
+        return Math.asin(Math.cos(Math.toRadians(latitude)) * sinGap) * GeoHash.EARTH_RADIUS_KM;
+    }
+
+    /**
+     * Gets the number of rings a cell is away from another, wrapping around in
+     * longitude.
+     *
+     * @param key    the key of the cell
+     * @param row    the row of the other cell
+     * @param column the column of the other cell
+     * @return the larger of the row and column distances
+     */
+    private static int ringOf(int key, int row, int column) {
+        int columns = Math.abs(key % LON_CELLS - column);
+        return Math.max(Math.abs(key / LON_CELLS - row), Math.min(columns, LON_CELLS - columns));
+    }
+
+    /**
+     * Gets the row of the cells containing a latitude.
+     *
+     * @param latitude the latitude in degrees
+     * @return the row, from 0 at the south pole
+     */
+    private static int row(double latitude) {
+        return Math.min(LAT_CELLS - 1, (int) ((latitude + 90) / CELL_DEGREES));
+    }
+
+    /**
+     * Gets the column of the cells containing a longitude.
+     *
+     * @param longitude the longitude in degrees
+     * @return the column, from 0 at the antimeridian
+     */
+    private static int column(double longitude) {
+        return Math.min(LON_CELLS - 1, (int) (longitudeInGrid(longitude) / CELL_DEGREES));
+    }
+
+    /**
+     * Measures a longitude eastwards from the antimeridian, so 180 and -180 are
+     * the same place.
+     *
+     * @param longitude the longitude in degrees
+     * @return the longitude in degrees, from 0 up to 360
+     */
+    private static double longitudeInGrid(double longitude) {
+        return longitude >= 180 ? 0 : longitude + 180;
+    }
+
+    /**
+     * Reduces an angle to the range from 0 up to 360 degrees.
+     *
+     * @param degrees the angle in degrees
+     * @return the equivalent angle from 0 up to 360
+     */
+    private static double floorMod360(double degrees) {
+        double reduced = degrees % 360;
+        return reduced < 0 ? reduced + 360 : reduced;
+    }
+
+    /**
+     * Gets the key of a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return the key
+     */
+    private static int cellKey(int row, int column) {
+        return row * LON_CELLS + column;
+    }
+
+    /**
+     * An indexed point.
+     *
+     * @param <T> the type of the value stored with the point
+     */
+    private static final class Entry<T> {
+        private final int id;
+        private final double latitude;
+        private final double longitude;
+        private final T value;
+        private final int cellKey;
+
+        private Entry(int id, double latitude, double longitude, T value, int cellKey) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.value = value;
+            this.cellKey = cellKey;
+        }
+    }
+
+    /**
+     * The points in one cell of the grid, in an array that grows as needed.
+     *
+     * @param <T> the type of the values stored with the points
+     */
+    private static final class Cell<T> {
+        private final int key;
+        private Entry<T>[] entries;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private Cell(int key) {
+            this.key = key;
+            entries = (Entry<T>[]) new Entry<?>[4];
+        }
+
+        /**
+         * Adds a point to the cell.
+         *
+         * @param entry the point
+         */
+        private void add(Entry<T> entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        /**
+         * Removes a point from the cell, moving the last point into its place.
+         *
+         * @param entry the point
+         * @return the number of points left in the cell
+         */
+        private int remove(Entry<T> entry) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] == entry) {
+                    entries[i] = entries[--size];
+                    entries[size] = null;
+                    break;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * A point found by a query and its distance from the query's location.
+     *
+     * @param <T> the type of the value stored with the point
+     */
+    private static final class Candidate<T> {
+        // Nearest first, then by ID so equally distant points come in a stable order
+        private static final Comparator<Candidate<?>> NEAREST_FIRST =
+            Comparator.<Candidate<?>>comparingDouble(candidate -> candidate.distanceKm)
+                .thenComparingInt(candidate -> candidate.entry.id);
+
+        private final Entry<T> entry;
+        private final double distanceKm;
+
+        private Candidate(Entry<T> entry, double distanceKm) {
+            this.entry = entry;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    /**
+     * The nearest points found so far by a nearest-K query, held in a heap with
+     * the farthest of them on top so it is the one replaced by a nearer point.
+     *
+     * @param <T> the type of the values stored with the points
+     */
+    private static final class Nearest<T> {
+        private final double latitude;
+        private final double longitude;
+        private final int count;
+        private final PriorityQueue<Candidate<T>> heap;
+
+        private Nearest(double latitude, double longitude, int count) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            heap = new PriorityQueue<>(Math.min(count, 1024), Candidate.NEAREST_FIRST.reversed());
+        }
+
+        /**
+         * Checks whether as many points as requested have been found.
+         *
+         * @return true if the heap is full
+         */
+        private boolean isFull() {
+            return heap.size() == count;
+        }
+
+        /**
+         * Gets the distance of the farthest point kept.
+         *
+         * @return the distance in kilometres
+         */
+        private double farthestKm() {
+            return heap.peek().distanceKm;
+        }
+
+        /**
+         * Offers every point of a cell, keeping it if it is among the nearest so far.
+         *
+         * @param cell the cell
+         */
+        private void offerAll(Cell<T> cell) {
+            for (int i = 0; i < cell.size; i++) {
+                Entry<T> entry = cell.entries[i];
+                Candidate<T> candidate = new Candidate<>(entry,
+                    GeoHash.distanceKm(latitude, longitude, entry.latitude, entry.longitude));
+                if (heap.size() < count) {
+                    heap.add(candidate);
+                } else if (Candidate.NEAREST_FIRST.compare(candidate, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(candidate);
+                }
+            }
+        }
+
+        /**
+         * Gets the values of the points kept.
+         *
+         * @return the values, nearest first
+         */
+        private List<T> values() {
+            List<Candidate<T>> sorted = new ArrayList<>(heap);
+            sorted.sort(Candidate.NEAREST_FIRST);
+            List<T> values = new ArrayList<>(sorted.size());
+            for (Candidate<T> candidate : sorted) {
+                values.add(candidate.entry.value);
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hash map from primitive int keys to object values using open addressing with
+ * linear probing. Keys are stored in a plain int array, so lookups neither box the
+ * key nor follow a pointer to an entry object, which keeps large ID-keyed tables
+ * compact and cache friendly compared with a HashMap&lt;Integer, V&gt;.
+ *
+ * Null values are not allowed; an empty slot is marked by a null value. The map is
+ * not thread-safe, so callers sharing it between threads must lock around it.
+ *
+ * @param <V> the type of the mapped values
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class IntObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs a new, empty IntObjectMap.
+     */
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty IntObjectMap sized for the expected number of entries.
+     *
+     * @param expectedSize the number of entries expected to be stored
+     */
+    public IntObjectMap(int expectedSize) {
+        // Kept at most half full so probe sequences stay short
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Gets the value mapped to a key.
+     *
+     * @param key the key to look up
+     * @return the mapped value, or null if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key the key to look up
+     * @return true if the key is mapped to a value
+     */
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     *
+     * @param key   the key
+     * @param value the value, which must not be null
+     * @return the previous value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap does not allow null values");
+        }
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > values.length) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key.
+     *
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        V removed = (V) values[slot];
+        // Shift later entries of the probe sequence back so no tombstone is needed
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return the map size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map has no entries.
+     *
+     * @return true if the map is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the keys in ascending order.
+     *
+     * @return a new array holding every key
+     */
+    public int[] sortedKeys() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                result[count++] = keys[slot];
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Gets the values in no particular order.
+     *
+     * @return a new list holding every value
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the slot holding a key.
+     *
+     * @param key the key to find
+     * @return the slot index, or -1 if the key is not present
+     */
+    private int slotOf(int key) {
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Spreads the bits of a key so sequential IDs do not cluster in adjacent slots.
+     *
+     * @param key the key
+     * @return the mixed hash
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Replaces the tables with empty ones of the given capacity.
+     *
+     * @param capacity the new capacity, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Moves every entry into tables of a new capacity.
+     *
+     * @param capacity the new capacity, a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != null) {
+                put(oldKeys[slot], (V) oldValues[slot]);
+            }
+        }
+    }
+}
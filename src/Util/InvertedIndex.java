@@ -0,0 +1,425 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory full-text index from words to the int IDs of the documents that
+ * contain them, answering ranked keyword queries without scanning the documents.
+ *
+ * Words are runs of letters and digits, lower-cased, of at least two characters.
+ * Each word keeps its postings, the sorted IDs of the documents containing it with
+ * the number of times it occurs. A query matches documents containing every one
+ * of its words, and its last word can be matched as a prefix so results follow
+ * the user while they type. Matches are ranked by tf-idf: a word counts for more
+ * the more often it occurs in a document and the fewer documents contain it.
+ *
+ * Searches share a read lock and run concurrently; indexing takes the write lock.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class InvertedIndex {
+    private static final int MIN_WORD_LENGTH = 2;
+
+    // Words in sorted order, so the words starting with a prefix are one range
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    // The distinct words of each document, to find its postings when it is removed
+    private final IntObjectMap<String[]> documentWords = new IntObjectMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes a document, replacing whatever was indexed under its ID before.
+     *
+     * @param docId  the document ID
+     * @param fields the text of the document, in any number of fields; null fields are skipped
+     */
+    public void put(int docId, String... fields) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String field : fields) {
+            for (String word : tokenize(field)) {
+                counts.merge(word, 1, Integer::sum);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(docId);
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                words.computeIfAbsent(count.getKey(), word -> new Postings()).add(docId, count.getValue());
+            }
+            documentWords.put(docId, counts.keySet().toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param docId the document ID
+     */
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document's postings. The write lock must be held.
+     *
+     * @param docId the document ID
+     */
+    private void removeDocument(int docId) {
+        String[] previous = documentWords.remove(docId);
+        if (previous == null) {
+            return;
+        }
+        for (String word : previous) {
+            Postings postings = words.get(word);
+            postings.remove(docId);
+            if (postings.size == 0) {
+                words.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of documents indexed.
+     *
+     * @return the document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentWords.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the documents containing every word of a query, best match first.
+     * The documents of the word with the fewest matches are scored first and the
+     * other words are then looked up for just those documents, so the cost depends
+     * on how selective the query is rather than on the number of documents. As the
+     * candidates come in ID order, each lookup carries on from where the previous
+     * one stopped.
+     *
+     * @param query          the words to search for
+     * @param prefixLastWord whether the last word also matches longer words starting with it
+     * @param limit          the maximum number of IDs to return
+     * @return the IDs of the matching documents ordered by descending score, then
+     *         descending ID; empty if the query has no words
+     */
+    public int[] search(String query, boolean prefixLastWord, int limit) {
+        List<String> queryWords = tokenize(query);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            int documentCount = documentWords.size();
+            List<Collection<Postings>> groups = new ArrayList<>();
+            for (int i = 0; i < queryWords.size(); i++) {
+                String word = queryWords.get(i);
+                Collection<Postings> group;
+                if (prefixLastWord && i == queryWords.size() - 1) {
+                    group = words.subMap(word, true, word + Character.MAX_VALUE, true).values();
+                } else {
+                    Postings postings = words.get(word);
+                    group = postings == null ? List.of() : List.of(postings);
+                }
+                if (group.isEmpty()) {
+                    return new int[0];
+                }
+                groups.add(group);
+            }
+            groups.sort((a, b) -> Long.compare(totalSize(a), totalSize(b)));
+
+            // Packed as score bits then document ID, so the heap orders by score and
+            // then ID, and its head is the weakest match kept so far
+            PriorityQueue<Long> best = new PriorityQueue<>(limit + 1);
+            ScoredDocuments candidates = score(groups.get(0), documentCount);
+            Cursor[] cursors = new Cursor[groups.size()];
+            for (int g = 1; g < groups.size(); g++) {
+                cursors[g] = new Cursor(groups.get(g), documentCount);
+            }
+            for (int i = 0; i < candidates.size; i++) {
+                int docId = candidates.docIds[i];
+                float score = candidates.scores[i];
+                for (int g = 1; g < groups.size() && score > 0; g++) {
+                    float wordScore = cursors[g].scoreOf(docId);
+                    score = wordScore > 0 ? score + wordScore : 0;
+                }
+                if (score > 0) {
+                    long ranked = ((long) Float.floatToIntBits(score) << 32) | docId;
+                    if (best.size() < limit) {
+                        best.add(ranked);
+                    } else if (ranked > best.peek()) {
+                        best.poll();
+                        best.add(ranked);
+                    }
+                }
+            }
+            int[] ranked = new int[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = (int) best.poll().longValue();
+            }
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether a query ends inside a word, as it does while the user is still
+     * typing that word, in which case the word is best matched as a prefix.
+     *
+     * @param query the query, may be null
+     * @return true if the last character is a letter or digit
+     */
+    public static boolean endsInWord(String query) {
+        return query != null && !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+    }
+
+    /**
+     * Splits text into the words the index holds.
+     *
+     * @param text the text, may be null
+     * @return the lower-cased words of at least two characters, in order
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_WORD_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Scores every document of a group of postings, adding up the scores of the
+     * words a document matches more than once.
+     *
+     * @param group         the postings of the words one query word matched
+     * @param documentCount the number of documents indexed
+     * @return the documents in ID order with their scores
+     */
+    private static ScoredDocuments score(Collection<Postings> group, int documentCount) {
+        if (group.size() == 1) {
+            Postings postings = group.iterator().next();
+            float idf = idf(postings, documentCount);
+            ScoredDocuments scored = new ScoredDocuments(postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                scored.add(postings.docIds[i], tf(postings.counts[i]) * idf);
+            }
+            return scored;
+        }
+        // Sorting packed document ID and score bits lines up each document's entries
+        long[] entries = new long[(int) totalSize(group)];
+        int n = 0;
+        for (Postings postings : group) {
+            float idf = idf(postings, documentCount);
+            for (int i = 0; i < postings.size; i++) {
+                entries[n++] = ((long) postings.docIds[i] << 32) | Float.floatToIntBits(tf(postings.counts[i]) * idf);
+            }
+        }
+        Arrays.sort(entries);
+        ScoredDocuments scored = new ScoredDocuments(entries.length);
+        for (long entry : entries) {
+            int docId = (int) (entry >>> 32);
+            float score = Float.intBitsToFloat((int) entry);
+            if (scored.size > 0 && scored.docIds[scored.size - 1] == docId) {
+                scored.scores[scored.size - 1] += score;
+            } else {
+                scored.add(docId, score);
+            }
+        }
+        return scored;
+    }
+
+    /**
+     * Weighs the number of times a word occurs in a document, with diminishing returns.
+     *
+     * @param count the number of occurrences
+     * @return the term frequency weight
+     */
+    private static float tf(int count) {
+        return 1 + (float) Math.log(count);
+    }
+
+    /**
+     * Weighs a word by how rare it is among the documents.
+     *
+     * @param postings      the word's postings
+     * @param documentCount the number of documents indexed
+     * @return the inverse document frequency weight, always positive
+     */
+    private static float idf(Postings postings, int documentCount) {
+        return (float) Math.log(1 + (double) documentCount / postings.size);
+    }
+
+    /**
+     * Adds up the number of postings in a group.
+     *
+     * @param group the postings
+     * @return the total number of documents listed
+     */
+    private static long totalSize(Collection<Postings> group) {
+        long total = 0;
+        for (Postings postings : group) {
+            total += postings.size;
+        }
+        return total;
+    }
+
+    /**
+     * The documents containing one word, in ID order, with the number of times the
+     * word occurs in each. Documents are usually indexed in ID order, so adding one
+     * is normally an append.
+     */
+    private static final class Postings {
+        private int[] docIds = new int[4];
+        private int[] counts = new int[4];
+        private int size;
+
+        /**
+         * Adds a document that is not listed yet.
+         *
+         * @param docId the document ID
+         * @param count the number of occurrences
+         */
+        private void add(int docId, int count) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            int index = size == 0 || docIds[size - 1] < docId
+                ? size : -Arrays.binarySearch(docIds, 0, size, docId) - 1;
+            System.arraycopy(docIds, index, docIds, index + 1, size - index);
+            System.arraycopy(counts, index, counts, index + 1, size - index);
+            docIds[index] = docId;
+            counts[index] = count;
+            size++;
+        }
+
+        /**
+         * Removes a document if it is listed.
+         *
+         * @param docId the document ID
+         */
+        private void remove(int docId) {
+            int index = Arrays.binarySearch(docIds, 0, size, docId);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(docIds, index + 1, docIds, index, size - index - 1);
+            System.arraycopy(counts, index + 1, counts, index, size - index - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Scores documents in increasing ID order against a group of postings, keeping a
+     * position in each so a lookup only searches the part not yet passed.
+     */
+    private static final class Cursor {
+        private final Postings[] postings;
+        private final float[] idfs;
+        private final int[] positions;
+
+        /**
+         * Constructs a cursor at the start of each postings of a group.
+         *
+         * @param group         the postings of the words one query word matched
+         * @param documentCount the number of documents indexed
+         */
+        private Cursor(Collection<Postings> group, int documentCount) {
+            postings = group.toArray(new Postings[0]);
+            idfs = new float[postings.length];
+            positions = new int[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                idfs[i] = idf(postings[i], documentCount);
+            }
+        }
+
+        /**
+         * Scores a document, which must have a higher ID than the one scored before.
+         *
+         * @param docId the document ID
+         * @return the document's score, 0 if it contains none of the words
+         */
+        private float scoreOf(int docId) {
+            float score = 0;
+            for (int i = 0; i < postings.length; i++) {
+                Postings list = postings[i];
+                int from = positions[i];
+                // Gallop ahead to bracket the ID, then binary search within the bracket
+                int step = 1;
+                while (from + step < list.size && list.docIds[from + step] < docId) {
+                    from += step;
+                    step <<= 1;
+                }
+                int index = Arrays.binarySearch(list.docIds, from, Math.min(from + step + 1, list.size), docId);
+                positions[i] = index >= 0 ? index : -index - 1;
+                if (index >= 0) {
+                    score += tf(list.counts[index]) * idfs[i];
+                }
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Documents in ID order with a score for each.
+     */
+    private static final class ScoredDocuments {
+        private final int[] docIds;
+        private final float[] scores;
+        private int size;
+
+        /**
+         * Constructs an empty list with room for the given number of documents.
+         *
+         * @param capacity the maximum number of documents
+         */
+        private ScoredDocuments(int capacity) {
+            docIds = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        /**
+         * Appends a document.
+         *
+         * @param docId the document ID
+         * @param score its score
+         */
+        private void add(int docId, float score) {
+            docIds[size] = docId;
+            scores[size] = score;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package Util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes records as JSON Lines: one JSON object per line, with a member for each
+ * field, in the form {@link JsonRecordReader} reads back. Null values are written
+ * as JSON nulls, and numbers that JSON cannot represent, such as NaN, as nulls too.
+ *
+ * The writer passed in should be buffered, as values are written to it piece by
+ * piece.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class JsonLinesWriter implements RecordWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final String[] names;
+
+    /**
+     * Constructs a new JsonLinesWriter.
+     *
+     * @param out    the writer to write the JSON text to, closed with this writer
+     * @param fields the field names
+     */
+    public JsonLinesWriter(Writer out, List<String> fields) {
+        this.out = out;
+        this.names = new String[fields.size()];
+        // Member names are the same on every line, so they are escaped once
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            name.setLength(0);
+            name.append(i == 0 ? "{" : ",");
+            appendString(name, fields.get(i));
+            names[i] = name.append(':').toString();
+        }
+    }
+
+    /**
+     * Writes a record as one line.
+     *
+     * @param values the record's values, in field order
+     * @throws IOException if the text cannot be written
+     */
+    @Override
+    public void write(Object... values) throws IOException {
+        if (values.length != names.length) {
+            throw new IllegalArgumentException("Expected " + names.length + " values but got " + values.length);
+        }
+        if (values.length == 0) {
+            out.write("{}\n");
+            return;
+        }
+        StringBuilder line = new StringBuilder(128);
+        for (int i = 0; i < values.length; i++) {
+            line.append(names[i]);
+            appendValue(line, values[i]);
+        }
+        out.append(line).append("}\n");
+    }
+
+    /**
+     * Appends one value as JSON.
+     *
+     * @param json  the text to append to
+     * @param value the value
+     */
+    private static void appendValue(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Double number && (number.isNaN() || number.isInfinite())) {
+            json.append("null");
+        } else if (value instanceof Float number && (number.isNaN() || number.isInfinite())) {
+            json.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    /**
+     * Appends a string as a quoted JSON string, escaping quotes, backslashes and
+     * control characters.
+     *
+     * @param json  the text to append to
+     * @param value the string
+     */
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Writes out any buffered text and closes the underlying writer.
+     *
+     * @throws IOException if the text cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,372 @@
+package Util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads records from JSON text holding either one array of objects or a sequence
+ * of objects, one per line as in JSON Lines. Each object is one record and its
+ * members must be flat: strings, numbers and booleans are returned as text,
+ * nulls are left out, and a record with a nested object or array is skipped as
+ * malformed.
+ *
+ * The input is read through a buffer of its own, so the reader passed in does
+ * not need to be buffered.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class JsonRecordReader implements RecordReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END = -1;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private final StringBuilder text = new StringBuilder();
+    private boolean started;
+    private boolean inArray;
+    private boolean finished;
+    private int recordsRead;
+
+    /**
+     * Constructs a new JsonRecordReader.
+     *
+     * @param in the JSON text
+     */
+    public JsonRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record's non-null members by name, or null at the end of the text
+     * @throws MalformedRecordException if the object has a nested value
+     * @throws IOException              if the text cannot be read or is not valid JSON
+     */
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!started) {
+            started = true;
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+            if (skipWhitespace() == '[') {
+                position++;
+                inArray = true;
+            }
+        }
+        int c = skipWhitespace();
+        if (inArray) {
+            if (c == ']') {
+                position++;
+                return finish();
+            }
+            if (recordsRead > 0) {
+                expect(',');
+                c = skipWhitespace();
+            }
+        } else if (c == END) {
+            finished = true;
+            return null;
+        }
+        if (c != '{') {
+            throw error("Expected an object");
+        }
+        position++;
+        recordsRead++;
+        return readObject();
+    }
+
+    /**
+     * Ends the records after the closing bracket of the array, checking nothing but
+     * whitespace follows.
+     *
+     * @return null, as there are no more records
+     * @throws IOException if anything follows the array
+     */
+    private Map<String, String> finish() throws IOException {
+        finished = true;
+        if (skipWhitespace() != END) {
+            throw error("Unexpected text after the array");
+        }
+        return null;
+    }
+
+    /**
+     * Reads the members of an object whose opening brace has been read. A nested
+     * value is skipped so the rest of the object is still consumed, and the record
+     * is then reported as malformed.
+     *
+     * @return the non-null members by name
+     * @throws IOException if the object is malformed
+     */
+    private Map<String, String> readObject() throws IOException {
+        Map<String, String> record = new HashMap<>();
+        String nested = null;
+        if (skipWhitespace() == '}') {
+            position++;
+            return record;
+        }
+        while (true) {
+            if (skipWhitespace() != '"') {
+                throw error("Expected a member name");
+            }
+            position++;
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            int c = skipWhitespace();
+            if (c == '{' || c == '[') {
+                skipNested();
+                if (nested == null) {
+                    nested = name;
+                }
+            } else {
+                String value = readValue();
+                if (value != null) {
+                    record.put(name, value);
+                }
+            }
+            c = skipWhitespace();
+            read();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+        if (nested != null) {
+            throw new MalformedRecordException("Nested value for \"" + nested + "\" in record ending on line " + line);
+        }
+        return record;
+    }
+
+    /**
+     * Reads a string, number, boolean or null.
+     *
+     * @return the value as text, or null for a JSON null
+     * @throws IOException if the value is malformed
+     */
+    private String readValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            position++;
+            return readString();
+        }
+        text.setLength(0);
+        while (c != END && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+            text.append((char) c);
+            position++;
+            c = peek();
+        }
+        String literal = text.toString();
+        switch (literal) {
+            case "null":
+                return null;
+            case "true":
+            case "false":
+                return literal;
+            default:
+                if (literal.isEmpty() || !isNumber(literal)) {
+                    throw error("Invalid value '" + literal + "'");
+                }
+                return literal;
+        }
+    }
+
+    /**
+     * Checks whether text is a JSON number.
+     *
+     * @param literal the text
+     * @return true if it is a number
+     */
+    private static boolean isNumber(String literal) {
+        return literal.matches("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+    }
+
+    /**
+     * Reads the rest of a string whose opening quote has been read.
+     *
+     * @return the unescaped string
+     * @throws IOException if the string is never closed or has an invalid escape
+     */
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == END || c == '\n') {
+                throw error("Unterminated string");
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            c = read();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    text.append((char) c);
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    text.append(readHexChar());
+                    break;
+                default:
+                    throw error("Invalid escape in string");
+            }
+        }
+    }
+
+    /**
+     * Reads the four hex digits of a \\u escape.
+     *
+     * @return the escaped character
+     * @throws IOException if the digits are not hex
+     */
+    private char readHexChar() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw error("Invalid unicode escape in string");
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    /**
+     * Skips a nested object or array, including any strings inside it.
+     *
+     * @throws IOException if the text ends inside it
+     */
+    private void skipNested() throws IOException {
+        int depth = 0;
+        do {
+            int c = read();
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c == '"') {
+                readString();
+            } else if (c == END) {
+                throw error("Unexpected end of text");
+            } else if (c == '\n') {
+                line++;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Reads a character that must come next.
+     *
+     * @param expected the character
+     * @throws IOException if a different character comes next
+     */
+    private void expect(char expected) throws IOException {
+        if (read() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    /**
+     * Skips whitespace and looks at the character after it.
+     *
+     * @return the next character that is not whitespace, or END at the end of the text
+     * @throws IOException if the text cannot be read
+     */
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == '\n') {
+                line++;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the character, or END at the end of the text
+     * @throws IOException if the text cannot be read
+     */
+    private int read() throws IOException {
+        int c = peek();
+        if (c != END) {
+            position++;
+        }
+        return c;
+    }
+
+    /**
+     * Looks at the next character without reading it, refilling the buffer when it
+     * is used up.
+     *
+     * @return the character, or END at the end of the text
+     * @throws IOException if the text cannot be read
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            int count = in.read(buffer, 0, buffer.length);
+            if (count <= 0) {
+                return END;
+            }
+            position = 0;
+            limit = count;
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Creates the error for invalid JSON, after which the rest of the text cannot be read.
+     *
+     * @param message what was wrong
+     * @return the exception to throw
+     */
+    private IOException error(String message) {
+        finished = true;
+        return new IOException("Invalid JSON on line " + line + ": " + message);
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,170 @@
+package Util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of latencies in nanoseconds, laid out like HdrHistogram:
+ * values below 128 ns each have a bucket of their own, and above that every
+ * power-of-two range is split into 64 equal buckets, so any recorded value is
+ * kept to within 1.6% however large it is. Values from one nanosecond up to
+ * about 68 seconds are tracked; longer ones are counted in the top bucket.
+ *
+ * Recording is a few atomic updates to fixed arrays, with no locking and no
+ * allocation, so it can sit on the path of every database call. Reads run
+ * alongside recording and see each bucket's count at some point during the read,
+ * which is exact enough for monitoring.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_VALUE_BITS = 36;
+    private static final long MAX_TRACKABLE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_TRACKABLE)));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Gets the largest latency recorded.
+     *
+     * @return the maximum in nanoseconds, 0 if none were recorded
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the mean latency.
+     *
+     * @return the mean in nanoseconds, 0 if none were recorded
+     */
+    public double getMeanNanos() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalNanos.get() / count;
+    }
+
+    /**
+     * Gets the latency at or below which a percentage of the recorded latencies fall.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the latency in nanoseconds, rounded up to the top of its bucket and
+     *         never more than the maximum recorded; 0 if none were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Clears every recorded latency.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * Describes the histogram in milliseconds, for logs.
+     *
+     * @return the count, mean, main percentiles and maximum
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, p99.9=%.3fms, max=%.3fms",
+                getCount(), getMeanNanos() / 1_000_000.0, millis(getValueAtPercentile(50)),
+                millis(getValueAtPercentile(99)), millis(getValueAtPercentile(99.9)), millis(getMaxNanos()));
+    }
+
+    /**
+     * Finds the bucket a value is counted in.
+     *
+     * @param value the value, from 0 to MAX_TRACKABLE
+     * @return the bucket index
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Shift so the value's top SUB_BUCKET_BITS bits pick a sub-bucket in the upper half
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + subBucket - SUB_BUCKET_HALF;
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     *
+     * @param index the bucket index
+     * @return the value
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = SUB_BUCKET_HALF + (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
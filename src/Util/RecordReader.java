@@ -0,0 +1,43 @@
+package Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads the records of a data file one at a time, so files of any size can be
+ * processed in constant memory. Each record maps field names to values; fields
+ * that are absent, or null in the file, are not in the map.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public interface RecordReader extends Closeable {
+    /**
+     * Reads the next record.
+     *
+     * @return the record's fields by name, or null when there are no more records
+     * @throws MalformedRecordException if the record is malformed; it has been skipped
+     *                                  and reading can continue with the next one
+     * @throws IOException              if the file cannot be read or is malformed beyond
+     *                                  recovery
+     */
+    Map<String, String> next() throws IOException;
+
+    /**
+     * Thrown for a record that is malformed on its own, such as a CSV line with the
+     * wrong number of fields, when the records after it can still be read.
+     */
+    class MalformedRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs a new MalformedRecordException.
+         *
+         * @param message what is wrong with the record
+         */
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes records to a data file one at a time, each record holding one value per
+ * field named when the writer was created. Values are written as follows: null as
+ * a missing value, numbers and booleans as themselves, and anything else as the
+ * text of its toString method, so dates are written in ISO 8601 form.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public interface RecordWriter extends Closeable {
+    /**
+     * Writes a record.
+     *
+     * @param values the record's values, in field order
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if there is not one value per field
+     */
+    void write(Object... values) throws IOException;
+}
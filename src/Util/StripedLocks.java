@@ -0,0 +1,85 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out between int keys, so work on the same key is
+ * serialised while work on different keys usually runs in parallel. Two keys share a
+ * lock only when they hash to the same stripe, and more stripes make that rarer
+ * without creating a lock per key.
+ *
+ * @author Sagar Bhujel
+ * student id 12256739
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Constructs a new StripedLocks.
+     *
+     * @param stripeCount the number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding a key.
+     *
+     * @param key the key
+     * @return the lock of the key's stripe
+     */
+    public ReentrantLock get(int key) {
+        return stripes[stripe(key)];
+    }
+
+    /**
+     * Gets the locks guarding several keys, each lock once and in stripe order. Keys
+     * in ascending order can still hash to stripes in any order, so threads that
+     * take several locks must take them in the order returned here to never deadlock.
+     *
+     * @param keys the keys
+     * @return the locks of the keys' stripes
+     */
+    public List<ReentrantLock> getAll(int... keys) {
+        BitSet used = new BitSet(stripes.length);
+        for (int key : keys) {
+            used.set(stripe(key));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(used.cardinality());
+        for (int i = used.nextSetBit(0); i >= 0; i = used.nextSetBit(i + 1)) {
+            locks.add(stripes[i]);
+        }
+        return locks;
+    }
+
+    /**
+     * Gets the number of stripes.
+     *
+     * @return the stripe count
+     */
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Gets the index of the stripe a key hashes to.
+     *
+     * @param key the key
+     * @return the stripe index
+     */
+    private int stripe(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}